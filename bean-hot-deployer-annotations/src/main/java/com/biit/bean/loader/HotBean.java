@@ -32,4 +32,19 @@ import java.lang.annotation.RetentionPolicy;
 public @interface HotBean {
 	// Highest priority are loaded first.
 	int priority() default 0;
+
+	// Names of the hot beans (canonical class names) that must be created
+	// before this one. Beans autowired by fields or methods are also added.
+	String[] dependsOn() default {};
+
+	// Lazy beans are only created if they are used.
+	Instantiation instantiation() default Instantiation.DEFAULT;
+
+	// Prototype and pooled beans are registered as a factory of instances.
+	// Lazy instantiation is ignored on them.
+	BeanScope scope() default BeanScope.SINGLETON;
+
+	// Maximum number of idle instances kept by a pooled bean. Zero uses the
+	// 'bean.pool.size' setting.
+	int poolSize() default 0;
 }
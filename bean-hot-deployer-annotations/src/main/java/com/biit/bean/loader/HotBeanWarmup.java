@@ -0,0 +1,45 @@
+package com.biit.bean.loader;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Annotations)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Method of a hot bean that is called repeatedly after the bean is created and
+ * before it is available, to the bean loader or to other beans of the context,
+ * so its code is already compiled when the first requests arrive. Beans in a
+ * circular dependency are available to the context before. The method must
+ * not have parameters. Only used if 'bean.warmup.enabled' is set.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface HotBeanWarmup {
+	// Maximum number of calls. Zero uses the 'bean.warmup.iterations' setting.
+	int iterations() default 0;
+
+	// Maximum time calling the method, in milliseconds. Zero uses the
+	// 'bean.warmup.duration' setting.
+	long duration() default 0;
+}
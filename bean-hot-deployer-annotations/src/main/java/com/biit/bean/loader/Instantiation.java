@@ -0,0 +1,37 @@
+package com.biit.bean.loader;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Annotations)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+/**
+ * When a hot bean is created.
+ */
+public enum Instantiation {
+	// Uses the 'bean.lazy.instantiation' setting.
+	DEFAULT,
+
+	// Created and autowired when its jar is deployed.
+	EAGER,
+
+	// A proxy is registered when its jar is deployed. The bean is created and
+	// autowired the first time a method of the proxy is called.
+	LAZY;
+}
@@ -0,0 +1,61 @@
+package com.biit.bean.loader.benchmark;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Benchmarks)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.Closeable;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.biit.bean.loader.BeanLoader;
+
+/**
+ * Spring context with a bean loader that is not subscribed to any folder.
+ */
+public class BenchmarkContext implements Closeable {
+	private final AnnotationConfigApplicationContext applicationContext;
+
+	public BenchmarkContext() {
+		applicationContext = new AnnotationConfigApplicationContext();
+		applicationContext.refresh();
+	}
+
+	/**
+	 * Creates a new bean loader. Only autowired, so the deploy folder of the
+	 * settings is not loaded.
+	 *
+	 * @return the loader.
+	 */
+	public BeanLoader createBeanLoader() {
+		BeanLoader beanLoader = new BeanLoader();
+		applicationContext.getAutowireCapableBeanFactory().autowireBean(beanLoader);
+		return beanLoader;
+	}
+
+	public AnnotationConfigApplicationContext getApplicationContext() {
+		return applicationContext;
+	}
+
+	@Override
+	public void close() {
+		applicationContext.close();
+	}
+}
@@ -0,0 +1,86 @@
+package com.biit.bean.loader.benchmark;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Benchmarks)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.biit.bean.loader.BeanLoader;
+import com.biit.bean.loader.HotBean;
+
+/**
+ * Searches hot beans on contexts with different number of beans.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+// Needed by BeanLoader.isClassLoaded() since Java 16.
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.lang=ALL-UNNAMED")
+@State(Scope.Benchmark)
+public class LookupBenchmark {
+
+	@Param({ "100", "1000", "10000" })
+	private int classes;
+
+	private BenchmarkContext context;
+	private BeanLoader beanLoader;
+
+	@Setup(Level.Trial)
+	public void loadBeans() throws IOException {
+		context = new BenchmarkContext();
+		beanLoader = context.createBeanLoader();
+		beanLoader.loadBeansFromJar(HotBean.class, SyntheticJarGenerator.getJar(classes).toString(), SyntheticJarGenerator.getPacket(classes));
+	}
+
+	@Benchmark
+	public Set<BenchmarkBean> getLoadedBeansOfType() {
+		return beanLoader.getLoadedBeansOfType(BenchmarkBean.class);
+	}
+
+	@Benchmark
+	public Collection<Object> getLoadedBeansWithAnnotation() {
+		return beanLoader.getLoadedBeansWithAnnotation(HotBean.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void closeContext() {
+		context.getApplicationContext().getAutowireCapableBeanFactory().destroyBean(beanLoader);
+		context.close();
+	}
+}
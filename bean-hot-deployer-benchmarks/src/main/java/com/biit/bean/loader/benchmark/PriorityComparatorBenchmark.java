@@ -0,0 +1,88 @@
+package com.biit.bean.loader.benchmark;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Benchmarks)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.biit.bean.loader.comparator.HotBeanPriorityComparator;
+
+/**
+ * Sorts the classes of a synthetic jar by priority.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PriorityComparatorBenchmark {
+	private final static long SEED = 42;
+
+	@Param({ "100", "1000", "10000" })
+	private int classes;
+
+	private URLClassLoader classLoader;
+	private List<Class<?>> shuffledClasses;
+
+	@Setup(Level.Trial)
+	public void loadClasses() throws IOException, ClassNotFoundException {
+		classLoader = new URLClassLoader(new URL[] { SyntheticJarGenerator.getJar(classes).toUri().toURL() }, getClass().getClassLoader());
+		shuffledClasses = new ArrayList<>();
+		for (int i = 0; i < classes; i++) {
+			shuffledClasses.add(classLoader.loadClass(SyntheticJarGenerator.getPacket(classes) + ".Synthetic" + i));
+		}
+		Collections.shuffle(shuffledClasses, new Random(SEED));
+	}
+
+	@Benchmark
+	public List<Class<?>> sort() {
+		List<Class<?>> beans = new ArrayList<>(shuffledClasses);
+		Collections.sort(beans, new HotBeanPriorityComparator());
+		return beans;
+	}
+
+	@TearDown(Level.Trial)
+	public void closeClassLoader() throws IOException {
+		classLoader.close();
+	}
+}
@@ -0,0 +1,122 @@
+package com.biit.bean.loader.benchmark;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Benchmarks)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.biit.bean.loader.BeanLoader;
+import com.biit.bean.loader.HotBean;
+
+/**
+ * Complete cycles of deploying a jar again: replacing a deployed jar by a new
+ * version, and adding and removing a jar.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+// Needed by BeanLoader.isClassLoaded() since Java 16.
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.lang=ALL-UNNAMED")
+@State(Scope.Benchmark)
+public class RedeployBenchmark {
+
+	@Param({ "100", "1000", "10000" })
+	private int classes;
+
+	private BenchmarkContext context;
+	private String pathToJar;
+	private String packet;
+	private BeanLoader deployedBeanLoader;
+
+	@Setup(Level.Trial)
+	public void deployJar() throws IOException {
+		context = new BenchmarkContext();
+		pathToJar = SyntheticJarGenerator.getJar(classes).toString();
+		packet = SyntheticJarGenerator.getPacket(classes);
+		deployedBeanLoader = context.createBeanLoader();
+		deployedBeanLoader.loadBeansFromJar(HotBean.class, pathToJar, packet);
+	}
+
+	/**
+	 * Bean loader without any jar, used for the add and remove cycle. Uses its
+	 * own context, as the beans of the jar already exist on the other one.
+	 */
+	@State(Scope.Thread)
+	public static class EmptyBeanLoader {
+		private BenchmarkContext context;
+		private BeanLoader beanLoader;
+
+		@Setup(Level.Trial)
+		public void createContext() {
+			context = new BenchmarkContext();
+		}
+
+		@Setup(Level.Invocation)
+		public void createBeanLoader() {
+			beanLoader = context.createBeanLoader();
+		}
+
+		@TearDown(Level.Invocation)
+		public void destroyBeanLoader() {
+			context.getApplicationContext().getAutowireCapableBeanFactory().destroyBean(beanLoader);
+		}
+
+		@TearDown(Level.Trial)
+		public void closeContext() {
+			context.close();
+		}
+	}
+
+	@Benchmark
+	public BeanLoader replace() {
+		deployedBeanLoader.replaceBeansFromJar(HotBean.class, pathToJar, packet);
+		return deployedBeanLoader;
+	}
+
+	@Benchmark
+	public BeanLoader addAndRemove(EmptyBeanLoader emptyBeanLoader) {
+		emptyBeanLoader.beanLoader.loadBeansFromJar(HotBean.class, pathToJar, packet);
+		emptyBeanLoader.beanLoader.removeBeansFromJar(pathToJar);
+		return emptyBeanLoader.beanLoader;
+	}
+
+	@TearDown(Level.Trial)
+	public void closeContext() {
+		context.getApplicationContext().getAutowireCapableBeanFactory().destroyBean(deployedBeanLoader);
+		context.close();
+	}
+}
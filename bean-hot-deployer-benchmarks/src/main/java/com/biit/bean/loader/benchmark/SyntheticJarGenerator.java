@@ -0,0 +1,241 @@
+package com.biit.bean.loader.benchmark;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Benchmarks)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import com.biit.bean.loader.HotBean;
+
+/**
+ * Generates jars with thousands of classes for the benchmarks. The class files
+ * are written directly, so no compiler is needed, and the content is always
+ * the same so results can be compared between runs.
+ */
+public class SyntheticJarGenerator {
+	public final static String JARS_FOLDER_PROPERTY = "benchmark.jars.folder";
+	public final static String DEFAULT_JARS_FOLDER = "target/benchmark-jars";
+	public final static int[] CLASSES_PER_JAR = new int[] { 100, 1000, 10000 };
+	public final static String PACKET_PREFIX = "com.biit.benchmark.generated";
+	// One of each this number of classes is a bean.
+	public final static int BEAN_RATIO = 4;
+	public final static int PRIORITIES = 10;
+
+	private final static int CLASS_FILE_MAGIC = 0xCAFEBABE;
+	// Java 11.
+	private final static int CLASS_FILE_VERSION = 55;
+	private final static int ACC_PUBLIC = 0x0001;
+	private final static int ACC_SUPER = 0x0020;
+	private final static int CONSTANT_UTF8 = 1;
+	private final static int CONSTANT_INTEGER = 3;
+	private final static int CONSTANT_CLASS = 7;
+	private final static int CONSTANT_METHODREF = 10;
+	private final static int CONSTANT_NAME_AND_TYPE = 12;
+	// Fixed time to get the same jar on each build.
+	private final static long ENTRY_TIME = 1640995200000L;
+	// Written by the build with the folder of the generated jars.
+	private final static String BUILD_JARS_FOLDER_RESOURCE = "/benchmark-jars-folder.txt";
+
+	public static void main(String[] args) throws IOException {
+		Path folder = Paths.get(args.length > 0 ? args[0] : DEFAULT_JARS_FOLDER);
+		for (int classes : CLASSES_PER_JAR) {
+			Path jar = generate(folder, classes);
+			System.out.println("Generated '" + jar + "'.");
+		}
+	}
+
+	/**
+	 * @return the folder with the jars, from the system property or else the
+	 *         folder where the build has generated them.
+	 */
+	public static Path getJarsFolder() {
+		String folder = System.getProperty(JARS_FOLDER_PROPERTY);
+		if (folder == null || folder.isEmpty()) {
+			folder = getBuildJarsFolder();
+		}
+		return Paths.get(folder != null ? folder : DEFAULT_JARS_FOLDER).toAbsolutePath();
+	}
+
+	/**
+	 * @return the absolute folder set by the build, or null if not filtered.
+	 */
+	private static String getBuildJarsFolder() {
+		try (InputStream input = SyntheticJarGenerator.class.getResourceAsStream(BUILD_JARS_FOLDER_RESOURCE)) {
+			if (input == null) {
+				return null;
+			}
+			String folder = new String(input.readAllBytes(), StandardCharsets.UTF_8).trim();
+			return folder.isEmpty() || folder.startsWith("${") ? null : folder;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Gets a synthetic jar, generating it if it does not exist.
+	 *
+	 * @param classes
+	 *            number of classes of the jar.
+	 * @return the jar.
+	 * @throws IOException
+	 *             if the jar cannot be written.
+	 */
+	public static Path getJar(int classes) throws IOException {
+		Path jar = getJarsFolder().resolve(getJarName(classes));
+		if (!Files.exists(jar)) {
+			generate(getJarsFolder(), classes);
+		}
+		return jar;
+	}
+
+	public static String getJarName(int classes) {
+		return "synthetic-" + classes + ".jar";
+	}
+
+	public static String getPacket(int classes) {
+		return PACKET_PREFIX + ".classes" + classes;
+	}
+
+	/**
+	 * Writes a jar with the given number of classes. One of each
+	 * {@link #BEAN_RATIO} classes has the {@link HotBean} annotation.
+	 */
+	public static Path generate(Path folder, int classes) throws IOException {
+		Files.createDirectories(folder);
+		Path jar = folder.resolve(getJarName(classes));
+		Path temporalJar = folder.resolve(getJarName(classes) + ".tmp");
+		String packet = getPacket(classes).replace('.', '/');
+		try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(temporalJar))) {
+			for (int i = 0; i < classes; i++) {
+				String className = packet + "/Synthetic" + i;
+				JarEntry entry = new JarEntry(className + ".class");
+				entry.setTime(ENTRY_TIME);
+				output.putNextEntry(entry);
+				output.write(createClass(className, i % BEAN_RATIO == 0, i % PRIORITIES));
+				output.closeEntry();
+			}
+		}
+		Files.move(temporalJar, jar, StandardCopyOption.REPLACE_EXISTING);
+		return jar;
+	}
+
+	/**
+	 * Public class implementing {@link BenchmarkBean} with a public default
+	 * constructor.
+	 */
+	static byte[] createClass(String className, boolean annotated, int priority) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(bytes);
+		output.writeInt(CLASS_FILE_MAGIC);
+		output.writeShort(0);
+		output.writeShort(CLASS_FILE_VERSION);
+
+		// Constant pool.
+		output.writeShort(16);
+		writeUtf8(output, className); // 1
+		writeClass(output, 1); // 2
+		writeUtf8(output, "java/lang/Object"); // 3
+		writeClass(output, 3); // 4
+		writeUtf8(output, "<init>"); // 5
+		writeUtf8(output, "()V"); // 6
+		output.writeByte(CONSTANT_NAME_AND_TYPE); // 7
+		output.writeShort(5);
+		output.writeShort(6);
+		output.writeByte(CONSTANT_METHODREF); // 8
+		output.writeShort(4);
+		output.writeShort(7);
+		writeUtf8(output, "Code"); // 9
+		writeUtf8(output, "RuntimeVisibleAnnotations"); // 10
+		writeUtf8(output, "L" + HotBean.class.getName().replace('.', '/') + ";"); // 11
+		writeUtf8(output, "priority"); // 12
+		output.writeByte(CONSTANT_INTEGER); // 13
+		output.writeInt(priority);
+		writeUtf8(output, BenchmarkBean.class.getName().replace('.', '/')); // 14
+		writeClass(output, 14); // 15
+
+		output.writeShort(ACC_PUBLIC | ACC_SUPER);
+		output.writeShort(2);
+		output.writeShort(4);
+		// Interfaces.
+		output.writeShort(1);
+		output.writeShort(15);
+		// Fields.
+		output.writeShort(0);
+
+		// Constructor calling super().
+		output.writeShort(1);
+		output.writeShort(ACC_PUBLIC);
+		output.writeShort(5);
+		output.writeShort(6);
+		output.writeShort(1);
+		output.writeShort(9);
+		output.writeInt(17);
+		// max_stack, max_locals
+		output.writeShort(1);
+		output.writeShort(1);
+		output.writeInt(5);
+		// aload_0, invokespecial #8, return
+		output.writeByte(0x2a);
+		output.writeByte(0xb7);
+		output.writeShort(8);
+		output.writeByte(0xb1);
+		// Exceptions and attributes.
+		output.writeShort(0);
+		output.writeShort(0);
+
+		// Class attributes.
+		if (annotated) {
+			output.writeShort(1);
+			output.writeShort(10);
+			output.writeInt(11);
+			output.writeShort(1);
+			output.writeShort(11);
+			output.writeShort(1);
+			output.writeShort(12);
+			output.writeByte('I');
+			output.writeShort(13);
+		} else {
+			output.writeShort(0);
+		}
+		output.flush();
+		return bytes.toByteArray();
+	}
+
+	private static void writeUtf8(DataOutputStream output, String value) throws IOException {
+		output.writeByte(CONSTANT_UTF8);
+		output.writeUTF(value);
+	}
+
+	private static void writeClass(DataOutputStream output, int nameIndex) throws IOException {
+		output.writeByte(CONSTANT_CLASS);
+		output.writeShort(nameIndex);
+	}
+}
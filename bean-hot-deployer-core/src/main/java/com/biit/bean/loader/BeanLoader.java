@@ -25,254 +25,1976 @@ import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
-import java.lang.reflect.Constructor;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLClassLoader;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.springframework.aop.framework.AopConfigException;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.CachedIntrospectionResults;
+import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanFactory;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
 import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ApplicationEventMulticaster;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.support.AbstractApplicationContext;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
 
+import com.biit.bean.loader.classloader.CdsClassList;
+import com.biit.bean.loader.classloader.ClassLoaderTracker;
+import com.biit.bean.loader.classloader.ClassLoaderTracker.RetentionInspector;
+import com.biit.bean.loader.classloader.ClassVersionDiff;
+import com.biit.bean.loader.classloader.DeduplicatedClassLoader;
+import com.biit.bean.loader.classloader.MappedJar;
+import com.biit.bean.loader.classloader.PluginClassLoader;
+import com.biit.bean.loader.classloader.SharedLibraries;
 import com.biit.bean.loader.comparator.HotBeanPriorityComparator;
 import com.biit.bean.loader.configuration.BeanLoaderConfigurationReader;
+import com.biit.bean.loader.deploy.DeployFolder;
+import com.biit.bean.loader.deploy.DeployedJar;
+import com.biit.bean.loader.deploy.JarDeployReport;
+import com.biit.bean.loader.deploy.DeploymentState;
+import com.biit.bean.loader.deploy.JarEventCoalescer;
+import com.biit.bean.loader.deploy.JarEventCoalescer.DeployBatch;
+import com.biit.bean.loader.deploy.JarEventCoalescer.JarEvent;
+import com.biit.bean.loader.deploy.StartupReadiness;
+import com.biit.bean.loader.event.HotBeanEvent;
+import com.biit.bean.loader.event.HotBeanEventDispatcher;
+import com.biit.bean.loader.event.HotBeanListener;
+import com.biit.bean.loader.instantiation.BeanConstructor;
+import com.biit.bean.loader.instantiation.BeanDependencyGraph;
+import com.biit.bean.loader.instantiation.BeanWarmup;
+import com.biit.bean.loader.instantiation.HotBeanFactory;
+import com.biit.bean.loader.instantiation.LazyHotBeanProxy;
+import com.biit.bean.loader.jfr.BeanAutowireEvent;
+import com.biit.bean.loader.jfr.BeanDestroyEvent;
+import com.biit.bean.loader.jfr.BeanInstantiationEvent;
+import com.biit.bean.loader.jfr.ClassLoadEvent;
+import com.biit.bean.loader.jfr.ClassLoaderCloseEvent;
+import com.biit.bean.loader.jfr.JarScanEvent;
 import com.biit.bean.loader.logger.BeanLoaderLogger;
+import com.biit.bean.loader.metrics.DeployMetrics;
+import com.biit.bean.loader.metrics.DeployMetricsMBean;
+import com.biit.bean.loader.metrics.MetricsExporter;
+import com.biit.bean.loader.registry.HotBeanRegistry;
+import com.biit.bean.loader.scanner.ClassFileScanner;
+import com.biit.bean.loader.scanner.JarFingerprint;
+import com.biit.bean.loader.scanner.JarScanIndex;
+import com.biit.bean.loader.scanner.ScannedClass;
+import com.biit.bean.loader.watcher.DeployFolderWatcher;
+import com.biit.bean.loader.watcher.DeployFolderWatcher.JarListener;
+import com.biit.bean.loader.watcher.JarReadinessDetector;
 import com.biit.logger.BiitCommonLogger;
-import com.biit.utils.file.FileReader;
-import com.biit.utils.file.watcher.FileWatcher;
-import com.biit.utils.file.watcher.FileWatcher.FileAddedListener;
-import com.biit.utils.file.watcher.FileWatcher.FileRemovedListener;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 @Component
-public class BeanLoader implements IBeanLoader {
+public class BeanLoader implements IBeanLoader, ApplicationListener<ContextRefreshedEvent> {
 	private final static String JAR_EXTENSION = ".jar";
-	private final static int MAX_RETRIES_JAR_WRITTEN = 100;
-	private FileWatcher fileWatcher;
-	private Map<String, Set<String>> beansPerJar;
-	private Map<String, URLClassLoader> classLoaderPerJar;
-	private Map<String, Class<?>> beansClassLoaded;
+	private final static String SCAN_INDEX_FILE = ".hotbean-scan.index";
+	private final static String STAGING_BEAN_SUFFIX = "#staging";
+	// Name of the executor bean that runs the asynchronous deployments.
+	public final static String DEPLOY_EXECUTOR = "hotBeanDeployExecutor";
+	private DeployFolderWatcher fileWatcher;
+	private AtomicReference<DeploymentState> deploymentState;
+	// Writers of the same jar are serialized. Readers use the state.
+	private Map<String, ReentrantLock> jarLocks;
+	private Map<String, JarScanIndex> scanIndexPerFolder;
+	private Map<String, SharedLibraries> sharedLibrariesPerFolder;
+	private HotBeanRegistry hotBeanRegistry;
+	private ClassLoaderTracker classLoaderTracker;
+	private final Object deployMutex = new Object();
+	// Only used by the deploy thread.
+	private final Map<String, ScheduledFuture<?>> pendingRemovals = new ConcurrentHashMap<>();
+	private final JarEventCoalescer jarEventCoalescer = new JarEventCoalescer();
+	private final DeployMetrics metrics = new DeployMetrics();
+	private final HotBeanEventDispatcher eventDispatcher = new HotBeanEventDispatcher();
+	// Futures of jars not deployed yet are only kept while a caller waits.
+	private final Map<String, Deployment> deployments = new ConcurrentHashMap<>();
+	private final ReferenceQueue<CompletableFuture<JarDeployReport>> abandonedDeployments = new ReferenceQueue<>();
+	// Beans of the application context by annotation, without the hot beans.
+	// Read once after the context is refreshed.
+	private final Map<Class<? extends Annotation>, Collection<Object>> contextBeansByAnnotation = new ConcurrentHashMap<>();
+	private volatile StartupReadiness startupReadiness = new StartupReadiness(null);
+	// Folders watched, by absolute path.
+	private final Map<String, DeployFolder> deployFolders = new ConcurrentHashMap<>();
+	private final HotBeanPriorityComparator priorityComparator = new HotBeanPriorityComparator(this::getPriorityOffset);
+	// Only on training runs.
+	private CdsClassList cdsClassList;
+	private ObjectName metricsName;
+	private final ScheduledExecutorService deployScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "BeanLoader-deploy");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	@Autowired
+	private ApplicationContext applicationContext;
+
+	@Autowired
+	private AutowireCapableBeanFactory autowiredBeanFactory;
+
+	@Autowired(required = false)
+	private List<MetricsExporter> metricsExporters;
+
+	@Autowired(required = false)
+	@Qualifier(DEPLOY_EXECUTOR)
+	private Executor deployExecutor;
+
+	public BeanLoader() {
+		reset();
+		metrics.registerGauge(DeployMetrics.LIVE_CLASSLOADERS, () -> getLiveClassLoaderCount());
+		metrics.registerGauge(DeployMetrics.RETIRED_CLASSLOADERS, () -> getRetiredClassLoaderCount());
+		metrics.registerGauge(DeployMetrics.LOADED_CLASSES, () -> deploymentState.get().getClassesLoaded().size());
+		metrics.registerGauge(DeployMetrics.STARTUP_CRITICAL_READY, () -> startupReadiness.isReady(StartupReadiness.Tier.CRITICAL) ? 1 : 0);
+		metrics.registerGauge(DeployMetrics.STARTUP_BACKGROUND_READY, () -> startupReadiness.isReady(StartupReadiness.Tier.BACKGROUND) ? 1 : 0);
+	}
+
+	private void reset() {
+		deploymentState = new AtomicReference<>(DeploymentState.empty());
+		jarLocks = new ConcurrentHashMap<>();
+		// Accessed by the scan threads.
+		scanIndexPerFolder = new ConcurrentHashMap<>();
+		sharedLibrariesPerFolder = new ConcurrentHashMap<>();
+		hotBeanRegistry = new HotBeanRegistry();
+		classLoaderTracker = new ClassLoaderTracker();
+	}
+
+	@PostConstruct
+	private void loadSettings() {
+		startMetrics();
+		if (BeanLoaderConfigurationReader.getInstance().getCdsClassList().length() > 0) {
+			cdsClassList = new CdsClassList();
+		}
+		long leakTimeout = BeanLoaderConfigurationReader.getInstance().getClassLoaderLeakTimeout();
+		if (leakTimeout > 0) {
+			deployScheduler.scheduleWithFixedDelay(new Runnable() {
+
+				@Override
+				public void run() {
+					checkClassLoaderLeaks();
+				}
+			}, leakTimeout, leakTimeout, TimeUnit.MILLISECONDS);
+		}
+		List<DeployFolder> folders = BeanLoaderConfigurationReader.getInstance().getDeployFolders();
+		startupReadiness = new StartupReadiness(BeanLoaderConfigurationReader.getInstance().getStartupPriorityThreshold());
+		// Load beans if settings are set.
+		if (!folders.isEmpty()) {
+			// Changes during the startup are deployed after the jars being
+			// deployed, as they share the jar locks.
+			for (DeployFolder folder : folders) {
+				registerDeployFolder(folder);
+				susbscribeToFolder(folder.getFolder());
+			}
+			CompletableFuture<List<JarDeployReport>> startup;
+			if (BeanLoaderConfigurationReader.getInstance().isStartupAsync()) {
+				// The context does not wait for any bean.
+				startup = CompletableFuture.supplyAsync(() -> deployStartupFolders(folders), getDeployExecutor()).thenCompose(reports -> reports);
+			} else {
+				// The context waits only for the critical beans.
+				startup = deployStartupFolders(folders);
+			}
+			startup.whenComplete((reports, throwable) -> {
+				if (throwable != null) {
+					BeanLoaderLogger.errorMessage(getClass().getName(), throwable);
+				} else {
+					BeanLoaderLogger.info(getClass().getName(), "Beans loaded from '" + reports + "'.");
+				}
+			});
+		} else {
+			startupReadiness.ready(StartupReadiness.Tier.CRITICAL);
+			startupReadiness.ready(StartupReadiness.Tier.BACKGROUND);
+		}
+	}
+
+	/**
+	 * Creates the beans of the critical tier in the current thread and the
+	 * rest on the deploy executor. The jars of all folders are deployed
+	 * together, so their beans are sorted by priority. Beans with the same
+	 * priority follow the order of the folders and the name of the jars.
+	 *
+	 * @return the report of each jar, when the beans of both tiers are
+	 *         registered.
+	 */
+	private CompletableFuture<List<JarDeployReport>> deployStartupFolders(List<DeployFolder> folders) {
+		BeanLoaderLogger.debug(getClass().getName(), "Reading beans in '" + folders + "' with readiness threshold '" + startupReadiness.getThreshold()
+				+ "'.");
+		List<String> folderPaths = new ArrayList<>();
+		for (DeployFolder folder : folders) {
+			folderPaths.add(folder.getFolder());
+		}
+		Map<String, JarScan> deferredScans = new LinkedHashMap<>();
+		List<JarDeployReport> reports;
+		startupReadiness.loading(StartupReadiness.Tier.CRITICAL);
+		try {
+			reports = deployFolders(HotBean.class, folderPaths, BeanLoaderConfigurationReader.getInstance().getBeanPacketPrefix(), deferredScans);
+		} catch (RuntimeException e) {
+			startupReadiness.failed(StartupReadiness.Tier.CRITICAL, e);
+			startupReadiness.failed(StartupReadiness.Tier.BACKGROUND, e);
+			throw e;
+		}
+		startupReadiness.ready(StartupReadiness.Tier.CRITICAL);
+		if (deferredScans.isEmpty()) {
+			startupReadiness.ready(StartupReadiness.Tier.BACKGROUND);
+			return CompletableFuture.completedFuture(reports);
+		}
+		BeanLoaderLogger.info(getClass().getName(), "Critical beans loaded. Loading '" + deferredScans.size() + "' jars in background.");
+		return CompletableFuture.supplyAsync(() -> {
+			startupReadiness.loading(StartupReadiness.Tier.BACKGROUND);
+			List<JarDeployReport> allReports = new ArrayList<>(reports);
+			allReports.addAll(loadDeferredBeans(deferredScans).values());
+			startupReadiness.ready(StartupReadiness.Tier.BACKGROUND);
+			return allReports;
+		}, getDeployExecutor()).whenComplete((allReports, throwable) -> {
+			if (throwable != null) {
+				startupReadiness.failed(StartupReadiness.Tier.BACKGROUND, throwable);
+			}
+		});
+	}
+
+	private void startMetrics() {
+		if (metricsExporters != null) {
+			for (MetricsExporter metricsExporter : metricsExporters) {
+				metrics.addExporter(metricsExporter);
+			}
+		}
+		long exportInterval = BeanLoaderConfigurationReader.getInstance().getMetricsExportInterval();
+		if (exportInterval > 0) {
+			deployScheduler.scheduleWithFixedDelay(new Runnable() {
+
+				@Override
+				public void run() {
+					metrics.export();
+				}
+			}, exportInterval, exportInterval, TimeUnit.MILLISECONDS);
+		}
+		if (BeanLoaderConfigurationReader.getInstance().isMetricsJmxEnabled()) {
+			try {
+				ObjectName name = new ObjectName(DeployMetricsMBean.OBJECT_NAME);
+				ManagementFactory.getPlatformMBeanServer().registerMBean(new DeployMetricsMBean(metrics), name);
+				metricsName = name;
+			} catch (InstanceAlreadyExistsException e) {
+				BeanLoaderLogger.warning(getClass().getName(), "Metrics MBean already registered by another bean loader.");
+			} catch (JMException e) {
+				BeanLoaderLogger.errorMessage(getClass().getName(), e);
+			}
+		}
+	}
+
+	@Override
+	public void loadSettings(String jarFolder, String beanPacketPrefix) {
+		BeanLoaderLogger.debug(getClass().getName(), "Reading beans in '" + jarFolder + "'.");
+		registerDeployFolder(jarFolder, beanPacketPrefix);
+		susbscribeToFolder(jarFolder);
+		loadBeansFromFolder(HotBean.class, jarFolder, beanPacketPrefix);
+	}
+
+	@Override
+	public CompletableFuture<List<JarDeployReport>> loadSettingsAsync(String jarFolder, String beanPacketPrefix) {
+		BeanLoaderLogger.debug(getClass().getName(), "Reading beans in '" + jarFolder + "' in background.");
+		registerDeployFolder(jarFolder, beanPacketPrefix);
+		susbscribeToFolder(jarFolder);
+		return CompletableFuture.supplyAsync(() -> deployFolder(HotBean.class, jarFolder, beanPacketPrefix), getDeployExecutor());
+	}
+
+	@Override
+	public <T extends HotBean> CompletableFuture<List<JarDeployReport>> loadBeansFromFolderAsync(Class<T> beanAnnotation, String folderWithJars,
+			String packetPrefixFilter) {
+		return CompletableFuture.supplyAsync(() -> deployFolder(beanAnnotation, folderWithJars, packetPrefixFilter), getDeployExecutor());
+	}
+
+	@Override
+	public <T extends HotBean> CompletableFuture<JarDeployReport> loadBeansFromJarAsync(Class<T> beanAnnotation, String pathToJar,
+			String packetPrefixFilter) {
+		return CompletableFuture.supplyAsync(
+				() -> loadBeansFromJars(beanAnnotation, Collections.singletonList(pathToJar), packetPrefixFilter).get(pathToJar), getDeployExecutor());
+	}
+
+	@Override
+	public CompletableFuture<JarDeployReport> getDeployment(String pathToJar) {
+		expungeAbandonedDeployments();
+		while (true) {
+			Deployment deployment = deployments.computeIfAbsent(pathToJar, jar -> {
+				CompletableFuture<JarDeployReport> pending = new CompletableFuture<>();
+				Deployment waiting = new Deployment(jar, pending, abandonedDeployments);
+				// Forgotten if the caller stops waiting for a jar never deployed.
+				pending.whenComplete((report, error) -> {
+					if (error != null) {
+						deployments.remove(jar, waiting);
+					}
+				});
+				return waiting;
+			});
+			CompletableFuture<JarDeployReport> future = deployment.get();
+			if (future != null) {
+				return future;
+			}
+			// Nobody was waiting for it.
+			deployments.remove(pathToJar, deployment);
+		}
+	}
+
+	/**
+	 * Forgets the jars that nobody waits for anymore.
+	 */
+	private void expungeAbandonedDeployments() {
+		Reference<? extends CompletableFuture<JarDeployReport>> abandoned;
+		while ((abandoned = abandonedDeployments.poll()) != null) {
+			deployments.remove(((Deployment) abandoned).pathToJar, abandoned);
+		}
+	}
+
+	/**
+	 * The executor bean if defined. If not, the thread that deploys the
+	 * changes of the folder, so deployments are not run at the same time.
+	 */
+	private Executor getDeployExecutor() {
+		return deployExecutor != null ? deployExecutor : deployScheduler;
+	}
+
+	/**
+	 * Completes the futures of the jars deployed. Jars deployed again get a
+	 * new completed future. Jars that are not deployed, as the ones that cannot
+	 * be opened, are forgotten once their waiting futures are completed.
+	 */
+	private void completeDeployments(Collection<JarDeployReport> reports) {
+		expungeAbandonedDeployments();
+		for (JarDeployReport report : reports) {
+			Deployment deployment = deployments.get(report.getPathToJar());
+			CompletableFuture<JarDeployReport> pending = deployment != null ? deployment.get() : null;
+			if (!deploymentState.get().isDeployed(report.getPathToJar())) {
+				if (pending != null) {
+					pending.complete(report);
+				}
+				if (deployment != null) {
+					deployments.remove(report.getPathToJar(), deployment);
+				}
+			} else if (pending != null && pending.complete(report)) {
+				// Kept while the jar is deployed, even if nobody waits for it.
+				deployments.put(report.getPathToJar(), new Deployment(report.getPathToJar(), pending));
+			} else {
+				deployments.put(report.getPathToJar(), new Deployment(report.getPathToJar(), CompletableFuture.completedFuture(report)));
+			}
+		}
+	}
+
+	/**
+	 * Keeps the packet prefix and priority offset of the jars of a folder.
+	 * The offset of a folder already registered is kept.
+	 */
+	private void registerDeployFolder(String folder, String packetPrefix) {
+		DeployFolder registered = deployFolders.get(new DeployFolder(folder, packetPrefix, 0).getFolder());
+		registerDeployFolder(new DeployFolder(folder, packetPrefix, registered != null ? registered.getPriorityOffset() : 0));
+	}
+
+	private void registerDeployFolder(DeployFolder deployFolder) {
+		deployFolders.put(deployFolder.getFolder(), deployFolder);
+	}
+
+	/**
+	 * @return the packet prefix of the folder of the jar, or the default one
+	 *         if the folder is not registered.
+	 */
+	private String getPacketPrefix(String pathToJar, String defaultPacketPrefix) {
+		DeployFolder deployFolder = deployFolders.get(getFolder(pathToJar));
+		return deployFolder != null ? deployFolder.getPacketPrefix() : defaultPacketPrefix;
+	}
+
+	/**
+	 * @return the priority offset of the folder of the jar that defines the
+	 *         bean.
+	 */
+	private int getPriorityOffset(Class<?> bean) {
+		if (!(bean.getClassLoader() instanceof PluginClassLoader)) {
+			return 0;
+		}
+		String pathToJar = ((PluginClassLoader) bean.getClassLoader()).getMappedJar().getPathToJar().toString();
+		DeployFolder deployFolder = deployFolders.get(getFolder(pathToJar));
+		return deployFolder != null ? deployFolder.getPriorityOffset() : 0;
+	}
+
+	/**
+	 * All folders share the same watcher thread. Subscribing to a folder
+	 * again has no effect.
+	 */
+	private synchronized void susbscribeToFolder(String directoryToWatch) {
+		BeanLoaderConfigurationReader configuration = BeanLoaderConfigurationReader.getInstance();
+		try {
+			if (fileWatcher == null) {
+				fileWatcher = new DeployFolderWatcher(new JarReadinessDetector(configuration.isJarReadyMarkerRequired()), configuration.getJarReadyQuiescence(),
+						configuration.getJarReadyTimeout(), new JarListener() {
+
+							@Override
+							public void jarReady(Path pathToJar, long waitedMillis) {
+								metrics.record(DeployMetrics.JAR_READINESS_WAIT, pathToJar.toString(), TimeUnit.MILLISECONDS.toNanos(waitedMillis));
+								// Deployment does not block the detection of other jars.
+								deployScheduler.execute(new Runnable() {
+
+									@Override
+									public void run() {
+										deployJar(pathToJar.toString());
+									}
+								});
+							}
+
+							@Override
+							public void jarDeleted(Path pathToJar) {
+								// The watcher does not wait for a deploy in progress.
+								deployScheduler.execute(new Runnable() {
+
+									@Override
+									public void run() {
+										undeployJar(pathToJar.toString());
+									}
+								});
+							}
+						});
+				fileWatcher.start();
+			}
+			fileWatcher.addFolder(Paths.get(directoryToWatch).toAbsolutePath().normalize());
+		} catch (IOException e) {
+			BiitCommonLogger.errorMessageNotification(getClass(), e);
+		} catch (NullPointerException npe) {
+			BiitCommonLogger.warning(getClass(), "Directory to watch not found!");
+		}
+	}
+
+	private void deployJar(String pathToJar) {
+		// A new version of a jar that is still deployed.
+		ScheduledFuture<?> pendingRemoval = pendingRemovals.remove(pathToJar);
+		if (pendingRemoval != null) {
+			pendingRemoval.cancel(false);
+		}
+		addJarEvent(pathToJar, JarEvent.READY);
+	}
+
+	private void undeployJar(String pathToJar) {
+		// Nothing to replace. Cancels a pending deploy of the jar before any
+		// work is done, or removes it after the deploy in progress.
+		if (!deploymentState.get().isDeployed(pathToJar)) {
+			addJarEvent(pathToJar, JarEvent.DELETED);
+			return;
+		}
+		// A pending new version has been deleted too.
+		jarEventCoalescer.cancel(pathToJar, JarEvent.READY);
+		long gracePeriod = BeanLoaderConfigurationReader.getInstance().getReplaceGracePeriod();
+		// If a new version is copied soon, beans are replaced instead of removed.
+		pendingRemovals.put(pathToJar, deployScheduler.schedule(new Runnable() {
+
+			@Override
+			public void run() {
+				if (pendingRemovals.remove(pathToJar) != null) {
+					addJarEvent(pathToJar, JarEvent.DELETED);
+				}
+			}
+		}, Math.max(gracePeriod, 0), TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * Events are not deployed immediately, but grouped with any other event
+	 * that arrives during the batch window.
+	 */
+	private void addJarEvent(String pathToJar, JarEvent event) {
+		jarEventCoalescer.add(pathToJar, event);
+		deployScheduler.schedule(new Runnable() {
+
+			@Override
+			public void run() {
+				deployBatchIfClosed();
+			}
+		}, Math.max(BeanLoaderConfigurationReader.getInstance().getDeployBatchWindow(), 0), TimeUnit.MILLISECONDS);
+	}
+
+	private void deployBatchIfClosed() {
+		// Another event has extended the window and has scheduled its own check.
+		if (jarEventCoalescer.isEmpty() || jarEventCoalescer.getRemainingDelay(BeanLoaderConfigurationReader.getInstance().getDeployBatchWindow()) > 0) {
+			return;
+		}
+		synchronized (deployMutex) {
+			DeployBatch batch = jarEventCoalescer.drain(pathToJar -> deploymentState.get().isDeployed(pathToJar));
+			if (!batch.isEmpty()) {
+				deployBatch(HotBean.class, batch, BeanLoaderConfigurationReader.getInstance().getBeanPacketPrefix());
+			}
+		}
+	}
+
+	/**
+	 * Applies all the changes of a batch. Jars removed go first, so their beans
+	 * can be defined again by other jars. Jars replaced and new jars are
+	 * scanned in parallel, and the beans of each group are registered
+	 * together, sorted by priority.
+	 */
+	private <T extends HotBean> void deployBatch(Class<T> beanAnnotation, DeployBatch batch, String packetPrefixFilter) {
+		BeanLoaderLogger.debug(getClass().getName(), "Deploying batch '" + batch + "'.");
+		for (String pathToJar : batch.getJarsToRemove()) {
+			removeJar(pathToJar);
+		}
+		if (!batch.getJarsToReplace().isEmpty()) {
+			replaceBeansFromJars(beanAnnotation, batch.getJarsToReplace(), packetPrefixFilter);
+		}
+		if (!batch.getJarsToLoad().isEmpty()) {
+			loadBeansFromJars(beanAnnotation, batch.getJarsToLoad(), packetPrefixFilter);
+		}
+	}
+
+	private void removeJar(String pathToJar) {
+		List<ReentrantLock> locks = lockJars(Collections.singleton(pathToJar));
+		try {
+			DeployedJar deployedJar = deploymentState.get().getJar(pathToJar);
+			if (deployedJar == null) {
+				return;
+			}
+			removeBeansFromJar(pathToJar);
+			BeanLoaderLogger.debug(getClass().getName(), "Removing classloader '" + pathToJar + "'.");
+			deploymentState.updateAndGet(state -> state.withoutJar(pathToJar));
+			Deployment deployment = deployments.get(pathToJar);
+			CompletableFuture<JarDeployReport> future = deployment != null ? deployment.get() : null;
+			if (deployment != null && (future == null || future.isDone())) {
+				deployments.remove(pathToJar, deployment);
+			}
+			retireClassLoader(deployedJar);
+			metrics.removeTags(Collections.singleton(pathToJar));
+			metrics.removeTags(deployedJar.getBeanNames());
+		} finally {
+			// Threads waiting for it take a new one.
+			jarLocks.remove(pathToJar, locks.get(0));
+			unlockJars(locks);
+		}
+	}
+
+	/**
+	 * Locks several jars, always in the same order to avoid deadlocks.
+	 */
+	private List<ReentrantLock> lockJars(Collection<String> jars) {
+		List<ReentrantLock> locks = new ArrayList<>();
+		for (String pathToJar : new TreeSet<>(jars)) {
+			while (true) {
+				ReentrantLock lock = jarLocks.computeIfAbsent(pathToJar, jar -> new ReentrantLock());
+				lock.lock();
+				if (jarLocks.get(pathToJar) == lock) {
+					locks.add(lock);
+					break;
+				}
+				// Removed with its jar while waiting for it.
+				lock.unlock();
+			}
+		}
+		return locks;
+	}
+
+	private void unlockJars(List<ReentrantLock> locks) {
+		for (int i = locks.size() - 1; i >= 0; i--) {
+			locks.get(i).unlock();
+		}
+	}
+
+	/**
+	 * Closes a classloader that is not used anymore and removes any reference
+	 * to its classes, so it can be collected.
+	 */
+	private void retireClassLoader(DeployedJar deployedJar) {
+		ClassLoaderCloseEvent event = new ClassLoaderCloseEvent(deployedJar.getPathToJar());
+		event.begin();
+		// Releases the jar file.
+		deployedJar.getClassLoader().close();
+		clearSpringCaches(deployedJar.getClassLoader(), deployedJar.getClassesLoaded().keySet());
+		classLoaderTracker.retire(deployedJar.getPathToJar(), deployedJar.getClassLoader(), deployedJar.getBeanNames());
+		retirePreviousVersions(deployedJar.getPathToJar(), deployedJar.getClassLoader().getPreviousVersions());
+		if (event.shouldCommit()) {
+			event.setClasses(deployedJar.getClassesLoaded().size());
+			event.commit();
+		}
+	}
+
+	/**
+	 * Tracks the classloaders of older versions of a jar that do not define
+	 * classes anymore. Their beans have already been replaced.
+	 */
+	private void retirePreviousVersions(String pathToJar, List<PluginClassLoader> previousVersions) {
+		for (PluginClassLoader previousVersion : previousVersions) {
+			clearSpringCaches(previousVersion, Collections.<String> emptyList());
+			classLoaderTracker.retire(pathToJar, previousVersion, Collections.<String> emptyList());
+		}
+	}
+
+	/**
+	 * Spring caches reflection data by class. These caches would keep the old
+	 * classloader in memory.
+	 */
+	private void clearSpringCaches(ClassLoader classLoader, Collection<String> classNames) {
+		ConfigurableListableBeanFactory beanFactory = ((ConfigurableApplicationContext) applicationContext).getBeanFactory();
+		// Autowire candidates registered as singletons are cached with their
+		// class by bean name, even after destroying them.
+		beanFactory.clearMetadataCache();
+		if (beanFactory instanceof AbstractBeanFactory) {
+			for (BeanPostProcessor beanPostProcessor : ((AbstractBeanFactory) beanFactory).getBeanPostProcessors()) {
+				if (beanPostProcessor instanceof MergedBeanDefinitionPostProcessor) {
+					// Injection metadata of 'autowireBean' is stored using the class name.
+					for (String className : classNames) {
+						((MergedBeanDefinitionPostProcessor) beanPostProcessor).resetBeanDefinition(className);
+					}
+				}
+			}
+		}
+		// The listeners of the hot bean events are cached by the generic type
+		// of the event. Nothing is removed, only the cache is cleared.
+		if (applicationContext.containsBean(AbstractApplicationContext.APPLICATION_EVENT_MULTICASTER_BEAN_NAME)) {
+			applicationContext.getBean(AbstractApplicationContext.APPLICATION_EVENT_MULTICASTER_BEAN_NAME, ApplicationEventMulticaster.class)
+					.removeApplicationListeners(listener -> false);
+		}
+		CachedIntrospectionResults.clearClassLoader(classLoader);
+		AnnotationUtils.clearCache();
+		ReflectionUtils.clearCache();
+		ResolvableType.clearCache();
+	}
+
+	private void checkClassLoaderLeaks() {
+		long timeout = BeanLoaderConfigurationReader.getInstance().getClassLoaderLeakTimeout();
+		classLoaderTracker.checkLeaks(timeout, new RetentionInspector() {
+
+			@Override
+			public Collection<String> getRetainers(ClassLoader classLoader) {
+				List<String> retainers = new ArrayList<>();
+				ConfigurableListableBeanFactory beanFactory = ((ConfigurableApplicationContext) applicationContext).getBeanFactory();
+				for (String beanName : beanFactory.getSingletonNames()) {
+					Object bean = beanFactory.getSingleton(beanName);
+					if (bean != null && bean.getClass().getClassLoader() == classLoader) {
+						retainers.add(beanName);
+					}
+				}
+				return retainers;
+			}
+		});
+	}
+
+	@Override
+	public int getLiveClassLoaderCount() {
+		int liveClassLoaders = 0;
+		for (DeployedJar deployedJar : deploymentState.get().getJars().values()) {
+			liveClassLoaders += 1 + deployedJar.getClassLoader().getPreviousVersions().size();
+		}
+		return liveClassLoaders;
+	}
+
+	@Override
+	public int getRetiredClassLoaderCount() {
+		return classLoaderTracker.getRetiredCount();
+	}
+
+	@PreDestroy
+	private void stopDeployScheduler() {
+		writeCdsClassList();
+		if (fileWatcher != null) {
+			try {
+				fileWatcher.close();
+			} catch (IOException e) {
+				BeanLoaderLogger.errorMessage(getClass().getName(), e);
+			}
+		}
+		deployScheduler.shutdownNow();
+		for (SharedLibraries sharedLibraries : sharedLibrariesPerFolder.values()) {
+			try {
+				sharedLibraries.close();
+			} catch (IOException e) {
+				BeanLoaderLogger.errorMessage(getClass().getName(), e);
+			}
+		}
+		if (metricsName != null) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(metricsName);
+			} catch (JMException e) {
+				BeanLoaderLogger.errorMessage(getClass().getName(), e);
+			}
+			metricsName = null;
+		}
+	}
+
+	@Override
+	public <T> Set<T> getLoadedBeansOfType(Class<T> type) {
+		Set<T> beansFiltered = hotBeanRegistry.getBeansOfType(type);
+		if (BeanLoaderLogger.isDebugEnabled()) {
+			BeanLoaderLogger.debug(getClass().getName(), "Beans loaded of type '" + type.getCanonicalName() + "' are '" + beansFiltered + "'.");
+		}
+		return beansFiltered;
+	}
+
+	@Override
+	public <T> Set<HotBeanFactory<? extends T>> getBeanFactoriesOfType(Class<T> type) {
+		return hotBeanRegistry.getFactoriesOfType(type);
+	}
+
+	@Override
+	public <T extends Annotation> Collection<Object> getLoadedBeansWithAnnotation(Class<T> beanAnnotation) {
+		Collection<Object> contextBeans = contextBeansByAnnotation.get(beanAnnotation);
+		if (contextBeans == null) {
+			// Not computed inside the map, as creating the beans can call this method again.
+			contextBeans = getContextBeansWithAnnotation(beanAnnotation);
+			contextBeansByAnnotation.put(beanAnnotation, contextBeans);
+		}
+		Set<Object> hotBeans = hotBeanRegistry.getBeansWithAnnotation(beanAnnotation);
+		Collection<Object> beans;
+		if (hotBeans.isEmpty()) {
+			beans = contextBeans;
+		} else if (contextBeans.isEmpty()) {
+			beans = hotBeans;
+		} else {
+			List<Object> allBeans = new ArrayList<>(contextBeans);
+			allBeans.addAll(hotBeans);
+			beans = Collections.unmodifiableList(allBeans);
+		}
+		if (BeanLoaderLogger.isDebugEnabled()) {
+			BeanLoaderLogger.debug(getClass().getName(), "Beans loaded of type '" + beanAnnotation.getCanonicalName() + "' are '" + beans + "'.");
+		}
+		return beans;
+	}
+
+	/**
+	 * @return the beans of the application context with the annotation that
+	 *         are not hot beans.
+	 */
+	private Collection<Object> getContextBeansWithAnnotation(Class<? extends Annotation> beanAnnotation) {
+		List<Object> beans = new ArrayList<>();
+		for (Map.Entry<String, Object> bean : applicationContext.getBeansWithAnnotation(beanAnnotation).entrySet()) {
+			if (hotBeanRegistry.contains(bean.getKey()) || bean.getKey().endsWith(STAGING_BEAN_SUFFIX) || bean.getValue() instanceof HotBeanFactory
+					|| bean.getValue().getClass().getClassLoader() instanceof PluginClassLoader) {
+				continue;
+			}
+			beans.add(bean.getValue());
+		}
+		return Collections.unmodifiableList(beans);
+	}
+
+	/**
+	 * Hot beans that have been defined in the application and not deployed
+	 * from a jar are also added to the registry. Beans from jars are skipped:
+	 * the jars deployed while the context is refreshed register their own
+	 * beans, and may still be creating them.
+	 */
+	@Override
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		if (event.getApplicationContext() != applicationContext) {
+			return;
+		}
+		contextBeansByAnnotation.clear();
+		for (Map.Entry<String, Object> bean : applicationContext.getBeansWithAnnotation(HotBean.class).entrySet()) {
+			if (!hotBeanRegistry.contains(bean.getKey()) && !isDeployedFromJar(bean.getValue())) {
+				hotBeanRegistry.register(bean.getKey(), bean.getValue());
+			}
+		}
+	}
+
+	/**
+	 * @return true if the class of the bean, or of its lazy proxy, has been
+	 *         defined from a plugin jar.
+	 */
+	private boolean isDeployedFromJar(Object bean) {
+		ClassLoader classLoader = bean.getClass().getClassLoader();
+		return classLoader instanceof PluginClassLoader || classLoader instanceof DeduplicatedClassLoader;
+	}
+
+	@Override
+	public <T extends HotBean> void loadBeansFromFolder(Class<T> beanAnnotation, String folderWithJars, String packetPrefixFilter) {
+		deployFolder(beanAnnotation, folderWithJars, packetPrefixFilter);
+	}
+
+	private <T extends HotBean> List<JarDeployReport> deployFolder(Class<T> beanAnnotation, String folderWithJars, String packetPrefixFilter) {
+		return deployFolders(beanAnnotation, Collections.singletonList(folderWithJars), packetPrefixFilter, null);
+	}
+
+	/**
+	 * Deploys the jars of several folders at once. Jars are sorted by folder
+	 * and by name.
+	 */
+	private <T extends HotBean> List<JarDeployReport> deployFolders(Class<T> beanAnnotation, List<String> foldersWithJars, String packetPrefixFilter,
+			Map<String, JarScan> deferredScans) {
+		Map<String, Set<String>> jarsPerFolder = new LinkedHashMap<>();
+		List<String> jars = new ArrayList<>();
+		for (String folderWithJars : foldersWithJars) {
+			Set<String> folderJars = getJars(folderWithJars);
+			String folder = Paths.get(folderWithJars).toAbsolutePath().normalize().toString();
+			// The jars available now are checked for repeated classes.
+			getSharedLibraries(folder, folderJars);
+			jarsPerFolder.put(folder, folderJars);
+			jars.addAll(folderJars);
+		}
+		Map<String, JarDeployReport> reports = loadBeansFromJars(beanAnnotation, jars, packetPrefixFilter, deferredScans);
+		for (Map.Entry<String, Set<String>> folderJars : jarsPerFolder.entrySet()) {
+			// Forget jars that have been removed from the folder.
+			JarScanIndex scanIndex = scanIndexPerFolder.get(folderJars.getKey());
+			if (scanIndex != null) {
+				scanIndex.retain(folderJars.getValue());
+				scanIndex.save();
+			}
+		}
+		return new ArrayList<>(reports.values());
+	}
+
+	/**
+	 * Scans and registers the beans of several jars. The new state of the jars
+	 * is published when all their beans are registered.
+	 *
+	 * @return the report of each jar, in the same order than the jars.
+	 */
+	private <T extends HotBean> Map<String, JarDeployReport> loadBeansFromJars(Class<T> beanAnnotation, Collection<String> jars,
+			String packetPrefixFilter) {
+		return loadBeansFromJars(beanAnnotation, jars, packetPrefixFilter, null);
+	}
+
+	/**
+	 * @param deferredScans
+	 *            if not null, only the beans of the critical tier are created.
+	 *            Receives the scan of the jars with beans of the background
+	 *            tier, that are not reported yet.
+	 */
+	private <T extends HotBean> Map<String, JarDeployReport> loadBeansFromJars(Class<T> beanAnnotation, Collection<String> jars,
+			String packetPrefixFilter, Map<String, JarScan> deferredScans) {
+		List<ReentrantLock> locks = lockJars(jars);
+		List<HotBeanEvent<?>> events = new ArrayList<>();
+		Map<String, JarDeployReport> reports = new LinkedHashMap<>();
+		try {
+			long start = System.nanoTime();
+			Map<String, JarScan> scansPerJar = scanJars(beanAnnotation, jars, packetPrefixFilter);
+			saveScanIndexes();
+			Map<String, JarScan> scansToRegister = scansPerJar;
+			if (deferredScans != null) {
+				scansToRegister = new LinkedHashMap<>();
+				for (Map.Entry<String, JarScan> jarScan : scansPerJar.entrySet()) {
+					JarScan criticalScan = jarScan.getValue().filter(StartupReadiness.Tier.CRITICAL, startupReadiness, priorityComparator);
+					scansToRegister.put(jarScan.getKey(), criticalScan);
+					if (criticalScan.beanClasses.size() < jarScan.getValue().beanClasses.size()) {
+						deferredScans.put(jarScan.getKey(), jarScan.getValue());
+					}
+				}
+			}
+			Map<String, List<String>> beanNamesPerJar = registerBeans(scansToRegister, events);
+			long deployNanos = System.nanoTime() - start;
+			metrics.record(DeployMetrics.JAR_DEPLOY, deployNanos);
+			for (String pathToJar : jars) {
+				if (deferredScans == null || !deferredScans.containsKey(pathToJar)) {
+					reports.put(pathToJar, createReport(pathToJar, scansPerJar.get(pathToJar), beanNamesPerJar.get(pathToJar), deployNanos));
+				}
+			}
+		} finally {
+			unlockJars(locks);
+		}
+		completeDeployments(reports.values());
+		publishEvents(events);
+		return reports;
+	}
+
+	/**
+	 * Creates the beans of the background tier of jars already deployed with
+	 * {@link #loadBeansFromJars(Class, Collection, String, Map)}. Jars that
+	 * have been replaced or removed meanwhile are skipped.
+	 *
+	 * @return the report of each jar, including the beans of both tiers.
+	 */
+	private Map<String, JarDeployReport> loadDeferredBeans(Map<String, JarScan> deferredScans) {
+		List<ReentrantLock> locks = lockJars(deferredScans.keySet());
+		List<HotBeanEvent<?>> events = new ArrayList<>();
+		Map<String, JarDeployReport> reports = new LinkedHashMap<>();
+		try {
+			long start = System.nanoTime();
+			Map<String, JarScan> scansToRegister = new LinkedHashMap<>();
+			for (Map.Entry<String, JarScan> jarScan : deferredScans.entrySet()) {
+				DeployedJar deployedJar = deploymentState.get().getJar(jarScan.getKey());
+				if (deployedJar != null && deployedJar.getClassLoader() == jarScan.getValue().classLoader) {
+					scansToRegister.put(jarScan.getKey(), jarScan.getValue().filter(StartupReadiness.Tier.BACKGROUND, startupReadiness, priorityComparator));
+				} else {
+					BeanLoaderLogger.debug(getClass().getName(), "Jar '" + jarScan.getKey() + "' changed before creating its background beans.");
+				}
+			}
+			registerBeans(scansToRegister, events);
+			long deployNanos = System.nanoTime() - start;
+			metrics.record(DeployMetrics.JAR_DEPLOY, deployNanos);
+			for (String pathToJar : scansToRegister.keySet()) {
+				DeployedJar deployedJar = deploymentState.get().getJar(pathToJar);
+				reports.put(pathToJar, createReport(pathToJar, deferredScans.get(pathToJar), deployedJar.getBeanNames(), deployNanos));
+			}
+		} finally {
+			unlockJars(locks);
+		}
+		completeDeployments(reports.values());
+		publishEvents(events);
+		return reports;
+	}
+
+	/**
+	 * Creates the beans of the scans and publishes the new state of their
+	 * jars. Readers see all the beans of the scans or none of them.
+	 *
+	 * @param events
+	 *            receives the deployment of each bean.
+	 * @return the names of the beans created for each jar.
+	 */
+	private Map<String, List<String>> registerBeans(Map<String, JarScan> scansPerJar, List<HotBeanEvent<?>> events) {
+		BeanWarmup beanWarmup = getBeanWarmup();
+		if (beanWarmup != null) {
+			for (Map.Entry<String, JarScan> jarScan : scansPerJar.entrySet()) {
+				initializeClasses(beanWarmup, jarScan.getKey(), jarScan.getValue().classLoader);
+			}
+		}
+		Map<String, Map<String, Object>> beansPerJar = autowireBeans(scansPerJar);
+		Map<String, Object> newBeans = new LinkedHashMap<>();
+		Map<String, List<String>> beanNamesPerJar = new HashMap<>();
+		for (Map.Entry<String, Map<String, Object>> jarBeans : beansPerJar.entrySet()) {
+			newBeans.putAll(jarBeans.getValue());
+			beanNamesPerJar.put(jarBeans.getKey(), new ArrayList<>(jarBeans.getValue().keySet()));
+		}
+		hotBeanRegistry.replace(Collections.<String> emptySet(), newBeans);
+		publishJars(scansPerJar, beanNamesPerJar);
+		for (Map.Entry<String, JarScan> jarScan : scansPerJar.entrySet()) {
+			for (Map.Entry<String, Object> bean : beansPerJar.getOrDefault(jarScan.getKey(), Collections.<String, Object> emptyMap()).entrySet()) {
+				events.add(newEvent(HotBeanEvent.Type.DEPLOYED, jarScan.getKey(), bean.getKey(), bean.getValue(), null));
+			}
+		}
+		return beanNamesPerJar;
+	}
+
+	private JarDeployReport createReport(String pathToJar, JarScan jarScan, Collection<String> beanNames, long deployNanos) {
+		if (jarScan == null) {
+			return new JarDeployReport(pathToJar, Collections.<String> emptyList(), Collections.singletonList("Jar cannot be opened."), Duration.ZERO,
+					Duration.ofNanos(deployNanos));
+		}
+		Collection<String> names = beanNames != null ? beanNames : Collections.<String> emptyList();
+		List<String> failures = new ArrayList<>();
+		for (Class<?> beanClass : jarScan.beanClasses) {
+			if (!names.contains(beanClass.getCanonicalName())) {
+				failures.add("Bean '" + beanClass.getCanonicalName() + "' not created.");
+			}
+		}
+		return new JarDeployReport(pathToJar, names, failures, Duration.ofNanos(jarScan.scanNanos), Duration.ofNanos(deployNanos));
+	}
+
+	public <T extends HotBean> void loadBeansFromJar(Class<T> beanAnnotation, String pathToJar, String packetPrefixFilter) {
+		loadBeansFromJars(beanAnnotation, Collections.singletonList(pathToJar), packetPrefixFilter);
+	}
+
+	/**
+	 * Adds the classes and beans of several jars to the state at once. A jar
+	 * that is scanned again keeps its previous beans.
+	 */
+	private void publishJars(Map<String, JarScan> scansPerJar, Map<String, List<String>> beanNamesPerJar) {
+		deploymentState.updateAndGet(state -> {
+			DeploymentState newState = state;
+			for (Map.Entry<String, JarScan> jarScan : scansPerJar.entrySet()) {
+				Collection<String> names = beanNamesPerJar.getOrDefault(jarScan.getKey(), Collections.<String> emptyList());
+				DeployedJar deployedJar = newState.getJar(jarScan.getKey());
+				if (deployedJar != null && deployedJar.getClassLoader() == jarScan.getValue().classLoader) {
+					newState = newState.withJar(deployedJar.with(jarScan.getValue().beanClasses, names));
+				} else {
+					newState = newState.withJar(new DeployedJar(jarScan.getKey(), jarScan.getValue().classLoader, jarScan.getValue().beanClasses, names));
+				}
+			}
+			return newState;
+		});
+	}
+
+	/**
+	 * Scans and loads the bean classes of several jars.
+	 *
+	 * @return the scan of each jar, in the same order than the jars.
+	 */
+	private <T extends HotBean> Map<String, JarScan> scanJars(Class<T> beanAnnotation, Collection<String> jars, String packetPrefixFilter) {
+		return scanJars(jars, pathToJar -> scanJar(beanAnnotation, pathToJar, packetPrefixFilter));
+	}
+
+	/**
+	 * If the parallelism is greater than one, each jar is scanned in a
+	 * different thread.
+	 *
+	 * @param jarScanner
+	 *            scans a jar. Returns null if the jar cannot be opened.
+	 * @return the scan of each jar, in the same order than the jars.
+	 */
+	private <S> Map<String, S> scanJars(Collection<String> jars, Function<String, S> jarScanner) {
+		Map<String, S> scansPerJar = new LinkedHashMap<>();
+		int parallelism = Math.min(BeanLoaderConfigurationReader.getInstance().getStartupParallelism(), jars.size());
+		if (parallelism <= 1) {
+			for (String pathToJar : jars) {
+				S jarScan = jarScanner.apply(pathToJar);
+				if (jarScan != null) {
+					scansPerJar.put(pathToJar, jarScan);
+				}
+			}
+			return scansPerJar;
+		}
+
+		BeanLoaderLogger.debug(getClass().getName(), "Scanning '" + jars.size() + "' jars using '" + parallelism + "' threads.");
+		ForkJoinPool scanPool = new ForkJoinPool(parallelism);
+		try {
+			List<Callable<S>> scanTasks = new ArrayList<>();
+			for (String pathToJar : jars) {
+				scanTasks.add(() -> jarScanner.apply(pathToJar));
+			}
+			List<Future<S>> scanResults = scanPool.invokeAll(scanTasks);
+			Iterator<String> jarIterator = jars.iterator();
+			for (Future<S> scanResult : scanResults) {
+				String pathToJar = jarIterator.next();
+				try {
+					if (scanResult.get() != null) {
+						scansPerJar.put(pathToJar, scanResult.get());
+					}
+				} catch (ExecutionException e) {
+					metrics.increment(DeployMetrics.FAILURES);
+					BeanLoaderLogger.errorMessage(getClass().getName(), e.getCause());
+				}
+			}
+		} catch (InterruptedException e) {
+			BeanLoaderLogger.errorMessage(getClass().getName(), e);
+			Thread.currentThread().interrupt();
+		} finally {
+			scanPool.shutdown();
+		}
+		return scansPerJar;
+	}
+
+	/**
+	 * Loads the classes of a jar that are beans. Uses the classloader of the
+	 * jar if it is already deployed.
+	 *
+	 * @return the classloader and the bean classes, not sorted. Null if the
+	 *         classloader cannot be created.
+	 */
+	private <T extends HotBean> JarScan scanJar(Class<T> beanAnnotation, String pathToJar, String packetPrefixFilter) {
+		long start = System.nanoTime();
+		try {
+			PluginClassLoader classLoader = getClassLoader(pathToJar);
+			List<Class<?>> beanClasses = scanJar(beanAnnotation, pathToJar, packetPrefixFilter, classLoader);
+			return new JarScan(classLoader, beanClasses, System.nanoTime() - start);
+		} catch (IOException e) {
+			metrics.increment(DeployMetrics.FAILURES);
+			BeanLoaderLogger.warning(getClass().getName(), "File '" + pathToJar + "' cannot be opened as a Jar file: " + e.getMessage());
+			return null;
+		}
+	}
+
+	private <T extends HotBean> List<Class<?>> scanJar(Class<T> beanAnnotation, String pathToJar, String packetPrefixFilter,
+			PluginClassLoader classLoader) {
+		// Jars of a deploy folder always use its prefix.
+		String packetPrefix = getPacketPrefix(pathToJar, packetPrefixFilter);
+		List<Class<?>> beansToAdd = new ArrayList<>();
+		JarScanEvent event = new JarScanEvent(pathToJar);
+		event.begin();
+		// Unchanged jars are not scanned again.
+		JarScanIndex scanIndex = getScanIndex(pathToJar);
+		JarFingerprint fingerprint = null;
+		if (scanIndex != null) {
+			try {
+				fingerprint = JarFingerprint.of(pathToJar);
+				List<ScannedClass> indexedClasses = scanIndex.get(fingerprint, packetPrefix, beanAnnotation.getName());
+				if (indexedClasses != null) {
+					BeanLoaderLogger.debug(getClass().getName(), "Loading beans from '" + pathToJar + "' using the scan index.");
+					for (ScannedClass scannedClass : indexedClasses) {
+						if (scannedClass.isBeanCandidate()) {
+							loadBeanClass(beanAnnotation, pathToJar, classLoader, scannedClass.getClassName(), beansToAdd);
+						}
+					}
+					if (event.shouldCommit()) {
+						event.setFromIndex(true);
+						event.setBeanClasses(beansToAdd.size());
+						event.commit();
+					}
+					return beansToAdd;
+				}
+			} catch (IOException e) {
+				BeanLoaderLogger.warning(getClass().getName(), "Scan index not used for '" + pathToJar + "': " + e.getMessage());
+			}
+		}
+
+		// Load beans
+		BeanLoaderLogger.debug(getClass().getName(), "Loading beans from '" + pathToJar + "'.");
+		long start = System.nanoTime();
+		long classLoadingNanos = 0;
+		int classesScanned = 0;
+		// The classloader has already read the central directories, also of the nested libraries.
+		ClassFileScanner classFileScanner = new ClassFileScanner(beanAnnotation);
+		List<ScannedClass> annotatedClasses = new ArrayList<>();
+		Set<String> scannedEntries = new HashSet<>();
+		for (MappedJar mappedJar : classLoader.getJars()) {
+			for (String entryName : mappedJar.getEntryNames()) {
+				// Search only for classes. If repeated, the classloader uses the first one.
+				if (!entryName.endsWith(".class") || !scannedEntries.add(entryName)) {
+					continue;
+				}
+				// Get the class name (-6 because of '.class').
+				String className = entryName.substring(0, entryName.length() - 6);
+				className = className.replace('/', '.');
+				if (className.startsWith(packetPrefix)) {
+					// Read the bytecode before loading anything.
+					ScannedClass scannedClass;
+					try {
+						scannedClass = mappedJar.read(entryName, classFileScanner::scan);
+					} catch (IOException e) {
+						metrics.increment(DeployMetrics.FAILURES);
+						BeanLoaderLogger.warning(getClass().getName(),
+								"Class '" + className + "' from '" + mappedJar.getLocation() + "' cannot be read: " + e.getMessage());
+						continue;
+					}
+					metrics.increment(DeployMetrics.CLASSES_SCANNED);
+					classesScanned++;
+					if (scannedClass.isAnnotated()) {
+						annotatedClasses.add(scannedClass);
+					}
+					if (scannedClass.isBeanCandidate()) {
+						classLoadingNanos += loadBeanClass(beanAnnotation, pathToJar, classLoader, className, beansToAdd);
+					}
+				}
+			}
+		}
+		if (fingerprint != null) {
+			scanIndex.put(fingerprint, packetPrefix, beanAnnotation.getName(), annotatedClasses);
+		}
+		// Class loading is measured on its own.
+		metrics.record(DeployMetrics.JAR_ENUMERATION, pathToJar, System.nanoTime() - start - classLoadingNanos);
+		if (event.shouldCommit()) {
+			event.setClassesScanned(classesScanned);
+			event.setBeanClasses(beansToAdd.size());
+			event.commit();
+		}
+		return beansToAdd;
+	}
+
+	/**
+	 * @return the time spent loading the class.
+	 */
+	private <T extends HotBean> long loadBeanClass(Class<T> beanAnnotation, String pathToJar, PluginClassLoader classLoader, String className,
+			List<Class<?>> beansToAdd) {
+		long start = System.nanoTime();
+		try {
+			// It is already on memory?
+			if (!isClassLoaded(classLoader, className)) {
+				ClassLoadEvent event = new ClassLoadEvent(pathToJar, className);
+				event.begin();
+				Class<?> classLoaded = classLoader.loadClass(className);
+				event.commit();
+				metrics.record(DeployMetrics.CLASS_LOADING, pathToJar, System.nanoTime() - start);
+				BeanLoaderLogger.debug(getClass().getName(), "Class '" + classLoaded.getCanonicalName() + "' implements annotation '"
+						+ beanAnnotation.getName() + "'.");
+				beansToAdd.add((Class<?>) classLoaded);
+			} else {
+				BeanLoaderLogger.debug(getClass().getName(), "Class '" + className + "' already loaded!");
+			}
+		} catch (NoSuchMethodException | SecurityException | IllegalAccessException | IllegalArgumentException | InvocationTargetException
+				| ClassNotFoundException | LinkageError e) {
+			metrics.increment(DeployMetrics.FAILURES);
+			BeanLoaderLogger.errorMessage(getClass().getName(), e);
+		}
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * Gets the scan index of the folder that contains the jar.
+	 *
+	 * @return the index or null if disabled.
+	 */
+	private JarScanIndex getScanIndex(String pathToJar) {
+		if (!BeanLoaderConfigurationReader.getInstance().isScanIndexEnabled()) {
+			return null;
+		}
+		return scanIndexPerFolder.computeIfAbsent(getFolder(pathToJar), path -> JarScanIndex.load(Paths.get(path, SCAN_INDEX_FILE)));
+	}
 
-	@Autowired
-	private ApplicationContext applicationContext;
+	private String getFolder(String pathToJar) {
+		return Paths.get(pathToJar).toAbsolutePath().normalize().getParent().toString();
+	}
 
-	@Autowired
-	private AutowireCapableBeanFactory autowiredBeanFactory;
+	/**
+	 * Gets the classloaders shared by all plugins of a folder. Plugin jars are
+	 * only checked for repeated classes when the classloaders are created.
+	 */
+	private SharedLibraries getSharedLibraries(String folder, Collection<String> pluginJars) {
+		return sharedLibrariesPerFolder.computeIfAbsent(folder, path -> {
+			BeanLoaderConfigurationReader configuration = BeanLoaderConfigurationReader.getInstance();
+			Path libraryFolder = null;
+			if (configuration.getSharedLibraryFolder().length() > 0) {
+				libraryFolder = Paths.get(path).resolve(configuration.getSharedLibraryFolder());
+			}
+			List<Path> jarsToDeduplicate = new ArrayList<>();
+			if (configuration.isSharedLibraryDeduplicated()) {
+				for (String pathToJar : pluginJars) {
+					jarsToDeduplicate.add(Paths.get(pathToJar));
+				}
+			}
+			return SharedLibraries.create(libraryFolder, jarsToDeduplicate, new ClassFileScanner(HotBean.class), applicationContext.getClassLoader());
+		});
+	}
 
-	public BeanLoader() {
-		reset();
+	private void saveScanIndexes() {
+		for (JarScanIndex scanIndex : scanIndexPerFolder.values()) {
+			scanIndex.save();
+		}
 	}
 
-	private void reset() {
-		beansPerJar = new HashMap<>();
-		beansClassLoaded = new HashMap<>();
-		classLoaderPerJar = new HashMap<>();
+	private PluginClassLoader getClassLoader(String pathToJar) throws IOException {
+		DeployedJar deployedJar = deploymentState.get().getJar(pathToJar);
+		if (deployedJar != null) {
+			return deployedJar.getClassLoader();
+		}
+		BeanLoaderLogger.debug(getClass().getName(), "Creating classloader '" + pathToJar + "'.");
+		return newPluginClassLoader(pathToJar);
 	}
 
-	@PostConstruct
-	private void loadSettings() {
-		String jarFolder = BeanLoaderConfigurationReader.getInstance().getBeansFolder();
-		String defaultBeanPacketPrefix = BeanLoaderConfigurationReader.getInstance().getBeanPacketPrefix();
-		// Load beans if settings are set.
-		if (jarFolder.length() > 0) {
-			loadSettings(jarFolder, defaultBeanPacketPrefix);
+	private PluginClassLoader newPluginClassLoader(String pathToJar) throws IOException {
+		PluginClassLoader classLoader = getSharedLibraries(getFolder(pathToJar), Collections.<String> emptyList()).newPluginClassLoader(Paths.get(pathToJar));
+		classLoader.setClassDefinitionListener(cdsClassList);
+		return classLoader;
+	}
+
+	/**
+	 * Writes the plugin classes defined during a training run as a class list
+	 * for a CDS archive.
+	 */
+	private void writeCdsClassList() {
+		if (cdsClassList == null) {
+			return;
+		}
+		try {
+			cdsClassList.write(Paths.get(BeanLoaderConfigurationReader.getInstance().getCdsClassList()));
+			if (cdsClassList.getClassesDiscarded() > 0) {
+				BeanLoaderLogger.info(getClass().getName(), "Plugin classes that cannot be archived: '" + cdsClassList.getClassesDiscarded() + "'.");
+			}
+		} catch (IOException e) {
+			BeanLoaderLogger.errorMessage(getClass().getName(), e);
 		}
 	}
 
-	@Override
-	public void loadSettings(String jarFolder, String beanPacketPrefix) {
-		BeanLoaderLogger.debug(getClass().getName(), "Reading beans in '" + jarFolder + "'.");
-		loadBeansFromFolder(HotBean.class, jarFolder, beanPacketPrefix);
-		susbscribeToFolder(jarFolder);
+	/**
+	 * Replaces the beans of a jar that is already deployed by the beans of its
+	 * new version. The new beans are created and autowired using a new
+	 * classloader while the old ones are still available. Then all beans are
+	 * swapped at once and the old classloader is closed.
+	 * <p>
+	 * If the replacement is incremental, the new classloader inherits the
+	 * classes that have not changed, and only the beans affected by the
+	 * changes are created again.
+	 *
+	 * @param beanAnnotation
+	 *            annotation used to distinguish the bean.
+	 * @param pathToJar
+	 *            the jar with the new version.
+	 * @param packetPrefixFilter
+	 *            only scan classes that the packet starts with this string.
+	 */
+	public <T extends HotBean> void replaceBeansFromJar(Class<T> beanAnnotation, String pathToJar, String packetPrefixFilter) {
+		replaceBeansFromJars(beanAnnotation, Collections.singletonList(pathToJar), packetPrefixFilter);
 	}
 
-	private void susbscribeToFolder(String directoryToWatch) {
+	/**
+	 * Replaces the beans of several jars at once, as
+	 * {@link #replaceBeansFromJar(Class, String, String)} does. The beans of
+	 * all jars are created together, sorted by priority, so a new bean is
+	 * autowired with the new version of the beans of the other jars. Jars that
+	 * are not deployed are loaded instead.
+	 *
+	 * @param beanAnnotation
+	 *            annotation used to distinguish the bean.
+	 * @param jars
+	 *            the jars with the new versions.
+	 * @param packetPrefixFilter
+	 *            only scan classes that the packet starts with this string.
+	 */
+	public <T extends HotBean> void replaceBeansFromJars(Class<T> beanAnnotation, Collection<String> jars, String packetPrefixFilter) {
+		List<ReentrantLock> locks = lockJars(jars);
 		try {
-			fileWatcher = new FileWatcher(directoryToWatch);
-			fileWatcher.addFileAddedListener(new FileAddedListener() {
+			List<DeployedJar> oldJars = new ArrayList<>();
+			List<String> jarsToLoad = new ArrayList<>();
+			for (String pathToJar : jars) {
+				DeployedJar oldJar = deploymentState.get().getJar(pathToJar);
+				if (oldJar == null) {
+					jarsToLoad.add(pathToJar);
+				} else {
+					oldJars.add(oldJar);
+				}
+			}
+			if (!oldJars.isEmpty()) {
+				replaceJars(beanAnnotation, oldJars, packetPrefixFilter);
+			}
+			if (!jarsToLoad.isEmpty()) {
+				loadBeansFromJars(beanAnnotation, jarsToLoad, packetPrefixFilter);
+			}
+		} finally {
+			unlockJars(locks);
+		}
+	}
 
-				@Override
-				public void fileCreated(Path pathToJar) {
-					String defaultBeanPacketPrefix = BeanLoaderConfigurationReader.getInstance().getBeanPacketPrefix();
-					waitUntilJarIsCopied(pathToJar.toString());
-					loadBeansFromJar(HotBean.class, pathToJar.toString(), defaultBeanPacketPrefix);
+	/**
+	 * The new versions are scanned in parallel. Their beans are created
+	 * together, sorted by priority regardless of the jar that contains them,
+	 * and all of them are swapped at once.
+	 *
+	 * @return the report of each jar, in the same order than the jars.
+	 */
+	private <T extends HotBean> List<JarDeployReport> replaceJars(Class<T> beanAnnotation, List<DeployedJar> oldJars, String packetPrefixFilter) {
+		long start = System.nanoTime();
+		Map<String, DeployedJar> oldJarsPerPath = new LinkedHashMap<>();
+		for (DeployedJar oldJar : oldJars) {
+			oldJarsPerPath.put(oldJar.getPathToJar(), oldJar);
+		}
+		Map<String, JarDeployReport> failedReports = new ConcurrentHashMap<>();
+		Map<String, JarReplacement> replacements = scanJars(oldJarsPerPath.keySet(),
+				pathToJar -> scanNewVersion(beanAnnotation, oldJarsPerPath.get(pathToJar), packetPrefixFilter, failedReports));
+		saveScanIndexes();
+		BeanWarmup beanWarmup = getBeanWarmup();
+		List<Class<?>> beansToCreate = new ArrayList<>();
+		for (Map.Entry<String, JarReplacement> replacement : replacements.entrySet()) {
+			if (beanWarmup != null) {
+				initializeClasses(beanWarmup, replacement.getKey(), replacement.getValue().classLoader);
+			}
+			beansToCreate.addAll(replacement.getValue().beansToCreate);
+		}
+		Collections.sort(beansToCreate, priorityComparator);
+
+		ConfigurableListableBeanFactory beanFactory = ((ConfigurableApplicationContext) applicationContext).getBeanFactory();
+		// New beans are registered with a temporal name, as they may be
+		// autowired between them. They take precedence over the beans that
+		// they replace, still registered.
+		Map<String, Object> newBeans = new LinkedHashMap<>();
+		for (Map.Entry<Class<?>, Object> newBean : instantiateBeans(beansToCreate, (classLoaded, circular) -> {
+			String stagingBeanName = classLoaded.getCanonicalName() + STAGING_BEAN_SUFFIX;
+			if (getScope(classLoaded) != BeanScope.SINGLETON) {
+				return createBeanFactory(classLoaded, classLoaded.getCanonicalName());
+			}
+			// Nothing to autowire until it is used.
+			if (isLazy(classLoaded)) {
+				Object proxy = createLazyBean(classLoaded, classLoaded.getCanonicalName());
+				if (proxy != null) {
+					return proxy;
 				}
-			});
-			fileWatcher.addFileRemovedListener(new FileRemovedListener() {
+			}
+			try {
+				Object bean = newInstance(classLoaded);
+				if (circular) {
+					registerStagingBean(beanFactory, stagingBeanName, bean);
+				}
+				autowire(classLoaded.getCanonicalName(), bean);
+				warmup(classLoaded.getCanonicalName(), bean);
+				if (!circular) {
+					registerStagingBean(beanFactory, stagingBeanName, bean);
+				}
+				return bean;
+			} catch (NoSuchMethodError | InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException
+					| NoSuchMethodException | SecurityException | BeansException e) {
+				metrics.increment(DeployMetrics.FAILURES);
+				BeanLoaderLogger.errorMessage(getClass().getName(), e);
+				removeStagingBean(beanFactory, stagingBeanName);
+				return null;
+			}
+		}).entrySet()) {
+			newBeans.put(newBean.getKey().getCanonicalName(), newBean.getValue());
+		}
 
-				@Override
-				public void fileDeleted(Path pathToFile) {
-					removeBeansFromJar(pathToFile.toString());
-					BeanLoaderLogger.debug(getClass().getName(), "Removing classloader '" + pathToFile.toString() + "'.");
-					classLoaderPerJar.remove(pathToFile.toString());
+		// Swap.
+		Set<String> oldBeanNames = new LinkedHashSet<>();
+		List<BeanDestroyEvent> destroyEvents = new ArrayList<>();
+		for (Map.Entry<String, JarReplacement> replacement : replacements.entrySet()) {
+			oldBeanNames.addAll(replacement.getValue().getOldBeanNames());
+			BeanDestroyEvent destroyEvent = new BeanDestroyEvent(replacement.getKey());
+			destroyEvent.begin();
+			destroyEvents.add(destroyEvent);
+		}
+		Map<String, Object> oldBeans = hotBeanRegistry.getBeans();
+		hotBeanRegistry.replace(oldBeanNames, newBeans);
+		synchronized (beanFactory.getSingletonMutex()) {
+			for (String beanName : oldBeanNames) {
+				((DefaultListableBeanFactory) beanFactory).destroySingleton(beanName);
+			}
+			for (Map.Entry<String, Object> newBean : newBeans.entrySet()) {
+				removeStagingBean(beanFactory, newBean.getKey() + STAGING_BEAN_SUFFIX);
+				if (beanFactory.getSingleton(newBean.getKey()) == null) {
+					beanFactory.registerSingleton(newBean.getKey(), newBean.getValue());
 				}
-			});
+			}
+		}
+		Map<String, Set<String>> beanNamesPerJar = new HashMap<>();
+		Iterator<BeanDestroyEvent> destroyEventIterator = destroyEvents.iterator();
+		for (Map.Entry<String, JarReplacement> replacement : replacements.entrySet()) {
+			BeanDestroyEvent destroyEvent = destroyEventIterator.next();
+			if (destroyEvent.shouldCommit()) {
+				destroyEvent.setBeans(replacement.getValue().getOldBeanNames().size());
+				destroyEvent.commit();
+			}
+			Set<String> beanNames = new LinkedHashSet<>(replacement.getValue().keptBeanNames);
+			for (Class<?> classLoaded : replacement.getValue().beansToCreate) {
+				if (newBeans.containsKey(classLoaded.getCanonicalName())) {
+					beanNames.add(classLoaded.getCanonicalName());
+				}
+			}
+			beanNamesPerJar.put(replacement.getKey(), beanNames);
+		}
+		deploymentState.updateAndGet(state -> {
+			DeploymentState newState = state;
+			for (Map.Entry<String, JarReplacement> replacement : replacements.entrySet()) {
+				newState = newState.withJar(new DeployedJar(replacement.getKey(), replacement.getValue().classLoader, replacement.getValue().beanClasses,
+						beanNamesPerJar.get(replacement.getKey())));
+			}
+			return newState;
+		});
+		long deployNanos = System.nanoTime() - start;
+
+		List<HotBeanEvent<?>> events = new ArrayList<>();
+		List<JarDeployReport> reports = new ArrayList<>();
+		for (String pathToJar : oldJarsPerPath.keySet()) {
+			JarReplacement replacement = replacements.get(pathToJar);
+			if (replacement == null) {
+				reports.add(failedReports.get(pathToJar));
+				continue;
+			}
+			reports.add(completeReplacement(pathToJar, replacement, newBeans, oldBeanNames, oldBeans, beanNamesPerJar.get(pathToJar), deployNanos, events));
+		}
+		completeDeployments(reports);
+		publishEvents(events);
+		return reports;
+	}
+
+	/**
+	 * Creates a classloader for the new version of a jar and loads its bean
+	 * classes. Unchanged classes are inherited from the old version if the
+	 * replacement is incremental.
+	 *
+	 * @param failedReports
+	 *            receives the report of the jar if it cannot be opened.
+	 * @return the new version or null if the jar cannot be opened.
+	 */
+	private <T extends HotBean> JarReplacement scanNewVersion(Class<T> beanAnnotation, DeployedJar oldJar, String packetPrefixFilter,
+			Map<String, JarDeployReport> failedReports) {
+		String pathToJar = oldJar.getPathToJar();
+		BeanLoaderLogger.debug(getClass().getName(), "Replacing beans from '" + pathToJar + "'.");
+		long start = System.nanoTime();
+		PluginClassLoader newClassLoader;
+		try {
+			newClassLoader = newPluginClassLoader(pathToJar);
 		} catch (IOException e) {
-			BiitCommonLogger.errorMessageNotification(getClass(), e);
-		} catch (NullPointerException npe) {
-			BiitCommonLogger.warning(getClass(), "Directory to watch not found!");
+			metrics.increment(DeployMetrics.FAILURES);
+			BeanLoaderLogger.errorMessage(getClass().getName(), e);
+			failedReports.put(pathToJar, new JarDeployReport(pathToJar, Collections.<String> emptyList(),
+					Collections.singletonList("Jar cannot be opened: " + e.getMessage()), Duration.ZERO, Duration.ofNanos(System.nanoTime() - start)));
+			return null;
+		}
+		ClassVersionDiff diff = getClassVersionDiff(oldJar, newClassLoader);
+		List<PluginClassLoader> releasedClassLoaders = Collections.emptyList();
+		if (diff != null) {
+			releasedClassLoaders = newClassLoader.inheritFrom(oldJar.getClassLoader(), diff.getUnchangedClasses());
 		}
+		List<Class<?>> beanClasses = scanJar(beanAnnotation, pathToJar, packetPrefixFilter, newClassLoader);
+		Collections.sort(beanClasses, priorityComparator);
+		Set<String> keptBeanNames = getBeansNotChanged(oldJar, diff, beanClasses);
+		return new JarReplacement(oldJar, newClassLoader, diff, releasedClassLoaders, beanClasses, keptBeanNames, System.nanoTime() - start);
 	}
 
-	@Override
-	@SuppressWarnings("unchecked")
-	public <T> Set<T> getLoadedBeansOfType(Class<T> type) {
-		Set<T> beansFiltered = new HashSet<T>();
-		for (Object bean : applicationContext.getBeansWithAnnotation(HotBean.class).values()) {
-			if (type.isAssignableFrom(bean.getClass())) {
-				beansFiltered.add((T) bean);
+	/**
+	 * Logs the replacement of a jar, adds its events and retires the
+	 * classloader of its old version.
+	 *
+	 * @return the report of the jar.
+	 */
+	private JarDeployReport completeReplacement(String pathToJar, JarReplacement replacement, Map<String, Object> newBeans, Set<String> oldBeanNames,
+			Map<String, Object> oldBeans, Set<String> beanNames, long deployNanos, List<HotBeanEvent<?>> events) {
+		Map<String, Object> jarNewBeans = new LinkedHashMap<>();
+		List<String> failures = new ArrayList<>();
+		for (Class<?> classLoaded : replacement.beansToCreate) {
+			Object newBean = newBeans.get(classLoaded.getCanonicalName());
+			if (newBean != null) {
+				jarNewBeans.put(classLoaded.getCanonicalName(), newBean);
+			} else {
+				failures.add("Bean '" + classLoaded.getCanonicalName() + "' not created.");
 			}
 		}
-		BeanLoaderLogger.debug(getClass().getName(), "Beans loaded of type '" + type.getCanonicalName() + "' are '" + beansFiltered + "'.");
-		return beansFiltered;
+		if (replacement.diff != null) {
+			BeanLoaderLogger.info(getClass().getName(), "Beans from '" + pathToJar + "' replaced by '" + jarNewBeans.keySet() + "', beans '"
+					+ replacement.keptBeanNames + "' not changed.");
+		} else {
+			BeanLoaderLogger.info(getClass().getName(), "Beans from '" + pathToJar + "' replaced by '" + jarNewBeans.keySet() + "'.");
+		}
+		metrics.add(DeployMetrics.BEANS_REGISTERED, jarNewBeans.size());
+
+		// Old version is not used anymore.
+		List<String> beansDestroyed = new ArrayList<>();
+		for (String beanName : replacement.getOldBeanNames()) {
+			if (!newBeans.containsKey(beanName)) {
+				BeanLoaderLogger.info(getClass().getName(), "Bean '" + beanName + "' destroyed.");
+				beansDestroyed.add(beanName);
+			}
+		}
+		metrics.add(DeployMetrics.BEANS_DESTROYED, beansDestroyed.size());
+		metrics.removeTags(beansDestroyed);
+		for (Map.Entry<String, Object> newBean : jarNewBeans.entrySet()) {
+			Object oldBean = oldBeanNames.contains(newBean.getKey()) ? oldBeans.get(newBean.getKey()) : null;
+			if (oldBean != null) {
+				events.add(newEvent(HotBeanEvent.Type.REPLACED, pathToJar, newBean.getKey(), newBean.getValue(), oldBean));
+			} else {
+				events.add(newEvent(HotBeanEvent.Type.DEPLOYED, pathToJar, newBean.getKey(), newBean.getValue(), null));
+			}
+		}
+		for (String beanName : beansDestroyed) {
+			if (oldBeans.get(beanName) != null) {
+				events.add(newEvent(HotBeanEvent.Type.UNDEPLOYED, pathToJar, beanName, oldBeans.get(beanName), null));
+			}
+		}
+		DeployedJar oldJar = replacement.oldJar;
+		if (replacement.diff != null) {
+			// Still defines the unchanged classes.
+			List<String> changedClasses = new ArrayList<>();
+			for (String className : oldJar.getClassesLoaded().keySet()) {
+				if (replacement.diff.isChanged(className)) {
+					changedClasses.add(className);
+				}
+			}
+			clearSpringCaches(oldJar.getClassLoader(), changedClasses);
+			retirePreviousVersions(pathToJar, replacement.releasedClassLoaders);
+		} else {
+			retireClassLoader(oldJar);
+		}
+		metrics.record(DeployMetrics.JAR_REPLACE, pathToJar, deployNanos);
+		return new JarDeployReport(pathToJar, beanNames, failures, Duration.ofNanos(replacement.scanNanos), Duration.ofNanos(deployNanos));
 	}
 
-	@Override
-	public <T extends Annotation> Collection<Object> getLoadedBeansWithAnnotation(Class<T> beanAnnotation) {
-		Map<String, Object> beans = applicationContext.getBeansWithAnnotation(beanAnnotation);
-		BeanLoaderLogger.info(getClass().getName(), "Beans loaded of type '" + beanAnnotation.getCanonicalName() + "' are '" + beans.values() + "'.");
-		return beans.values();
+	/**
+	 * Registers the new version of a bean as primary, so the new beans that
+	 * are autowired by type get it instead of the old version.
+	 */
+	private void registerStagingBean(ConfigurableListableBeanFactory beanFactory, String stagingBeanName, Object bean) {
+		// Without the bean class: Spring keeps the merged definition after
+		// removing it, and it would keep the classloader. The type is taken
+		// from the singleton.
+		RootBeanDefinition definition = new RootBeanDefinition();
+		definition.setPrimary(true);
+		((DefaultListableBeanFactory) beanFactory).registerBeanDefinition(stagingBeanName, definition);
+		beanFactory.registerSingleton(stagingBeanName, bean);
 	}
 
-	@Override
-	public <T extends HotBean> void loadBeansFromFolder(Class<T> beanAnnotation, String folderWithJars, String packetPrefixFilter) {
-		for (String pathToJar : getJars(folderWithJars)) {
-			loadBeansFromJar(beanAnnotation, pathToJar, packetPrefixFilter);
+	private void removeStagingBean(ConfigurableListableBeanFactory beanFactory, String stagingBeanName) {
+		if (beanFactory.containsBeanDefinition(stagingBeanName)) {
+			// Also destroys the singleton.
+			((DefaultListableBeanFactory) beanFactory).removeBeanDefinition(stagingBeanName);
+		} else {
+			((DefaultListableBeanFactory) beanFactory).destroySingleton(stagingBeanName);
 		}
 	}
 
-	public <T extends HotBean> void loadBeansFromJar(Class<T> beanAnnotation, String pathToJar, String packetPrefixFilter) {
-		// Check if it is a valid jar.
+	/**
+	 * Compares the deployed version of a jar with the new one.
+	 *
+	 * @return the differences or null if the jar must be replaced completely.
+	 */
+	private ClassVersionDiff getClassVersionDiff(DeployedJar oldJar, PluginClassLoader newClassLoader) {
+		if (!BeanLoaderConfigurationReader.getInstance().isIncrementalReplace()) {
+			return null;
+		}
 		try {
-			if (!FileReader.isJarFile(pathToJar)) {
-				BeanLoaderLogger.warning(getClass().getName(), "File '" + pathToJar + "' is not a Jar file.");
-				return;
-			}
-		} catch (IOException e1) {
-			BeanLoaderLogger.errorMessage(getClass().getName(), e1);
-			return;
+			ClassVersionDiff diff = ClassVersionDiff.compare(oldJar.getClassLoader(), newClassLoader);
+			BeanLoaderLogger.debug(getClass().getName(), "Classes of '" + oldJar.getPathToJar() + "': " + diff + ".");
+			return diff.getUnchangedClasses().isEmpty() ? null : diff;
+		} catch (IOException e) {
+			BeanLoaderLogger.warning(getClass().getName(), "Jar '" + oldJar.getPathToJar() + "' is replaced completely: " + e.getMessage());
+			return null;
 		}
+	}
 
-		// Load beans
-		BeanLoaderLogger.debug(getClass().getName(), "Loading beans from '" + pathToJar + "'.");
-		try (JarFile jarFile = new JarFile(pathToJar)) {
-			Enumeration<JarEntry> entries = jarFile.entries();
+	/**
+	 * Beans that can be kept: their classes have not changed and they are not
+	 * autowired with any bean replaced or added.
+	 */
+	private Set<String> getBeansNotChanged(DeployedJar oldJar, ClassVersionDiff diff, List<Class<?>> beansToAdd) {
+		if (diff == null) {
+			return Collections.emptySet();
+		}
+		List<Class<?>> allBeans = new ArrayList<>(oldJar.getClassesLoaded().values());
+		List<Class<?>> replacedBeans = new ArrayList<>();
+		for (Class<?> oldBean : oldJar.getClassesLoaded().values()) {
+			if (diff.isChanged(oldBean.getName())) {
+				replacedBeans.add(oldBean);
+			}
+		}
+		for (Class<?> newBean : beansToAdd) {
+			if (!oldJar.getClassesLoaded().containsKey(newBean.getName())) {
+				allBeans.add(newBean);
+				replacedBeans.add(newBean);
+			}
+		}
+		Set<Class<?>> affectedBeans = BeanDependencyGraph.getDependents(replacedBeans, allBeans);
+		Set<String> keptBeanNames = new LinkedHashSet<>();
+		for (Class<?> newBean : beansToAdd) {
+			// Same class instance, inherited from the old classloader.
+			if (oldJar.getClassesLoaded().get(newBean.getName()) == newBean && !affectedBeans.contains(newBean)
+					&& oldJar.getBeanNames().contains(newBean.getCanonicalName())) {
+				keptBeanNames.add(newBean.getCanonicalName());
+			}
+		}
+		return keptBeanNames;
+	}
 
-			URLClassLoader classLoader = getClassLoader(pathToJar);
+	/**
+	 * Registers the beans of several jars. All beans are sorted by priority,
+	 * regardless of the jar that contains them. Beans with the same priority
+	 * keep the order of the jars.
+	 *
+	 * @return the beans created for each jar by name, in creation order.
+	 */
+	private Map<String, Map<String, Object>> autowireBeans(Map<String, JarScan> scansPerJar) {
+		List<Class<?>> beansToAdd = new ArrayList<>();
+		Map<Class<?>, String> jarPerBean = new HashMap<>();
+		for (Map.Entry<String, JarScan> jarScan : scansPerJar.entrySet()) {
+			for (Class<?> classLoaded : jarScan.getValue().beanClasses) {
+				beansToAdd.add(classLoaded);
+				jarPerBean.put(classLoaded, jarScan.getKey());
+			}
+		}
+		Collections.sort(beansToAdd, priorityComparator);
+		Map<String, Map<String, Object>> beansPerJar = new HashMap<>();
+		for (Map.Entry<Class<?>, Object> bean : instantiateBeans(beansToAdd, this::autowireBean).entrySet()) {
+			beansPerJar.computeIfAbsent(jarPerBean.get(bean.getKey()), jar -> new LinkedHashMap<>()).put(bean.getKey().getCanonicalName(), bean.getValue());
+		}
+		return beansPerJar;
+	}
 
-			List<Class<?>> beansToAdd = new ArrayList<>();
-			while (entries.hasMoreElements()) {
-				// Read jar elements.
-				JarEntry jarEntry = entries.nextElement();
-				// Search only for classes.
-				if (jarEntry.isDirectory() || !jarEntry.getName().endsWith(".class")) {
+	/**
+	 * Creates the beans layer by layer, following their priorities and
+	 * dependencies. The beans of a layer are created in parallel if the
+	 * instantiation parallelism is greater than one.
+	 *
+	 * @param beansToAdd
+	 *            the bean classes sorted by priority.
+	 * @param beanCreator
+	 *            creates a bean, and receives if it is in a circular
+	 *            dependency. Returns null if not created.
+	 * @return the beans created by class, in creation order.
+	 */
+	private Map<Class<?>, Object> instantiateBeans(List<Class<?>> beansToAdd, BiFunction<Class<?>, Boolean, Object> beanCreator) {
+		Map<Class<?>, Object> beansCreated = new LinkedHashMap<>();
+		BeanDependencyGraph dependencyGraph = new BeanDependencyGraph(beansToAdd, priorityComparator);
+		List<List<Class<?>>> layers = dependencyGraph.getLayers();
+		int parallelism = BeanLoaderConfigurationReader.getInstance().getInstantiationParallelism();
+		ForkJoinPool instantiationPool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+		try {
+			for (List<Class<?>> layer : layers) {
+				if (instantiationPool == null || layer.size() == 1) {
+					for (Class<?> classLoaded : layer) {
+						Object bean = beanCreator.apply(classLoaded, dependencyGraph.isCircular(classLoaded));
+						if (bean != null) {
+							beansCreated.put(classLoaded, bean);
+						}
+					}
 					continue;
 				}
-				// Get the class name (-6 because of '.class').
-				String className = jarEntry.getName().substring(0, jarEntry.getName().length() - 6);
-				className = className.replace('/', '.');
-				if (className.startsWith(packetPrefixFilter)) {
+				List<Callable<Object>> creationTasks = new ArrayList<>();
+				for (Class<?> classLoaded : layer) {
+					creationTasks.add(() -> beanCreator.apply(classLoaded, dependencyGraph.isCircular(classLoaded)));
+				}
+				List<Future<Object>> creationResults = instantiationPool.invokeAll(creationTasks);
+				Iterator<Class<?>> classIterator = layer.iterator();
+				for (Future<Object> creationResult : creationResults) {
+					Class<?> classLoaded = classIterator.next();
 					try {
-						// It is already on memory?
-						if (!isClassLoaded(classLoader, className)) {
-							Class<?> classLoaded = classLoader.loadClass(className);
-							BeanLoaderLogger.debug(getClass().getName(), "Class '" + classLoaded.getCanonicalName() + "' loaded.");
-
-							// Add it as a bean.
-							if (!classLoaded.isInterface() && hasBasicConstructor(classLoaded)) {
-								// Has @HotBean annotation.
-								for (Annotation annotation : classLoaded.getDeclaredAnnotations()) {
-									if (annotation.annotationType().equals(beanAnnotation)) {
-										BeanLoaderLogger.debug(getClass().getName(), "Class '" + classLoaded.getCanonicalName() + "' implements annotation '"
-												+ beanAnnotation.getClass() + "'.");
-										beansToAdd.add((Class<?>) classLoaded);
-										beansClassLoaded.put(className, (Class<?>) classLoaded);
-									}
-								}
-							}
-						} else {
-							BeanLoaderLogger.debug(getClass().getName(), "Class '" + className + "' already loaded!");
+						if (creationResult.get() != null) {
+							beansCreated.put(classLoaded, creationResult.get());
 						}
-					} catch (NoSuchMethodException | SecurityException | IllegalAccessException | IllegalArgumentException | InvocationTargetException
-							| ClassNotFoundException e) {
-						BeanLoaderLogger.errorMessage(getClass().getName(), e);
+					} catch (ExecutionException e) {
+						metrics.increment(DeployMetrics.FAILURES);
+						BeanLoaderLogger.errorMessage(getClass().getName(), e.getCause());
 					}
 				}
 			}
-			Collections.sort(beansToAdd, new HotBeanPriorityComparator());
-			autowireBeans(pathToJar, beansToAdd);
-		} catch (IOException ioe) {
-			BeanLoaderLogger.errorMessage(getClass().getName(), ioe);
-		}
-	}
-
-	private URLClassLoader getClassLoader(String pathToJar) throws MalformedURLException {
-		if (classLoaderPerJar.get(pathToJar) == null) {
-			BeanLoaderLogger.debug(getClass().getName(), "Creating classloader '" + pathToJar + "'.");
-			classLoaderPerJar.put(pathToJar, new URLClassLoader(new URL[] { new URL("jar:file:" + pathToJar + "!/") }, applicationContext.getClassLoader()));
-		}
-		return classLoaderPerJar.get(pathToJar);
-	}
-
-	private void autowireBeans(String pathToJar, List<Class<?>> classesLoaded) {
-		for (Class<?> classLoaded : classesLoaded) {
-			autowireBean(pathToJar, classLoaded);
+		} catch (InterruptedException e) {
+			BeanLoaderLogger.errorMessage(getClass().getName(), e);
+			Thread.currentThread().interrupt();
+		} finally {
+			if (instantiationPool != null) {
+				instantiationPool.shutdown();
+			}
 		}
+		return beansCreated;
 	}
 
-	private void autowireBean(String pathToJar, Class<?> classLoaded) {
+	/**
+	 * Registers the bean on the application context. The caller adds it to
+	 * the hot bean registry with the rest of the batch.
+	 *
+	 * @param circular
+	 *            if the bean is registered before being autowired and warmed
+	 *            up, so it can be autowired with itself or with a bean that
+	 *            depends on it.
+	 * @return the bean or null if not created.
+	 */
+	private Object autowireBean(Class<?> classLoaded, boolean circular) {
 		ConfigurableListableBeanFactory beanFactory = ((ConfigurableApplicationContext) applicationContext).getBeanFactory();
 
 		// Create bean if does not exists.
 		if (beanFactory.getSingleton(classLoaded.getCanonicalName()) == null) {
+			BeanScope scope = getScope(classLoaded);
+			if (scope != BeanScope.SINGLETON) {
+				HotBeanFactory<?> factory = createBeanFactory(classLoaded, classLoaded.getCanonicalName());
+				beanFactory.registerSingleton(classLoaded.getCanonicalName(), factory);
+				metrics.increment(DeployMetrics.BEANS_REGISTERED);
+				BeanLoaderLogger.info(getClass().getName(), "Bean '" + classLoaded.getCanonicalName() + "' registered as " + scope.name().toLowerCase() + ".");
+				return factory;
+			}
+			if (isLazy(classLoaded)) {
+				Object proxy = createLazyBean(classLoaded, classLoaded.getCanonicalName());
+				if (proxy != null) {
+					beanFactory.registerSingleton(classLoaded.getCanonicalName(), proxy);
+					metrics.increment(DeployMetrics.BEANS_REGISTERED);
+					BeanLoaderLogger.info(getClass().getName(), "Bean '" + classLoaded.getCanonicalName() + "' registered as lazy.");
+					return proxy;
+				}
+			}
 			try {
-				Object bean = classLoaded.getDeclaredConstructor().newInstance();
-				beanFactory.registerSingleton(classLoaded.getCanonicalName(), bean);
-				autowiredBeanFactory.autowireBean(bean);
+				Object bean = newInstance(classLoaded);
+				if (circular) {
+					beanFactory.registerSingleton(classLoaded.getCanonicalName(), bean);
+				}
+				autowire(classLoaded.getCanonicalName(), bean);
+				warmup(classLoaded.getCanonicalName(), bean);
+				// Other beans are not autowired with it until it is warmed up.
+				if (!circular) {
+					beanFactory.registerSingleton(classLoaded.getCanonicalName(), bean);
+				}
+				metrics.increment(DeployMetrics.BEANS_REGISTERED);
 				BeanLoaderLogger.info(getClass().getName(), "Bean '" + bean + "' created.");
-
-				// Store bean from jar.
-				registerBean(pathToJar, classLoaded.getCanonicalName());
+				return bean;
 			} catch (NoSuchMethodError | InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException
 					| NoSuchMethodException | SecurityException nsme) {
+				metrics.increment(DeployMetrics.FAILURES);
 				BeanLoaderLogger.errorMessage(getClass().getName(), nsme);
+			} catch (BeansException e) {
+				// Do not keep a bean without its dependencies.
+				metrics.increment(DeployMetrics.FAILURES);
+				BeanLoaderLogger.errorMessage(getClass().getName(), e);
+				((DefaultListableBeanFactory) beanFactory).destroySingleton(classLoaded.getCanonicalName());
 			}
 		}
+		return null;
+	}
+
+	private boolean isLazy(Class<?> classLoaded) {
+		HotBean annotation = classLoaded.getAnnotation(HotBean.class);
+		Instantiation instantiation = annotation != null ? annotation.instantiation() : Instantiation.DEFAULT;
+		if (instantiation == Instantiation.DEFAULT) {
+			return BeanLoaderConfigurationReader.getInstance().isLazyInstantiation();
+		}
+		return instantiation == Instantiation.LAZY;
+	}
+
+	private BeanScope getScope(Class<?> classLoaded) {
+		HotBean annotation = classLoaded.getAnnotation(HotBean.class);
+		return annotation != null ? annotation.scope() : BeanScope.SINGLETON;
+	}
+
+	/**
+	 * Prototype and pooled beans are autowired when each instance is created,
+	 * without the deploy events and metrics of the singletons. Their resolved
+	 * dependencies are discarded each time the hot beans change.
+	 */
+	private HotBeanFactory<?> createBeanFactory(Class<?> classLoaded, String beanName) {
+		HotBean annotation = classLoaded.getAnnotation(HotBean.class);
+		int poolSize = annotation.poolSize() > 0 ? annotation.poolSize() : BeanLoaderConfigurationReader.getInstance().getPoolSize();
+		return new HotBeanFactory<>(beanName, classLoaded, annotation.scope(), poolSize, bean -> autowiredBeanFactory.autowireBean(bean),
+				() -> hotBeanRegistry.getVersion());
+	}
+
+	/**
+	 * @return a proxy that creates and autowires the bean on its first use, or
+	 *         null if the bean must be created now.
+	 */
+	private Object createLazyBean(Class<?> classLoaded, String beanName) {
+		if (!LazyHotBeanProxy.canBeProxied(classLoaded)) {
+			BeanLoaderLogger.warning(getClass().getName(), "Bean '" + beanName + "' cannot be proxied and is not lazy.");
+			return null;
+		}
+		try {
+			return LazyHotBeanProxy.create(classLoaded, () -> {
+				try {
+					Object bean = newInstance(classLoaded);
+					autowire(beanName, bean);
+					BeanLoaderLogger.info(getClass().getName(), "Bean '" + bean + "' created on first use.");
+					return bean;
+				} catch (ReflectiveOperationException e) {
+					metrics.increment(DeployMetrics.FAILURES);
+					throw new BeanCreationException(beanName, "Lazy bean cannot be created.", e);
+				} catch (BeansException e) {
+					metrics.increment(DeployMetrics.FAILURES);
+					throw e;
+				}
+			});
+		} catch (AopConfigException e) {
+			BeanLoaderLogger.warning(getClass().getName(), "Bean '" + beanName + "' cannot be proxied and is not lazy: " + e.getMessage());
+			return null;
+		}
+	}
+
+	private Object newInstance(Class<?> classLoaded)
+			throws InstantiationException, IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+		BeanInstantiationEvent event = new BeanInstantiationEvent(classLoaded.getCanonicalName());
+		event.begin();
+		long start = System.nanoTime();
+		Object bean = BeanConstructor.of(classLoaded).newInstance();
+		event.commit();
+		metrics.record(DeployMetrics.BEAN_INSTANTIATION, classLoaded.getCanonicalName(), System.nanoTime() - start);
+		return bean;
+	}
+
+	/**
+	 * @return the warm-up of new beans, or null if disabled.
+	 */
+	private BeanWarmup getBeanWarmup() {
+		BeanLoaderConfigurationReader configuration = BeanLoaderConfigurationReader.getInstance();
+		if (!configuration.isWarmupEnabled()) {
+			return null;
+		}
+		return new BeanWarmup(configuration.getWarmupIterations(), configuration.getWarmupDuration());
+	}
+
+	private void initializeClasses(BeanWarmup beanWarmup, String pathToJar, PluginClassLoader classLoader) {
+		long start = System.nanoTime();
+		int classesInitialized = beanWarmup.initializeClasses(classLoader);
+		metrics.record(DeployMetrics.CLASS_INITIALIZATION, pathToJar, System.nanoTime() - start);
+		BeanLoaderLogger.debug(getClass().getName(), "Classes initialized from '" + pathToJar + "': '" + classesInitialized + "'.");
+	}
+
+	/**
+	 * Calls the warm-up methods of a new bean, before it is available.
+	 */
+	private void warmup(String beanName, Object bean) {
+		BeanWarmup beanWarmup = getBeanWarmup();
+		if (beanWarmup == null) {
+			return;
+		}
+		long start = System.nanoTime();
+		int calls = beanWarmup.warmup(beanName, bean);
+		if (calls > 0) {
+			metrics.record(DeployMetrics.BEAN_WARMUP, beanName, System.nanoTime() - start);
+			BeanLoaderLogger.debug(getClass().getName(), "Bean '" + beanName + "' warmed up with '" + calls + "' calls.");
+		}
+	}
+
+	private void autowire(String beanName, Object bean) {
+		BeanAutowireEvent event = new BeanAutowireEvent(beanName);
+		event.begin();
+		long start = System.nanoTime();
+		autowiredBeanFactory.autowireBean(bean);
+		event.commit();
+		metrics.record(DeployMetrics.BEAN_AUTOWIRING, beanName, System.nanoTime() - start);
 	}
 
 	public void removeBeansFromJar(String jarName) {
 		BeanLoaderLogger.debug(getClass().getName(), "Removing beans from '" + jarName + "'.");
-		if (beansPerJar != null && beansPerJar.get(jarName) != null) {
-			for (String beanName : beansPerJar.get(jarName)) {
+		List<ReentrantLock> locks = lockJars(Collections.singleton(jarName));
+		try {
+			DeployedJar deployedJar = deploymentState.get().getJar(jarName);
+			if (deployedJar == null) {
+				return;
+			}
+			BeanDestroyEvent event = new BeanDestroyEvent(jarName);
+			event.begin();
+			List<HotBeanEvent<?>> events = new ArrayList<>();
+			for (String beanName : deployedJar.getBeanNames()) {
 				ConfigurableListableBeanFactory beanFactory = ((ConfigurableApplicationContext) applicationContext).getBeanFactory();
 				// Object existingBean = beanFactory.getBean(beanName);
+				Object removedBean = hotBeanRegistry.unregister(beanName);
+				if (removedBean != null) {
+					events.add(newEvent(HotBeanEvent.Type.UNDEPLOYED, jarName, beanName, removedBean, null));
+				}
 				((DefaultListableBeanFactory) beanFactory).destroySingleton(beanName);
+				metrics.increment(DeployMetrics.BEANS_DESTROYED);
 				BeanLoaderLogger.info(getClass().getName(), "Bean '" + beanName + "' destroyed.");
 				// autowiredBeanFactory.destroyBean(existingBean);
 			}
-			beansPerJar.remove(jarName);
+			if (event.shouldCommit()) {
+				event.setBeans(deployedJar.getBeanNames().size());
+				event.commit();
+			}
+			deploymentState.updateAndGet(state -> state.withJar(deployedJar.withoutBeans()));
+			publishEvents(events);
+		} finally {
+			unlockJars(locks);
+		}
+	}
+
+	private HotBeanEvent<Object> newEvent(HotBeanEvent.Type type, String pathToJar, String beanName, Object bean, Object previousBean) {
+		return new HotBeanEvent<>(this, type, pathToJar, beanName, bean, previousBean);
+	}
+
+	/**
+	 * Notifies the listeners of the bean loader and the Spring listeners.
+	 */
+	private void publishEvents(List<HotBeanEvent<?>> events) {
+		for (HotBeanEvent<?> event : events) {
+			BeanLoaderLogger.debug(getClass().getName(), "Publishing event " + event + ".");
+			eventDispatcher.dispatch(event);
+			try {
+				applicationContext.publishEvent(event);
+			} catch (RuntimeException e) {
+				BeanLoaderLogger.errorMessage(getClass().getName(), e);
+			}
 		}
 	}
 
+	@Override
+	public <T> void addListener(Class<T> type, HotBeanListener<? super T> listener) {
+		eventDispatcher.addListener(type, listener);
+	}
+
+	@Override
+	public void removeListener(HotBeanListener<?> listener) {
+		eventDispatcher.removeListener(listener);
+	}
+
 	/**
 	 * Reads from a classLoader if a class has bean loaded or not.
 	 * 
@@ -298,17 +2020,9 @@ public class BeanLoader implements IBeanLoader {
 		return (result != null);
 	}
 
-	private boolean hasBasicConstructor(Class<?> clazz) {
-		for (Constructor<?> constructor : clazz.getConstructors()) {
-			if (constructor.getParameterTypes().length == 0) {
-				return true;
-			}
-		}
-		return false;
-	}
-
 	private Set<String> getJars(String folderPath) {
-		Set<String> jarPaths = new HashSet<>();
+		// Sorted to have always the same loading order.
+		Set<String> jarPaths = new TreeSet<>();
 		File dir = new File(folderPath);
 		File[] files = dir.listFiles(new FilenameFilter() {
 			@Override
@@ -326,43 +2040,113 @@ public class BeanLoader implements IBeanLoader {
 		return jarPaths;
 	}
 
+	@Override
+	public Map<String, Class<?>> getBeansClassLoaded() {
+		return deploymentState.get().getClassesLoaded();
+	}
+
+	@Override
+	public DeploymentState getDeploymentState() {
+		return deploymentState.get();
+	}
+
+	@Override
+	public StartupReadiness getStartupReadiness() {
+		return startupReadiness;
+	}
+
+	@Override
+	public DeployMetrics getMetrics() {
+		return metrics;
+	}
+
 	/**
-	 * FileWatcher is too quick and we need to wait until the jar file is
-	 * completely copied.
+	 * Result of scanning a jar, not published yet.
 	 */
-	private void waitUntilJarIsCopied(String pathToJar) {
-		int bound = 1;
-		long fileModificationTime = 0l;
-		do {
-			long currentModificationTime = new File(pathToJar).lastModified();
-			if (fileModificationTime == currentModificationTime) {
-				break;
-			}
-			fileModificationTime = currentModificationTime;
-			bound++;
-			// Wait some time.
-			try {
-				BeanLoaderLogger.debug(getClass().getName(), "Waiting until the complete creation of file '" + pathToJar.toString() + "'.");
-				Thread.sleep(100);
-			} catch (InterruptedException ex) {
-				BeanLoaderLogger.errorMessage(getClass().getName(), ex);
-			}
-		} while (bound < MAX_RETRIES_JAR_WRITTEN);
+	private static class JarScan {
+		private final PluginClassLoader classLoader;
+		private final List<Class<?>> beanClasses;
+		private final long scanNanos;
+
+		JarScan(PluginClassLoader classLoader, List<Class<?>> beanClasses, long scanNanos) {
+			this.classLoader = classLoader;
+			this.beanClasses = beanClasses;
+			this.scanNanos = scanNanos;
+		}
 
-		if (bound < MAX_RETRIES_JAR_WRITTEN) {
-			BeanLoaderLogger.debug(getClass().getName(), "File '" + pathToJar.toString() + "' completed.");
+		/**
+		 * @return the same scan with only the beans of a startup tier.
+		 */
+		JarScan filter(StartupReadiness.Tier tier, StartupReadiness readiness, HotBeanPriorityComparator priorities) {
+			List<Class<?>> tierClasses = new ArrayList<>();
+			for (Class<?> beanClass : beanClasses) {
+				if (readiness.getTier(priorities.getEffectivePriority(beanClass).orElse(0)) == tier) {
+					tierClasses.add(beanClass);
+				}
+			}
+			return new JarScan(classLoader, tierClasses, scanNanos);
 		}
 	}
 
-	private void registerBean(String jarName, String beanName) {
-		if (beansPerJar.get(jarName) == null) {
-			beansPerJar.put(jarName, new HashSet<String>());
+	/**
+	 * Future of the last deployment of a jar. Only referenced weakly while the
+	 * jar is not deployed, so jars that nobody waits for are forgotten.
+	 */
+	private static class Deployment extends WeakReference<CompletableFuture<JarDeployReport>> {
+		private final String pathToJar;
+		// Keeps the future while the jar is deployed.
+		private final CompletableFuture<JarDeployReport> completed;
+
+		Deployment(String pathToJar, CompletableFuture<JarDeployReport> pending, ReferenceQueue<CompletableFuture<JarDeployReport>> queue) {
+			super(pending, queue);
+			this.pathToJar = pathToJar;
+			this.completed = null;
+		}
+
+		Deployment(String pathToJar, CompletableFuture<JarDeployReport> completed) {
+			super(completed);
+			this.pathToJar = pathToJar;
+			this.completed = completed;
 		}
-		beansPerJar.get(jarName).add(beanName);
 	}
 
-	@Override
-	public Map<String, Class<?>> getBeansClassLoaded() {
-		return beansClassLoaded;
+	/**
+	 * New version of a deployed jar, scanned but not swapped yet.
+	 */
+	private static class JarReplacement {
+		private final DeployedJar oldJar;
+		private final PluginClassLoader classLoader;
+		private final ClassVersionDiff diff;
+		private final List<PluginClassLoader> releasedClassLoaders;
+		private final List<Class<?>> beanClasses;
+		private final Set<String> keptBeanNames;
+		private final List<Class<?>> beansToCreate;
+		private final long scanNanos;
+
+		JarReplacement(DeployedJar oldJar, PluginClassLoader classLoader, ClassVersionDiff diff, List<PluginClassLoader> releasedClassLoaders,
+				List<Class<?>> beanClasses, Set<String> keptBeanNames, long scanNanos) {
+			this.oldJar = oldJar;
+			this.classLoader = classLoader;
+			this.diff = diff;
+			this.releasedClassLoaders = releasedClassLoaders;
+			this.beanClasses = beanClasses;
+			this.keptBeanNames = keptBeanNames;
+			this.scanNanos = scanNanos;
+			beansToCreate = new ArrayList<>();
+			for (Class<?> beanClass : beanClasses) {
+				if (!keptBeanNames.contains(beanClass.getCanonicalName())) {
+					beansToCreate.add(beanClass);
+				}
+			}
+		}
+
+		/**
+		 * @return the beans of the old version that are replaced or removed.
+		 */
+		Set<String> getOldBeanNames() {
+			Set<String> oldBeanNames = new LinkedHashSet<>(oldJar.getBeanNames());
+			oldBeanNames.removeAll(keptBeanNames);
+			return oldBeanNames;
+		}
 	}
 }
@@ -23,8 +23,18 @@ package com.biit.bean.loader;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import com.biit.bean.loader.deploy.DeploymentState;
+import com.biit.bean.loader.deploy.JarDeployReport;
+import com.biit.bean.loader.deploy.StartupReadiness;
+import com.biit.bean.loader.event.HotBeanEvent;
+import com.biit.bean.loader.event.HotBeanListener;
+import com.biit.bean.loader.instantiation.HotBeanFactory;
+import com.biit.bean.loader.metrics.DeployMetrics;
 
 public interface IBeanLoader {
 
@@ -41,6 +51,47 @@ public interface IBeanLoader {
 	 */
 	<T extends HotBean> void loadBeansFromFolder(Class<T> beanAnnotation, String folderWithJars, String packetPrefixFilter);
 
+	/**
+	 * Same as {@link #loadBeansFromFolder(Class, String, String)}, but runs on
+	 * the deploy executor.
+	 *
+	 * @param beanAnnotation
+	 *            annotation used to distinguish the bean.
+	 * @param folderWithJars
+	 *            path to a folder with jars that contains the beans.
+	 * @param packetPrefixFilter
+	 *            only scan classes that the packet starts with this string.
+	 * @return the report of each jar, when all beans are registered.
+	 */
+	<T extends HotBean> CompletableFuture<List<JarDeployReport>> loadBeansFromFolderAsync(Class<T> beanAnnotation, String folderWithJars,
+			String packetPrefixFilter);
+
+	/**
+	 * Loads the beans of a jar on the deploy executor.
+	 *
+	 * @param beanAnnotation
+	 *            annotation used to distinguish the bean.
+	 * @param pathToJar
+	 *            the jar.
+	 * @param packetPrefixFilter
+	 *            only scan classes that the packet starts with this string.
+	 * @return the report of the jar, when its beans are registered.
+	 */
+	<T extends HotBean> CompletableFuture<JarDeployReport> loadBeansFromJarAsync(Class<T> beanAnnotation, String pathToJar, String packetPrefixFilter);
+
+	/**
+	 * Gets the last deployment of a jar, by any means. If the jar has not been
+	 * deployed yet, the future is completed when it is, or when it fails.
+	 * Cancel the future, or let it time out, to stop waiting for a jar that
+	 * may never be deployed. Until the jar is deployed, the future is only kept
+	 * while the caller references it, so keep it while waiting.
+	 *
+	 * @param pathToJar
+	 *            the jar, as it is stored in the deployment state.
+	 * @return the report of the jar.
+	 */
+	CompletableFuture<JarDeployReport> getDeployment(String pathToJar);
+
 	/**
 	 * Reads from a classLoader if a class has bean loaded or not.
 	 * 
@@ -60,15 +111,108 @@ public interface IBeanLoader {
 
 	/**
 	 * Gets all beans that already exist in the application context and match
-	 * the selected filter.
+	 * the selected filter, including the hot beans deployed. Other beans of
+	 * the context are read once per annotation after the context is
+	 * refreshed.
 	 *
 	 * @return a list of bean classes.
 	 */
 	<T extends java.lang.annotation.Annotation> Collection<Object> getLoadedBeansWithAnnotation(Class<T> beanAnnotation);
 
+	/**
+	 * Gets all hot beans that can be assigned to a type.
+	 *
+	 * @param type
+	 *            a class or interface.
+	 * @return an immutable snapshot of the beans.
+	 */
 	<T> Set<T> getLoadedBeansOfType(Class<T> type);
 
+	/**
+	 * Gets the factories of the prototype and pooled hot beans whose instances
+	 * can be assigned to a type. These beans are not returned by
+	 * {@link #getLoadedBeansOfType(Class)}.
+	 *
+	 * @param type
+	 *            a class or interface.
+	 * @return an immutable snapshot of the factories.
+	 */
+	<T> Set<HotBeanFactory<? extends T>> getBeanFactoriesOfType(Class<T> type);
+
+	/**
+	 * Loads the beans of a folder and watches it. Jars of the folder are
+	 * always scanned with this prefix. Several folders can be watched at the
+	 * same time.
+	 *
+	 * @param jarFolder
+	 *            path to a folder with jars that contains the beans.
+	 * @param beanPacketPrefix
+	 *            only scan classes that the packet starts with this string.
+	 */
 	void loadSettings(String jarFolder, String beanPacketPrefix);
 
+	/**
+	 * Same as {@link #loadSettings(String, String)}, but runs on the deploy
+	 * executor. The folder is watched before loading its jars, and jars
+	 * changed meanwhile are deployed after them.
+	 *
+	 * @param jarFolder
+	 *            path to a folder with jars that contains the beans.
+	 * @param beanPacketPrefix
+	 *            only scan classes that the packet starts with this string.
+	 * @return the report of each jar, when all beans are registered.
+	 */
+	CompletableFuture<List<JarDeployReport>> loadSettingsAsync(String jarFolder, String beanPacketPrefix);
+
+	/**
+	 * @return an immutable snapshot of the bean classes loaded by class name.
+	 */
 	Map<String, Class<?>> getBeansClassLoaded();
+
+	/**
+	 * @return an immutable and versioned snapshot of the deployed jars.
+	 */
+	DeploymentState getDeploymentState();
+
+	/**
+	 * @return the number of classloaders of the jars currently deployed,
+	 *         including previous versions that still define unchanged
+	 *         classes.
+	 */
+	int getLiveClassLoaderCount();
+
+	/**
+	 * @return the number of classloaders of undeployed jars that are still in
+	 *         memory.
+	 */
+	int getRetiredClassLoaderCount();
+
+	/**
+	 * @return the readiness of the beans deployed on startup, by priority
+	 *         tier.
+	 */
+	StartupReadiness getStartupReadiness();
+
+	/**
+	 * @return the timers, counters and gauges of the deploy pipeline.
+	 */
+	DeployMetrics getMetrics();
+
+	/**
+	 * Receives the beans of a type that are deployed, undeployed or replaced.
+	 * The beans already deployed are notified first. The same events are
+	 * published as Spring {@link HotBeanEvent}s.
+	 *
+	 * @param type
+	 *            a class or interface.
+	 * @param listener
+	 *            the listener.
+	 */
+	<T> void addListener(Class<T> type, HotBeanListener<? super T> listener);
+
+	/**
+	 * @param listener
+	 *            a listener added for any type.
+	 */
+	void removeListener(HotBeanListener<?> listener);
 }
@@ -0,0 +1,173 @@
+package com.biit.bean.loader.classloader;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import com.biit.bean.loader.logger.BeanLoaderLogger;
+
+/**
+ * Records the classes defined by the plugin classloaders during a training
+ * run, and writes them as the class list of a static CDS archive:
+ *
+ * <pre>
+ * java -Xshare:dump -XX:SharedClassListFile=plugins.classlist -XX:SharedArchiveFile=plugins.jsa -cp ...
+ * </pre>
+ *
+ * Plugin classes are listed with the jar that contains them. When the
+ * application runs with the archive, a plugin classloader gets the archived
+ * class instead of parsing it if the class bytes have the same size and CRC
+ * than the archived ones. Classes of nested jars, and classes with a supertype
+ * defined by any other classloader, cannot be archived.
+ */
+public class CdsClassList implements PluginClassLoader.ClassDefinitionListener {
+	private final static String OBJECT_CLASS = "java/lang/Object";
+
+	// Key of each class recorded. Weak, as the classloaders can be retired.
+	private final Map<Class<?>, String> keys = new WeakHashMap<>();
+	private final Map<String, ListedClass> listedClasses = new LinkedHashMap<>();
+	private int classesDiscarded = 0;
+
+	@Override
+	public synchronized void classDefined(Class<?> definedClass, MappedJar jar) {
+		if (jar.isNested()) {
+			classesDiscarded++;
+			return;
+		}
+		List<String> supertypes = new ArrayList<>();
+		// The superclass first, as expected by the JVM.
+		Class<?> superclass = definedClass.getSuperclass();
+		supertypes.add(superclass != null ? getKey(superclass) : OBJECT_CLASS);
+		for (Class<?> implementedInterface : definedClass.getInterfaces()) {
+			supertypes.add(getKey(implementedInterface));
+		}
+		if (supertypes.contains(null)) {
+			BeanLoaderLogger.debug(getClass().getName(), "Class '" + definedClass.getName() + "' cannot be archived, a supertype is not shared.");
+			classesDiscarded++;
+			return;
+		}
+		String source = jar.getPathToJar().toAbsolutePath().toString();
+		String key = getName(definedClass) + " " + source;
+		keys.put(definedClass, key);
+		// A newer version of the same jar is archived from the same file.
+		listedClasses.putIfAbsent(key, new ListedClass(getName(definedClass), source, supertypes));
+	}
+
+	/**
+	 * @return the key of a class recorded or from the JDK classloaders, null
+	 *         otherwise.
+	 */
+	private String getKey(Class<?> type) {
+		if (isBuiltIn(type.getClassLoader())) {
+			return getName(type);
+		}
+		return keys.get(type);
+	}
+
+	private static boolean isBuiltIn(ClassLoader classLoader) {
+		return classLoader == null || classLoader == ClassLoader.getPlatformClassLoader() || classLoader == ClassLoader.getSystemClassLoader();
+	}
+
+	private static String getName(Class<?> type) {
+		return type.getName().replace('.', '/');
+	}
+
+	/**
+	 * @return the number of plugin classes recorded.
+	 */
+	public synchronized int getClassCount() {
+		return listedClasses.size();
+	}
+
+	/**
+	 * @return the number of plugin classes that cannot be archived.
+	 */
+	public synchronized int getClassesDiscarded() {
+		return classesDiscarded;
+	}
+
+	/**
+	 * Writes the plugin classes recorded, after the JDK classes they extend.
+	 *
+	 * @param classListFile
+	 *            the file.
+	 * @throws IOException
+	 *             if the file cannot be written.
+	 */
+	public synchronized void write(Path classListFile) throws IOException {
+		Map<String, Integer> ids = new HashMap<>();
+		List<String> lines = new ArrayList<>();
+		lines.add("# Plugin classes recorded by the bean loader.");
+		for (Map.Entry<String, ListedClass> listedClass : listedClasses.entrySet()) {
+			StringBuilder line = new StringBuilder();
+			List<String> supertypes = listedClass.getValue().supertypes;
+			line.append(" super: ").append(getId(supertypes.get(0), ids, lines));
+			if (supertypes.size() > 1) {
+				line.append(" interfaces:");
+				for (String implementedInterface : supertypes.subList(1, supertypes.size())) {
+					line.append(' ').append(getId(implementedInterface, ids, lines));
+				}
+			}
+			int id = ids.size() + 1;
+			ids.put(listedClass.getKey(), id);
+			lines.add(listedClass.getValue().name + " id: " + id + line + " source: " + listedClass.getValue().source);
+		}
+		Files.write(classListFile, lines, StandardCharsets.UTF_8);
+		BeanLoaderLogger.info(getClass().getName(), "Class list '" + classListFile + "' written with '" + listedClasses.size() + "' plugin classes.");
+	}
+
+	/**
+	 * Gets the id of a class. JDK classes are listed the first time they are
+	 * used.
+	 */
+	private static int getId(String key, Map<String, Integer> ids, List<String> lines) {
+		Integer id = ids.get(key);
+		if (id == null) {
+			// Plugin classes are always listed before their subclasses.
+			id = ids.size() + 1;
+			ids.put(key, id);
+			lines.add(key + " id: " + id);
+		}
+		return id;
+	}
+
+	private static class ListedClass {
+		private final String name;
+		private final String source;
+		private final List<String> supertypes;
+
+		ListedClass(String name, String source, List<String> supertypes) {
+			this.name = name;
+			this.source = source;
+			this.supertypes = supertypes;
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package com.biit.bean.loader.classloader;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.biit.bean.loader.logger.BeanLoaderLogger;
+
+/**
+ * Keeps a weak reference to each classloader that is not used anymore. If the
+ * garbage collector does not reclaim a classloader after some time, something
+ * still references one of its classes and metaspace is leaking.
+ */
+public class ClassLoaderTracker {
+	private final ReferenceQueue<ClassLoader> collectedClassLoaders = new ReferenceQueue<>();
+	private final Set<RetiredClassLoader> retiredClassLoaders = Collections.synchronizedSet(new LinkedHashSet<RetiredClassLoader>());
+
+	/**
+	 * Finds what is retaining a classloader.
+	 */
+	public interface RetentionInspector {
+
+		/**
+		 * @param classLoader
+		 *            the classloader not collected.
+		 * @return a description of the objects that still use the classloader.
+		 */
+		Collection<String> getRetainers(ClassLoader classLoader);
+	}
+
+	/**
+	 * Starts tracking a classloader that must be collected.
+	 *
+	 * @param pathToJar
+	 *            the jar of the classloader.
+	 * @param classLoader
+	 *            the classloader.
+	 * @param beanNames
+	 *            the beans that were created with this classloader.
+	 */
+	public void retire(String pathToJar, ClassLoader classLoader, Collection<String> beanNames) {
+		expungeCollected();
+		retiredClassLoaders.add(new RetiredClassLoader(pathToJar, classLoader, beanNames, collectedClassLoaders));
+	}
+
+	/**
+	 * @return the number of classloaders retired but still in memory.
+	 */
+	public int getRetiredCount() {
+		expungeCollected();
+		return retiredClassLoaders.size();
+	}
+
+	/**
+	 * Reports the classloaders that have not been collected after a time.
+	 * Each classloader is only reported once.
+	 *
+	 * @param timeoutMillis
+	 *            time since the retirement.
+	 * @param inspector
+	 *            used to find the beans that retain the classloader. Can be
+	 *            null.
+	 * @return the retainers of each classloader that is leaking, by jar.
+	 */
+	public Map<String, Collection<String>> checkLeaks(long timeoutMillis, RetentionInspector inspector) {
+		expungeCollected();
+		Map<String, Collection<String>> leakingJars = new LinkedHashMap<>();
+		List<RetiredClassLoader> retired;
+		synchronized (retiredClassLoaders) {
+			retired = new ArrayList<>(retiredClassLoaders);
+		}
+		long now = System.currentTimeMillis();
+		for (RetiredClassLoader retiredClassLoader : retired) {
+			if (retiredClassLoader.reported || now - retiredClassLoader.retiredAt < timeoutMillis) {
+				continue;
+			}
+			ClassLoader classLoader = retiredClassLoader.get();
+			if (classLoader == null) {
+				continue;
+			}
+			Collection<String> retainers = inspector != null ? inspector.getRetainers(classLoader) : Collections.<String> emptyList();
+			BeanLoaderLogger.warning(getClass().getName(), "Classloader of '" + retiredClassLoader.pathToJar + "' has not been collected "
+					+ (now - retiredClassLoader.retiredAt) + " ms after undeploying it. Retained by '"
+					+ (retainers.isEmpty() ? "unknown" : retainers) + "'. Beans created by it were '" + retiredClassLoader.beanNames + "'.");
+			retiredClassLoader.reported = true;
+			leakingJars.put(retiredClassLoader.pathToJar, retainers);
+		}
+		return leakingJars;
+	}
+
+	private void expungeCollected() {
+		Reference<? extends ClassLoader> collected;
+		while ((collected = collectedClassLoaders.poll()) != null) {
+			if (retiredClassLoaders.remove(collected)) {
+				BeanLoaderLogger.debug(getClass().getName(), "Classloader of '" + ((RetiredClassLoader) collected).pathToJar + "' collected.");
+			}
+		}
+	}
+
+	private static class RetiredClassLoader extends WeakReference<ClassLoader> {
+		private final String pathToJar;
+		private final List<String> beanNames;
+		private final long retiredAt;
+		private volatile boolean reported = false;
+
+		RetiredClassLoader(String pathToJar, ClassLoader classLoader, Collection<String> beanNames, ReferenceQueue<ClassLoader> queue) {
+			super(classLoader, queue);
+			this.pathToJar = pathToJar;
+			this.beanNames = new ArrayList<>(beanNames);
+			this.retiredAt = System.currentTimeMillis();
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package com.biit.bean.loader.classloader;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.biit.bean.loader.scanner.ClassFileScanner;
+
+/**
+ * Differences between the classes of two versions of a plugin jar. The
+ * content of each class is compared using the checksums of the central
+ * directory, so only the classes that have not changed are read, to get their
+ * references.
+ * <p>
+ * A class is changed if its content is different, or if it refers to a class
+ * of the jar that has been changed, added or removed. Unchanged classes
+ * behave the same on both versions and can be shared.
+ */
+public class ClassVersionDiff {
+	private final static String CLASS_EXTENSION = ".class";
+
+	private final Set<String> changedClasses;
+	private final Set<String> unchangedClasses;
+
+	private ClassVersionDiff(Set<String> changedClasses, Set<String> unchangedClasses) {
+		this.changedClasses = Collections.unmodifiableSet(changedClasses);
+		this.unchangedClasses = Collections.unmodifiableSet(unchangedClasses);
+	}
+
+	/**
+	 * @param previousVersion
+	 *            the classloader of the deployed version.
+	 * @param currentVersion
+	 *            the classloader of the new version.
+	 * @return the differences.
+	 * @throws IOException
+	 *             if a class of the new version cannot be read.
+	 */
+	public static ClassVersionDiff compare(PluginClassLoader previousVersion, PluginClassLoader currentVersion) throws IOException {
+		Map<String, MappedJar> previousClasses = previousVersion.getClassJars();
+		Map<String, MappedJar> currentClasses = currentVersion.getClassJars();
+
+		Set<String> changed = new LinkedHashSet<>();
+		for (Map.Entry<String, MappedJar> currentClass : currentClasses.entrySet()) {
+			MappedJar previousJar = previousClasses.get(currentClass.getKey());
+			if (previousJar == null || !isSameContent(getEntryName(currentClass.getKey()), previousJar, currentClass.getValue())) {
+				changed.add(currentClass.getKey());
+			}
+		}
+		for (String previousClass : previousClasses.keySet()) {
+			if (!currentClasses.containsKey(previousClass)) {
+				changed.add(previousClass);
+			}
+		}
+
+		// Classes of the jar referenced by each unchanged class.
+		Map<String, Set<String>> dependents = new HashMap<>();
+		for (Map.Entry<String, MappedJar> currentClass : currentClasses.entrySet()) {
+			if (changed.contains(currentClass.getKey())) {
+				continue;
+			}
+			for (String referencedClass : currentClass.getValue().read(getEntryName(currentClass.getKey()), ClassFileScanner::getReferencedClasses)) {
+				if (changed.contains(referencedClass) || currentClasses.containsKey(referencedClass)) {
+					dependents.computeIfAbsent(referencedClass, key -> new LinkedHashSet<>()).add(currentClass.getKey());
+				}
+			}
+		}
+		Deque<String> pending = new ArrayDeque<>(changed);
+		while (!pending.isEmpty()) {
+			for (String dependent : dependents.getOrDefault(pending.poll(), Collections.<String> emptySet())) {
+				if (changed.add(dependent)) {
+					pending.add(dependent);
+				}
+			}
+		}
+
+		Set<String> unchanged = new LinkedHashSet<>(currentClasses.keySet());
+		unchanged.removeAll(changed);
+		return new ClassVersionDiff(changed, unchanged);
+	}
+
+	private static String getEntryName(String className) {
+		return className.replace('.', '/') + CLASS_EXTENSION;
+	}
+
+	private static boolean isSameContent(String entryName, MappedJar previousJar, MappedJar currentJar) {
+		return previousJar.getCrc(entryName) == currentJar.getCrc(entryName) && previousJar.getSize(entryName) == currentJar.getSize(entryName);
+	}
+
+	/**
+	 * @return classes changed, added, removed or that refer to any of them.
+	 */
+	public Set<String> getChangedClasses() {
+		return changedClasses;
+	}
+
+	/**
+	 * @return classes of the new version that can be shared with the
+	 *         previous one.
+	 */
+	public Set<String> getUnchangedClasses() {
+		return unchangedClasses;
+	}
+
+	public boolean isChanged(String className) {
+		return changedClasses.contains(className);
+	}
+
+	@Override
+	public String toString() {
+		return "changed " + changedClasses.size() + ", unchanged " + unchangedClasses.size();
+	}
+}
@@ -0,0 +1,83 @@
+package com.biit.bean.loader.classloader;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Defines once the classes repeated in several plugin jars. Its resources are
+ * not visible, so a plugin never gets a resource from another plugin.
+ */
+public class DeduplicatedClassLoader extends ClassLoader {
+	private final Map<String, byte[]> pendingClasses;
+	private final Map<String, byte[]> classHashes;
+
+	static {
+		ClassLoader.registerAsParallelCapable();
+	}
+
+	public DeduplicatedClassLoader(DuplicateClassIndex index, ClassLoader parent) {
+		super(parent);
+		this.pendingClasses = new ConcurrentHashMap<>(index.getClassBytes());
+		this.classHashes = index.getClassHashes();
+	}
+
+	@Override
+	protected Class<?> findClass(String name) throws ClassNotFoundException {
+		byte[] classBytes = pendingClasses.get(name);
+		if (classBytes == null) {
+			throw new ClassNotFoundException(name);
+		}
+		Class<?> definedClass = defineClass(name, classBytes, 0, classBytes.length);
+		// Not needed anymore.
+		pendingClasses.remove(name);
+		return definedClass;
+	}
+
+	/**
+	 * @param className
+	 *            the class name.
+	 * @return true if the class is defined by this classloader.
+	 */
+	public boolean isDeduplicated(String className) {
+		return classHashes.containsKey(className);
+	}
+
+	/**
+	 * @param className
+	 *            the class name.
+	 * @param classHash
+	 *            the hash of other version of the class.
+	 * @return true if the version is the same that this classloader defines.
+	 */
+	public boolean isSameVersion(String className, byte[] classHash) {
+		byte[] hash = classHashes.get(className);
+		return hash != null && MessageDigest.isEqual(hash, classHash);
+	}
+
+	public int getClassCount() {
+		return classHashes.size();
+	}
+}
@@ -0,0 +1,234 @@
+package com.biit.bean.loader.classloader;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import com.biit.bean.loader.logger.BeanLoaderLogger;
+import com.biit.bean.loader.scanner.ClassFileScanner;
+
+/**
+ * Finds the classes that are repeated, with exactly the same bytes, in several
+ * plugin jars. Such classes can be defined only once in a common classloader.
+ * <p>
+ * A class is only selected if every class it refers to is also selected or
+ * available from the parent classloader, so it links to the same classes in
+ * the common classloader than in each plugin. Classes that exist in any jar
+ * with different bytes and bean classes are never selected, so each plugin
+ * keeps its own beans.
+ */
+public class DuplicateClassIndex {
+	private final static String CLASS_EXTENSION = ".class";
+	private final static String META_INF = "META-INF/";
+	private final static String HASH_ALGORITHM = "SHA-256";
+
+	private final Map<String, byte[]> classBytes;
+	private final Map<String, byte[]> classHashes;
+
+	private DuplicateClassIndex(Map<String, byte[]> classBytes, Map<String, byte[]> classHashes) {
+		this.classBytes = classBytes;
+		this.classHashes = classHashes;
+	}
+
+	/**
+	 * @param jars
+	 *            the plugin jars.
+	 * @param parent
+	 *            the classloader that the plugins delegate to.
+	 * @param beanScanner
+	 *            detects the bean classes.
+	 * @return the classes that can be shared.
+	 */
+	public static DuplicateClassIndex build(Collection<Path> jars, ClassLoader parent, ClassFileScanner beanScanner) {
+		// Central directory values are compared first, without reading the
+		// classes.
+		Map<String, List<ClassEntry>> entriesByClass = new HashMap<>();
+		for (Path jar : jars) {
+			try (JarFile jarFile = new JarFile(jar.toFile())) {
+				Enumeration<JarEntry> entries = jarFile.entries();
+				while (entries.hasMoreElements()) {
+					JarEntry entry = entries.nextElement();
+					if (entry.isDirectory() || !entry.getName().endsWith(CLASS_EXTENSION) || entry.getName().startsWith(META_INF)) {
+						continue;
+					}
+					String className = entry.getName().substring(0, entry.getName().length() - CLASS_EXTENSION.length()).replace('/', '.');
+					entriesByClass.computeIfAbsent(className, name -> new ArrayList<>()).add(new ClassEntry(jar, entry.getName(), entry.getCrc(),
+							entry.getSize()));
+				}
+			} catch (IOException e) {
+				BeanLoaderLogger.warning(DuplicateClassIndex.class.getName(), "Jar '" + jar + "' not checked for duplicated classes: " + e.getMessage());
+			}
+		}
+
+		Map<String, byte[]> classBytes = new LinkedHashMap<>();
+		Map<String, byte[]> classHashes = new HashMap<>();
+		for (Map.Entry<String, List<ClassEntry>> entries : entriesByClass.entrySet()) {
+			if (entries.getValue().size() < 2 || !haveSameEntry(entries.getValue()) || isAvailable(parent, entries.getKey())) {
+				continue;
+			}
+			try {
+				byte[] bytes = readClass(entries.getValue().get(0));
+				byte[] hash = getHash(bytes);
+				boolean identical = true;
+				for (int i = 1; i < entries.getValue().size() && identical; i++) {
+					identical = MessageDigest.isEqual(hash, getHash(readClass(entries.getValue().get(i))));
+				}
+				if (identical && !beanScanner.scan(bytes).isAnnotated()) {
+					classBytes.put(entries.getKey(), bytes);
+					classHashes.put(entries.getKey(), hash);
+				}
+			} catch (IOException e) {
+				BeanLoaderLogger.warning(DuplicateClassIndex.class.getName(), "Class '" + entries.getKey() + "' not deduplicated: " + e.getMessage());
+			}
+		}
+		removeUnresolvedClasses(classBytes, classHashes, parent);
+		return new DuplicateClassIndex(classBytes, classHashes);
+	}
+
+	/**
+	 * Removes the classes that refer to a class that is not selected and not
+	 * available from the parent, until no more classes are removed.
+	 */
+	private static void removeUnresolvedClasses(Map<String, byte[]> classBytes, Map<String, byte[]> classHashes, ClassLoader parent) {
+		Map<String, Set<String>> references = new HashMap<>();
+		for (Map.Entry<String, byte[]> classContent : classBytes.entrySet()) {
+			try {
+				references.put(classContent.getKey(), ClassFileScanner.getReferencedClasses(classContent.getValue()));
+			} catch (IOException e) {
+				references.put(classContent.getKey(), null);
+			}
+		}
+		Map<String, Boolean> availableInParent = new HashMap<>();
+		boolean removed = true;
+		while (removed) {
+			removed = false;
+			Iterator<Map.Entry<String, byte[]>> iterator = classBytes.entrySet().iterator();
+			while (iterator.hasNext()) {
+				String className = iterator.next().getKey();
+				Set<String> referencedClasses = references.get(className);
+				boolean resolved = referencedClasses != null;
+				if (resolved) {
+					for (String referencedClass : referencedClasses) {
+						if (!classBytes.containsKey(referencedClass)
+								&& !availableInParent.computeIfAbsent(referencedClass, name -> isAvailable(parent, name))) {
+							resolved = false;
+							break;
+						}
+					}
+				}
+				if (!resolved) {
+					iterator.remove();
+					classHashes.remove(className);
+					removed = true;
+				}
+			}
+		}
+	}
+
+	private static boolean haveSameEntry(List<ClassEntry> entries) {
+		for (ClassEntry entry : entries) {
+			if (entry.crc != entries.get(0).crc || entry.size != entries.get(0).size) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isAvailable(ClassLoader parent, String className) {
+		return parent.getResource(className.replace('.', '/') + CLASS_EXTENSION) != null;
+	}
+
+	private static byte[] readClass(ClassEntry entry) throws IOException {
+		try (JarFile jarFile = new JarFile(entry.jar.toFile())) {
+			JarEntry jarEntry = jarFile.getJarEntry(entry.entryName);
+			if (jarEntry == null) {
+				throw new IOException("Entry '" + entry.entryName + "' not found in '" + entry.jar + "'.");
+			}
+			try (InputStream input = jarFile.getInputStream(jarEntry)) {
+				return input.readAllBytes();
+			}
+		}
+	}
+
+	/**
+	 * @param classBytes
+	 *            the content of a class file.
+	 * @return the hash used to compare classes.
+	 */
+	public static byte[] getHash(byte[] classBytes) {
+		try {
+			return MessageDigest.getInstance(HASH_ALGORITHM).digest(classBytes);
+		} catch (NoSuchAlgorithmException e) {
+			// Always available in the JDK.
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @return the content of each selected class by name.
+	 */
+	public Map<String, byte[]> getClassBytes() {
+		return Collections.unmodifiableMap(classBytes);
+	}
+
+	/**
+	 * @return the hash of each selected class by name.
+	 */
+	public Map<String, byte[]> getClassHashes() {
+		return Collections.unmodifiableMap(classHashes);
+	}
+
+	public boolean isEmpty() {
+		return classBytes.isEmpty();
+	}
+
+	private static class ClassEntry {
+		private final Path jar;
+		private final String entryName;
+		private final long crc;
+		private final long size;
+
+		ClassEntry(Path jar, String entryName, long crc, long size) {
+			this.jar = jar;
+			this.entryName = entryName;
+			this.crc = crc;
+			this.size = size;
+		}
+	}
+}
@@ -0,0 +1,470 @@
+package com.biit.bean.loader.classloader;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import com.biit.bean.loader.logger.BeanLoaderLogger;
+
+/**
+ * A jar mapped in memory. The central directory is read once and the entries
+ * are read from the mapped bytes, without the JDK jar cache. Readers of stored
+ * entries get a view of the mapping, and {@link #readBytes(String)} copies
+ * them once to the heap.
+ * <p>
+ * The mapping is released when the jar is closed, so the file is not kept
+ * open after undeploying it. Entries are only accessible inside
+ * {@link #read(String, ContentReader)}, that cannot run at the same time than
+ * {@link #close()}.
+ * <p>
+ * Jars inside the jar can be opened with {@link #openNested(String)}. Stored
+ * nested jars are read in place from the mapping, and compressed ones are
+ * inflated once. They are closed with the jar that contains them.
+ * <p>
+ * The size and checksum of each entry are checked on every read, against the
+ * central directory read when opening the jar. If the file is truncated or
+ * rewritten in place, the reads fail with an {@link IOException} instead of
+ * returning the bytes of the new file.
+ */
+public class MappedJar implements Closeable {
+	private final static int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+	private final static int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+	private final static int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	private final static int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+	private final static int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+	private final static int LOCAL_HEADER_SIZE = 30;
+	private final static int MAX_COMMENT_SIZE = 0xFFFF;
+	private final static int STORED = 0;
+	private final static int DEFLATED = 8;
+	private final static long ZIP64_MAGIC_VALUE = 0xFFFFFFFFL;
+	private final static int CHECKSUM_CHUNK_SIZE = 8192;
+
+	// Releases the mapping before the buffer is collected.
+	private final static Object UNSAFE;
+	private final static Method INVOKE_CLEANER;
+
+	static {
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field unsafeField = unsafeClass.getDeclaredField("theUnsafe");
+			unsafeField.setAccessible(true);
+			unsafe = unsafeField.get(null);
+			invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			BeanLoaderLogger.warning(MappedJar.class.getName(), "Mapped jars will be released by the garbage collector: " + e.getMessage());
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+
+	private final Path pathToJar;
+	private final String location;
+	// The jar that owns the mapping. Nested jars share its lock.
+	private final MappedJar root;
+	private final Map<String, Entry> entries;
+	private final ReadWriteLock lock;
+	private ByteBuffer buffer;
+
+	/**
+	 * Reads the content of an entry.
+	 */
+	public interface ContentReader<R> {
+
+		/**
+		 * @param content
+		 *            the bytes of the entry. Cannot be used after returning.
+		 * @return any result.
+		 * @throws IOException
+		 *             if the content is not valid.
+		 */
+		R read(ByteBuffer content) throws IOException;
+	}
+
+	private MappedJar(Path pathToJar, MappedByteBuffer buffer, Map<String, Entry> entries) {
+		this.pathToJar = pathToJar;
+		this.location = pathToJar.toString();
+		this.root = this;
+		this.lock = new ReentrantReadWriteLock();
+		this.buffer = buffer;
+		this.entries = entries;
+	}
+
+	private MappedJar(MappedJar container, String entryName, ByteBuffer buffer, Map<String, Entry> entries) {
+		this.pathToJar = container.pathToJar;
+		this.location = container.location + "!/" + entryName;
+		this.root = container.root;
+		this.lock = container.lock;
+		this.buffer = buffer;
+		this.entries = entries;
+	}
+
+	/**
+	 * Maps a jar and reads its central directory.
+	 *
+	 * @param pathToJar
+	 *            the jar.
+	 * @return the mapped jar.
+	 * @throws IOException
+	 *             if the file is not a valid jar or is larger than 2GB.
+	 */
+	public static MappedJar open(Path pathToJar) throws IOException {
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(pathToJar, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Jar '" + pathToJar + "' is too large to be mapped.");
+			}
+			// The mapping is still valid after closing the channel.
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		try {
+			return new MappedJar(pathToJar, buffer, readCentralDirectory(buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN)));
+		} catch (IOException | RuntimeException e) {
+			unmap(buffer);
+			throw new IOException("Jar '" + pathToJar + "' cannot be read: " + e.getMessage(), e);
+		}
+	}
+
+	private static Map<String, Entry> readCentralDirectory(ByteBuffer zip) throws IOException {
+		int recordStart = findEndOfCentralDirectory(zip);
+		int entriesCount = zip.getShort(recordStart + 10) & 0xFFFF;
+		long centralDirectoryOffset = zip.getInt(recordStart + 16) & 0xFFFFFFFFL;
+		if (centralDirectoryOffset == ZIP64_MAGIC_VALUE) {
+			throw new IOException("ZIP64 jars are not supported.");
+		}
+		Map<String, Entry> entries = new LinkedHashMap<>();
+		int position = (int) centralDirectoryOffset;
+		for (int i = 0; i < entriesCount; i++) {
+			if (zip.getInt(position) != CENTRAL_DIRECTORY_SIGNATURE) {
+				throw new IOException("Invalid central directory.");
+			}
+			int method = zip.getShort(position + 10) & 0xFFFF;
+			long crc = zip.getInt(position + 16) & 0xFFFFFFFFL;
+			long compressedSize = zip.getInt(position + 20) & 0xFFFFFFFFL;
+			long size = zip.getInt(position + 24) & 0xFFFFFFFFL;
+			int nameLength = zip.getShort(position + 28) & 0xFFFF;
+			int extraLength = zip.getShort(position + 30) & 0xFFFF;
+			int commentLength = zip.getShort(position + 32) & 0xFFFF;
+			long localHeaderOffset = zip.getInt(position + 42) & 0xFFFFFFFFL;
+			byte[] name = new byte[nameLength];
+			zip.position(position + CENTRAL_DIRECTORY_HEADER_SIZE);
+			zip.get(name);
+			if (compressedSize == ZIP64_MAGIC_VALUE || size == ZIP64_MAGIC_VALUE || localHeaderOffset == ZIP64_MAGIC_VALUE) {
+				throw new IOException("ZIP64 jars are not supported.");
+			}
+			String entryName = new String(name, StandardCharsets.UTF_8);
+			entries.put(entryName, new Entry(method, crc, (int) compressedSize, (int) size, (int) localHeaderOffset));
+			position += CENTRAL_DIRECTORY_HEADER_SIZE + nameLength + extraLength + commentLength;
+		}
+		return entries;
+	}
+
+	/**
+	 * Opens a jar stored inside this jar. Stored nested jars are not copied.
+	 *
+	 * @param entryName
+	 *            the entry of the nested jar.
+	 * @return the nested jar.
+	 * @throws IOException
+	 *             if the entry is not a valid jar.
+	 */
+	public MappedJar openNested(String entryName) throws IOException {
+		return read(entryName, content -> {
+			// Stored entries are a view of the mapping, valid until the root jar is closed.
+			ByteBuffer nestedBuffer = content.slice();
+			try {
+				return new MappedJar(this, entryName, nestedBuffer, readCentralDirectory(nestedBuffer.duplicate().order(ByteOrder.LITTLE_ENDIAN)));
+			} catch (IOException | RuntimeException e) {
+				throw new IOException("Jar '" + location + "!/" + entryName + "' cannot be read: " + e.getMessage(), e);
+			}
+		});
+	}
+
+	private static int findEndOfCentralDirectory(ByteBuffer zip) throws IOException {
+		int minimum = Math.max(0, zip.limit() - END_OF_CENTRAL_DIRECTORY_SIZE - MAX_COMMENT_SIZE);
+		for (int position = zip.limit() - END_OF_CENTRAL_DIRECTORY_SIZE; position >= minimum; position--) {
+			if (zip.getInt(position) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+				return position;
+			}
+		}
+		throw new IOException("End of central directory not found.");
+	}
+
+	/**
+	 * @return the names of all entries, in the order of the central directory.
+	 */
+	public Collection<String> getEntryNames() {
+		return Collections.unmodifiableSet(entries.keySet());
+	}
+
+	public boolean hasEntry(String entryName) {
+		return entries.containsKey(entryName);
+	}
+
+	/**
+	 * @param entryName
+	 *            the entry.
+	 * @return the uncompressed size or -1 if not found.
+	 */
+	public long getSize(String entryName) {
+		Entry entry = entries.get(entryName);
+		return entry != null ? entry.size : -1;
+	}
+
+	/**
+	 * The CRC-32 of the content, as stored in the central directory. It does
+	 * not change if the file is modified after opening it.
+	 *
+	 * @param entryName
+	 *            the entry.
+	 * @return the checksum or -1 if not found.
+	 */
+	public long getCrc(String entryName) {
+		Entry entry = entries.get(entryName);
+		return entry != null ? entry.crc : -1;
+	}
+
+	/**
+	 * Reads an entry. Stored entries are a view of the mapped bytes, and
+	 * compressed entries are inflated to the heap. The content is checked
+	 * before calling the reader.
+	 *
+	 * @param entryName
+	 *            the entry.
+	 * @param reader
+	 *            uses the content.
+	 * @return the result of the reader.
+	 * @throws IOException
+	 *             if the entry does not exist, the jar is closed, the entry
+	 *             is not valid or the file has been modified in place.
+	 */
+	public <R> R read(String entryName, ContentReader<R> reader) throws IOException {
+		return read(entryName, false, reader);
+	}
+
+	/**
+	 * @param copy
+	 *            if true, stored entries are also copied to the heap.
+	 */
+	private <R> R read(String entryName, boolean copy, ContentReader<R> reader) throws IOException {
+		Entry entry = entries.get(entryName);
+		if (entry == null) {
+			throw new IOException("Entry '" + entryName + "' not found in '" + location + "'.");
+		}
+		lock.readLock().lock();
+		try {
+			if (buffer == null || root.buffer == null) {
+				throw new IOException("Jar '" + location + "' is closed.");
+			}
+			return reader.read(getContent(entryName, entry, copy));
+		} catch (InternalError e) {
+			// The mapping points outside the file (SIGBUS).
+			throw new IOException(getModifiedMessage(), e);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the content of an entry and checks it. Must be called with the read
+	 * lock.
+	 */
+	private ByteBuffer getContent(String entryName, Entry entry, boolean copy) throws IOException {
+		try {
+			ByteBuffer zip = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+			if (zip.getInt(entry.localHeaderOffset) != LOCAL_HEADER_SIGNATURE) {
+				throw new IOException("Invalid local header of '" + entryName + "'.");
+			}
+			int dataOffset = entry.localHeaderOffset + LOCAL_HEADER_SIZE + (zip.getShort(entry.localHeaderOffset + 26) & 0xFFFF)
+					+ (zip.getShort(entry.localHeaderOffset + 28) & 0xFFFF);
+			zip.position(dataOffset);
+			zip.limit(dataOffset + entry.compressedSize);
+			ByteBuffer data = zip.slice();
+			ByteBuffer content;
+			switch (entry.method) {
+			case STORED:
+				content = copy ? copy(data) : data.asReadOnlyBuffer();
+				break;
+			case DEFLATED:
+				// The native inflater would crash reading a truncated mapping.
+				content = inflate(copy(data), entry.size);
+				break;
+			default:
+				throw new IOException("Compression method '" + entry.method + "' of '" + entryName + "' not supported.");
+			}
+			if (content.remaining() != entry.size || getChecksum(content) != entry.crc) {
+				throw new IOException(getModifiedMessage());
+			}
+			return content;
+		} catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+			// The offsets of the central directory are not valid anymore.
+			throw new IOException(getModifiedMessage(), e);
+		}
+	}
+
+	/**
+	 * @param entryName
+	 *            the entry.
+	 * @return a copy of the entry content.
+	 * @throws IOException
+	 *             if the entry cannot be read.
+	 */
+	public byte[] readBytes(String entryName) throws IOException {
+		// Both copies are arrays of the size of the entry.
+		return read(entryName, true, content -> content.array());
+	}
+
+	private String getModifiedMessage() {
+		return "Jar '" + location + "' has been modified while mapped.";
+	}
+
+	/**
+	 * Copies the bytes in Java code, so a truncated mapping fails with an
+	 * {@link InternalError} instead of crashing the JVM.
+	 */
+	private static ByteBuffer copy(ByteBuffer data) {
+		byte[] bytes = new byte[data.remaining()];
+		data.duplicate().get(bytes);
+		return ByteBuffer.wrap(bytes);
+	}
+
+	private static long getChecksum(ByteBuffer content) {
+		CRC32 crc = new CRC32();
+		if (content.hasArray()) {
+			crc.update(content.array(), content.arrayOffset() + content.position(), content.remaining());
+			return crc.getValue();
+		}
+		// Mapped bytes are copied by chunks, for the same reason than copy(ByteBuffer).
+		ByteBuffer mapped = content.duplicate();
+		byte[] chunk = new byte[Math.min(CHECKSUM_CHUNK_SIZE, mapped.remaining())];
+		while (mapped.hasRemaining()) {
+			int length = Math.min(chunk.length, mapped.remaining());
+			mapped.get(chunk, 0, length);
+			crc.update(chunk, 0, length);
+		}
+		return crc.getValue();
+	}
+
+	private static ByteBuffer inflate(ByteBuffer data, int size) throws IOException {
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(data);
+			ByteBuffer content = ByteBuffer.allocate(size);
+			while (content.hasRemaining() && !inflater.finished()) {
+				if (inflater.inflate(content) == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new IOException("Unexpected end of compressed data.");
+				}
+			}
+			content.flip();
+			return content;
+		} catch (DataFormatException e) {
+			throw new IOException(e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	/**
+	 * @return the jar file. For nested jars, the file that contains them.
+	 */
+	public Path getPathToJar() {
+		return pathToJar;
+	}
+
+	/**
+	 * @return the jar file, followed by the entry name for nested jars.
+	 */
+	public String getLocation() {
+		return location;
+	}
+
+	public boolean isNested() {
+		return root != this;
+	}
+
+	/**
+	 * Releases the mapping. Waits until any running read finishes. Closing the
+	 * root jar also closes its nested jars.
+	 */
+	@Override
+	public void close() {
+		lock.writeLock().lock();
+		try {
+			if (buffer != null) {
+				if (!isNested()) {
+					unmap((MappedByteBuffer) buffer);
+				}
+				buffer = null;
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private static void unmap(MappedByteBuffer buffer) {
+		if (INVOKE_CLEANER == null) {
+			return;
+		}
+		try {
+			INVOKE_CLEANER.invoke(UNSAFE, buffer);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			BeanLoaderLogger.warning(MappedJar.class.getName(), "Mapped jar not released: " + e.getMessage());
+		}
+	}
+
+	private static class Entry {
+		private final int method;
+		private final long crc;
+		private final int compressedSize;
+		private final int size;
+		private final int localHeaderOffset;
+
+		Entry(int method, long crc, int compressedSize, int size, int localHeaderOffset) {
+			this.method = method;
+			this.crc = crc;
+			this.compressedSize = compressedSize;
+			this.size = size;
+			this.localHeaderOffset = localHeaderOffset;
+		}
+	}
+}
@@ -0,0 +1,453 @@
+package com.biit.bean.loader.classloader;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.file.Path;
+import java.security.CodeSigner;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.security.SecureClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.biit.bean.loader.logger.BeanLoaderLogger;
+
+/**
+ * Classloader of a plugin jar. The jar is mapped in memory and each class is
+ * copied once from the mapped bytes to define it, without any file access.
+ * Closing the classloader releases the jar file.
+ * <p>
+ * Delegates to its parent first, except for the deduplicated classes that
+ * this jar contains with different bytes, that are defined again from the
+ * jar. Jar signatures are not verified.
+ * <p>
+ * Libraries bundled in the jar, under 'lib/' or 'BOOT-INF/lib/', are part of
+ * the plugin and are read without extracting them. Classes of the jar itself
+ * take precedence over the nested ones.
+ * <p>
+ * A new version of the jar can inherit the classes that have not changed from
+ * the previous classloader (see {@link #inheritFrom(PluginClassLoader, Set)}),
+ * so their instances are still valid.
+ */
+public class PluginClassLoader extends SecureClassLoader implements Closeable {
+	private final static String CLASS_EXTENSION = ".class";
+	private final static String JAR_EXTENSION = ".jar";
+	private final static String[] NESTED_LIBRARY_FOLDERS = new String[] { "lib/", "BOOT-INF/lib/" };
+
+	private final URL jarUrl;
+	private final ProtectionDomain protectionDomain;
+	private final DeduplicatedClassLoader deduplicatedClassLoader;
+	private volatile MappedJar mappedJar;
+	// The jar first, then the nested libraries.
+	private volatile List<MappedJar> jars;
+	// False if the jars belong to a newer version.
+	private volatile boolean ownsJars = true;
+	// Null if all classes of the jars can be defined.
+	private volatile Set<String> definableClasses = null;
+	private volatile PluginClassLoader previousVersion = null;
+	private volatile Set<String> inheritedClasses = Collections.emptySet();
+	private volatile ClassDefinitionListener classDefinitionListener = null;
+
+	/**
+	 * Receives the classes defined by the classloader.
+	 */
+	public interface ClassDefinitionListener {
+
+		/**
+		 * @param definedClass
+		 *            the class.
+		 * @param jar
+		 *            the jar that contains the class.
+		 */
+		void classDefined(Class<?> definedClass, MappedJar jar);
+	}
+
+	static {
+		ClassLoader.registerAsParallelCapable();
+	}
+
+	/**
+	 * @param pathToJar
+	 *            the jar.
+	 * @param parent
+	 *            the parent classloader.
+	 * @param deduplicatedClassLoader
+	 *            the deduplicated classes, in the parents of this
+	 *            classloader. Can be null.
+	 * @throws IOException
+	 *             if the jar cannot be mapped.
+	 */
+	public PluginClassLoader(Path pathToJar, ClassLoader parent, DeduplicatedClassLoader deduplicatedClassLoader) throws IOException {
+		super(parent);
+		this.mappedJar = MappedJar.open(pathToJar);
+		this.jars = Collections.unmodifiableList(openJars(mappedJar));
+		this.jarUrl = pathToJar.toUri().toURL();
+		this.protectionDomain = new ProtectionDomain(new CodeSource(jarUrl, (CodeSigner[]) null), null, this, null);
+		this.deduplicatedClassLoader = deduplicatedClassLoader;
+	}
+
+	private static List<MappedJar> openJars(MappedJar mappedJar) {
+		List<MappedJar> jars = new ArrayList<>();
+		jars.add(mappedJar);
+		for (String entryName : mappedJar.getEntryNames()) {
+			if (isNestedLibrary(entryName)) {
+				try {
+					jars.add(mappedJar.openNested(entryName));
+				} catch (IOException e) {
+					BeanLoaderLogger.warning(PluginClassLoader.class.getName(), "Library '" + entryName + "' ignored: " + e.getMessage());
+				}
+			}
+		}
+		return jars;
+	}
+
+	private static boolean isNestedLibrary(String entryName) {
+		if (!entryName.endsWith(JAR_EXTENSION)) {
+			return false;
+		}
+		for (String folder : NESTED_LIBRARY_FOLDERS) {
+			// Only jars directly inside the folder.
+			if (entryName.startsWith(folder) && entryName.indexOf('/', folder.length()) < 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param entryName
+	 *            an entry.
+	 * @return the first jar with the entry, or null if not found.
+	 */
+	private MappedJar getJarWithEntry(String entryName) {
+		for (MappedJar jar : jars) {
+			if (jar.hasEntry(entryName)) {
+				return jar;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+		if (deduplicatedClassLoader != null && deduplicatedClassLoader.isDeduplicated(name)) {
+			synchronized (getClassLoadingLock(name)) {
+				Class<?> loadedClass = findLoadedClass(name);
+				if (loadedClass == null && hasOwnVersion(name)) {
+					loadedClass = findClass(name);
+				}
+				if (loadedClass != null) {
+					if (resolve) {
+						resolveClass(loadedClass);
+					}
+					return loadedClass;
+				}
+			}
+		}
+		return super.loadClass(name, resolve);
+	}
+
+	/**
+	 * @return true if the jar has the class with different bytes than the
+	 *         deduplicated one.
+	 */
+	private boolean hasOwnVersion(String name) {
+		String entryName = name.replace('.', '/') + CLASS_EXTENSION;
+		MappedJar jar = getJarWithEntry(entryName);
+		if (jar == null) {
+			return false;
+		}
+		try {
+			return !deduplicatedClassLoader.isSameVersion(name, DuplicateClassIndex.getHash(jar.readBytes(entryName)));
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	@Override
+	protected Class<?> findClass(String name) throws ClassNotFoundException {
+		PluginClassLoader previous = previousVersion;
+		if (previous != null && inheritedClasses.contains(name)) {
+			return previous.loadClass(name);
+		}
+		Set<String> definable = definableClasses;
+		if (definable != null && !definable.contains(name)) {
+			// Changed on a newer version. Only the old classes that refer to it can ask for it.
+			throw new ClassNotFoundException(name + " has been replaced by a newer version of '" + jarUrl + "'.");
+		}
+		String entryName = name.replace('.', '/') + CLASS_EXTENSION;
+		MappedJar jar = getJarWithEntry(entryName);
+		if (jar == null) {
+			throw new ClassNotFoundException(name);
+		}
+		try {
+			// Not defined from the mapped buffer: if the jar is truncated in place,
+			// the native code reading it would crash the JVM instead of failing.
+			byte[] content = jar.readBytes(entryName);
+			Class<?> definedClass = defineClass(name, content, 0, content.length, protectionDomain);
+			ClassDefinitionListener listener = classDefinitionListener;
+			if (listener != null) {
+				listener.classDefined(definedClass, jar);
+			}
+			return definedClass;
+		} catch (IOException e) {
+			throw new ClassNotFoundException(name, e);
+		}
+	}
+
+	@Override
+	protected URL findResource(String name) {
+		MappedJar jar = getJarWithEntry(name);
+		if (jar == null) {
+			return null;
+		}
+		return getResourceUrl(jar, name);
+	}
+
+	@Override
+	protected Enumeration<URL> findResources(String name) {
+		List<URL> resources = new ArrayList<>();
+		for (MappedJar jar : jars) {
+			if (jar.hasEntry(name)) {
+				URL resource = getResourceUrl(jar, name);
+				if (resource != null) {
+					resources.add(resource);
+				}
+			}
+		}
+		return Collections.enumeration(resources);
+	}
+
+	private URL getResourceUrl(MappedJar jar, String name) {
+		try {
+			// Same format than the JDK, but read from the mapped jar. Nested jars add their entry name.
+			return new URL("jar", null, -1, jarUrl + jar.getLocation().substring(mappedJar.getLocation().length()) + "!/" + name,
+					new EntryHandler(jar));
+		} catch (MalformedURLException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return the index of the jar, to read its entries without opening it
+	 *         again.
+	 */
+	public MappedJar getMappedJar() {
+		return mappedJar;
+	}
+
+	/**
+	 * @return the jar followed by its nested libraries.
+	 */
+	public List<MappedJar> getJars() {
+		return jars;
+	}
+
+	/**
+	 * @return the jar that contains each class, by class name. Repeated
+	 *         classes use the first jar, as the classloader does.
+	 */
+	public Map<String, MappedJar> getClassJars() {
+		Map<String, MappedJar> classJars = new LinkedHashMap<>();
+		for (MappedJar jar : jars) {
+			for (String entryName : jar.getEntryNames()) {
+				if (entryName.endsWith(CLASS_EXTENSION)) {
+					classJars.putIfAbsent(entryName.substring(0, entryName.length() - CLASS_EXTENSION.length()).replace('/', '.'), jar);
+				}
+			}
+		}
+		return classJars;
+	}
+
+	/**
+	 * Uses the classes of the previous version of the jar that have not
+	 * changed, instead of defining them again. The previous classloader reads
+	 * them from the jars of this one, as it cannot use the modified file, and
+	 * its own jars are released.
+	 *
+	 * @param previous
+	 *            the classloader of the previous version.
+	 * @param unchangedClasses
+	 *            classes with the same content on both versions, and that
+	 *            only refer to unchanged classes of the jar.
+	 * @return the classloaders of older versions that do not define classes
+	 *         for this one, and are not used anymore.
+	 */
+	public synchronized List<PluginClassLoader> inheritFrom(PluginClassLoader previous, Set<String> unchangedClasses) {
+		Set<String> inherited = Collections.unmodifiableSet(new HashSet<>(unchangedClasses));
+		List<PluginClassLoader> released = new ArrayList<>();
+		previous.retain(inherited, mappedJar, jars, released);
+		if (previous.previousVersion == null && previous.definableClasses.isEmpty()) {
+			// All the unchanged classes were changed on an older version.
+			released.add(previous);
+			return released;
+		}
+		inheritedClasses = inherited;
+		previousVersion = previous;
+		return released;
+	}
+
+	/**
+	 * Only the unchanged classes can be defined from now on.
+	 *
+	 * @param released
+	 *            receives the older versions that are not needed anymore.
+	 */
+	private synchronized void retain(Set<String> unchangedClasses, MappedJar newMappedJar, List<MappedJar> newJars, List<PluginClassLoader> released) {
+		if (ownsJars) {
+			mappedJar.close();
+		}
+		mappedJar = newMappedJar;
+		jars = newJars;
+		ownsJars = false;
+
+		Set<String> definable = new HashSet<>(unchangedClasses);
+		if (definableClasses != null) {
+			definable.retainAll(definableClasses);
+		}
+		definableClasses = Collections.unmodifiableSet(definable);
+
+		Set<String> inherited = new HashSet<>(inheritedClasses);
+		inherited.retainAll(unchangedClasses);
+		if (previousVersion != null && !inherited.isEmpty()) {
+			previousVersion.retain(unchangedClasses, newMappedJar, newJars, released);
+			inheritedClasses = Collections.unmodifiableSet(inherited);
+		} else {
+			// Nothing else to ask for.
+			released.addAll(getPreviousVersions());
+			previousVersion = null;
+			inheritedClasses = Collections.emptySet();
+		}
+	}
+
+	/**
+	 * @return true if the class is defined by a previous version of the jar.
+	 */
+	public boolean isInherited(String className) {
+		return previousVersion != null && inheritedClasses.contains(className);
+	}
+
+	/**
+	 * @return the classloader of the previous version of the jar that still
+	 *         defines some of its classes, or null.
+	 */
+	public PluginClassLoader getPreviousVersion() {
+		return previousVersion;
+	}
+
+	/**
+	 * @return the classloaders of all previous versions that still define
+	 *         classes for this one, newest first.
+	 */
+	public List<PluginClassLoader> getPreviousVersions() {
+		List<PluginClassLoader> previousVersions = new ArrayList<>();
+		for (PluginClassLoader previous = previousVersion; previous != null; previous = previous.previousVersion) {
+			previousVersions.add(previous);
+		}
+		return previousVersions;
+	}
+
+	/**
+	 * @param classDefinitionListener
+	 *            receives the classes defined from now on. Can be null.
+	 */
+	public void setClassDefinitionListener(ClassDefinitionListener classDefinitionListener) {
+		this.classDefinitionListener = classDefinitionListener;
+	}
+
+	/**
+	 * @return the location of the jar file.
+	 */
+	public URL getJarUrl() {
+		return jarUrl;
+	}
+
+	/**
+	 * Releases the jar. Classes already defined are still available, but no
+	 * new class or resource can be read.
+	 */
+	@Override
+	public void close() {
+		if (ownsJars) {
+			mappedJar.close();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[" + mappedJar.getPathToJar() + "]";
+	}
+
+	private static class EntryHandler extends URLStreamHandler {
+		private final MappedJar jar;
+
+		EntryHandler(MappedJar jar) {
+			this.jar = jar;
+		}
+
+		@Override
+		protected URLConnection openConnection(URL url) throws IOException {
+			return new EntryConnection(url, jar);
+		}
+	}
+
+	private static class EntryConnection extends URLConnection {
+		private final MappedJar jar;
+		private final String entryName;
+
+		EntryConnection(URL url, MappedJar jar) {
+			super(url);
+			this.jar = jar;
+			this.entryName = url.getFile().substring(url.getFile().lastIndexOf("!/") + 2);
+		}
+
+		@Override
+		public void connect() {
+			connected = true;
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			return new ByteArrayInputStream(jar.readBytes(entryName));
+		}
+
+		@Override
+		public long getContentLengthLong() {
+			return jar.getSize(entryName);
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package com.biit.bean.loader.classloader;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+import com.biit.bean.loader.logger.BeanLoaderLogger;
+import com.biit.bean.loader.scanner.ClassFileScanner;
+
+/**
+ * Classloaders shared by all plugins of a folder. The jars of the library
+ * folder are loaded once, in a classloader that is the parent of all plugin
+ * classloaders. Optionally, classes repeated in several plugin jars are also
+ * defined once, just below the libraries.
+ * <p>
+ * Changes in the library folder are only read on restart.
+ */
+public class SharedLibraries implements Closeable {
+	private final static String JAR_EXTENSION = ".jar";
+
+	private final URLClassLoader libraryClassLoader;
+	private final DeduplicatedClassLoader deduplicatedClassLoader;
+	private final ClassLoader pluginParent;
+
+	private SharedLibraries(URLClassLoader libraryClassLoader, DeduplicatedClassLoader deduplicatedClassLoader, ClassLoader pluginParent) {
+		this.libraryClassLoader = libraryClassLoader;
+		this.deduplicatedClassLoader = deduplicatedClassLoader;
+		this.pluginParent = pluginParent;
+	}
+
+	/**
+	 * @param libraryFolder
+	 *            folder with the shared jars. Can be null or not exist.
+	 * @param pluginJars
+	 *            jars checked for duplicated classes. Can be empty.
+	 * @param beanScanner
+	 *            detects the bean classes, that are never deduplicated.
+	 * @param parent
+	 *            the application classloader.
+	 * @return the shared classloaders.
+	 */
+	public static SharedLibraries create(Path libraryFolder, Collection<Path> pluginJars, ClassFileScanner beanScanner, ClassLoader parent) {
+		ClassLoader pluginParent = parent;
+		URLClassLoader libraryClassLoader = null;
+		List<URL> libraries = getLibraries(libraryFolder);
+		if (!libraries.isEmpty()) {
+			libraryClassLoader = new URLClassLoader(libraries.toArray(new URL[0]), parent);
+			pluginParent = libraryClassLoader;
+			BeanLoaderLogger.info(SharedLibraries.class.getName(), "Shared libraries loaded from '" + libraryFolder + "': " + libraries + ".");
+		}
+		DeduplicatedClassLoader deduplicatedClassLoader = null;
+		if (!pluginJars.isEmpty()) {
+			DuplicateClassIndex index = DuplicateClassIndex.build(pluginJars, pluginParent, beanScanner);
+			if (!index.isEmpty()) {
+				deduplicatedClassLoader = new DeduplicatedClassLoader(index, pluginParent);
+				pluginParent = deduplicatedClassLoader;
+				BeanLoaderLogger.info(SharedLibraries.class.getName(), "Classes repeated in several plugins defined once: '"
+						+ deduplicatedClassLoader.getClassCount() + "'.");
+			}
+		}
+		return new SharedLibraries(libraryClassLoader, deduplicatedClassLoader, pluginParent);
+	}
+
+	private static List<URL> getLibraries(Path libraryFolder) {
+		List<URL> libraries = new ArrayList<>();
+		if (libraryFolder == null || !Files.isDirectory(libraryFolder)) {
+			return libraries;
+		}
+		File[] files = libraryFolder.toFile().listFiles((folder, fileName) -> fileName.endsWith(JAR_EXTENSION));
+		if (files == null) {
+			return libraries;
+		}
+		// Sorted to have always the same loading order.
+		for (File jarFile : new TreeSet<>(Arrays.asList(files))) {
+			try {
+				libraries.add(jarFile.toURI().toURL());
+			} catch (MalformedURLException e) {
+				BeanLoaderLogger.errorMessage(SharedLibraries.class.getName(), e);
+			}
+		}
+		return libraries;
+	}
+
+	/**
+	 * @param pathToJar
+	 *            the plugin jar.
+	 * @return a new classloader for the plugin.
+	 * @throws IOException
+	 *             if the jar cannot be mapped.
+	 */
+	public PluginClassLoader newPluginClassLoader(Path pathToJar) throws IOException {
+		return new PluginClassLoader(pathToJar, pluginParent, deduplicatedClassLoader);
+	}
+
+	/**
+	 * @return the parent of the plugin classloaders.
+	 */
+	public ClassLoader getPluginParent() {
+		return pluginParent;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (libraryClassLoader != null) {
+			libraryClassLoader.close();
+		}
+	}
+}
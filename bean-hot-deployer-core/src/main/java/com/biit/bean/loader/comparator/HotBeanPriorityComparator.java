@@ -22,25 +22,79 @@ package com.biit.bean.loader.comparator;
  */
 
 import java.util.Comparator;
+import java.util.OptionalInt;
+import java.util.function.ToIntFunction;
 
 import com.biit.bean.loader.HotBean;
 
+/**
+ * Sorts the beans by priority, highest first. Classes without the annotation
+ * go last. The priority of each bean can be increased by an offset, such as
+ * the offset of the folder of its jar.
+ */
 public class HotBeanPriorityComparator implements Comparator<Class<?>> {
+	// Avoids reading the annotation on each comparison. Stored on the class
+	// itself, so it does not retain any classloader.
+	private final static ClassValue<OptionalInt> PRIORITIES = new ClassValue<OptionalInt>() {
+
+		@Override
+		protected OptionalInt computeValue(Class<?> type) {
+			HotBean annotation = type.getAnnotation(HotBean.class);
+			return annotation != null ? OptionalInt.of(annotation.priority()) : OptionalInt.empty();
+		}
+	};
+
+	private final ToIntFunction<Class<?>> priorityOffset;
+
+	public HotBeanPriorityComparator() {
+		this(bean -> 0);
+	}
+
+	/**
+	 * @param priorityOffset
+	 *            added to the priority of each bean.
+	 */
+	public HotBeanPriorityComparator(ToIntFunction<Class<?>> priorityOffset) {
+		this.priorityOffset = priorityOffset;
+	}
+
+	/**
+	 * @param bean
+	 *            the bean class.
+	 * @return the priority or empty if the class has no annotation.
+	 */
+	public static OptionalInt getPriority(Class<?> bean) {
+		return PRIORITIES.get(bean);
+	}
+
+	/**
+	 * @param bean
+	 *            the bean class.
+	 * @return the priority plus the offset of the bean, or empty if the class
+	 *         has no annotation.
+	 */
+	public OptionalInt getEffectivePriority(Class<?> bean) {
+		OptionalInt priority = getPriority(bean);
+		if (!priority.isPresent()) {
+			return priority;
+		}
+		return OptionalInt.of(priority.getAsInt() + priorityOffset.applyAsInt(bean));
+	}
 
 	@Override
 	public int compare(Class<?> bean1, Class<?> bean2) {
-		HotBean annotation1 = bean1.getAnnotation(HotBean.class);
-		HotBean annotation2 = bean2.getAnnotation(HotBean.class);
+		OptionalInt priority1 = getEffectivePriority(bean1);
+		OptionalInt priority2 = getEffectivePriority(bean2);
 
-		if (annotation1 == null && annotation2 == null) {
+		if (!priority1.isPresent() && !priority2.isPresent()) {
 			return 0;
-		} else if (annotation2 == null) {
+		} else if (!priority2.isPresent()) {
 			return -1;
-		} else if (annotation1 == null) {
+		} else if (!priority1.isPresent()) {
 			return 1;
-		} else if (annotation1.priority() > annotation2.priority()) {
+		} else if (priority1.getAsInt() > priority2.getAsInt()) {
 			return -1;
-		} else if (annotation1.priority() < annotation2.priority()) {
+		} else if (priority1.getAsInt() < priority2.getAsInt()) {
 			return 1;
 		} else {
 			return 0;
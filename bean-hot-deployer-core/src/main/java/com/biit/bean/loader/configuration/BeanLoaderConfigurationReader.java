@@ -22,7 +22,10 @@ package com.biit.bean.loader.configuration;
  */
 
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
+import com.biit.bean.loader.deploy.DeployFolder;
 import com.biit.bean.loader.logger.BeanLoaderLogger;
 import com.biit.utils.configuration.ConfigurationReader;
 import com.biit.utils.configuration.PropertiesSourceFile;
@@ -33,21 +36,97 @@ import com.biit.utils.file.watcher.FileWatcher.FileModifiedListener;
 public class BeanLoaderConfigurationReader extends ConfigurationReader {
 	private static final String CONFIG_FILE = "settings.conf";
 	private static final String SYSTEM_VARIABLE_CONFIG = "BEANLOADER_CONFIG";
+	// Between the path, prefix and offset of each deploy folder.
+	private static final String DEPLOY_FOLDER_SEPARATOR = ";";
 	private static BeanLoaderConfigurationReader instance;
 
 	// Tags
 	private static final String ID_BEANS_FOLDER = "bean.deploy.folder";
 	private static final String ID_BEAN_PACKET = "bean.packet.prefix";
+	private static final String ID_STARTUP_PARALLELISM = "bean.startup.parallelism";
+	private static final String ID_SCAN_INDEX_ENABLED = "bean.scan.index.enabled";
+	private static final String ID_REPLACE_GRACE_PERIOD = "bean.replace.grace.period";
+	private static final String ID_CLASSLOADER_LEAK_TIMEOUT = "bean.classloader.leak.timeout";
+	private static final String ID_JAR_READY_MARKER = "bean.jar.ready.marker";
+	private static final String ID_JAR_READY_QUIESCENCE = "bean.jar.ready.quiescence";
+	private static final String ID_JAR_READY_TIMEOUT = "bean.jar.ready.timeout";
+	private static final String ID_DEPLOY_BATCH_WINDOW = "bean.deploy.batch.window";
+	private static final String ID_INSTANTIATION_PARALLELISM = "bean.instantiation.parallelism";
+	private static final String ID_METRICS_JMX_ENABLED = "bean.metrics.jmx.enabled";
+	private static final String ID_METRICS_EXPORT_INTERVAL = "bean.metrics.export.interval";
+	private static final String ID_LAZY_INSTANTIATION = "bean.lazy.instantiation";
+	private static final String ID_SHARED_LIBRARY_FOLDER = "bean.shared.library.folder";
+	private static final String ID_SHARED_LIBRARY_DEDUPLICATE = "bean.shared.library.deduplicate";
+	private static final String ID_INCREMENTAL_REPLACE = "bean.replace.incremental";
+	private static final String ID_STARTUP_ASYNC = "bean.startup.async";
+	private static final String ID_STARTUP_PRIORITY_THRESHOLD = "bean.startup.priority.threshold";
+	private static final String ID_CDS_CLASS_LIST = "bean.cds.classlist";
+	private static final String ID_DEPLOY_FOLDERS = "bean.deploy.folders";
+	private static final String ID_WARMUP_ENABLED = "bean.warmup.enabled";
+	private static final String ID_WARMUP_ITERATIONS = "bean.warmup.iterations";
+	private static final String ID_WARMUP_DURATION = "bean.warmup.duration";
+	private static final String ID_POOL_SIZE = "bean.pool.size";
 
 	// Default values
 	private static final String DEFAULT_BEANS_FOLDER = System.getProperty("java.io.tmpdir");
 	private static final String DEFAULT_BEANS_PACKET = "com.biit";
+	// Zero or negative uses all available processors.
+	private static final String DEFAULT_STARTUP_PARALLELISM = "1";
+	private static final String DEFAULT_SCAN_INDEX_ENABLED = "true";
+	// Milliseconds.
+	private static final String DEFAULT_REPLACE_GRACE_PERIOD = "2000";
+	private static final String DEFAULT_CLASSLOADER_LEAK_TIMEOUT = "60000";
+	private static final String DEFAULT_JAR_READY_MARKER = "false";
+	private static final String DEFAULT_JAR_READY_QUIESCENCE = "0";
+	private static final String DEFAULT_JAR_READY_TIMEOUT = "10000";
+	private static final String DEFAULT_DEPLOY_BATCH_WINDOW = "500";
+	// Zero or negative uses all available processors.
+	private static final String DEFAULT_INSTANTIATION_PARALLELISM = "1";
+	private static final String DEFAULT_METRICS_JMX_ENABLED = "true";
+	private static final String DEFAULT_METRICS_EXPORT_INTERVAL = "60000";
+	private static final String DEFAULT_LAZY_INSTANTIATION = "false";
+	// Relative to the beans folder. Empty disables it.
+	private static final String DEFAULT_SHARED_LIBRARY_FOLDER = "lib";
+	private static final String DEFAULT_SHARED_LIBRARY_DEDUPLICATE = "false";
+	private static final String DEFAULT_INCREMENTAL_REPLACE = "true";
+	private static final String DEFAULT_STARTUP_ASYNC = "false";
+	private static final String DEFAULT_STARTUP_PRIORITY_THRESHOLD = "";
+	private static final String DEFAULT_CDS_CLASS_LIST = "";
+	private static final String DEFAULT_DEPLOY_FOLDERS = "";
+	private static final String DEFAULT_WARMUP_ENABLED = "false";
+	private static final String DEFAULT_WARMUP_ITERATIONS = "1000";
+	private static final String DEFAULT_WARMUP_DURATION = "1000";
+	// Number of processors.
+	private static final String DEFAULT_POOL_SIZE = "0";
 
 	private BeanLoaderConfigurationReader() {
 		super();
 
 		addProperty(ID_BEANS_FOLDER, DEFAULT_BEANS_FOLDER);
 		addProperty(ID_BEAN_PACKET, DEFAULT_BEANS_PACKET);
+		addProperty(ID_STARTUP_PARALLELISM, DEFAULT_STARTUP_PARALLELISM);
+		addProperty(ID_SCAN_INDEX_ENABLED, DEFAULT_SCAN_INDEX_ENABLED);
+		addProperty(ID_REPLACE_GRACE_PERIOD, DEFAULT_REPLACE_GRACE_PERIOD);
+		addProperty(ID_CLASSLOADER_LEAK_TIMEOUT, DEFAULT_CLASSLOADER_LEAK_TIMEOUT);
+		addProperty(ID_JAR_READY_MARKER, DEFAULT_JAR_READY_MARKER);
+		addProperty(ID_JAR_READY_QUIESCENCE, DEFAULT_JAR_READY_QUIESCENCE);
+		addProperty(ID_JAR_READY_TIMEOUT, DEFAULT_JAR_READY_TIMEOUT);
+		addProperty(ID_DEPLOY_BATCH_WINDOW, DEFAULT_DEPLOY_BATCH_WINDOW);
+		addProperty(ID_INSTANTIATION_PARALLELISM, DEFAULT_INSTANTIATION_PARALLELISM);
+		addProperty(ID_METRICS_JMX_ENABLED, DEFAULT_METRICS_JMX_ENABLED);
+		addProperty(ID_METRICS_EXPORT_INTERVAL, DEFAULT_METRICS_EXPORT_INTERVAL);
+		addProperty(ID_LAZY_INSTANTIATION, DEFAULT_LAZY_INSTANTIATION);
+		addProperty(ID_SHARED_LIBRARY_FOLDER, DEFAULT_SHARED_LIBRARY_FOLDER);
+		addProperty(ID_SHARED_LIBRARY_DEDUPLICATE, DEFAULT_SHARED_LIBRARY_DEDUPLICATE);
+		addProperty(ID_INCREMENTAL_REPLACE, DEFAULT_INCREMENTAL_REPLACE);
+		addProperty(ID_STARTUP_ASYNC, DEFAULT_STARTUP_ASYNC);
+		addProperty(ID_STARTUP_PRIORITY_THRESHOLD, DEFAULT_STARTUP_PRIORITY_THRESHOLD);
+		addProperty(ID_CDS_CLASS_LIST, DEFAULT_CDS_CLASS_LIST);
+		addProperty(ID_DEPLOY_FOLDERS, DEFAULT_DEPLOY_FOLDERS);
+		addProperty(ID_WARMUP_ENABLED, DEFAULT_WARMUP_ENABLED);
+		addProperty(ID_WARMUP_ITERATIONS, DEFAULT_WARMUP_ITERATIONS);
+		addProperty(ID_WARMUP_DURATION, DEFAULT_WARMUP_DURATION);
+		addProperty(ID_POOL_SIZE, DEFAULT_POOL_SIZE);
 
 		PropertiesSourceFile sourceFile = new PropertiesSourceFile(CONFIG_FILE);
 		sourceFile.addFileModifiedListeners(new FileModifiedListener() {
@@ -94,7 +173,36 @@ public class BeanLoaderConfigurationReader extends ConfigurationReader {
 		}
 	}
 
-	@SuppressWarnings("unused")
+	private long getPropertyLongLogException(String propertyId, long defaultValue) {
+		String value = getPropertyLogException(propertyId);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			BeanLoaderLogger.warning(this.getClass().getName(), "Invalid value '" + value + "' for property '" + propertyId + "'.");
+			return defaultValue;
+		}
+	}
+
+	private int getPropertyIntegerLogException(String propertyId, int defaultValue) {
+		String value = getPropertyLogException(propertyId);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			BeanLoaderLogger.warning(this.getClass().getName(), "Invalid value '" + value + "' for property '" + propertyId + "'.");
+			return defaultValue;
+		}
+	}
+
+	private boolean getPropertyBooleanLogException(String propertyId) {
+		return Boolean.parseBoolean(getPropertyLogException(propertyId));
+	}
+
 	private String[] getPropertyCommaSeparatedValuesLogException(String propertyId) {
 		try {
 			return getCommaSeparatedValues(propertyId);
@@ -112,4 +220,287 @@ public class BeanLoaderConfigurationReader extends ConfigurationReader {
 		return getPropertyLogException(ID_BEAN_PACKET);
 	}
 
+	/**
+	 * Number of jars that are scanned at the same time when a folder or a
+	 * batch of jars is loaded.
+	 *
+	 * @return the number of threads, at least one.
+	 */
+	public int getStartupParallelism() {
+		int parallelism = getPropertyIntegerLogException(ID_STARTUP_PARALLELISM, 1);
+		if (parallelism <= 0) {
+			return Runtime.getRuntime().availableProcessors();
+		}
+		return parallelism;
+	}
+
+	/**
+	 * If enabled, the classes found on each jar are stored on a file inside the
+	 * deploy folder and unchanged jars are not scanned again.
+	 *
+	 * @return true if the scan index must be used.
+	 */
+	public boolean isScanIndexEnabled() {
+		return getPropertyBooleanLogException(ID_SCAN_INDEX_ENABLED);
+	}
+
+	/**
+	 * When a deployed jar is deleted, its beans are kept during this time. If
+	 * a new version of the jar is copied meanwhile, the beans are replaced
+	 * atomically instead of being removed and created again.
+	 *
+	 * @return the time in milliseconds. Zero removes the beans immediately.
+	 */
+	public long getReplaceGracePeriod() {
+		return getPropertyLongLogException(ID_REPLACE_GRACE_PERIOD, 0);
+	}
+
+	/**
+	 * Classloaders of undeployed jars that are still in memory after this time
+	 * are reported as leaks.
+	 *
+	 * @return the time in milliseconds. Zero disables the check.
+	 */
+	public long getClassLoaderLeakTimeout() {
+		return getPropertyLongLogException(ID_CLASSLOADER_LEAK_TIMEOUT, 0);
+	}
+
+	/**
+	 * If enabled, a jar is only deployed when a file with the same name and
+	 * the '.ready' extension is created next to it.
+	 *
+	 * @return true if the marker file is required.
+	 */
+	public boolean isJarReadyMarkerRequired() {
+		return getPropertyBooleanLogException(ID_JAR_READY_MARKER);
+	}
+
+	/**
+	 * Time without changes on a jar before checking if it is completed. Only
+	 * needed for tools that write the jar in several steps.
+	 *
+	 * @return the time in milliseconds.
+	 */
+	public long getJarReadyQuiescence() {
+		return getPropertyLongLogException(ID_JAR_READY_QUIESCENCE, 0);
+	}
+
+	/**
+	 * Maximum time waiting for a jar to be completed. After it, the jar is
+	 * deployed anyway, unless a marker file is required.
+	 *
+	 * @return the time in milliseconds. Zero waits forever.
+	 */
+	public long getJarReadyTimeout() {
+		return getPropertyLongLogException(ID_JAR_READY_TIMEOUT, 0);
+	}
+
+	/**
+	 * Changes on the deploy folder are grouped until no new change arrives
+	 * during this time. All jars of a group are deployed together.
+	 *
+	 * @return the time in milliseconds. Zero deploys each change on its own.
+	 */
+	public long getDeployBatchWindow() {
+		return getPropertyLongLogException(ID_DEPLOY_BATCH_WINDOW, 0);
+	}
+
+	/**
+	 * Number of beans that are created and autowired at the same time. Only
+	 * beans with the same priority and without dependencies between them are
+	 * created together.
+	 *
+	 * @return the number of threads, at least one.
+	 */
+	public int getInstantiationParallelism() {
+		int parallelism = getPropertyIntegerLogException(ID_INSTANTIATION_PARALLELISM, 1);
+		if (parallelism <= 0) {
+			return Runtime.getRuntime().availableProcessors();
+		}
+		return parallelism;
+	}
+
+	/**
+	 * If enabled, the deploy metrics are available as an MBean.
+	 *
+	 * @return true if the MBean is registered.
+	 */
+	public boolean isMetricsJmxEnabled() {
+		return getPropertyBooleanLogException(ID_METRICS_JMX_ENABLED);
+	}
+
+	/**
+	 * Time between two exports of the deploy metrics to the registered
+	 * exporters.
+	 *
+	 * @return the time in milliseconds. Zero disables the export.
+	 */
+	public long getMetricsExportInterval() {
+		return getPropertyLongLogException(ID_METRICS_EXPORT_INTERVAL, 0);
+	}
+
+	/**
+	 * Hot beans with the default instantiation are created only when they are
+	 * used for the first time. A proxy is registered instead when their jar is
+	 * deployed.
+	 *
+	 * @return true if hot beans are lazy by default.
+	 */
+	public boolean isLazyInstantiation() {
+		return getPropertyBooleanLogException(ID_LAZY_INSTANTIATION);
+	}
+
+	/**
+	 * Folder with libraries shared by all plugins. Its jars are loaded once
+	 * in the parent classloader of all plugins. A relative path is resolved
+	 * against the beans folder.
+	 *
+	 * @return the folder or empty if not used.
+	 */
+	public String getSharedLibraryFolder() {
+		String folder = getPropertyLogException(ID_SHARED_LIBRARY_FOLDER);
+		return folder != null ? folder.trim() : "";
+	}
+
+	/**
+	 * If enabled, classes with the same bytes in several plugin jars are
+	 * defined only once, in a classloader shared by all plugins. Only the jars
+	 * available on startup are checked.
+	 *
+	 * @return true if repeated classes are shared.
+	 */
+	public boolean isSharedLibraryDeduplicated() {
+		return getPropertyBooleanLogException(ID_SHARED_LIBRARY_DEDUPLICATE);
+	}
+
+	/**
+	 * If enabled, a new version of a deployed jar only replaces the beans whose
+	 * classes have changed, or that depend on them. Other beans keep their
+	 * instances.
+	 *
+	 * @return true if jars are replaced incrementally.
+	 */
+	public boolean isIncrementalReplace() {
+		return getPropertyBooleanLogException(ID_INCREMENTAL_REPLACE);
+	}
+
+	/**
+	 * If enabled, the beans of the folder are loaded in background on startup
+	 * and the application context does not wait for them.
+	 *
+	 * @return true if the startup load is asynchronous.
+	 */
+	public boolean isStartupAsync() {
+		return getPropertyBooleanLogException(ID_STARTUP_ASYNC);
+	}
+
+	/**
+	 * Hot beans with this priority or higher are created on startup before
+	 * the application context is ready. The rest are created in background
+	 * afterwards.
+	 *
+	 * @return the priority or null if all beans are created on startup.
+	 */
+	public Integer getStartupPriorityThreshold() {
+		String value = getPropertyLogException(ID_STARTUP_PRIORITY_THRESHOLD);
+		if (value == null || value.trim().length() == 0) {
+			return null;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			BeanLoaderLogger.warning(this.getClass().getName(), "Invalid value '" + value + "' for property '" + ID_STARTUP_PRIORITY_THRESHOLD + "'.");
+			return null;
+		}
+	}
+
+	/**
+	 * File where the classes defined by the plugins are written when the
+	 * application stops, to create a CDS archive from a training run.
+	 *
+	 * @return the path or empty if the classes are not recorded.
+	 */
+	public String getCdsClassList() {
+		String classList = getPropertyLogException(ID_CDS_CLASS_LIST);
+		return classList != null ? classList.trim() : "";
+	}
+
+	/**
+	 * Folders with plugin jars, in loading order. The folder of
+	 * 'bean.deploy.folder' goes first, followed by the ones of
+	 * 'bean.deploy.folders': a comma separated list of
+	 * 'path[;packetPrefix[;priorityOffset]]'. Folders without prefix use
+	 * 'bean.packet.prefix'.
+	 *
+	 * @return the folders. Empty if none is defined.
+	 */
+	public List<DeployFolder> getDeployFolders() {
+		List<DeployFolder> folders = new ArrayList<>();
+		String defaultPrefix = getBeanPacketPrefix();
+		String beansFolder = getBeansFolder();
+		if (beansFolder != null && beansFolder.trim().length() > 0) {
+			folders.add(new DeployFolder(beansFolder.trim(), defaultPrefix, 0));
+		}
+		String[] entries = getPropertyCommaSeparatedValuesLogException(ID_DEPLOY_FOLDERS);
+		if (entries == null) {
+			return folders;
+		}
+		for (String entry : entries) {
+			if (entry.trim().length() == 0) {
+				continue;
+			}
+			String[] fields = entry.split(DEPLOY_FOLDER_SEPARATOR, -1);
+			String packetPrefix = fields.length > 1 && fields[1].trim().length() > 0 ? fields[1].trim() : defaultPrefix;
+			int priorityOffset = 0;
+			if (fields.length > 2 && fields[2].trim().length() > 0) {
+				try {
+					priorityOffset = Integer.parseInt(fields[2].trim());
+				} catch (NumberFormatException e) {
+					BeanLoaderLogger.warning(this.getClass().getName(), "Invalid priority offset on '" + entry + "' for property '" + ID_DEPLOY_FOLDERS
+							+ "'.");
+				}
+			}
+			folders.add(new DeployFolder(fields[0].trim(), packetPrefix, priorityOffset));
+		}
+		return folders;
+	}
+
+	/**
+	 * If enabled, the classes of a jar are initialized and the
+	 * 'HotBeanWarmup' methods of its beans are called before the beans are
+	 * available.
+	 *
+	 * @return true if new beans are warmed up.
+	 */
+	public boolean isWarmupEnabled() {
+		return getPropertyBooleanLogException(ID_WARMUP_ENABLED);
+	}
+
+	/**
+	 * @return the maximum number of calls to each warm-up method.
+	 */
+	public int getWarmupIterations() {
+		return getPropertyIntegerLogException(ID_WARMUP_ITERATIONS, 0);
+	}
+
+	/**
+	 * @return the maximum time calling each warm-up method, in milliseconds.
+	 */
+	public long getWarmupDuration() {
+		return getPropertyLongLogException(ID_WARMUP_DURATION, 0);
+	}
+
+	/**
+	 * Default maximum number of idle instances kept by each pooled hot bean.
+	 *
+	 * @return the pool size, at least one.
+	 */
+	public int getPoolSize() {
+		int poolSize = getPropertyIntegerLogException(ID_POOL_SIZE, 0);
+		if (poolSize <= 0) {
+			return Runtime.getRuntime().availableProcessors();
+		}
+		return poolSize;
+	}
+
 }
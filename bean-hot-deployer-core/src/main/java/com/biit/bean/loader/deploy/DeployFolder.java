@@ -0,0 +1,78 @@
+package com.biit.bean.loader.deploy;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * A folder with plugin jars. All jars of the folder are scanned with its
+ * packet prefix, and the priority of their beans is increased by its offset,
+ * so the beans of a folder can be created before the beans of other folders.
+ */
+public final class DeployFolder {
+	private final String folder;
+	private final String packetPrefix;
+	private final int priorityOffset;
+
+	/**
+	 * @param folder
+	 *            path to the folder.
+	 * @param packetPrefix
+	 *            only scan classes that the packet starts with this string.
+	 * @param priorityOffset
+	 *            added to the priority of the beans of the folder.
+	 */
+	public DeployFolder(String folder, String packetPrefix, int priorityOffset) {
+		this.folder = normalize(folder);
+		this.packetPrefix = packetPrefix != null ? packetPrefix : "";
+		this.priorityOffset = priorityOffset;
+	}
+
+	private static String normalize(String folder) {
+		return Paths.get(folder).toAbsolutePath().normalize().toString();
+	}
+
+	/**
+	 * @return the absolute path to the folder.
+	 */
+	public String getFolder() {
+		return folder;
+	}
+
+	public Path getPath() {
+		return Paths.get(folder);
+	}
+
+	public String getPacketPrefix() {
+		return packetPrefix;
+	}
+
+	public int getPriorityOffset() {
+		return priorityOffset;
+	}
+
+	@Override
+	public String toString() {
+		return folder + " [" + packetPrefix + ", " + priorityOffset + "]";
+	}
+}
@@ -0,0 +1,115 @@
+package com.biit.bean.loader.deploy;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.biit.bean.loader.classloader.PluginClassLoader;
+
+/**
+ * Immutable view of a deployed jar: its classloader, the bean classes loaded
+ * from it and the beans created.
+ */
+public final class DeployedJar {
+	private final String pathToJar;
+	private final PluginClassLoader classLoader;
+	private final Map<String, Class<?>> classesLoaded;
+	private final Set<String> beanNames;
+
+	/**
+	 * @param pathToJar
+	 *            the jar.
+	 * @param classLoader
+	 *            the classloader of the jar.
+	 * @param classesLoaded
+	 *            the bean classes loaded.
+	 * @param beanNames
+	 *            the beans created.
+	 */
+	public DeployedJar(String pathToJar, PluginClassLoader classLoader, Collection<Class<?>> classesLoaded, Collection<String> beanNames) {
+		this.pathToJar = pathToJar;
+		this.classLoader = classLoader;
+		Map<String, Class<?>> classes = new LinkedHashMap<>();
+		for (Class<?> classLoaded : classesLoaded) {
+			classes.put(classLoaded.getName(), classLoaded);
+		}
+		this.classesLoaded = Collections.unmodifiableMap(classes);
+		this.beanNames = Collections.unmodifiableSet(new LinkedHashSet<>(beanNames));
+	}
+
+	private DeployedJar(String pathToJar, PluginClassLoader classLoader, Map<String, Class<?>> classesLoaded, Set<String> beanNames) {
+		this.pathToJar = pathToJar;
+		this.classLoader = classLoader;
+		this.classesLoaded = classesLoaded;
+		this.beanNames = beanNames;
+	}
+
+	/**
+	 * @param classes
+	 *            more bean classes loaded by the same classloader.
+	 * @param names
+	 *            more beans created.
+	 * @return a new instance with all classes and beans.
+	 */
+	public DeployedJar with(Collection<Class<?>> classes, Collection<String> names) {
+		Map<String, Class<?>> allClasses = new LinkedHashMap<>(classesLoaded);
+		for (Class<?> classLoaded : classes) {
+			allClasses.put(classLoaded.getName(), classLoaded);
+		}
+		Set<String> allBeanNames = new LinkedHashSet<>(beanNames);
+		allBeanNames.addAll(names);
+		return new DeployedJar(pathToJar, classLoader, Collections.unmodifiableMap(allClasses), Collections.unmodifiableSet(allBeanNames));
+	}
+
+	/**
+	 * @return a new instance without beans.
+	 */
+	public DeployedJar withoutBeans() {
+		return new DeployedJar(pathToJar, classLoader, classesLoaded, Collections.<String> emptySet());
+	}
+
+	public String getPathToJar() {
+		return pathToJar;
+	}
+
+	public PluginClassLoader getClassLoader() {
+		return classLoader;
+	}
+
+	public Map<String, Class<?>> getClassesLoaded() {
+		return classesLoaded;
+	}
+
+	public Set<String> getBeanNames() {
+		return beanNames;
+	}
+
+	@Override
+	public String toString() {
+		return pathToJar + beanNames;
+	}
+}
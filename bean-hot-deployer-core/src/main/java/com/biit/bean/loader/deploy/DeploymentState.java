@@ -0,0 +1,119 @@
+package com.biit.bean.loader.deploy;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of all deployed jars. Each change creates a new version,
+ * so a reader always sees a complete deploy or none of it.
+ */
+public final class DeploymentState {
+	private final static DeploymentState EMPTY = new DeploymentState(0, Collections.<String, DeployedJar> emptyMap(),
+			Collections.<String, Class<?>> emptyMap());
+
+	private final long version;
+	private final Map<String, DeployedJar> jars;
+	private final Map<String, Class<?>> classesLoaded;
+
+	private DeploymentState(long version, Map<String, DeployedJar> jars, Map<String, Class<?>> classesLoaded) {
+		this.version = version;
+		this.jars = jars;
+		this.classesLoaded = classesLoaded;
+	}
+
+	public static DeploymentState empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Adds a jar or replaces the previous version of it.
+	 *
+	 * @param deployedJar
+	 *            the jar.
+	 * @return the new state.
+	 */
+	public DeploymentState withJar(DeployedJar deployedJar) {
+		Map<String, DeployedJar> newJars = new LinkedHashMap<>(jars);
+		DeployedJar previousJar = newJars.put(deployedJar.getPathToJar(), deployedJar);
+		Map<String, Class<?>> newClassesLoaded = new LinkedHashMap<>(classesLoaded);
+		if (previousJar != null) {
+			removeClasses(newClassesLoaded, previousJar);
+		}
+		newClassesLoaded.putAll(deployedJar.getClassesLoaded());
+		return new DeploymentState(version + 1, Collections.unmodifiableMap(newJars), Collections.unmodifiableMap(newClassesLoaded));
+	}
+
+	/**
+	 * @param pathToJar
+	 *            the jar to remove.
+	 * @return the new state. The same if the jar is not deployed.
+	 */
+	public DeploymentState withoutJar(String pathToJar) {
+		if (!jars.containsKey(pathToJar)) {
+			return this;
+		}
+		Map<String, DeployedJar> newJars = new LinkedHashMap<>(jars);
+		DeployedJar previousJar = newJars.remove(pathToJar);
+		Map<String, Class<?>> newClassesLoaded = new LinkedHashMap<>(classesLoaded);
+		removeClasses(newClassesLoaded, previousJar);
+		return new DeploymentState(version + 1, Collections.unmodifiableMap(newJars), Collections.unmodifiableMap(newClassesLoaded));
+	}
+
+	private static void removeClasses(Map<String, Class<?>> classes, DeployedJar deployedJar) {
+		for (Map.Entry<String, Class<?>> classLoaded : deployedJar.getClassesLoaded().entrySet()) {
+			// Another jar may have loaded a class with the same name.
+			classes.remove(classLoaded.getKey(), classLoaded.getValue());
+		}
+	}
+
+	/**
+	 * @return increased on each change.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	public DeployedJar getJar(String pathToJar) {
+		return jars.get(pathToJar);
+	}
+
+	public boolean isDeployed(String pathToJar) {
+		return jars.containsKey(pathToJar);
+	}
+
+	/**
+	 * @return the deployed jars by path.
+	 */
+	public Map<String, DeployedJar> getJars() {
+		return jars;
+	}
+
+	/**
+	 * @return the bean classes of all jars by class name.
+	 */
+	public Map<String, Class<?>> getClassesLoaded() {
+		return classesLoaded;
+	}
+}
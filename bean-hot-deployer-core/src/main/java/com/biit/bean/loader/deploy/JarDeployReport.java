@@ -0,0 +1,93 @@
+package com.biit.bean.loader.deploy;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of deploying or replacing a jar: the beans created, the problems
+ * found and the time spent.
+ */
+public final class JarDeployReport {
+	private final String pathToJar;
+	private final List<String> beanNames;
+	private final List<String> failures;
+	private final Duration scanDuration;
+	private final Duration deployDuration;
+
+	/**
+	 * @param pathToJar
+	 *            the jar.
+	 * @param beanNames
+	 *            the beans created.
+	 * @param failures
+	 *            description of each problem.
+	 * @param scanDuration
+	 *            time reading the jar and loading its bean classes.
+	 * @param deployDuration
+	 *            time until the beans are available, including the scan.
+	 */
+	public JarDeployReport(String pathToJar, Collection<String> beanNames, Collection<String> failures, Duration scanDuration, Duration deployDuration) {
+		this.pathToJar = pathToJar;
+		this.beanNames = Collections.unmodifiableList(new ArrayList<>(beanNames));
+		this.failures = Collections.unmodifiableList(new ArrayList<>(failures));
+		this.scanDuration = scanDuration;
+		this.deployDuration = deployDuration;
+	}
+
+	public String getPathToJar() {
+		return pathToJar;
+	}
+
+	public List<String> getBeanNames() {
+		return beanNames;
+	}
+
+	public List<String> getFailures() {
+		return failures;
+	}
+
+	/**
+	 * @return true if all bean classes found have been created.
+	 */
+	public boolean isSuccessful() {
+		return failures.isEmpty();
+	}
+
+	public Duration getScanDuration() {
+		return scanDuration;
+	}
+
+	public Duration getDeployDuration() {
+		return deployDuration;
+	}
+
+	@Override
+	public String toString() {
+		return pathToJar + beanNames + (failures.isEmpty() ? "" : " failures " + failures) + " in " + deployDuration.toMillis() + " ms";
+	}
+}
@@ -0,0 +1,168 @@
+package com.biit.bean.loader.deploy;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Collects the events of the deploy folder until no new event arrives during
+ * a time window. Only the last event of each jar is kept, so an added jar that
+ * is removed before the batch is deployed is never scanned.
+ */
+public class JarEventCoalescer {
+	// A folder that never stops changing is deployed anyway after this number
+	// of windows.
+	private final static int MAX_WINDOWS = 10;
+
+	private final Map<String, JarEvent> pendingEvents = new LinkedHashMap<>();
+	private long firstEventTime;
+	private long lastEventTime;
+
+	public enum JarEvent {
+		READY, DELETED;
+	}
+
+	/**
+	 * Adds an event. Replaces any previous event of the same jar.
+	 *
+	 * @param pathToJar
+	 *            the jar.
+	 * @param event
+	 *            what happened.
+	 */
+	public synchronized void add(String pathToJar, JarEvent event) {
+		long now = System.currentTimeMillis();
+		if (pendingEvents.isEmpty()) {
+			firstEventTime = now;
+		}
+		lastEventTime = now;
+		// Keeps the order of the last event.
+		pendingEvents.remove(pathToJar);
+		pendingEvents.put(pathToJar, event);
+	}
+
+	/**
+	 * Removes the pending event of a jar, if it is the expected one.
+	 *
+	 * @param pathToJar
+	 *            the jar.
+	 * @param event
+	 *            the event to remove.
+	 * @return true if the event was pending and has been removed.
+	 */
+	public synchronized boolean cancel(String pathToJar, JarEvent event) {
+		return pendingEvents.remove(pathToJar, event);
+	}
+
+	/**
+	 * @param windowMillis
+	 *            time without events before the batch is closed.
+	 * @return the milliseconds until the batch can be deployed. Zero or less
+	 *         if it can be deployed now.
+	 */
+	public synchronized long getRemainingDelay(long windowMillis) {
+		long closeTime = Math.min(lastEventTime + windowMillis, firstEventTime + windowMillis * MAX_WINDOWS);
+		return closeTime - System.currentTimeMillis();
+	}
+
+	public synchronized boolean isEmpty() {
+		return pendingEvents.isEmpty();
+	}
+
+	/**
+	 * Closes the current batch and starts a new one.
+	 *
+	 * @param deployed
+	 *            tells if a jar is currently deployed.
+	 * @return the operations needed on each jar.
+	 */
+	public synchronized DeployBatch drain(Predicate<String> deployed) {
+		List<String> jarsToLoad = new ArrayList<>();
+		List<String> jarsToReplace = new ArrayList<>();
+		List<String> jarsToRemove = new ArrayList<>();
+		for (Map.Entry<String, JarEvent> pendingEvent : pendingEvents.entrySet()) {
+			boolean isDeployed = deployed.test(pendingEvent.getKey());
+			if (pendingEvent.getValue() == JarEvent.READY) {
+				if (isDeployed) {
+					jarsToReplace.add(pendingEvent.getKey());
+				} else {
+					jarsToLoad.add(pendingEvent.getKey());
+				}
+			} else if (isDeployed) {
+				jarsToRemove.add(pendingEvent.getKey());
+			}
+			// A jar added and removed inside the batch is ignored.
+		}
+		pendingEvents.clear();
+		return new DeployBatch(jarsToLoad, jarsToReplace, jarsToRemove);
+	}
+
+	/**
+	 * Operations resulting of a batch of events.
+	 */
+	public static class DeployBatch {
+		private final List<String> jarsToLoad;
+		private final List<String> jarsToReplace;
+		private final List<String> jarsToRemove;
+
+		DeployBatch(List<String> jarsToLoad, List<String> jarsToReplace, List<String> jarsToRemove) {
+			this.jarsToLoad = Collections.unmodifiableList(jarsToLoad);
+			this.jarsToReplace = Collections.unmodifiableList(jarsToReplace);
+			this.jarsToRemove = Collections.unmodifiableList(jarsToRemove);
+		}
+
+		/**
+		 * @return jars not deployed yet.
+		 */
+		public List<String> getJarsToLoad() {
+			return jarsToLoad;
+		}
+
+		/**
+		 * @return jars deployed with a new version.
+		 */
+		public List<String> getJarsToReplace() {
+			return jarsToReplace;
+		}
+
+		/**
+		 * @return jars deployed that have been deleted.
+		 */
+		public List<String> getJarsToRemove() {
+			return jarsToRemove;
+		}
+
+		public boolean isEmpty() {
+			return jarsToLoad.isEmpty() && jarsToReplace.isEmpty() && jarsToRemove.isEmpty();
+		}
+
+		@Override
+		public String toString() {
+			return "{load=" + jarsToLoad + ", replace=" + jarsToReplace + ", remove=" + jarsToRemove + "}";
+		}
+	}
+}
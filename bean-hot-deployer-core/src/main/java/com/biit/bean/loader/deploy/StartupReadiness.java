@@ -0,0 +1,141 @@
+package com.biit.bean.loader.deploy;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Readiness of the hot beans deployed on startup. Beans with a priority equal
+ * or greater than the threshold belong to the critical tier and are created
+ * before the application context is ready. The rest belong to the background
+ * tier and are created afterwards.
+ */
+public class StartupReadiness {
+
+	public enum Tier {
+		CRITICAL, BACKGROUND
+	}
+
+	public enum State {
+		PENDING, LOADING, READY, FAILED
+	}
+
+	private final Integer threshold;
+	private final Map<Tier, TierStatus> statusPerTier = new EnumMap<>(Tier.class);
+
+	/**
+	 * @param threshold
+	 *            minimum priority of the critical beans. Null if all beans
+	 *            are critical.
+	 */
+	public StartupReadiness(Integer threshold) {
+		this.threshold = threshold;
+		for (Tier tier : Tier.values()) {
+			statusPerTier.put(tier, new TierStatus());
+		}
+	}
+
+	/**
+	 * @return minimum priority of the critical beans or null if all beans are
+	 *         critical.
+	 */
+	public Integer getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * @param priority
+	 *            the priority of a bean.
+	 * @return the tier of the bean.
+	 */
+	public Tier getTier(int priority) {
+		return threshold == null || priority >= threshold ? Tier.CRITICAL : Tier.BACKGROUND;
+	}
+
+	public State getState(Tier tier) {
+		return statusPerTier.get(tier).state;
+	}
+
+	public boolean isReady(Tier tier) {
+		return getState(tier) == State.READY;
+	}
+
+	/**
+	 * @param priority
+	 *            the priority of a bean.
+	 * @return true if all beans with this priority have been created.
+	 */
+	public boolean isReady(int priority) {
+		return isReady(getTier(priority));
+	}
+
+	/**
+	 * @return true if all tiers are ready.
+	 */
+	public boolean isReady() {
+		for (Tier tier : Tier.values()) {
+			if (!isReady(tier)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param tier
+	 *            the tier.
+	 * @return completed when the tier is ready, or exceptionally if it fails.
+	 */
+	public CompletableFuture<Void> whenReady(Tier tier) {
+		// A copy, so the callers cannot complete it.
+		return statusPerTier.get(tier).ready.copy();
+	}
+
+	/**
+	 * The beans of the tier are being created.
+	 */
+	public void loading(Tier tier) {
+		TierStatus status = statusPerTier.get(tier);
+		synchronized (status) {
+			if (status.state == State.PENDING) {
+				status.state = State.LOADING;
+			}
+		}
+	}
+
+	/**
+	 * All beans of the tier have been created, or have failed individually.
+	 */
+	public void ready(Tier tier) {
+		TierStatus status = statusPerTier.get(tier);
+		synchronized (status) {
+			status.state = State.READY;
+		}
+		status.ready.complete(null);
+	}
+
+	/**
+	 * The tier cannot be completed.
+	 */
+	public void failed(Tier tier, Throwable cause) {
+		TierStatus status = statusPerTier.get(tier);
+		synchronized (status) {
+			status.state = State.FAILED;
+		}
+		status.ready.completeExceptionally(cause);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder();
+		for (Tier tier : Tier.values()) {
+			text.append(text.length() == 0 ? "" : ", ").append(tier).append('=').append(getState(tier));
+		}
+		return text.toString();
+	}
+
+	private static class TierStatus {
+		private final CompletableFuture<Void> ready = new CompletableFuture<>();
+		private volatile State state = State.PENDING;
+	}
+}
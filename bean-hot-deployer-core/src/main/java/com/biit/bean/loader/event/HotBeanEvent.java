@@ -0,0 +1,110 @@
+package com.biit.bean.loader.event;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.ResolvableTypeProvider;
+import org.springframework.util.ClassUtils;
+
+/**
+ * A hot bean has been deployed, undeployed or replaced. Published as a Spring
+ * event with the class of the bean as generic type, so listeners can filter
+ * by type using {@code ApplicationListener<HotBeanEvent<? extends MyType>>}
+ * or {@code @EventListener}.
+ *
+ * @param <T>
+ *            the type of the bean.
+ */
+public class HotBeanEvent<T> extends ApplicationEvent implements ResolvableTypeProvider {
+	private static final long serialVersionUID = 2407517536482734541L;
+
+	public enum Type {
+		DEPLOYED, UNDEPLOYED, REPLACED
+	}
+
+	private final Type type;
+	private final String pathToJar;
+	private final String beanName;
+	private final transient T bean;
+	private final transient T previousBean;
+
+	/**
+	 * @param source
+	 *            the bean loader.
+	 * @param type
+	 *            what has happened.
+	 * @param pathToJar
+	 *            the jar of the bean.
+	 * @param beanName
+	 *            the name of the bean.
+	 * @param bean
+	 *            the bean deployed, or the bean removed if undeployed.
+	 * @param previousBean
+	 *            the bean replaced. Null if not replaced.
+	 */
+	public HotBeanEvent(Object source, Type type, String pathToJar, String beanName, T bean, T previousBean) {
+		super(source);
+		this.type = type;
+		this.pathToJar = pathToJar;
+		this.beanName = beanName;
+		this.bean = bean;
+		this.previousBean = previousBean;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public String getPathToJar() {
+		return pathToJar;
+	}
+
+	public String getBeanName() {
+		return beanName;
+	}
+
+	/**
+	 * @return the bean deployed, or the bean removed if undeployed.
+	 */
+	public T getBean() {
+		return bean;
+	}
+
+	/**
+	 * @return the bean replaced, or null.
+	 */
+	public T getPreviousBean() {
+		return previousBean;
+	}
+
+	@Override
+	public ResolvableType getResolvableType() {
+		return ResolvableType.forClassWithGenerics(getClass(), ClassUtils.getUserClass(bean));
+	}
+
+	@Override
+	public String toString() {
+		return type + " '" + beanName + "' from '" + pathToJar + "'";
+	}
+}
@@ -0,0 +1,143 @@
+package com.biit.bean.loader.event;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.biit.bean.loader.logger.BeanLoaderLogger;
+
+/**
+ * Sends the hot bean events to the listeners interested in the type of each
+ * bean. Keeps the beans already notified, so a new listener receives them
+ * first and then only the later changes.
+ */
+public class HotBeanEventDispatcher {
+	private final List<Registration<?>> registrations = new CopyOnWriteArrayList<>();
+	private final Map<String, Object> notifiedBeans = new LinkedHashMap<>();
+
+	/**
+	 * Adds a listener. It receives immediately a deployed event for each
+	 * bean of the type already notified.
+	 *
+	 * @param type
+	 *            the beans of interest.
+	 * @param listener
+	 *            the listener.
+	 */
+	public synchronized <T> void addListener(Class<T> type, HotBeanListener<? super T> listener) {
+		Registration<T> registration = new Registration<>(type, listener);
+		for (Map.Entry<String, Object> bean : notifiedBeans.entrySet()) {
+			registration.deployed(bean.getKey(), bean.getValue());
+		}
+		registrations.add(registration);
+	}
+
+	/**
+	 * @param listener
+	 *            a listener added for any type.
+	 */
+	public void removeListener(HotBeanListener<?> listener) {
+		registrations.removeIf(registration -> registration.listener == listener);
+	}
+
+	/**
+	 * Notifies an event to the listeners of the type of its beans.
+	 *
+	 * @param event
+	 *            the event.
+	 */
+	public synchronized void dispatch(HotBeanEvent<?> event) {
+		switch (event.getType()) {
+		case DEPLOYED:
+			notifiedBeans.put(event.getBeanName(), event.getBean());
+			for (Registration<?> registration : registrations) {
+				registration.deployed(event.getBeanName(), event.getBean());
+			}
+			break;
+		case UNDEPLOYED:
+			notifiedBeans.remove(event.getBeanName());
+			for (Registration<?> registration : registrations) {
+				registration.undeployed(event.getBeanName(), event.getBean());
+			}
+			break;
+		case REPLACED:
+			notifiedBeans.put(event.getBeanName(), event.getBean());
+			for (Registration<?> registration : registrations) {
+				registration.replaced(event.getBeanName(), event.getPreviousBean(), event.getBean());
+			}
+			break;
+		}
+	}
+
+	public boolean hasListeners() {
+		return !registrations.isEmpty();
+	}
+
+	private static class Registration<T> {
+		private final Class<T> type;
+		private final HotBeanListener<? super T> listener;
+
+		Registration(Class<T> type, HotBeanListener<? super T> listener) {
+			this.type = type;
+			this.listener = listener;
+		}
+
+		private void deployed(String beanName, Object bean) {
+			if (type.isInstance(bean)) {
+				try {
+					listener.beanDeployed(beanName, type.cast(bean));
+				} catch (RuntimeException e) {
+					BeanLoaderLogger.errorMessage(HotBeanEventDispatcher.class.getName(), e);
+				}
+			}
+		}
+
+		private void undeployed(String beanName, Object bean) {
+			if (type.isInstance(bean)) {
+				try {
+					listener.beanUndeployed(beanName, type.cast(bean));
+				} catch (RuntimeException e) {
+					BeanLoaderLogger.errorMessage(HotBeanEventDispatcher.class.getName(), e);
+				}
+			}
+		}
+
+		private void replaced(String beanName, Object previousBean, Object bean) {
+			// The new version may not have the same type.
+			if (!type.isInstance(previousBean)) {
+				deployed(beanName, bean);
+			} else if (!type.isInstance(bean)) {
+				undeployed(beanName, previousBean);
+			} else {
+				try {
+					listener.beanReplaced(beanName, type.cast(previousBean), type.cast(bean));
+				} catch (RuntimeException e) {
+					BeanLoaderLogger.errorMessage(HotBeanEventDispatcher.class.getName(), e);
+				}
+			}
+		}
+	}
+}
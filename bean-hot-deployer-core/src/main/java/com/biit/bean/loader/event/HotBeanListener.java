@@ -0,0 +1,65 @@
+package com.biit.bean.loader.event;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+/**
+ * Receives the changes of the hot beans of a type. Called on the deploy
+ * thread, after the change is visible on the bean loader.
+ *
+ * @param <T>
+ *            the type of the beans.
+ */
+public interface HotBeanListener<T> {
+
+	/**
+	 * @param beanName
+	 *            the name of the bean.
+	 * @param bean
+	 *            the new bean.
+	 */
+	void beanDeployed(String beanName, T bean);
+
+	/**
+	 * @param beanName
+	 *            the name of the bean.
+	 * @param bean
+	 *            the bean removed.
+	 */
+	void beanUndeployed(String beanName, T bean);
+
+	/**
+	 * A new version of a bean. By default, the previous bean is undeployed and
+	 * the new one deployed.
+	 *
+	 * @param beanName
+	 *            the name of the bean.
+	 * @param previousBean
+	 *            the bean replaced.
+	 * @param bean
+	 *            the new bean.
+	 */
+	default void beanReplaced(String beanName, T previousBean, T bean) {
+		beanUndeployed(beanName, previousBean);
+		beanDeployed(beanName, bean);
+	}
+}
@@ -0,0 +1,208 @@
+package com.biit.bean.loader.instantiation;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Autowires the instances of a prototype or pooled bean. The first two
+ * instances are autowired by Spring. If the bean is only injected through
+ * fields and both instances get the same dependencies, the next instances get
+ * those dependencies through cached method handles, without introspecting the
+ * class or resolving its dependencies again. Otherwise, Spring autowires
+ * every instance.
+ * <p>
+ * The resolved dependencies must be discarded with {@link #reset()} when the
+ * beans that can be injected change.
+ */
+public class AutowiringPlan {
+	private final static Set<String> INJECTION_ANNOTATIONS = new HashSet<>(Arrays.asList("org.springframework.beans.factory.annotation.Autowired",
+			"org.springframework.beans.factory.annotation.Value", "javax.inject.Inject", "jakarta.inject.Inject", "javax.annotation.Resource",
+			"jakarta.annotation.Resource", "javax.persistence.PersistenceContext", "jakarta.persistence.PersistenceContext"));
+
+	private final String beanName;
+	private final Consumer<Object> autowirer;
+	// Null if Spring must autowire each instance.
+	private final List<Field> fields;
+	private final MethodHandle[] setters;
+	private Object[] firstValues;
+	private volatile Object[] values;
+	private final boolean injectedByFields;
+	private volatile boolean resolvable;
+	// Changed on each reset.
+	private volatile int generation = 0;
+
+	/**
+	 * @param beanName
+	 *            the name of the bean.
+	 * @param beanClass
+	 *            the class of the instances.
+	 * @param autowirer
+	 *            autowires an instance through Spring.
+	 */
+	public AutowiringPlan(String beanName, Class<?> beanClass, Consumer<Object> autowirer) {
+		this.beanName = beanName;
+		this.autowirer = autowirer;
+		this.fields = getInjectedFields(beanClass);
+		this.setters = fields != null ? getSetters(fields) : null;
+		this.injectedByFields = setters != null;
+		this.resolvable = injectedByFields;
+	}
+
+	/**
+	 * Injects the dependencies of a new instance.
+	 *
+	 * @param instance
+	 *            an instance of the bean class.
+	 */
+	public void autowire(Object instance) {
+		Object[] resolvedValues = values;
+		if (resolvedValues != null) {
+			for (int i = 0; i < setters.length; i++) {
+				try {
+					setters[i].invokeExact(instance, resolvedValues[i]);
+				} catch (Throwable e) {
+					throw new BeanCreationException(beanName, "Field '" + fields.get(i).getName() + "' cannot be injected.", e);
+				}
+			}
+			return;
+		}
+		int autowiredGeneration = generation;
+		autowirer.accept(instance);
+		if (resolvable) {
+			resolve(instance, autowiredGeneration);
+		}
+	}
+
+	/**
+	 * Discards the resolved dependencies. The next two instances are
+	 * autowired by Spring again.
+	 */
+	public synchronized void reset() {
+		values = null;
+		firstValues = null;
+		resolvable = injectedByFields;
+		generation++;
+	}
+
+	/**
+	 * @return true if the dependencies are not resolved by Spring anymore.
+	 */
+	public boolean isResolved() {
+		return values != null;
+	}
+
+	private synchronized void resolve(Object instance, int autowiredGeneration) {
+		// Autowired with the beans that existed before a reset.
+		if (values != null || !resolvable || autowiredGeneration != generation) {
+			return;
+		}
+		Object[] instanceValues = new Object[fields.size()];
+		for (int i = 0; i < instanceValues.length; i++) {
+			instanceValues[i] = ReflectionUtils.getField(fields.get(i), instance);
+		}
+		if (firstValues == null) {
+			firstValues = instanceValues;
+			return;
+		}
+		// Prototypes, providers or values created on each injection.
+		for (int i = 0; i < instanceValues.length; i++) {
+			if (instanceValues[i] != firstValues[i]) {
+				resolvable = false;
+				firstValues = null;
+				return;
+			}
+		}
+		firstValues = null;
+		values = instanceValues;
+	}
+
+	/**
+	 * @return the fields with an injection annotation, or null if any
+	 *         constructor or method has one.
+	 */
+	private static List<Field> getInjectedFields(Class<?> beanClass) {
+		List<Field> fields = new ArrayList<>();
+		for (Class<?> current = beanClass; current != null && current != Object.class; current = current.getSuperclass()) {
+			for (Constructor<?> constructor : current.getDeclaredConstructors()) {
+				if (isInjected(constructor)) {
+					return null;
+				}
+			}
+			for (Method method : current.getDeclaredMethods()) {
+				if (isInjected(method)) {
+					return null;
+				}
+			}
+			for (Field field : current.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers()) || !isInjected(field)) {
+					continue;
+				}
+				if (Modifier.isFinal(field.getModifiers())) {
+					return null;
+				}
+				ReflectionUtils.makeAccessible(field);
+				fields.add(field);
+			}
+		}
+		return fields;
+	}
+
+	private static boolean isInjected(AnnotatedElement element) {
+		for (Annotation annotation : element.getDeclaredAnnotations()) {
+			if (INJECTION_ANNOTATIONS.contains(annotation.annotationType().getName())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static MethodHandle[] getSetters(List<Field> fields) {
+		MethodHandle[] setters = new MethodHandle[fields.size()];
+		try {
+			for (int i = 0; i < setters.length; i++) {
+				MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(fields.get(i).getDeclaringClass(), MethodHandles.lookup());
+				setters[i] = lookup.unreflectSetter(fields.get(i)).asType(MethodType.methodType(void.class, Object.class, Object.class));
+			}
+		} catch (IllegalAccessException | IllegalArgumentException | SecurityException e) {
+			return null;
+		}
+		return setters;
+	}
+}
@@ -0,0 +1,145 @@
+package com.biit.bean.loader.instantiation;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.function.Supplier;
+
+/**
+ * Creates instances of a bean class without reflection. The no-arg
+ * constructor is linked only once per class, as a generated {@link Supplier}
+ * or as a method handle if the supplier cannot be generated. The constructor
+ * is stored on the class itself, so it does not keep any classloader alive.
+ */
+public final class BeanConstructor {
+	private final static ClassValue<BeanConstructor> CONSTRUCTORS = new ClassValue<BeanConstructor>() {
+
+		@Override
+		protected BeanConstructor computeValue(Class<?> beanClass) {
+			return new BeanConstructor(beanClass);
+		}
+	};
+
+	private final Class<?> beanClass;
+	private final Supplier<Object> supplier;
+	private final MethodHandle handle;
+	private final ReflectiveOperationException linkError;
+
+	@SuppressWarnings("unchecked")
+	private BeanConstructor(Class<?> beanClass) {
+		this.beanClass = beanClass;
+		Supplier<Object> linkedSupplier = null;
+		MethodHandle linkedHandle = null;
+		ReflectiveOperationException error = null;
+		if (beanClass.isInterface() || Modifier.isAbstract(beanClass.getModifiers())) {
+			error = new InstantiationException(beanClass.getName());
+		} else {
+			try {
+				MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(beanClass, MethodHandles.lookup());
+				MethodHandle constructor = lookup.findConstructor(beanClass, MethodType.methodType(void.class));
+				try {
+					CallSite callSite = LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Supplier.class),
+							MethodType.methodType(Object.class), constructor, MethodType.methodType(beanClass));
+					linkedSupplier = (Supplier<Object>) callSite.getTarget().invokeExact();
+				} catch (Throwable e) {
+					linkedHandle = constructor.asType(MethodType.methodType(Object.class));
+				}
+			} catch (NoSuchMethodException | IllegalAccessException e) {
+				error = e;
+			} catch (IllegalArgumentException | SecurityException e) {
+				error = new IllegalAccessException(beanClass.getName() + ": " + e.getMessage());
+			}
+		}
+		this.supplier = linkedSupplier;
+		this.handle = linkedHandle;
+		this.linkError = error;
+	}
+
+	/**
+	 * @param beanClass
+	 *            the class of the bean.
+	 * @return the constructor of the class, linked on the first call.
+	 */
+	public static BeanConstructor of(Class<?> beanClass) {
+		return CONSTRUCTORS.get(beanClass);
+	}
+
+	/**
+	 * @return true if the class has a no-arg constructor that can be called.
+	 */
+	public boolean isAvailable() {
+		return linkError == null;
+	}
+
+	/**
+	 * Creates a new instance. Exceptions are the same ones that
+	 * {@link java.lang.reflect.Constructor#newInstance(Object...)} throws.
+	 *
+	 * @return the new instance.
+	 * @throws InstantiationException
+	 *             if the class is abstract or an interface.
+	 * @throws IllegalAccessException
+	 *             if the constructor is not accessible.
+	 * @throws InvocationTargetException
+	 *             if the constructor throws an exception.
+	 * @throws NoSuchMethodException
+	 *             if the class has no no-arg constructor.
+	 */
+	public Object newInstance() throws InstantiationException, IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+		if (linkError != null) {
+			throwLinkError();
+		}
+		try {
+			if (supplier != null) {
+				return supplier.get();
+			}
+			return (Object) handle.invokeExact();
+		} catch (Throwable e) {
+			throw new InvocationTargetException(e);
+		}
+	}
+
+	private void throwLinkError() throws InstantiationException, IllegalAccessException, NoSuchMethodException {
+		if (linkError instanceof InstantiationException) {
+			throw (InstantiationException) linkError;
+		}
+		if (linkError instanceof NoSuchMethodException) {
+			throw (NoSuchMethodException) linkError;
+		}
+		throw (IllegalAccessException) linkError;
+	}
+
+	public Class<?> getBeanClass() {
+		return beanClass;
+	}
+
+	@Override
+	public String toString() {
+		return beanClass.getName() + (supplier != null ? " (supplier)" : handle != null ? " (method handle)" : " (not available)");
+	}
+}
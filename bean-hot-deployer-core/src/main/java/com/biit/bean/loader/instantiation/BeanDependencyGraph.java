@@ -0,0 +1,241 @@
+package com.biit.bean.loader.instantiation;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.biit.bean.loader.HotBean;
+import com.biit.bean.loader.comparator.HotBeanPriorityComparator;
+import com.biit.bean.loader.logger.BeanLoaderLogger;
+
+/**
+ * Splits the beans to create in layers. Beans are grouped by priority, and
+ * each priority tier is split using the dependencies between its beans: all
+ * beans of a layer only depend on beans of previous layers, so they can be
+ * created at the same time.
+ */
+public class BeanDependencyGraph {
+	private final static ClassValue<Collection<Class<?>>> AUTOWIRED_TYPES = new ClassValue<Collection<Class<?>>>() {
+
+		@Override
+		protected Collection<Class<?>> computeValue(Class<?> type) {
+			return getAutowiredTypes(type);
+		}
+	};
+
+	private final List<List<Class<?>>> layers;
+	private final Set<Class<?>> circularBeans = new HashSet<>();
+	private final HotBeanPriorityComparator priorities;
+
+	/**
+	 * @param beans
+	 *            the bean classes, sorted by priority.
+	 */
+	public BeanDependencyGraph(List<Class<?>> beans) {
+		this(beans, new HotBeanPriorityComparator());
+	}
+
+	/**
+	 * @param beans
+	 *            the bean classes, sorted by the comparator.
+	 * @param priorities
+	 *            the comparator used to sort the beans.
+	 */
+	public BeanDependencyGraph(List<Class<?>> beans, HotBeanPriorityComparator priorities) {
+		this.priorities = priorities;
+		layers = new ArrayList<>();
+		List<Class<?>> tier = new ArrayList<>();
+		OptionalInt tierPriority = null;
+		for (Class<?> bean : beans) {
+			OptionalInt priority = priorities.getEffectivePriority(bean);
+			if (tierPriority != null && !tierPriority.equals(priority)) {
+				layers.addAll(getLayers(tier, beans));
+				tier = new ArrayList<>();
+			}
+			tierPriority = priority;
+			tier.add(bean);
+		}
+		if (!tier.isEmpty()) {
+			layers.addAll(getLayers(tier, beans));
+		}
+	}
+
+	/**
+	 * @return the layers, in creation order. Each layer keeps the order of the
+	 *         beans received.
+	 */
+	public List<List<Class<?>>> getLayers() {
+		return Collections.unmodifiableList(layers);
+	}
+
+	/**
+	 * @return true if the bean is part of a circular dependency, or depends on
+	 *         one. It can be autowired with beans that are not created yet.
+	 */
+	public boolean isCircular(Class<?> bean) {
+		return circularBeans.contains(bean);
+	}
+
+	/**
+	 * Kahn's algorithm inside a priority tier.
+	 */
+	private List<List<Class<?>>> getLayers(List<Class<?>> tier, List<Class<?>> allBeans) {
+		Map<Class<?>, Set<Class<?>>> pendingDependencies = new LinkedHashMap<>();
+		Map<Class<?>, List<Class<?>>> dependents = new HashMap<>();
+		for (Class<?> bean : tier) {
+			Set<Class<?>> dependencies = new LinkedHashSet<>();
+			for (Class<?> dependency : getDependencies(bean, allBeans)) {
+				if (tier.contains(dependency)) {
+					dependencies.add(dependency);
+					dependents.computeIfAbsent(dependency, key -> new ArrayList<>()).add(bean);
+				} else if (priorities.getEffectivePriority(dependency).orElse(Integer.MIN_VALUE) < priorities.getEffectivePriority(bean)
+						.orElse(Integer.MIN_VALUE)) {
+					BeanLoaderLogger.warning(getClass().getName(), "Bean '" + bean.getName() + "' depends on '" + dependency.getName()
+							+ "' that has a lower priority and is created later.");
+				}
+			}
+			pendingDependencies.put(bean, dependencies);
+		}
+
+		List<List<Class<?>>> tierLayers = new ArrayList<>();
+		while (!pendingDependencies.isEmpty()) {
+			List<Class<?>> layer = new ArrayList<>();
+			for (Map.Entry<Class<?>, Set<Class<?>>> bean : pendingDependencies.entrySet()) {
+				if (bean.getValue().isEmpty()) {
+					layer.add(bean.getKey());
+				}
+			}
+			if (layer.isEmpty()) {
+				// Cycle. Remaining beans are created one by one.
+				BeanLoaderLogger.warning(getClass().getName(), "Circular dependency between beans '" + pendingDependencies.keySet() + "'.");
+				for (Class<?> bean : pendingDependencies.keySet()) {
+					tierLayers.add(Collections.<Class<?>> singletonList(bean));
+				}
+				circularBeans.addAll(pendingDependencies.keySet());
+				break;
+			}
+			for (Class<?> bean : layer) {
+				pendingDependencies.remove(bean);
+				for (Class<?> dependent : dependents.getOrDefault(bean, Collections.<Class<?>> emptyList())) {
+					Set<Class<?>> dependencies = pendingDependencies.get(dependent);
+					if (dependencies != null) {
+						dependencies.remove(bean);
+					}
+				}
+			}
+			tierLayers.add(Collections.unmodifiableList(layer));
+		}
+		return tierLayers;
+	}
+
+	/**
+	 * Gets the beans that must be created again if some beans are replaced, as
+	 * they are autowired with them, directly or through other beans.
+	 *
+	 * @param replacedBeans
+	 *            the beans replaced.
+	 * @param allBeans
+	 *            all beans that can depend on them.
+	 * @return the replaced beans and their dependents.
+	 */
+	public static Set<Class<?>> getDependents(Collection<Class<?>> replacedBeans, List<Class<?>> allBeans) {
+		Set<Class<?>> dependents = new LinkedHashSet<>(replacedBeans);
+		boolean added = true;
+		while (added) {
+			added = false;
+			for (Class<?> bean : allBeans) {
+				if (dependents.contains(bean)) {
+					continue;
+				}
+				for (Class<?> dependency : getDependencies(bean, allBeans)) {
+					if (dependents.contains(dependency)) {
+						dependents.add(bean);
+						added = true;
+						break;
+					}
+				}
+			}
+		}
+		return dependents;
+	}
+
+	/**
+	 * Beans declared on the annotation and beans that can be autowired.
+	 */
+	private static Set<Class<?>> getDependencies(Class<?> bean, List<Class<?>> allBeans) {
+		Set<Class<?>> dependencies = new LinkedHashSet<>();
+		HotBean annotation = bean.getAnnotation(HotBean.class);
+		if (annotation != null) {
+			for (String dependsOn : annotation.dependsOn()) {
+				for (Class<?> candidate : allBeans) {
+					if (dependsOn.equals(candidate.getCanonicalName())) {
+						dependencies.add(candidate);
+					}
+				}
+			}
+		}
+		for (Class<?> autowiredType : AUTOWIRED_TYPES.get(bean)) {
+			for (Class<?> candidate : allBeans) {
+				if (candidate != bean && autowiredType.isAssignableFrom(candidate)) {
+					dependencies.add(candidate);
+				}
+			}
+		}
+		return dependencies;
+	}
+
+	private static Collection<Class<?>> getAutowiredTypes(Class<?> type) {
+		List<Class<?>> autowiredTypes = new ArrayList<>();
+		try {
+			for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+				for (Field field : current.getDeclaredFields()) {
+					if (field.isAnnotationPresent(Autowired.class)) {
+						autowiredTypes.add(field.getType());
+					}
+				}
+				for (Method method : current.getDeclaredMethods()) {
+					if (method.isAnnotationPresent(Autowired.class)) {
+						Collections.addAll(autowiredTypes, method.getParameterTypes());
+					}
+				}
+			}
+		} catch (LinkageError e) {
+			// The bean creation will report it.
+			BeanLoaderLogger.debug(BeanDependencyGraph.class.getName(), "Dependencies of '" + type.getName() + "' cannot be read: " + e.getMessage());
+		}
+		return Collections.unmodifiableList(autowiredTypes);
+	}
+}
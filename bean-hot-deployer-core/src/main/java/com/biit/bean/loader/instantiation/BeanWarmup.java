@@ -0,0 +1,152 @@
+package com.biit.bean.loader.instantiation;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.biit.bean.loader.HotBeanWarmup;
+import com.biit.bean.loader.classloader.PluginClassLoader;
+import com.biit.bean.loader.logger.BeanLoaderLogger;
+
+/**
+ * Prepares new hot beans before they are available. The classes of their jar
+ * are initialized, and their {@link HotBeanWarmup} methods are called until
+ * the number of iterations or the time of the warm-up is reached.
+ */
+public class BeanWarmup {
+	private final static String CLASS_EXTENSION = ".class";
+	private final static String META_INF = "META-INF/";
+	private final static String MODULE_INFO = "module-info";
+	private final static String PACKAGE_INFO = "package-info";
+
+	private final int iterations;
+	private final long durationMillis;
+
+	/**
+	 * @param iterations
+	 *            default maximum number of calls to each warm-up method.
+	 * @param durationMillis
+	 *            default maximum time calling each warm-up method.
+	 */
+	public BeanWarmup(int iterations, long durationMillis) {
+		this.iterations = iterations;
+		this.durationMillis = durationMillis;
+	}
+
+	/**
+	 * Initializes the classes of the jar, but not the ones of its nested
+	 * libraries or the ones inherited from a previous version. Classes that
+	 * cannot be initialized are skipped, they will fail again when used.
+	 *
+	 * @param classLoader
+	 *            the classloader of the jar.
+	 * @return the number of classes initialized.
+	 */
+	public int initializeClasses(PluginClassLoader classLoader) {
+		int classesInitialized = 0;
+		for (String entryName : classLoader.getMappedJar().getEntryNames()) {
+			if (!entryName.endsWith(CLASS_EXTENSION) || entryName.startsWith(META_INF)) {
+				continue;
+			}
+			String className = entryName.substring(0, entryName.length() - CLASS_EXTENSION.length()).replace('/', '.');
+			if (className.endsWith(MODULE_INFO) || className.endsWith(PACKAGE_INFO)) {
+				continue;
+			}
+			// Already initialized by the version that defines it. The JVM would
+			// record this classloader as one that loads it, and the older
+			// version could not be collected while this one is used.
+			if (classLoader.isInherited(className)) {
+				continue;
+			}
+			try {
+				Class.forName(className, true, classLoader);
+				classesInitialized++;
+			} catch (ClassNotFoundException | LinkageError e) {
+				BeanLoaderLogger.debug(getClass().getName(), "Class '" + className + "' not initialized: " + e);
+			}
+		}
+		return classesInitialized;
+	}
+
+	/**
+	 * Calls the warm-up methods of a bean. If a call fails, its method is not
+	 * called again.
+	 *
+	 * @param beanName
+	 *            the name of the bean.
+	 * @param bean
+	 *            the bean, already autowired.
+	 * @return the number of calls done.
+	 */
+	public int warmup(String beanName, Object bean) {
+		int calls = 0;
+		for (Method method : getWarmupMethods(bean.getClass())) {
+			HotBeanWarmup annotation = method.getAnnotation(HotBeanWarmup.class);
+			int maxCalls = annotation.iterations() > 0 ? annotation.iterations() : iterations;
+			long maxNanos = TimeUnit.MILLISECONDS.toNanos(annotation.duration() > 0 ? annotation.duration() : durationMillis);
+			if (maxCalls <= 0 && maxNanos <= 0) {
+				maxCalls = 1;
+			}
+			long start = System.nanoTime();
+			for (int i = 0; (maxCalls <= 0 || i < maxCalls) && (maxNanos <= 0 || System.nanoTime() - start < maxNanos); i++) {
+				try {
+					method.invoke(bean);
+					calls++;
+				} catch (InvocationTargetException e) {
+					BeanLoaderLogger.warning(getClass().getName(), "Warm-up method '" + method.getName() + "' of bean '" + beanName + "' failed: "
+							+ e.getCause());
+					break;
+				} catch (IllegalAccessException | IllegalArgumentException e) {
+					BeanLoaderLogger.errorMessage(getClass().getName(), e);
+					break;
+				}
+			}
+		}
+		return calls;
+	}
+
+	/**
+	 * @return the methods without parameters and with the annotation, of the
+	 *         class and its superclasses. Overridden methods are returned once.
+	 */
+	private static List<Method> getWarmupMethods(Class<?> beanClass) {
+		List<Method> warmupMethods = new ArrayList<>();
+		Set<String> methodNames = new HashSet<>();
+		for (Class<?> type = beanClass; type != null && type != Object.class; type = type.getSuperclass()) {
+			for (Method method : type.getDeclaredMethods()) {
+				if (method.isAnnotationPresent(HotBeanWarmup.class) && method.getParameterCount() == 0 && !Modifier.isStatic(method.getModifiers())
+						&& methodNames.add(method.getName())) {
+					method.setAccessible(true);
+					warmupMethods.add(method);
+				}
+			}
+		}
+		return warmupMethods;
+	}
+}
@@ -0,0 +1,189 @@
+package com.biit.bean.loader.instantiation;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanCreationException;
+
+import com.biit.bean.loader.BeanScope;
+
+/**
+ * Registered instead of a prototype or pooled hot bean. Instances are created
+ * through a {@link BeanConstructor} and autowired through an
+ * {@link AutowiringPlan}, so the bean class is not introspected on each call.
+ * <p>
+ * Pooled factories keep the instances released to them, up to the pool size,
+ * and return the last one released before creating a new instance. Released
+ * instances are not reset.
+ * <p>
+ * When the beans that can be injected change, as told by the version of the
+ * dependencies, the resolved dependencies and the idle instances are
+ * discarded, so new instances never get a bean that has been replaced or
+ * undeployed. Instances got before the change should not be released.
+ *
+ * @param <T>
+ *            the class of the bean.
+ */
+public class HotBeanFactory<T> {
+	private final String beanName;
+	private final Class<T> beanClass;
+	private final BeanScope scope;
+	private final BeanConstructor constructor;
+	private final AutowiringPlan autowiringPlan;
+	// Null if not pooled.
+	private final BlockingDeque<T> pool;
+	private final LongSupplier dependenciesVersion;
+	private volatile long version;
+
+	/**
+	 * @param beanName
+	 *            the name of the bean.
+	 * @param beanClass
+	 *            the class of the instances.
+	 * @param scope
+	 *            prototype or pooled.
+	 * @param poolSize
+	 *            maximum number of idle instances of a pooled bean.
+	 * @param autowirer
+	 *            autowires an instance through Spring.
+	 * @param dependenciesVersion
+	 *            changes each time the beans that can be injected change.
+	 */
+	public HotBeanFactory(String beanName, Class<T> beanClass, BeanScope scope, int poolSize, Consumer<Object> autowirer,
+			LongSupplier dependenciesVersion) {
+		if (scope == BeanScope.SINGLETON) {
+			throw new IllegalArgumentException("Singleton beans have no factory.");
+		}
+		this.beanName = beanName;
+		this.beanClass = beanClass;
+		this.scope = scope;
+		this.constructor = BeanConstructor.of(beanClass);
+		this.autowiringPlan = new AutowiringPlan(beanName, beanClass, autowirer);
+		this.pool = scope == BeanScope.POOLED ? new LinkedBlockingDeque<T>(Math.max(poolSize, 1)) : null;
+		this.dependenciesVersion = dependenciesVersion;
+		this.version = dependenciesVersion.getAsLong();
+	}
+
+	/**
+	 * Gets an idle instance of a pooled bean, or creates a new one.
+	 *
+	 * @return an autowired instance.
+	 * @throws BeansException
+	 *             if the instance cannot be created or autowired.
+	 */
+	public T getObject() throws BeansException {
+		checkDependencies();
+		if (pool != null) {
+			T instance = pool.pollFirst();
+			if (instance != null) {
+				return instance;
+			}
+		}
+		return create();
+	}
+
+	/**
+	 * Creates a new instance, even on pooled beans.
+	 *
+	 * @return an autowired instance.
+	 * @throws BeansException
+	 *             if the instance cannot be created or autowired.
+	 */
+	public T create() throws BeansException {
+		checkDependencies();
+		T instance;
+		try {
+			instance = beanClass.cast(constructor.newInstance());
+		} catch (InvocationTargetException e) {
+			throw new BeanCreationException(beanName, "Instance cannot be created.", e.getCause());
+		} catch (InstantiationException | IllegalAccessException | NoSuchMethodException e) {
+			throw new BeanCreationException(beanName, "Instance cannot be created.", e);
+		}
+		autowiringPlan.autowire(instance);
+		return instance;
+	}
+
+	/**
+	 * Returns an instance to the pool. Prototype beans do not keep it.
+	 *
+	 * @param instance
+	 *            an instance got from this factory that can be reused.
+	 * @return true if the instance is kept.
+	 */
+	public boolean release(T instance) {
+		if (pool == null || instance == null) {
+			return false;
+		}
+		checkDependencies();
+		return pool.offerFirst(instance);
+	}
+
+	private void checkDependencies() {
+		long currentVersion = dependenciesVersion.getAsLong();
+		if (currentVersion == version) {
+			return;
+		}
+		synchronized (this) {
+			if (currentVersion != version) {
+				version = currentVersion;
+				autowiringPlan.reset();
+				if (pool != null) {
+					pool.clear();
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the number of instances in the pool.
+	 */
+	public int getIdleInstances() {
+		return pool != null ? pool.size() : 0;
+	}
+
+	public String getBeanName() {
+		return beanName;
+	}
+
+	public Class<T> getBeanClass() {
+		return beanClass;
+	}
+
+	public BeanScope getScope() {
+		return scope;
+	}
+
+	public AutowiringPlan getAutowiringPlan() {
+		return autowiringPlan;
+	}
+
+	@Override
+	public String toString() {
+		return "HotBeanFactory[" + beanName + ", " + scope + "]";
+	}
+}
@@ -0,0 +1,102 @@
+package com.biit.bean.loader.instantiation;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+import java.lang.reflect.Modifier;
+import java.util.concurrent.Callable;
+
+import org.springframework.aop.TargetSource;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.target.AbstractLazyCreationTargetSource;
+
+/**
+ * Proxy of a hot bean that is only created and autowired the first time one
+ * of its methods is called. The creation is done only once, even if several
+ * threads use the proxy at the same time. If it fails, it is tried again on
+ * the next call.
+ * <p>
+ * Final methods are not intercepted. The 'equals', 'hashCode' and 'toString'
+ * methods overridden by the bean also create it.
+ */
+public class LazyHotBeanProxy {
+
+	private LazyHotBeanProxy() {
+	}
+
+	/**
+	 * @param beanClass
+	 *            the class of the bean.
+	 * @return true if a subclass can be created as proxy.
+	 */
+	public static boolean canBeProxied(Class<?> beanClass) {
+		return !beanClass.isInterface() && !Modifier.isFinal(beanClass.getModifiers()) && !Modifier.isPrivate(beanClass.getModifiers());
+	}
+
+	/**
+	 * @param beanClass
+	 *            the class of the bean.
+	 * @param beanCreator
+	 *            creates and autowires the bean.
+	 * @return a proxy that extends the bean class.
+	 */
+	public static Object create(Class<?> beanClass, Callable<Object> beanCreator) {
+		ProxyFactory proxyFactory = new ProxyFactory();
+		proxyFactory.setTargetSource(new LazyTargetSource(beanClass, beanCreator));
+		proxyFactory.setProxyTargetClass(true);
+		return proxyFactory.getProxy(beanClass.getClassLoader());
+	}
+
+	/**
+	 * @param bean
+	 *            a bean or a proxy.
+	 * @return true if the bean is a lazy proxy that has not been used yet.
+	 */
+	public static boolean isPending(Object bean) {
+		if (!(bean instanceof Advised)) {
+			return false;
+		}
+		TargetSource targetSource = ((Advised) bean).getTargetSource();
+		return targetSource instanceof LazyTargetSource && !((LazyTargetSource) targetSource).isInitialized();
+	}
+
+	private static class LazyTargetSource extends AbstractLazyCreationTargetSource {
+		private final Class<?> beanClass;
+		private final Callable<Object> beanCreator;
+
+		LazyTargetSource(Class<?> beanClass, Callable<Object> beanCreator) {
+			this.beanClass = beanClass;
+			this.beanCreator = beanCreator;
+		}
+
+		@Override
+		public synchronized Class<?> getTargetClass() {
+			return beanClass;
+		}
+
+		@Override
+		protected Object createObject() throws Exception {
+			return beanCreator.call();
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package com.biit.bean.loader.jfr;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(DeployEvent.PREFIX + "BeanAutowire")
+@Label("Bean Autowire")
+@Description("Injecting the dependencies of a hot bean.")
+public class BeanAutowireEvent extends DeployEvent {
+
+	@Label("Bean")
+	private final String beanName;
+
+	public BeanAutowireEvent(String beanName) {
+		this.beanName = beanName;
+	}
+}
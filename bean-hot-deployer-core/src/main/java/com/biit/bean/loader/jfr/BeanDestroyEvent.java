@@ -0,0 +1,47 @@
+package com.biit.bean.loader.jfr;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(DeployEvent.PREFIX + "BeanDestroy")
+@Label("Bean Destroy")
+@Description("Destroying the hot beans of a jar.")
+public class BeanDestroyEvent extends DeployEvent {
+
+	@Label("Jar")
+	private final String pathToJar;
+
+	@Label("Beans")
+	private int beans;
+
+	public BeanDestroyEvent(String pathToJar) {
+		this.pathToJar = pathToJar;
+	}
+
+	public void setBeans(int beans) {
+		this.beans = beans;
+	}
+}
@@ -0,0 +1,43 @@
+package com.biit.bean.loader.jfr;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder events of the deploy pipeline. They are shown next to the
+ * garbage collections and safepoints of the same recording, and can be
+ * enabled with the 'com.biit.bean.loader.*' names. Stack traces are not
+ * recorded, as they are always the same.
+ * <p>
+ * Events are created before the measured work and only completed if
+ * {@link #shouldCommit()} is true, so they cost nearly nothing when no
+ * recording is running.
+ */
+@Category({ "Bean Hot Deployer" })
+@StackTrace(false)
+public abstract class DeployEvent extends Event {
+	public final static String PREFIX = "com.biit.bean.loader.";
+}
@@ -66,6 +66,15 @@ public class BeanLoaderLogger extends BiitLogger {
         debug(logger, className, message);
     }
 
+    /**
+     * Allows to skip building expensive debug messages.
+     *
+     * @return true if debug messages are logged.
+     */
+    public static boolean isDebugEnabled() {
+        return logger.isDebugEnabled();
+    }
+
     /**
      * To log any not expected error that can cause application malfunction.
      *
@@ -0,0 +1,182 @@
+package com.biit.bean.loader.metrics;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import com.biit.bean.loader.logger.BeanLoaderLogger;
+import com.biit.bean.loader.metrics.MetricTimer.TimerSnapshot;
+
+/**
+ * Measurements of the deploy pipeline. Timers are kept in total, with a
+ * histogram, and for each jar or bean, without it.
+ */
+public class DeployMetrics {
+	// Timers.
+	public final static String JAR_READINESS_WAIT = "jar.readiness.wait";
+	public final static String JAR_ENUMERATION = "jar.enumeration";
+	public final static String CLASS_LOADING = "class.loading";
+	public final static String BEAN_INSTANTIATION = "bean.instantiation";
+	public final static String BEAN_AUTOWIRING = "bean.autowiring";
+	public final static String CLASS_INITIALIZATION = "class.initialization";
+	public final static String BEAN_WARMUP = "bean.warmup";
+	public final static String JAR_DEPLOY = "jar.deploy";
+	public final static String JAR_REPLACE = "jar.replace";
+	// Counters.
+	public final static String CLASSES_SCANNED = "classes.scanned";
+	public final static String BEANS_REGISTERED = "beans.registered";
+	public final static String BEANS_DESTROYED = "beans.destroyed";
+	public final static String FAILURES = "failures";
+	// Gauges.
+	public final static String LIVE_CLASSLOADERS = "classloaders.live";
+	public final static String RETIRED_CLASSLOADERS = "classloaders.retired";
+	public final static String LOADED_CLASSES = "classes.loaded";
+	// One if all beans of the startup tier are registered.
+	public final static String STARTUP_CRITICAL_READY = "startup.critical.ready";
+	public final static String STARTUP_BACKGROUND_READY = "startup.background.ready";
+
+	private final Map<String, MetricTimer> timers = new ConcurrentHashMap<>();
+	private final Map<String, Map<String, MetricTimer>> taggedTimers = new ConcurrentHashMap<>();
+	private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+	private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+	private final List<MetricsExporter> exporters = new CopyOnWriteArrayList<>();
+
+	/**
+	 * @param name
+	 *            the timer.
+	 * @param nanos
+	 *            the duration.
+	 */
+	public void record(String name, long nanos) {
+		timers.computeIfAbsent(name, key -> new MetricTimer(true)).record(nanos);
+	}
+
+	/**
+	 * Records the duration in total and for a jar or a bean.
+	 *
+	 * @param name
+	 *            the timer.
+	 * @param tag
+	 *            the jar or bean.
+	 * @param nanos
+	 *            the duration.
+	 */
+	public void record(String name, String tag, long nanos) {
+		record(name, nanos);
+		taggedTimers.computeIfAbsent(tag, key -> new ConcurrentHashMap<>()).computeIfAbsent(name, key -> new MetricTimer(false)).record(nanos);
+	}
+
+	public void increment(String counter) {
+		add(counter, 1);
+	}
+
+	public void add(String counter, long value) {
+		counters.computeIfAbsent(counter, key -> new LongAdder()).add(value);
+	}
+
+	/**
+	 * @param name
+	 *            the gauge.
+	 * @param supplier
+	 *            reads the current value.
+	 */
+	public void registerGauge(String name, LongSupplier supplier) {
+		gauges.put(name, supplier);
+	}
+
+	/**
+	 * Forgets the timers of undeployed jars and beans.
+	 *
+	 * @param tags
+	 *            the jars or beans.
+	 */
+	public void removeTags(Collection<String> tags) {
+		for (String tag : tags) {
+			taggedTimers.remove(tag);
+		}
+	}
+
+	public void addExporter(MetricsExporter exporter) {
+		exporters.add(exporter);
+	}
+
+	public void removeExporter(MetricsExporter exporter) {
+		exporters.remove(exporter);
+	}
+
+	public MetricsSnapshot snapshot() {
+		Map<String, TimerSnapshot> timerValues = new TreeMap<>();
+		for (Map.Entry<String, MetricTimer> timer : timers.entrySet()) {
+			timerValues.put(timer.getKey(), timer.getValue().snapshot());
+		}
+		for (Map.Entry<String, Map<String, MetricTimer>> tag : taggedTimers.entrySet()) {
+			for (Map.Entry<String, MetricTimer> timer : tag.getValue().entrySet()) {
+				timerValues.put(timer.getKey() + "{" + tag.getKey() + "}", timer.getValue().snapshot());
+			}
+		}
+		Map<String, Long> counterValues = new TreeMap<>();
+		for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+			counterValues.put(counter.getKey(), counter.getValue().sum());
+		}
+		Map<String, Long> gaugeValues = new TreeMap<>();
+		for (Map.Entry<String, LongSupplier> gauge : gauges.entrySet()) {
+			gaugeValues.put(gauge.getKey(), gauge.getValue().getAsLong());
+		}
+		return new MetricsSnapshot(System.currentTimeMillis(), timerValues, counterValues, gaugeValues);
+	}
+
+	/**
+	 * @return the timers in total, without jars or beans.
+	 */
+	public Map<String, TimerSnapshot> getTimers() {
+		Map<String, TimerSnapshot> timerValues = new TreeMap<>();
+		for (Map.Entry<String, MetricTimer> timer : timers.entrySet()) {
+			timerValues.put(timer.getKey(), timer.getValue().snapshot());
+		}
+		return timerValues;
+	}
+
+	/**
+	 * Sends the current values to all exporters. An exporter that fails does
+	 * not stop the others.
+	 */
+	public void export() {
+		if (exporters.isEmpty()) {
+			return;
+		}
+		MetricsSnapshot snapshot = snapshot();
+		for (MetricsExporter exporter : exporters) {
+			try {
+				exporter.export(snapshot);
+			} catch (RuntimeException e) {
+				BeanLoaderLogger.errorMessage(getClass().getName(), e);
+			}
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package com.biit.bean.loader.metrics;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ReflectionException;
+
+import com.biit.bean.loader.metrics.MetricTimer.TimerSnapshot;
+
+/**
+ * Read only MBean with one attribute for each counter and gauge, and the
+ * count, mean, maximum and percentiles of each timer in milliseconds. Timers
+ * of each jar and bean are available with the 'dump' operation.
+ */
+public class DeployMetricsMBean implements DynamicMBean {
+	public final static String OBJECT_NAME = "com.biit.bean.loader:type=BeanLoader,name=DeployMetrics";
+	private final static String DUMP_OPERATION = "dump";
+	private final static double NANOS_PER_MILLI = 1000000d;
+
+	private final DeployMetrics metrics;
+
+	public DeployMetricsMBean(DeployMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	private Map<String, Object> getValues() {
+		Map<String, Object> values = new LinkedHashMap<>();
+		MetricsSnapshot snapshot = metrics.snapshot();
+		for (Map.Entry<String, Long> counter : snapshot.getCounters().entrySet()) {
+			values.put(counter.getKey(), counter.getValue());
+		}
+		for (Map.Entry<String, Long> gauge : snapshot.getGauges().entrySet()) {
+			values.put(gauge.getKey(), gauge.getValue());
+		}
+		for (Map.Entry<String, TimerSnapshot> timer : metrics.getTimers().entrySet()) {
+			values.put(timer.getKey() + ".count", timer.getValue().getCount());
+			values.put(timer.getKey() + ".meanMillis", timer.getValue().getMeanNanos() / NANOS_PER_MILLI);
+			values.put(timer.getKey() + ".maxMillis", timer.getValue().getMaxNanos() / NANOS_PER_MILLI);
+			values.put(timer.getKey() + ".p50Millis", timer.getValue().getPercentileNanos(50) / NANOS_PER_MILLI);
+			values.put(timer.getKey() + ".p99Millis", timer.getValue().getPercentileNanos(99) / NANOS_PER_MILLI);
+		}
+		return values;
+	}
+
+	@Override
+	public Object getAttribute(String attribute) throws AttributeNotFoundException {
+		Object value = getValues().get(attribute);
+		if (value == null) {
+			throw new AttributeNotFoundException(attribute);
+		}
+		return value;
+	}
+
+	@Override
+	public AttributeList getAttributes(String[] attributes) {
+		Map<String, Object> values = getValues();
+		AttributeList attributeList = new AttributeList();
+		for (String attribute : attributes) {
+			if (values.containsKey(attribute)) {
+				attributeList.add(new Attribute(attribute, values.get(attribute)));
+			}
+		}
+		return attributeList;
+	}
+
+	@Override
+	public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+		throw new AttributeNotFoundException("Metrics are read only.");
+	}
+
+	@Override
+	public AttributeList setAttributes(AttributeList attributes) {
+		return new AttributeList();
+	}
+
+	@Override
+	public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+		if (DUMP_OPERATION.equals(actionName)) {
+			return metrics.snapshot().toString();
+		}
+		throw new ReflectionException(new NoSuchMethodException(actionName));
+	}
+
+	@Override
+	public MBeanInfo getMBeanInfo() {
+		List<MBeanAttributeInfo> attributes = new ArrayList<>();
+		for (Map.Entry<String, Object> value : getValues().entrySet()) {
+			attributes.add(new MBeanAttributeInfo(value.getKey(), value.getValue().getClass().getName(), value.getKey(), true, false, false));
+		}
+		MBeanOperationInfo dump = new MBeanOperationInfo(DUMP_OPERATION, "All metrics, including the timers of each jar and bean.",
+				new MBeanParameterInfo[0], String.class.getName(), MBeanOperationInfo.INFO);
+		return new MBeanInfo(getClass().getName(), "Hot deploy metrics.", attributes.toArray(new MBeanAttributeInfo[0]), null,
+				new MBeanOperationInfo[] { dump }, null);
+	}
+}
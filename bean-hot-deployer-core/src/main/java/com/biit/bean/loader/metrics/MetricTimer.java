@@ -0,0 +1,146 @@
+package com.biit.bean.loader.metrics;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records durations. Optionally keeps a histogram with one bucket for each
+ * power of two nanoseconds, enough to get percentiles with less than a 100%
+ * error without storing each value.
+ */
+public class MetricTimer {
+	private final static int BUCKETS = 64;
+
+	private final LongAdder count = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+	private final AtomicLongArray histogram;
+
+	/**
+	 * @param withHistogram
+	 *            if false, only count, total and maximum are kept.
+	 */
+	public MetricTimer(boolean withHistogram) {
+		this.histogram = withHistogram ? new AtomicLongArray(BUCKETS) : null;
+	}
+
+	/**
+	 * @param nanos
+	 *            the duration.
+	 */
+	public void record(long nanos) {
+		long duration = Math.max(nanos, 0);
+		count.increment();
+		totalNanos.add(duration);
+		maxNanos.accumulate(duration);
+		if (histogram != null) {
+			// Bucket 'i' has the values with 'i' significant bits.
+			histogram.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(duration));
+		}
+	}
+
+	public TimerSnapshot snapshot() {
+		long[] buckets = null;
+		if (histogram != null) {
+			buckets = new long[BUCKETS];
+			for (int i = 0; i < BUCKETS; i++) {
+				buckets[i] = histogram.get(i);
+			}
+		}
+		return new TimerSnapshot(count.sum(), totalNanos.sum(), maxNanos.get(), buckets);
+	}
+
+	/**
+	 * Values of a timer at some moment.
+	 */
+	public static class TimerSnapshot {
+		private final long count;
+		private final long totalNanos;
+		private final long maxNanos;
+		private final long[] buckets;
+
+		TimerSnapshot(long count, long totalNanos, long maxNanos, long[] buckets) {
+			this.count = count;
+			this.totalNanos = totalNanos;
+			this.maxNanos = maxNanos;
+			this.buckets = buckets;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getTotalNanos() {
+			return totalNanos;
+		}
+
+		public long getMaxNanos() {
+			return maxNanos;
+		}
+
+		public double getMeanNanos() {
+			return count == 0 ? 0 : (double) totalNanos / count;
+		}
+
+		public boolean hasHistogram() {
+			return buckets != null;
+		}
+
+		/**
+		 * @param percentile
+		 *            between 0 and 100.
+		 * @return the upper bound of the bucket that contains the percentile,
+		 *         never greater than the maximum. -1 if there is no histogram.
+		 */
+		public long getPercentileNanos(double percentile) {
+			if (buckets == null) {
+				return -1;
+			}
+			long total = 0;
+			for (long bucket : buckets) {
+				total += bucket;
+			}
+			if (total == 0) {
+				return 0;
+			}
+			long rank = (long) Math.ceil(total * Math.min(Math.max(percentile, 0), 100) / 100);
+			long accumulated = 0;
+			for (int i = 0; i < buckets.length; i++) {
+				accumulated += buckets[i];
+				if (accumulated >= Math.max(rank, 1)) {
+					long upperBound = (1L << i) - 1;
+					return Math.min(upperBound, maxNanos);
+				}
+			}
+			return maxNanos;
+		}
+
+		@Override
+		public String toString() {
+			return "{count=" + count + ", mean=" + Math.round(getMeanNanos()) + "ns, max=" + maxNanos + "ns"
+					+ (buckets != null ? ", p99=" + getPercentileNanos(99) + "ns" : "") + "}";
+		}
+	}
+}
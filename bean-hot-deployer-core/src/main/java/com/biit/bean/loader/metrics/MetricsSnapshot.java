@@ -0,0 +1,69 @@
+package com.biit.bean.loader.metrics;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.biit.bean.loader.metrics.MetricTimer.TimerSnapshot;
+
+/**
+ * Immutable values of all the metrics at some moment. Timers of a jar or a
+ * bean are named 'metric{jar or bean}'.
+ */
+public class MetricsSnapshot {
+	private final long timestamp;
+	private final Map<String, TimerSnapshot> timers;
+	private final Map<String, Long> counters;
+	private final Map<String, Long> gauges;
+
+	MetricsSnapshot(long timestamp, Map<String, TimerSnapshot> timers, Map<String, Long> counters, Map<String, Long> gauges) {
+		this.timestamp = timestamp;
+		this.timers = Collections.unmodifiableMap(timers);
+		this.counters = Collections.unmodifiableMap(counters);
+		this.gauges = Collections.unmodifiableMap(gauges);
+	}
+
+	/**
+	 * @return milliseconds since epoch.
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public Map<String, TimerSnapshot> getTimers() {
+		return timers;
+	}
+
+	public Map<String, Long> getCounters() {
+		return counters;
+	}
+
+	public Map<String, Long> getGauges() {
+		return gauges;
+	}
+
+	@Override
+	public String toString() {
+		return "{timers=" + timers + ", counters=" + counters + ", gauges=" + gauges + "}";
+	}
+}
@@ -0,0 +1,277 @@
+package com.biit.bean.loader.registry;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.lang.annotation.Annotation;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+import org.springframework.core.annotation.RepeatableContainers;
+import org.springframework.util.ClassUtils;
+
+import com.biit.bean.loader.instantiation.HotBeanFactory;
+
+/**
+ * Index of the hot beans by each one of its classes, interfaces and
+ * annotations. Readers always get an immutable snapshot without locking or
+ * allocating. Writers are serialized and only copy the entries of the types
+ * affected by the change.
+ * <p>
+ * Factories of prototype and pooled beans are registered by name as any other
+ * bean, but they are indexed by the class of the instances they create and
+ * only returned by {@link #getFactoriesOfType(Class)}.
+ */
+public class HotBeanRegistry {
+	private volatile Snapshot snapshot = new Snapshot(Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(),
+			Collections.emptyMap());
+	private volatile long version = 0;
+
+	/**
+	 * Adds a bean. If a bean with the same name already exists, it is
+	 * replaced.
+	 *
+	 * @param beanName
+	 *            the name of the bean.
+	 * @param bean
+	 *            the instance.
+	 */
+	public synchronized void register(String beanName, Object bean) {
+		replace(Collections.<String> emptySet(), Collections.singletonMap(beanName, bean));
+	}
+
+	/**
+	 * Removes a bean.
+	 *
+	 * @param beanName
+	 *            the name of the bean.
+	 * @return the removed instance or null if not registered.
+	 */
+	public synchronized Object unregister(String beanName) {
+		Object bean = snapshot.beansByName.get(beanName);
+		if (bean != null) {
+			replace(Collections.singleton(beanName), Collections.<String, Object> emptyMap());
+		}
+		return bean;
+	}
+
+	/**
+	 * Removes and adds several beans at once. Readers see the previous state or
+	 * the final one, never a partial change.
+	 *
+	 * @param removedBeanNames
+	 *            the beans to remove.
+	 * @param addedBeans
+	 *            the beans to add by name. Replace any bean with the same name.
+	 */
+	public synchronized void replace(Collection<String> removedBeanNames, Map<String, Object> addedBeans) {
+		Snapshot current = snapshot;
+		Map<String, Object> beansByName = new LinkedHashMap<>(current.beansByName);
+		Map<Class<?>, Set<Object>> beansByType = new HashMap<>(current.beansByType);
+		Map<Class<?>, Set<Object>> beansByAnnotation = new HashMap<>(current.beansByAnnotation);
+		Map<Class<?>, Set<Object>> factoriesByType = new HashMap<>(current.factoriesByType);
+
+		for (String beanName : removedBeanNames) {
+			Object bean = beansByName.remove(beanName);
+			if (bean instanceof HotBeanFactory) {
+				removeFromIndex(factoriesByType, getTypes(((HotBeanFactory<?>) bean).getBeanClass()), bean);
+			} else if (bean != null) {
+				removeFromIndex(beansByType, getTypes(bean.getClass()), bean);
+				removeFromIndex(beansByAnnotation, getAnnotations(bean.getClass()), bean);
+			}
+		}
+		for (Map.Entry<String, Object> addedBean : addedBeans.entrySet()) {
+			Object previousBean = beansByName.put(addedBean.getKey(), addedBean.getValue());
+			if (previousBean instanceof HotBeanFactory) {
+				removeFromIndex(factoriesByType, getTypes(((HotBeanFactory<?>) previousBean).getBeanClass()), previousBean);
+			} else if (previousBean != null) {
+				removeFromIndex(beansByType, getTypes(previousBean.getClass()), previousBean);
+				removeFromIndex(beansByAnnotation, getAnnotations(previousBean.getClass()), previousBean);
+			}
+			if (addedBean.getValue() instanceof HotBeanFactory) {
+				addToIndex(factoriesByType, getTypes(((HotBeanFactory<?>) addedBean.getValue()).getBeanClass()), addedBean.getValue());
+			} else {
+				addToIndex(beansByType, getTypes(addedBean.getValue().getClass()), addedBean.getValue());
+				addToIndex(beansByAnnotation, getAnnotations(addedBean.getValue().getClass()), addedBean.getValue());
+			}
+		}
+
+		snapshot = new Snapshot(Collections.unmodifiableMap(beansByName), beansByType, beansByAnnotation, factoriesByType);
+		version++;
+	}
+
+	/**
+	 * @return a number that changes each time the registered beans change.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Gets the beans that can be assigned to a type.
+	 *
+	 * @param type
+	 *            a class or interface.
+	 * @return an immutable set. Never null.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> Set<T> getBeansOfType(Class<T> type) {
+		Set<Object> beans = snapshot.beansByType.get(type);
+		if (beans == null) {
+			return Collections.emptySet();
+		}
+		return (Set<T>) beans;
+	}
+
+	/**
+	 * Gets the factories of prototype and pooled beans whose instances can be
+	 * assigned to a type.
+	 *
+	 * @param type
+	 *            a class or interface.
+	 * @return an immutable set. Never null.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public <T> Set<HotBeanFactory<? extends T>> getFactoriesOfType(Class<T> type) {
+		Set<Object> factories = snapshot.factoriesByType.get(type);
+		if (factories == null) {
+			return Collections.emptySet();
+		}
+		return (Set) factories;
+	}
+
+	/**
+	 * Gets the beans that have an annotation.
+	 *
+	 * @param annotation
+	 *            the annotation.
+	 * @return an immutable set. Never null.
+	 */
+	public Set<Object> getBeansWithAnnotation(Class<? extends Annotation> annotation) {
+		Set<Object> beans = snapshot.beansByAnnotation.get(annotation);
+		if (beans == null) {
+			return Collections.emptySet();
+		}
+		return beans;
+	}
+
+	/**
+	 * @param annotation
+	 *            the annotation.
+	 * @return true if any registered bean has the annotation.
+	 */
+	public boolean containsAnnotation(Class<? extends Annotation> annotation) {
+		return snapshot.beansByAnnotation.containsKey(annotation);
+	}
+
+	public boolean contains(String beanName) {
+		return snapshot.beansByName.containsKey(beanName);
+	}
+
+	/**
+	 * @return an immutable map with all beans by name.
+	 */
+	public Map<String, Object> getBeans() {
+		return snapshot.beansByName;
+	}
+
+	private static void addToIndex(Map<Class<?>, Set<Object>> index, Collection<Class<?>> keys, Object bean) {
+		for (Class<?> key : keys) {
+			Set<Object> previousBeans = index.get(key);
+			Set<Object> beans = previousBeans == null ? new LinkedHashSet<>() : new LinkedHashSet<>(previousBeans);
+			beans.add(bean);
+			index.put(key, Collections.unmodifiableSet(beans));
+		}
+	}
+
+	private static void removeFromIndex(Map<Class<?>, Set<Object>> index, Collection<Class<?>> keys, Object bean) {
+		for (Class<?> key : keys) {
+			Set<Object> previousBeans = index.get(key);
+			if (previousBeans == null) {
+				continue;
+			}
+			Set<Object> beans = new LinkedHashSet<>(previousBeans);
+			beans.remove(bean);
+			if (beans.isEmpty()) {
+				index.remove(key);
+			} else {
+				index.put(key, Collections.unmodifiableSet(beans));
+			}
+		}
+	}
+
+	/**
+	 * All classes and interfaces that a class can be assigned to. Proxies are
+	 * indexed by the class they extend.
+	 */
+	private static Set<Class<?>> getTypes(Class<?> beanClass) {
+		Set<Class<?>> types = new LinkedHashSet<>();
+		for (Class<?> current = ClassUtils.getUserClass(beanClass); current != null; current = current.getSuperclass()) {
+			types.add(current);
+			addInterfaces(current, types);
+		}
+		return types;
+	}
+
+	private static void addInterfaces(Class<?> type, Set<Class<?>> types) {
+		for (Class<?> implemented : type.getInterfaces()) {
+			if (types.add(implemented)) {
+				addInterfaces(implemented, types);
+			}
+		}
+	}
+
+	/**
+	 * Same search than the application context: annotations of the class, its
+	 * superclasses and interfaces, and their meta-annotations.
+	 */
+	private static Set<Class<?>> getAnnotations(Class<?> beanClass) {
+		Set<Class<?>> annotations = new LinkedHashSet<>();
+		for (MergedAnnotation<Annotation> annotation : MergedAnnotations.from(ClassUtils.getUserClass(beanClass), SearchStrategy.TYPE_HIERARCHY,
+				RepeatableContainers.none())) {
+			annotations.add(annotation.getType());
+		}
+		return annotations;
+	}
+
+	private static class Snapshot {
+		private final Map<String, Object> beansByName;
+		private final Map<Class<?>, Set<Object>> beansByType;
+		private final Map<Class<?>, Set<Object>> beansByAnnotation;
+		private final Map<Class<?>, Set<Object>> factoriesByType;
+
+		Snapshot(Map<String, Object> beansByName, Map<Class<?>, Set<Object>> beansByType, Map<Class<?>, Set<Object>> beansByAnnotation,
+				Map<Class<?>, Set<Object>> factoriesByType) {
+			this.beansByName = beansByName;
+			this.beansByType = beansByType;
+			this.beansByAnnotation = beansByAnnotation;
+			this.factoriesByType = factoriesByType;
+		}
+	}
+}
@@ -0,0 +1,400 @@
+package com.biit.bean.loader.scanner;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Reads the constant pool, the constructors and the
+ * 'RuntimeVisibleAnnotations' attribute of a class file to decide if it is a
+ * bean, without defining the class in any classloader.
+ */
+public class ClassFileScanner {
+	private final static int MAGIC = 0xCAFEBABE;
+	private final static int ACC_PUBLIC = 0x0001;
+	private final static int ACC_INTERFACE = 0x0200;
+
+	private final static int CONSTANT_UTF8 = 1;
+	private final static int CONSTANT_INTEGER = 3;
+	private final static int CONSTANT_FLOAT = 4;
+	private final static int CONSTANT_LONG = 5;
+	private final static int CONSTANT_DOUBLE = 6;
+	private final static int CONSTANT_CLASS = 7;
+	private final static int CONSTANT_STRING = 8;
+	private final static int CONSTANT_FIELD_REF = 9;
+	private final static int CONSTANT_METHOD_REF = 10;
+	private final static int CONSTANT_INTERFACE_METHOD_REF = 11;
+	private final static int CONSTANT_NAME_AND_TYPE = 12;
+	private final static int CONSTANT_METHOD_HANDLE = 15;
+	private final static int CONSTANT_METHOD_TYPE = 16;
+	private final static int CONSTANT_DYNAMIC = 17;
+	private final static int CONSTANT_INVOKE_DYNAMIC = 18;
+	private final static int CONSTANT_MODULE = 19;
+	private final static int CONSTANT_PACKAGE = 20;
+
+	private final static String CONSTRUCTOR_NAME = "<init>";
+	private final static String NO_ARGS_DESCRIPTOR = "()V";
+	private final static String ANNOTATIONS_ATTRIBUTE = "RuntimeVisibleAnnotations";
+	private final static String PRIORITY_ELEMENT = "priority";
+
+	private final String annotationDescriptor;
+
+	/**
+	 * @param annotation
+	 *            the annotation that marks a class as a bean.
+	 */
+	public ClassFileScanner(Class<? extends Annotation> annotation) {
+		this.annotationDescriptor = "L" + annotation.getName().replace('.', '/') + ";";
+	}
+
+	/**
+	 * Parses a class file.
+	 *
+	 * @param classBytes
+	 *            the content of the '.class' file. Its position is not
+	 *            modified.
+	 * @return the information of the class.
+	 * @throws IOException
+	 *             if the content is not a valid class file.
+	 */
+	public ScannedClass scan(ByteBuffer classBytes) throws IOException {
+		try {
+			return parse(classBytes.duplicate());
+		} catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+			throw new IOException("Invalid class file.", e);
+		}
+	}
+
+	public ScannedClass scan(byte[] classBytes) throws IOException {
+		return scan(ByteBuffer.wrap(classBytes));
+	}
+
+	/**
+	 * Gets all classes that a class file refers to, by its constant pool and
+	 * the descriptors of its fields, methods and annotations.
+	 *
+	 * @param classBytes
+	 *            the content of the '.class' file. Its position is not
+	 *            modified.
+	 * @return the binary names of the classes, including the class itself.
+	 * @throws IOException
+	 *             if the content is not a valid class file.
+	 */
+	public static Set<String> getReferencedClasses(ByteBuffer classBytes) throws IOException {
+		try {
+			ConstantPool constantPool = readConstantPool(classBytes.duplicate());
+			Set<String> classNames = new LinkedHashSet<>();
+			for (int i = 1; i < constantPool.tags.length; i++) {
+				if (constantPool.tags[i] == CONSTANT_CLASS) {
+					addClassName(constantPool.getClassName(i), classNames);
+				} else if (constantPool.tags[i] == CONSTANT_UTF8) {
+					addDescriptorClasses(constantPool.getUtf8(i), classNames);
+				}
+			}
+			return classNames;
+		} catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+			throw new IOException("Invalid class file.", e);
+		}
+	}
+
+	public static Set<String> getReferencedClasses(byte[] classBytes) throws IOException {
+		return getReferencedClasses(ByteBuffer.wrap(classBytes));
+	}
+
+	private static void addClassName(String internalName, Set<String> classNames) {
+		// Arrays are referenced by its descriptor.
+		if (internalName.startsWith("[")) {
+			addDescriptorClasses(internalName, classNames);
+		} else {
+			classNames.add(internalName.replace('/', '.'));
+		}
+	}
+
+	/**
+	 * Any string can be a descriptor. Extra names are harmless, as they only
+	 * make the result more conservative.
+	 */
+	private static void addDescriptorClasses(String text, Set<String> classNames) {
+		int start = text.indexOf('L');
+		while (start >= 0) {
+			int end = start + 1;
+			while (end < text.length() && isInternalNamePart(text.charAt(end))) {
+				end++;
+			}
+			// Type arguments of generic signatures are not needed for linking.
+			if (end > start + 1 && end < text.length() && (text.charAt(end) == ';' || text.charAt(end) == '<')) {
+				classNames.add(text.substring(start + 1, end).replace('/', '.'));
+			}
+			start = text.indexOf('L', end);
+		}
+	}
+
+	private static boolean isInternalNamePart(char character) {
+		return character == '/' || Character.isJavaIdentifierPart(character);
+	}
+
+	private static ConstantPool readConstantPool(ByteBuffer buffer) throws IOException {
+		if (buffer.getInt() != MAGIC) {
+			throw new IOException("Invalid class file magic number.");
+		}
+		// Minor and major version.
+		buffer.getShort();
+		buffer.getShort();
+
+		// Only the offset of each entry is stored. Strings are decoded on demand.
+		int constantPoolCount = buffer.getShort() & 0xFFFF;
+		int[] offsets = new int[constantPoolCount];
+		byte[] tags = new byte[constantPoolCount];
+		for (int i = 1; i < constantPoolCount; i++) {
+			int tag = buffer.get() & 0xFF;
+			tags[i] = (byte) tag;
+			offsets[i] = buffer.position();
+			switch (tag) {
+			case CONSTANT_UTF8:
+				int length = buffer.getShort() & 0xFFFF;
+				buffer.position(buffer.position() + length);
+				break;
+			case CONSTANT_CLASS:
+			case CONSTANT_STRING:
+			case CONSTANT_METHOD_TYPE:
+			case CONSTANT_MODULE:
+			case CONSTANT_PACKAGE:
+				skip(buffer, 2);
+				break;
+			case CONSTANT_METHOD_HANDLE:
+				skip(buffer, 3);
+				break;
+			case CONSTANT_INTEGER:
+			case CONSTANT_FLOAT:
+			case CONSTANT_FIELD_REF:
+			case CONSTANT_METHOD_REF:
+			case CONSTANT_INTERFACE_METHOD_REF:
+			case CONSTANT_NAME_AND_TYPE:
+			case CONSTANT_DYNAMIC:
+			case CONSTANT_INVOKE_DYNAMIC:
+				skip(buffer, 4);
+				break;
+			case CONSTANT_LONG:
+			case CONSTANT_DOUBLE:
+				skip(buffer, 8);
+				// Takes two entries.
+				i++;
+				break;
+			default:
+				throw new IOException("Invalid constant pool tag '" + tag + "'.");
+			}
+		}
+		return new ConstantPool(buffer, offsets, tags);
+	}
+
+	private ScannedClass parse(ByteBuffer buffer) throws IOException {
+		ConstantPool constantPool = readConstantPool(buffer);
+
+		int accessFlags = buffer.getShort() & 0xFFFF;
+		int thisClass = buffer.getShort() & 0xFFFF;
+		String className = constantPool.getClassName(thisClass).replace('/', '.');
+		// Super class.
+		buffer.getShort();
+		int interfacesCount = buffer.getShort() & 0xFFFF;
+		skip(buffer, interfacesCount * 2);
+
+		// Fields.
+		int fieldsCount = buffer.getShort() & 0xFFFF;
+		for (int i = 0; i < fieldsCount; i++) {
+			skip(buffer, 6);
+			skipAttributes(buffer);
+		}
+
+		// Methods.
+		boolean publicNoArgConstructor = false;
+		int methodsCount = buffer.getShort() & 0xFFFF;
+		for (int i = 0; i < methodsCount; i++) {
+			int methodAccess = buffer.getShort() & 0xFFFF;
+			int nameIndex = buffer.getShort() & 0xFFFF;
+			int descriptorIndex = buffer.getShort() & 0xFFFF;
+			if ((methodAccess & ACC_PUBLIC) != 0 && constantPool.utf8Equals(nameIndex, CONSTRUCTOR_NAME)
+					&& constantPool.utf8Equals(descriptorIndex, NO_ARGS_DESCRIPTOR)) {
+				publicNoArgConstructor = true;
+			}
+			skipAttributes(buffer);
+		}
+
+		// Class attributes.
+		boolean annotated = false;
+		int priority = 0;
+		int attributesCount = buffer.getShort() & 0xFFFF;
+		for (int i = 0; i < attributesCount; i++) {
+			int nameIndex = buffer.getShort() & 0xFFFF;
+			int length = buffer.getInt();
+			int end = buffer.position() + length;
+			if (!annotated && constantPool.utf8Equals(nameIndex, ANNOTATIONS_ATTRIBUTE)) {
+				int annotationsCount = buffer.getShort() & 0xFFFF;
+				for (int j = 0; j < annotationsCount && !annotated; j++) {
+					int typeIndex = buffer.getShort() & 0xFFFF;
+					if (constantPool.utf8Equals(typeIndex, annotationDescriptor)) {
+						annotated = true;
+						priority = readPriority(buffer, constantPool);
+					} else {
+						skipAnnotationElements(buffer);
+					}
+				}
+			}
+			buffer.position(end);
+		}
+
+		return new ScannedClass(className, annotated, priority, (accessFlags & ACC_INTERFACE) != 0, publicNoArgConstructor);
+	}
+
+	private int readPriority(ByteBuffer buffer, ConstantPool constantPool) {
+		int priority = 0;
+		int pairs = buffer.getShort() & 0xFFFF;
+		for (int i = 0; i < pairs; i++) {
+			int nameIndex = buffer.getShort() & 0xFFFF;
+			if (constantPool.utf8Equals(nameIndex, PRIORITY_ELEMENT) && buffer.get(buffer.position()) == 'I') {
+				buffer.get();
+				priority = constantPool.getInteger(buffer.getShort() & 0xFFFF);
+			} else {
+				skipElementValue(buffer);
+			}
+		}
+		return priority;
+	}
+
+	private void skipAnnotationElements(ByteBuffer buffer) {
+		int pairs = buffer.getShort() & 0xFFFF;
+		for (int i = 0; i < pairs; i++) {
+			skip(buffer, 2);
+			skipElementValue(buffer);
+		}
+	}
+
+	private void skipElementValue(ByteBuffer buffer) {
+		int tag = buffer.get() & 0xFF;
+		switch (tag) {
+		case 'e':
+			skip(buffer, 4);
+			break;
+		case '@':
+			skip(buffer, 2);
+			skipAnnotationElements(buffer);
+			break;
+		case '[':
+			int values = buffer.getShort() & 0xFFFF;
+			for (int i = 0; i < values; i++) {
+				skipElementValue(buffer);
+			}
+			break;
+		default:
+			// Constants, strings and classes.
+			skip(buffer, 2);
+		}
+	}
+
+	private void skipAttributes(ByteBuffer buffer) {
+		int attributesCount = buffer.getShort() & 0xFFFF;
+		for (int i = 0; i < attributesCount; i++) {
+			skip(buffer, 2);
+			int length = buffer.getInt();
+			skip(buffer, length);
+		}
+	}
+
+	private static void skip(ByteBuffer buffer, int bytes) {
+		buffer.position(buffer.position() + bytes);
+	}
+
+	/**
+	 * Lazy access to the constant pool entries.
+	 */
+	private static class ConstantPool {
+		private final ByteBuffer buffer;
+		private final int[] offsets;
+		private final byte[] tags;
+
+		ConstantPool(ByteBuffer buffer, int[] offsets, byte[] tags) {
+			this.buffer = buffer;
+			this.offsets = offsets;
+			this.tags = tags;
+		}
+
+		int getInteger(int index) {
+			checkTag(index, CONSTANT_INTEGER);
+			return buffer.getInt(offsets[index]);
+		}
+
+		String getClassName(int index) {
+			checkTag(index, CONSTANT_CLASS);
+			return getUtf8(buffer.getShort(offsets[index]) & 0xFFFF);
+		}
+
+		/**
+		 * Compares without decoding the string. Only ASCII values are expected
+		 * here, that have the same representation in modified UTF-8.
+		 */
+		boolean utf8Equals(int index, String value) {
+			checkTag(index, CONSTANT_UTF8);
+			int offset = offsets[index];
+			int length = buffer.getShort(offset) & 0xFFFF;
+			if (length != value.length()) {
+				return false;
+			}
+			for (int i = 0; i < length; i++) {
+				if (buffer.get(offset + 2 + i) != (byte) value.charAt(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		String getUtf8(int index) {
+			checkTag(index, CONSTANT_UTF8);
+			int offset = offsets[index];
+			int length = buffer.getShort(offset) & 0xFFFF;
+			// Modified UTF-8.
+			StringBuilder text = new StringBuilder(length);
+			int position = offset + 2;
+			int end = position + length;
+			while (position < end) {
+				int value = buffer.get(position++) & 0xFF;
+				if (value < 0x80) {
+					text.append((char) value);
+				} else if ((value & 0xE0) == 0xC0) {
+					text.append((char) (((value & 0x1F) << 6) | (buffer.get(position++) & 0x3F)));
+				} else {
+					text.append((char) (((value & 0x0F) << 12) | ((buffer.get(position++) & 0x3F) << 6) | (buffer.get(position++) & 0x3F)));
+				}
+			}
+			return text.toString();
+		}
+
+		private void checkTag(int index, int tag) {
+			if (index <= 0 || index >= tags.length || tags[index] != tag) {
+				throw new IllegalArgumentException("Invalid constant pool reference '" + index + "'.");
+			}
+		}
+	}
+}
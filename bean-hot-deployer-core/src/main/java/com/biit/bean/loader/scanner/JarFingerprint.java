@@ -0,0 +1,124 @@
+package com.biit.bean.loader.scanner;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Identifies a concrete version of a jar file: path, size, modification time
+ * and content hash.
+ */
+public class JarFingerprint {
+	private final static String HASH_ALGORITHM = "SHA-256";
+	private final static int BUFFER_SIZE = 64 * 1024;
+
+	private final String pathToJar;
+	private final long size;
+	private final long lastModified;
+	private final byte[] contentHash;
+
+	public JarFingerprint(String pathToJar, long size, long lastModified, byte[] contentHash) {
+		this.pathToJar = pathToJar;
+		this.size = size;
+		this.lastModified = lastModified;
+		this.contentHash = contentHash;
+	}
+
+	/**
+	 * Reads the fingerprint of a file.
+	 *
+	 * @param pathToJar
+	 *            the jar.
+	 * @return the fingerprint.
+	 * @throws IOException
+	 *             if the file cannot be read.
+	 */
+	public static JarFingerprint of(String pathToJar) throws IOException {
+		Path path = Paths.get(pathToJar);
+		long size = Files.size(path);
+		long lastModified = Files.getLastModifiedTime(path).toMillis();
+		return new JarFingerprint(pathToJar, size, lastModified, hash(path));
+	}
+
+	private static byte[] hash(Path path) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance(HASH_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try (InputStream inputStream = Files.newInputStream(path)) {
+			int read;
+			while ((read = inputStream.read(buffer)) > 0) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		return digest.digest();
+	}
+
+	public String getPathToJar() {
+		return pathToJar;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public long getLastModified() {
+		return lastModified;
+	}
+
+	public byte[] getContentHash() {
+		return contentHash.clone();
+	}
+
+	@Override
+	public int hashCode() {
+		return pathToJar.hashCode() * 31 + Arrays.hashCode(contentHash);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof JarFingerprint)) {
+			return false;
+		}
+		JarFingerprint other = (JarFingerprint) obj;
+		return pathToJar.equals(other.pathToJar) && size == other.size && lastModified == other.lastModified
+				&& Arrays.equals(contentHash, other.contentHash);
+	}
+
+	@Override
+	public String toString() {
+		return pathToJar;
+	}
+}
@@ -0,0 +1,237 @@
+package com.biit.bean.loader.scanner;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.biit.bean.loader.logger.BeanLoaderLogger;
+
+/**
+ * Binary file that stores the annotated classes found on each jar. If a jar
+ * has not changed since the last scan, its beans can be loaded without reading
+ * the jar entries again.
+ */
+public class JarScanIndex {
+	private final static int MAGIC = 0x48424958;
+	private final static int VERSION = 1;
+	private final static int FLAG_INTERFACE = 0x01;
+	private final static int FLAG_PUBLIC_NO_ARG_CONSTRUCTOR = 0x02;
+	private final static String TEMPORAL_EXTENSION = ".tmp";
+
+	private final Path indexFile;
+	private final Map<String, IndexedJar> jars;
+	private boolean modified = false;
+
+	private JarScanIndex(Path indexFile) {
+		this.indexFile = indexFile;
+		this.jars = new TreeMap<>();
+	}
+
+	/**
+	 * Reads an index from disk. If the file does not exist or is not valid, an
+	 * empty index is returned.
+	 *
+	 * @param indexFile
+	 *            the file.
+	 * @return the index.
+	 */
+	public static JarScanIndex load(Path indexFile) {
+		JarScanIndex index = new JarScanIndex(indexFile);
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+			index.read(input);
+		} catch (NoSuchFileException e) {
+			BeanLoaderLogger.debug(JarScanIndex.class.getName(), "No scan index found at '" + indexFile + "'.");
+		} catch (IOException e) {
+			BeanLoaderLogger.warning(JarScanIndex.class.getName(), "Scan index '" + indexFile + "' discarded: " + e.getMessage());
+			index.jars.clear();
+			index.modified = true;
+		}
+		return index;
+	}
+
+	private void read(DataInputStream input) throws IOException {
+		if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+			throw new IOException("Invalid header.");
+		}
+		int jarsCount = input.readInt();
+		for (int i = 0; i < jarsCount; i++) {
+			String pathToJar = input.readUTF();
+			long size = input.readLong();
+			long lastModified = input.readLong();
+			byte[] contentHash = new byte[input.readUnsignedShort()];
+			input.readFully(contentHash);
+			String packetPrefix = input.readUTF();
+			String annotation = input.readUTF();
+			int classesCount = input.readInt();
+			List<ScannedClass> classes = new ArrayList<>(classesCount);
+			for (int j = 0; j < classesCount; j++) {
+				String className = input.readUTF();
+				int priority = input.readInt();
+				int flags = input.readUnsignedByte();
+				classes.add(new ScannedClass(className, true, priority, (flags & FLAG_INTERFACE) != 0, (flags & FLAG_PUBLIC_NO_ARG_CONSTRUCTOR) != 0));
+			}
+			jars.put(pathToJar, new IndexedJar(new JarFingerprint(pathToJar, size, lastModified, contentHash), packetPrefix, annotation, classes));
+		}
+	}
+
+	/**
+	 * Gets the annotated classes of a jar, if the jar has not changed since it
+	 * was indexed. Any mismatch removes the jar from the index.
+	 *
+	 * @param fingerprint
+	 *            the current version of the jar.
+	 * @param packetPrefix
+	 *            the packet filter used for scanning.
+	 * @param annotation
+	 *            the annotation searched.
+	 * @return the annotated classes or null if the jar must be scanned.
+	 */
+	public synchronized List<ScannedClass> get(JarFingerprint fingerprint, String packetPrefix, String annotation) {
+		IndexedJar indexedJar = jars.get(fingerprint.getPathToJar());
+		if (indexedJar == null) {
+			return null;
+		}
+		if (!indexedJar.fingerprint.equals(fingerprint) || !indexedJar.packetPrefix.equals(packetPrefix) || !indexedJar.annotation.equals(annotation)) {
+			BeanLoaderLogger.debug(getClass().getName(), "Jar '" + fingerprint + "' has changed since it was indexed.");
+			jars.remove(fingerprint.getPathToJar());
+			modified = true;
+			return null;
+		}
+		return indexedJar.classes;
+	}
+
+	/**
+	 * Stores the annotated classes of a jar.
+	 *
+	 * @param fingerprint
+	 *            the version of the jar scanned.
+	 * @param packetPrefix
+	 *            the packet filter used for scanning.
+	 * @param annotation
+	 *            the annotation searched.
+	 * @param annotatedClasses
+	 *            all classes with the annotation, even if they cannot be beans.
+	 */
+	public synchronized void put(JarFingerprint fingerprint, String packetPrefix, String annotation, Collection<ScannedClass> annotatedClasses) {
+		jars.put(fingerprint.getPathToJar(),
+				new IndexedJar(fingerprint, packetPrefix, annotation, Collections.unmodifiableList(new ArrayList<>(annotatedClasses))));
+		modified = true;
+	}
+
+	/**
+	 * Removes the jars that are not in the list.
+	 *
+	 * @param existingJars
+	 *            the jars to keep.
+	 */
+	public synchronized void retain(Collection<String> existingJars) {
+		if (jars.keySet().retainAll(existingJars)) {
+			modified = true;
+		}
+	}
+
+	public synchronized void remove(String pathToJar) {
+		if (jars.remove(pathToJar) != null) {
+			modified = true;
+		}
+	}
+
+	/**
+	 * Writes the index to disk if it has changed.
+	 */
+	public synchronized void save() {
+		if (!modified) {
+			return;
+		}
+		Path temporalFile = indexFile.resolveSibling(indexFile.getFileName() + TEMPORAL_EXTENSION);
+		try {
+			try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporalFile)))) {
+				write(output);
+			}
+			try {
+				Files.move(temporalFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporalFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+			}
+			modified = false;
+			BeanLoaderLogger.debug(getClass().getName(), "Scan index '" + indexFile + "' updated.");
+		} catch (IOException e) {
+			BeanLoaderLogger.warning(getClass().getName(), "Scan index '" + indexFile + "' cannot be written: " + e.getMessage());
+		}
+	}
+
+	private void write(DataOutputStream output) throws IOException {
+		output.writeInt(MAGIC);
+		output.writeInt(VERSION);
+		output.writeInt(jars.size());
+		for (IndexedJar indexedJar : jars.values()) {
+			byte[] contentHash = indexedJar.fingerprint.getContentHash();
+			output.writeUTF(indexedJar.fingerprint.getPathToJar());
+			output.writeLong(indexedJar.fingerprint.getSize());
+			output.writeLong(indexedJar.fingerprint.getLastModified());
+			output.writeShort(contentHash.length);
+			output.write(contentHash);
+			output.writeUTF(indexedJar.packetPrefix);
+			output.writeUTF(indexedJar.annotation);
+			output.writeInt(indexedJar.classes.size());
+			for (ScannedClass scannedClass : indexedJar.classes) {
+				output.writeUTF(scannedClass.getClassName());
+				output.writeInt(scannedClass.getPriority());
+				output.writeByte((scannedClass.isInterface() ? FLAG_INTERFACE : 0)
+						| (scannedClass.hasPublicNoArgConstructor() ? FLAG_PUBLIC_NO_ARG_CONSTRUCTOR : 0));
+			}
+		}
+	}
+
+	public Path getIndexFile() {
+		return indexFile;
+	}
+
+	private static class IndexedJar {
+		private final JarFingerprint fingerprint;
+		private final String packetPrefix;
+		private final String annotation;
+		private final List<ScannedClass> classes;
+
+		IndexedJar(JarFingerprint fingerprint, String packetPrefix, String annotation, List<ScannedClass> classes) {
+			this.fingerprint = fingerprint;
+			this.packetPrefix = packetPrefix;
+			this.annotation = annotation;
+			this.classes = classes;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package com.biit.bean.loader.scanner;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+/**
+ * Information extracted from a class file without loading it.
+ */
+public class ScannedClass {
+	private final String className;
+	private final boolean annotated;
+	private final int priority;
+	private final boolean isInterface;
+	private final boolean publicNoArgConstructor;
+
+	public ScannedClass(String className, boolean annotated, int priority, boolean isInterface, boolean publicNoArgConstructor) {
+		this.className = className;
+		this.annotated = annotated;
+		this.priority = priority;
+		this.isInterface = isInterface;
+		this.publicNoArgConstructor = publicNoArgConstructor;
+	}
+
+	/**
+	 * @return the binary name of the class (i.e. 'com.biit.Outer$Inner').
+	 */
+	public String getClassName() {
+		return className;
+	}
+
+	public boolean isAnnotated() {
+		return annotated;
+	}
+
+	/**
+	 * @return the priority declared in the annotation, or 0 if not declared.
+	 */
+	public int getPriority() {
+		return priority;
+	}
+
+	public boolean isInterface() {
+		return isInterface;
+	}
+
+	public boolean hasPublicNoArgConstructor() {
+		return publicNoArgConstructor;
+	}
+
+	/**
+	 * A class can be deployed as a bean if it has the annotation, is not an
+	 * interface and has a public constructor without parameters.
+	 *
+	 * @return true if the class must be loaded.
+	 */
+	public boolean isBeanCandidate() {
+		return annotated && !isInterface && publicNoArgConstructor;
+	}
+
+	@Override
+	public String toString() {
+		return className;
+	}
+}
@@ -0,0 +1,348 @@
+package com.biit.bean.loader.watcher;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.biit.bean.loader.jfr.JarDetectedEvent;
+import com.biit.bean.loader.jfr.JarReadinessEvent;
+import com.biit.bean.loader.logger.BeanLoaderLogger;
+
+/**
+ * Watches one or more folders for jars. A jar is notified only when it is
+ * completely written. All folders share the same watcher thread, that only
+ * records the events; the readiness of each jar is checked on a different
+ * thread, so a slow copy does not delay the events of other jars.
+ */
+public class DeployFolderWatcher implements Closeable {
+	private final static String JAR_EXTENSION = ".jar";
+	// In case some events are lost or merged by the operating system.
+	private final static long RECHECK_PERIOD = 250;
+
+	private final Map<WatchKey, Path> folders = new ConcurrentHashMap<>();
+	// A key is always registered and added to the folders at once.
+	private final Object foldersLock = new Object();
+	private final JarReadinessDetector readinessDetector;
+	private final JarListener listener;
+	private final long quiescenceMillis;
+	private final long timeoutMillis;
+	private final WatchService watchService;
+	private final ScheduledExecutorService readinessScheduler;
+	private final Map<Path, PendingJar> pendingJars = new ConcurrentHashMap<>();
+	private Thread watcherThread;
+
+	/**
+	 * Receives the changes on the folder.
+	 */
+	public interface JarListener {
+
+		/**
+		 * A jar has been created or modified and it is completely written.
+		 *
+		 * @param pathToJar
+		 *            the jar.
+		 * @param waitedMillis
+		 *            time since the first change on the jar.
+		 */
+		void jarReady(Path pathToJar, long waitedMillis);
+
+		/**
+		 * A jar has been removed.
+		 *
+		 * @param pathToJar
+		 *            the jar.
+		 */
+		void jarDeleted(Path pathToJar);
+	}
+
+	/**
+	 * @param folder
+	 *            folder to watch.
+	 * @param readinessDetector
+	 *            decides when a jar is completed.
+	 * @param quiescenceMillis
+	 *            time without changes on a jar before checking it.
+	 * @param timeoutMillis
+	 *            maximum time waiting for a jar to be completed.
+	 * @param listener
+	 *            receives the changes.
+	 * @throws IOException
+	 *             if the folder cannot be watched.
+	 */
+	public DeployFolderWatcher(Path folder, JarReadinessDetector readinessDetector, long quiescenceMillis, long timeoutMillis, JarListener listener)
+			throws IOException {
+		this(readinessDetector, quiescenceMillis, timeoutMillis, listener);
+		try {
+			addFolder(folder);
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Creates a watcher without folders. Use {@link #addFolder(Path)}.
+	 *
+	 * @param readinessDetector
+	 *            decides when a jar is completed.
+	 * @param quiescenceMillis
+	 *            time without changes on a jar before checking it.
+	 * @param timeoutMillis
+	 *            maximum time waiting for a jar to be completed.
+	 * @param listener
+	 *            receives the changes.
+	 * @throws IOException
+	 *             if the watch service cannot be created.
+	 */
+	public DeployFolderWatcher(JarReadinessDetector readinessDetector, long quiescenceMillis, long timeoutMillis, JarListener listener)
+			throws IOException {
+		this.readinessDetector = readinessDetector;
+		this.quiescenceMillis = Math.max(quiescenceMillis, 0);
+		this.timeoutMillis = timeoutMillis;
+		this.listener = listener;
+		this.watchService = FileSystems.getDefault().newWatchService();
+		this.readinessScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "BeanLoader-readiness");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Watches one more folder. A folder already watched is ignored.
+	 *
+	 * @param folder
+	 *            folder to watch.
+	 * @throws IOException
+	 *             if the folder cannot be watched.
+	 */
+	public void addFolder(Path folder) throws IOException {
+		synchronized (foldersLock) {
+			WatchKey key = folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+					StandardWatchEventKinds.ENTRY_DELETE);
+			folders.put(key, folder);
+		}
+	}
+
+	/**
+	 * Stops watching a folder. Jars of the folder that are waiting to be
+	 * completed are still notified.
+	 *
+	 * @param folder
+	 *            a folder watched.
+	 */
+	public void removeFolder(Path folder) {
+		synchronized (foldersLock) {
+			for (Map.Entry<WatchKey, Path> watchedFolder : folders.entrySet()) {
+				if (watchedFolder.getValue().equals(folder)) {
+					watchedFolder.getKey().cancel();
+					folders.remove(watchedFolder.getKey());
+				}
+			}
+		}
+	}
+
+	public synchronized void start() {
+		if (watcherThread != null) {
+			return;
+		}
+		watcherThread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				watch();
+			}
+		}, "BeanLoader-watcher");
+		watcherThread.setDaemon(true);
+		watcherThread.start();
+	}
+
+	private void watch() {
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				WatchKey key = watchService.take();
+				Path folder;
+				synchronized (foldersLock) {
+					folder = folders.get(key);
+				}
+				if (folder == null) {
+					// Folder removed, its key is already cancelled.
+					continue;
+				}
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+						BeanLoaderLogger.warning(getClass().getName(), "Some changes on '" + folder + "' have been lost.");
+						continue;
+					}
+					Path file = folder.resolve((Path) event.context());
+					String fileName = file.getFileName().toString();
+					if (fileName.endsWith(JAR_EXTENSION)) {
+						if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+							jarDeleted(file);
+						} else {
+							jarChanged(file);
+						}
+					} else if (fileName.endsWith(JAR_EXTENSION + JarReadinessDetector.READY_MARKER_EXTENSION)
+							&& event.kind() != StandardWatchEventKinds.ENTRY_DELETE) {
+						jarChanged(JarReadinessDetector.getJarOfMarker(file));
+					}
+				}
+				if (!key.reset()) {
+					// Other folders are still watched.
+					folders.remove(key);
+					BeanLoaderLogger.warning(getClass().getName(), "Folder '" + folder + "' is not accessible anymore.");
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ClosedWatchServiceException e) {
+			// Watcher closed.
+		}
+	}
+
+	private void jarChanged(Path pathToJar) {
+		long now = System.currentTimeMillis();
+		PendingJar pendingJar = pendingJars.computeIfAbsent(pathToJar, path -> {
+			new JarDetectedEvent(path.toString()).commit();
+			return new PendingJar(path, now);
+		});
+		pendingJar.lastEvent = now;
+		scheduleCheck(pathToJar, quiescenceMillis);
+	}
+
+	private void jarDeleted(Path pathToJar) {
+		pendingJars.remove(pathToJar);
+		listener.jarDeleted(pathToJar);
+	}
+
+	private void scheduleCheck(Path pathToJar, long delay) {
+		try {
+			readinessScheduler.schedule(new Runnable() {
+
+				@Override
+				public void run() {
+					checkReadiness(pathToJar);
+				}
+			}, delay, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// Watcher closed.
+		}
+	}
+
+	private void checkReadiness(Path pathToJar) {
+		PendingJar pendingJar = pendingJars.get(pathToJar);
+		if (pendingJar == null) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		// Still being modified. A newer check is already scheduled.
+		if (now - pendingJar.lastEvent < quiescenceMillis) {
+			return;
+		}
+		if (readinessDetector.isReady(pathToJar)) {
+			if (pendingJars.remove(pathToJar, pendingJar)) {
+				BeanLoaderLogger.debug(getClass().getName(), "File '" + pathToJar + "' completed after '" + (now - pendingJar.firstEvent) + "' ms.");
+				pendingJar.readinessEvent.commit();
+				listener.jarReady(pathToJar, now - pendingJar.firstEvent);
+			}
+			return;
+		}
+		if (timeoutMillis > 0 && now - pendingJar.firstEvent > timeoutMillis) {
+			pendingJars.remove(pathToJar, pendingJar);
+			if (pendingJar.readinessEvent.shouldCommit()) {
+				pendingJar.readinessEvent.setTimedOut(true);
+				pendingJar.readinessEvent.commit();
+			}
+			if (readinessDetector.isMarkerRequired()) {
+				BeanLoaderLogger.debug(getClass().getName(), "File '" + pathToJar + "' ignored as it has not been marked as ready.");
+			} else {
+				// Let the deployment report the problem.
+				BeanLoaderLogger.warning(getClass().getName(), "File '" + pathToJar + "' is not a completed jar after '" + timeoutMillis + "' ms.");
+				listener.jarReady(pathToJar, now - pendingJar.firstEvent);
+			}
+			return;
+		}
+		if (!pendingJar.recheckScheduled) {
+			pendingJar.recheckScheduled = true;
+			readinessScheduler.schedule(new Runnable() {
+
+				@Override
+				public void run() {
+					pendingJar.recheckScheduled = false;
+					checkReadiness(pathToJar);
+				}
+			}, RECHECK_PERIOD, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * @return the folders watched.
+	 */
+	public Set<Path> getFolders() {
+		return new HashSet<>(folders.values());
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (watcherThread != null) {
+			watcherThread.interrupt();
+			watcherThread = null;
+		}
+		readinessScheduler.shutdownNow();
+		watchService.close();
+	}
+
+	private static class PendingJar {
+		private final long firstEvent;
+		private final JarReadinessEvent readinessEvent;
+		private volatile long lastEvent;
+		private volatile boolean recheckScheduled = false;
+
+		PendingJar(Path pathToJar, long firstEvent) {
+			this.firstEvent = firstEvent;
+			this.lastEvent = firstEvent;
+			this.readinessEvent = new JarReadinessEvent(pathToJar.toString());
+			this.readinessEvent.begin();
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package com.biit.bean.loader.watcher;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Decides if a jar has been completely written. A zip file ends with the
+ * 'end of central directory' record, that points to the central directory
+ * just before it. While the file is being copied, this record is missing or
+ * points outside the file.
+ */
+public class JarReadinessDetector {
+	public final static String READY_MARKER_EXTENSION = ".ready";
+
+	private final static int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+	private final static int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+	private final static int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+	private final static int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+	private final static int ZIP64_LOCATOR_SIZE = 20;
+	private final static int MAX_COMMENT_SIZE = 0xFFFF;
+	private final static long ZIP64_MAGIC_VALUE = 0xFFFFFFFFL;
+
+	private final boolean markerRequired;
+
+	/**
+	 * @param markerRequired
+	 *            if true, a jar is only ready when a file with the same name
+	 *            and the '.ready' extension exists.
+	 */
+	public JarReadinessDetector(boolean markerRequired) {
+		this.markerRequired = markerRequired;
+	}
+
+	public boolean isMarkerRequired() {
+		return markerRequired;
+	}
+
+	/**
+	 * @param pathToJar
+	 *            the jar.
+	 * @return true if the jar can be deployed.
+	 */
+	public boolean isReady(Path pathToJar) {
+		if (markerRequired && !Files.exists(getMarker(pathToJar))) {
+			return false;
+		}
+		return isZipComplete(pathToJar);
+	}
+
+	/**
+	 * @param pathToJar
+	 *            the jar.
+	 * @return the marker file that flags the jar as completed.
+	 */
+	public static Path getMarker(Path pathToJar) {
+		return pathToJar.resolveSibling(pathToJar.getFileName() + READY_MARKER_EXTENSION);
+	}
+
+	/**
+	 * @param marker
+	 *            a marker file.
+	 * @return the jar flagged by the marker.
+	 */
+	public static Path getJarOfMarker(Path marker) {
+		String fileName = marker.getFileName().toString();
+		return marker.resolveSibling(fileName.substring(0, fileName.length() - READY_MARKER_EXTENSION.length()));
+	}
+
+	/**
+	 * Checks the 'end of central directory' record of a zip file.
+	 *
+	 * @param file
+	 *            the file.
+	 * @return true if the record exists and is consistent with the file size.
+	 */
+	public static boolean isZipComplete(Path file) {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < END_OF_CENTRAL_DIRECTORY_SIZE) {
+				return false;
+			}
+			int tailSize = (int) Math.min(size, END_OF_CENTRAL_DIRECTORY_SIZE + MAX_COMMENT_SIZE);
+			ByteBuffer tail = ByteBuffer.allocate(tailSize).order(ByteOrder.LITTLE_ENDIAN);
+			readFully(channel, tail, size - tailSize);
+			long tailStart = size - tailSize;
+
+			// The record is followed only by the zip comment.
+			for (int position = tailSize - END_OF_CENTRAL_DIRECTORY_SIZE; position >= 0; position--) {
+				if (tail.getInt(position) != END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+					continue;
+				}
+				int commentSize = tail.getShort(position + 20) & 0xFFFF;
+				if (position + END_OF_CENTRAL_DIRECTORY_SIZE + commentSize != tailSize) {
+					continue;
+				}
+				long recordStart = tailStart + position;
+				long centralDirectorySize = tail.getInt(position + 12) & 0xFFFFFFFFL;
+				long centralDirectoryOffset = tail.getInt(position + 16) & 0xFFFFFFFFL;
+				if (centralDirectorySize == ZIP64_MAGIC_VALUE || centralDirectoryOffset == ZIP64_MAGIC_VALUE) {
+					return hasZip64Locator(channel, recordStart);
+				}
+				if (centralDirectoryOffset + centralDirectorySize != recordStart) {
+					return false;
+				}
+				return centralDirectorySize == 0 || readInt(channel, centralDirectoryOffset) == CENTRAL_DIRECTORY_SIGNATURE;
+			}
+			return false;
+		} catch (NoSuchFileException e) {
+			return false;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private static boolean hasZip64Locator(FileChannel channel, long recordStart) throws IOException {
+		if (recordStart < ZIP64_LOCATOR_SIZE) {
+			return false;
+		}
+		return readInt(channel, recordStart - ZIP64_LOCATOR_SIZE) == ZIP64_LOCATOR_SIGNATURE;
+	}
+
+	private static int readInt(FileChannel channel, long position) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(channel, buffer, position);
+		return buffer.getInt(0);
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position + buffer.position());
+			if (read < 0) {
+				throw new IOException("Unexpected end of file.");
+			}
+		}
+	}
+}
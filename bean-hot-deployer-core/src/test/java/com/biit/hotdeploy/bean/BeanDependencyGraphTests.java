@@ -0,0 +1,102 @@
+package com.biit.hotdeploy.bean;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.biit.bean.loader.HotBean;
+import com.biit.bean.loader.instantiation.BeanDependencyGraph;
+
+@Test(groups = { "beanDependencyGraph" })
+public class BeanDependencyGraphTests {
+
+	interface Repository {
+
+	}
+
+	@HotBean(priority = 5)
+	static class ConfigurationBean {
+
+	}
+
+	@HotBean
+	static class RepositoryBean implements Repository {
+
+	}
+
+	@HotBean
+	static class ServiceBean {
+		@Autowired
+		private Repository repository;
+	}
+
+	@HotBean(dependsOn = "com.biit.hotdeploy.bean.BeanDependencyGraphTests.ServiceBean")
+	static class ControllerBean {
+
+	}
+
+	@HotBean
+	static class IndependentBean {
+
+	}
+
+	@HotBean
+	static class FirstCycleBean {
+		@Autowired
+		private SecondCycleBean other;
+	}
+
+	@HotBean
+	static class SecondCycleBean {
+		@Autowired
+		private FirstCycleBean other;
+	}
+
+	@Test
+	public void layersByDependencies() {
+		List<List<Class<?>>> layers = new BeanDependencyGraph(Arrays.<Class<?>> asList(ConfigurationBean.class, ControllerBean.class, ServiceBean.class,
+				RepositoryBean.class, IndependentBean.class)).getLayers();
+		Assert.assertEquals(layers.size(), 4);
+		Assert.assertEquals(layers.get(0), Arrays.asList(ConfigurationBean.class));
+		Assert.assertEquals(layers.get(1), Arrays.asList(RepositoryBean.class, IndependentBean.class));
+		Assert.assertEquals(layers.get(2), Arrays.asList(ServiceBean.class));
+		Assert.assertEquals(layers.get(3), Arrays.asList(ControllerBean.class));
+	}
+
+	@Test
+	public void circularDependencies() {
+		BeanDependencyGraph graph = new BeanDependencyGraph(Arrays.<Class<?>> asList(IndependentBean.class, FirstCycleBean.class, SecondCycleBean.class));
+		List<List<Class<?>>> layers = graph.getLayers();
+		Assert.assertEquals(layers.size(), 3);
+		Assert.assertEquals(layers.get(0), Arrays.asList(IndependentBean.class));
+		Assert.assertEquals(layers.get(1), Arrays.asList(FirstCycleBean.class));
+		Assert.assertEquals(layers.get(2), Arrays.asList(SecondCycleBean.class));
+		Assert.assertFalse(graph.isCircular(IndependentBean.class));
+		Assert.assertTrue(graph.isCircular(FirstCycleBean.class));
+		Assert.assertTrue(graph.isCircular(SecondCycleBean.class));
+	}
+}
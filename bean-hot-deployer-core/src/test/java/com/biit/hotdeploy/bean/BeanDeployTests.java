@@ -0,0 +1,301 @@
+package com.biit.hotdeploy.bean;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.biit.bean.loader.BeanLoader;
+import com.biit.bean.loader.HotBean;
+import com.biit.bean.loader.deploy.DeployedJar;
+import com.biit.bean.loader.deploy.DeploymentState;
+import com.biit.bean.loader.deploy.JarDeployReport;
+import com.biit.hotdeploy.bean.plugin.FirstBean;
+import com.biit.hotdeploy.bean.plugin.LastBean;
+import com.biit.hotdeploy.bean.plugin.RefreshedBean;
+import com.biit.hotdeploy.bean.plugin.ServiceClientImpl;
+import com.biit.hotdeploy.bean.plugin.ServiceImpl;
+
+/**
+ * Deploys jars into a context. The settings of the tests scan the jars with
+ * several threads.
+ */
+@Test(groups = { "beanDeploy" })
+public class BeanDeployTests {
+
+	/**
+	 * Runs the asynchronous deployments on a single thread.
+	 */
+	static class DeployExecutorConfiguration {
+
+		@Bean(BeanLoader.DEPLOY_EXECUTOR)
+		public ExecutorService deployExecutor() {
+			return Executors.newSingleThreadExecutor();
+		}
+	}
+
+	private Path createFolder() throws IOException {
+		Path folder = Files.createTempDirectory("deploy");
+		folder.toFile().deleteOnExit();
+		return folder;
+	}
+
+	private Path addJar(Path folder, String name, Class<?>... classes) throws IOException {
+		Path jar = folder.resolve(name);
+		Files.move(TestJars.createJar(classes), jar);
+		jar.toFile().deleteOnExit();
+		return jar;
+	}
+
+	private Path addBrokenJar(Path folder, String name) throws IOException {
+		Path jar = folder.resolve(name);
+		Files.write(jar, "Not a jar.".getBytes());
+		jar.toFile().deleteOnExit();
+		return jar;
+	}
+
+	private String getJarName(JarDeployReport report) {
+		return Paths.get(report.getPathToJar()).getFileName().toString();
+	}
+
+	@Test
+	public void folderDeployedInParallel() throws IOException, InterruptedException, ExecutionException {
+		Path folder = createFolder();
+		// The client is scanned before the service it uses.
+		addJar(folder, "a-client.jar", ServiceClientImpl.class);
+		addJar(folder, "b-service.jar", ServiceImpl.class);
+		addBrokenJar(folder, "c-broken.jar");
+		addJar(folder, "d-first.jar", FirstBean.class);
+		addJar(folder, "e-last.jar", LastBean.class);
+		try (AnnotationConfigApplicationContext context = TestContexts.createContext()) {
+			BeanLoader beanLoader = context.getBean(BeanLoader.class);
+			List<JarDeployReport> reports = beanLoader.loadBeansFromFolderAsync(HotBean.class, folder.toString(), TestContexts.PLUGIN_PACKET).get();
+
+			List<String> jarNames = new ArrayList<>();
+			for (JarDeployReport report : reports) {
+				jarNames.add(getJarName(report));
+			}
+			Assert.assertEquals(jarNames, Arrays.asList("a-client.jar", "b-service.jar", "c-broken.jar", "d-first.jar", "e-last.jar"));
+			Assert.assertEquals(reports.get(0).getBeanNames(), Collections.singletonList(ServiceClientImpl.class.getCanonicalName()));
+			Assert.assertEquals(reports.get(1).getBeanNames(), Collections.singletonList(ServiceImpl.class.getCanonicalName()));
+			Assert.assertEquals(reports.get(2).getFailures(), Collections.singletonList("Jar cannot be opened."));
+			for (JarDeployReport report : reports) {
+				if (report != reports.get(2)) {
+					Assert.assertTrue(report.isSuccessful(), report.toString());
+					Assert.assertTrue(beanLoader.getDeploymentState().isDeployed(report.getPathToJar()));
+					Assert.assertSame(beanLoader.getDeployment(report.getPathToJar()).getNow(null), report);
+				}
+			}
+			Assert.assertFalse(beanLoader.getDeploymentState().isDeployed(reports.get(2).getPathToJar()));
+
+			// Autowired with the bean of another jar.
+			Set<ServiceClient> clients = beanLoader.getLoadedBeansOfType(ServiceClient.class);
+			Assert.assertEquals(clients.size(), 1);
+			Assert.assertSame(clients.iterator().next().getService(), context.getBean(ServiceImpl.class.getCanonicalName()));
+			Assert.assertEquals(beanLoader.getLiveClassLoaderCount(), 4);
+		}
+	}
+
+	@Test
+	public void priorityOrderAcrossJars() throws IOException {
+		Path folder = createFolder();
+		addJar(folder, "a-last.jar", LastBean.class);
+		addJar(folder, "b-first.jar", FirstBean.class);
+		CreationLog.clear();
+		try (AnnotationConfigApplicationContext context = TestContexts.createContext()) {
+			BeanLoader beanLoader = context.getBean(BeanLoader.class);
+			beanLoader.loadBeansFromFolder(HotBean.class, folder.toString(), TestContexts.PLUGIN_PACKET);
+			Assert.assertEquals(CreationLog.getCreated(), Arrays.asList(FirstBean.class.getSimpleName(), LastBean.class.getSimpleName()));
+		}
+	}
+
+	@Test
+	public void stateReadWhileDeploying() throws IOException, InterruptedException {
+		Path folder = createFolder();
+		addJar(folder, "first.jar", FirstBean.class);
+		addJar(folder, "last.jar", LastBean.class);
+		addJar(folder, "service.jar", ServiceImpl.class, ServiceClientImpl.class);
+		try (AnnotationConfigApplicationContext context = TestContexts.createContext()) {
+			BeanLoader beanLoader = context.getBean(BeanLoader.class);
+			AtomicBoolean deploying = new AtomicBoolean(true);
+			Set<String> inconsistencies = Collections.synchronizedSet(new LinkedHashSet<>());
+			Thread reader = new Thread(() -> {
+				while (deploying.get()) {
+					DeploymentState state = beanLoader.getDeploymentState();
+					Set<String> classesOfJars = new HashSet<>();
+					for (DeployedJar deployedJar : state.getJars().values()) {
+						classesOfJars.addAll(deployedJar.getClassesLoaded().keySet());
+					}
+					// The jars of a batch are published together, with their classes.
+					if ((state.getJars().size() != 0 && state.getJars().size() != 3) || !classesOfJars.equals(state.getClassesLoaded().keySet())) {
+						inconsistencies.add("Version " + state.getVersion() + ": " + state.getJars().keySet());
+					}
+				}
+			});
+			reader.start();
+			try {
+				beanLoader.loadBeansFromFolder(HotBean.class, folder.toString(), TestContexts.PLUGIN_PACKET);
+			} finally {
+				deploying.set(false);
+				reader.join();
+			}
+			Assert.assertTrue(inconsistencies.isEmpty(), inconsistencies.toString());
+			Assert.assertEquals(beanLoader.getDeploymentState().getJars().size(), 3);
+		}
+	}
+
+	@Test
+	public void jarDeployedAsync() throws IOException, InterruptedException, ExecutionException {
+		Path jar = addJar(createFolder(), "service.jar", ServiceImpl.class);
+		try (AnnotationConfigApplicationContext context = TestContexts.createContext()) {
+			BeanLoader beanLoader = context.getBean(BeanLoader.class);
+			CompletableFuture<JarDeployReport> deployment = beanLoader.getDeployment(jar.toString());
+			Assert.assertFalse(deployment.isDone());
+
+			JarDeployReport report = beanLoader.loadBeansFromJarAsync(HotBean.class, jar.toString(), TestContexts.PLUGIN_PACKET).get();
+			Assert.assertSame(deployment.getNow(null), report);
+			Assert.assertSame(beanLoader.getDeployment(jar.toString()), deployment);
+			Assert.assertEquals(report.getPathToJar(), jar.toString());
+			Assert.assertEquals(report.getBeanNames(), Collections.singletonList(ServiceImpl.class.getCanonicalName()));
+			Assert.assertTrue(report.isSuccessful());
+			Assert.assertTrue(report.getScanDuration().compareTo(report.getDeployDuration()) <= 0);
+			Assert.assertEquals(beanLoader.getLoadedBeansOfType(VersionedService.class).size(), 1);
+		}
+	}
+
+	@Test
+	public void jarDeployedOnExecutor() throws IOException, InterruptedException, ExecutionException {
+		Path jar = addJar(createFolder(), "service.jar", ServiceImpl.class);
+		try (AnnotationConfigApplicationContext context = TestContexts.createContext(DeployExecutorConfiguration.class)) {
+			BeanLoader beanLoader = context.getBean(BeanLoader.class);
+			ExecutorService deployExecutor = context.getBean(BeanLoader.DEPLOY_EXECUTOR, ExecutorService.class);
+			CountDownLatch executorBusy = new CountDownLatch(1);
+			deployExecutor.execute(() -> {
+				try {
+					executorBusy.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+
+			CompletableFuture<JarDeployReport> deployment;
+			try {
+				// The caller does not wait for the executor.
+				deployment = beanLoader.loadBeansFromJarAsync(HotBean.class, jar.toString(), TestContexts.PLUGIN_PACKET);
+				Thread.sleep(100);
+				Assert.assertFalse(deployment.isDone());
+				Assert.assertFalse(beanLoader.getDeploymentState().isDeployed(jar.toString()));
+			} finally {
+				executorBusy.countDown();
+			}
+			Assert.assertTrue(deployment.get().isSuccessful());
+			Assert.assertEquals(beanLoader.getLoadedBeansOfType(VersionedService.class).size(), 1);
+		}
+	}
+
+	@Test
+	public void failedJarForgotten() throws IOException, InterruptedException, ExecutionException {
+		Path jar = addBrokenJar(createFolder(), "broken.jar");
+		try (AnnotationConfigApplicationContext context = TestContexts.createContext()) {
+			BeanLoader beanLoader = context.getBean(BeanLoader.class);
+			CompletableFuture<JarDeployReport> deployment = beanLoader.getDeployment(jar.toString());
+
+			JarDeployReport report = beanLoader.loadBeansFromJarAsync(HotBean.class, jar.toString(), TestContexts.PLUGIN_PACKET).get();
+			Assert.assertFalse(report.isSuccessful());
+			Assert.assertEquals(report.getFailures(), Collections.singletonList("Jar cannot be opened."));
+			Assert.assertTrue(report.getBeanNames().isEmpty());
+			// Waiting callers get the failure.
+			Assert.assertSame(deployment.getNow(null), report);
+			Assert.assertFalse(beanLoader.getDeploymentState().isDeployed(jar.toString()));
+
+			// Not deployed, so it is forgotten.
+			CompletableFuture<JarDeployReport> nextDeployment = beanLoader.getDeployment(jar.toString());
+			Assert.assertNotSame(nextDeployment, deployment);
+			Assert.assertFalse(nextDeployment.isDone());
+			// The caller stops waiting.
+			nextDeployment.cancel(false);
+			Assert.assertNotSame(beanLoader.getDeployment(jar.toString()), nextDeployment);
+		}
+	}
+
+	@Test
+	public void abandonedDeploymentForgotten() throws IOException, InterruptedException, ExecutionException {
+		Path jar = addJar(createFolder(), "service.jar", ServiceImpl.class);
+		try (AnnotationConfigApplicationContext context = TestContexts.createContext()) {
+			BeanLoader beanLoader = context.getBean(BeanLoader.class);
+			// Nobody waits for it, so the loader does not keep it.
+			WeakReference<CompletableFuture<JarDeployReport>> abandoned = new WeakReference<>(beanLoader.getDeployment(jar.toString()));
+			for (int i = 0; i < 50 && abandoned.get() != null; i++) {
+				System.gc();
+				Thread.sleep(100);
+			}
+			Assert.assertNull(abandoned.get());
+
+			CompletableFuture<JarDeployReport> deployment = beanLoader.getDeployment(jar.toString());
+			Assert.assertFalse(deployment.isDone());
+			JarDeployReport report = beanLoader.loadBeansFromJarAsync(HotBean.class, jar.toString(), TestContexts.PLUGIN_PACKET).get();
+			Assert.assertSame(deployment.getNow(null), report);
+
+			// Deployed, so it is kept.
+			WeakReference<CompletableFuture<JarDeployReport>> deployed = new WeakReference<>(deployment);
+			deployment = null;
+			System.gc();
+			Assert.assertNotNull(deployed.get());
+			Assert.assertSame(beanLoader.getDeployment(jar.toString()).getNow(null), report);
+		}
+	}
+
+	@Test
+	public void failedBeanNotRegisteredOnRefresh() throws IOException {
+		Path jar = addJar(createFolder(), "refreshed.jar", RefreshedBean.class, FirstBean.class);
+		try (AnnotationConfigApplicationContext context = TestContexts.createContext()) {
+			BeanLoader beanLoader = context.getBean(BeanLoader.class);
+			beanLoader.loadBeansFromJar(HotBean.class, jar.toString(), TestContexts.PLUGIN_PACKET);
+			// The context has been refreshed while autowiring the broken bean.
+			Collection<Object> beans = beanLoader.getLoadedBeansWithAnnotation(HotBean.class);
+			Assert.assertEquals(beans.size(), 1);
+			Assert.assertEquals(beans.iterator().next().getClass().getSimpleName(), FirstBean.class.getSimpleName());
+		}
+	}
+}
@@ -0,0 +1,235 @@
+package com.biit.hotdeploy.bean;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.biit.bean.loader.BeanLoader;
+import com.biit.bean.loader.HotBean;
+import com.biit.bean.loader.deploy.JarDeployReport;
+import com.biit.hotdeploy.bean.plugin.ServiceClientImpl;
+import com.biit.hotdeploy.bean.plugin.ServiceImpl;
+
+@Test(groups = { "beanReplace" })
+public class BeanReplaceTests {
+	private final static String FIRST_VERSION = TestJars.PLUGIN_VERSION;
+	private final static String SECOND_VERSION = "version-2";
+	private final static String BROKEN_VERSION = "failure-1";
+
+	/**
+	 * Writes a version of the plugin, replacing the jar atomically.
+	 */
+	private Path writeJar(Path jar, String serviceVersion, String clientVersion) throws IOException {
+		Files.move(TestJars.createPluginJar(serviceVersion, clientVersion), jar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return jar;
+	}
+
+	/**
+	 * Writes a jar with a version of a single class of the plugin.
+	 */
+	private Path writeJar(Path jar, Class<?> type, String version) throws IOException {
+		Files.move(TestJars.createJar(Collections.singletonMap(TestJars.getEntryName(type), TestJars.readClass(type, version))), jar,
+				StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		jar.toFile().deleteOnExit();
+		return jar;
+	}
+
+	/**
+	 * Writes a version of the plugin over the same file.
+	 */
+	private void overwriteJar(Path jar, String serviceVersion, String clientVersion) throws IOException {
+		Files.write(jar, Files.readAllBytes(TestJars.createPluginJar(serviceVersion, clientVersion)));
+	}
+
+	private Path createFolder() throws IOException {
+		Path folder = Files.createTempDirectory("replace");
+		folder.toFile().deleteOnExit();
+		return folder;
+	}
+
+	private <T> T getSingleBean(BeanLoader beanLoader, Class<T> type) {
+		Set<T> beans = beanLoader.getLoadedBeansOfType(type);
+		Assert.assertEquals(beans.size(), 1);
+		return beans.iterator().next();
+	}
+
+	private void assertNoStagingBeans(AnnotationConfigApplicationContext context) {
+		for (String beanName : context.getBeanFactory().getSingletonNames()) {
+			Assert.assertFalse(beanName.endsWith("#staging"), beanName);
+		}
+		for (String beanName : context.getBeanDefinitionNames()) {
+			Assert.assertFalse(beanName.endsWith("#staging"), beanName);
+		}
+	}
+
+	@Test
+	public void newBeansAutowiredWithEachOther() throws IOException, InterruptedException, ExecutionException {
+		Path jar = writeJar(createFolder().resolve("plugin.jar"), FIRST_VERSION, FIRST_VERSION);
+		jar.toFile().deleteOnExit();
+		try (AnnotationConfigApplicationContext context = TestContexts.createContext()) {
+			BeanLoader beanLoader = context.getBean(BeanLoader.class);
+			beanLoader.loadBeansFromJar(HotBean.class, jar.toString(), TestContexts.PLUGIN_PACKET);
+			ServiceClient oldClient = getSingleBean(beanLoader, ServiceClient.class);
+			Assert.assertEquals(oldClient.getService().getVersion(), FIRST_VERSION);
+
+			writeJar(jar, SECOND_VERSION, SECOND_VERSION);
+			beanLoader.replaceBeansFromJar(HotBean.class, jar.toString(), TestContexts.PLUGIN_PACKET);
+			JarDeployReport report = beanLoader.getDeployment(jar.toString()).get();
+			Assert.assertTrue(report.isSuccessful(), report.getFailures().toString());
+			Assert.assertEquals(report.getBeanNames().size(), 2);
+
+			// The old version of the service is still registered while the client is autowired.
+			ServiceClient newClient = getSingleBean(beanLoader, ServiceClient.class);
+			Assert.assertNotSame(newClient, oldClient);
+			Assert.assertEquals(newClient.getVersion(), SECOND_VERSION);
+			Assert.assertEquals(newClient.getService().getVersion(), SECOND_VERSION);
+			Assert.assertSame(newClient.getService(), context.getBean(ServiceImpl.class.getCanonicalName()));
+			Assert.assertSame(newClient, context.getBean(ServiceClientImpl.class.getCanonicalName()));
+			assertNoStagingBeans(context);
+			Assert.assertEquals(beanLoader.getLiveClassLoaderCount(), 1);
+		}
+	}
+
+	@Test
+	public void beanAvailableDuringReplace() throws IOException, InterruptedException {
+		Path jar = writeJar(createFolder().resolve("plugin.jar"), FIRST_VERSION, FIRST_VERSION);
+		jar.toFile().deleteOnExit();
+		try (AnnotationConfigApplicationContext context = TestContexts.createContext()) {
+			BeanLoader beanLoader = context.getBean(BeanLoader.class);
+			beanLoader.loadBeansFromJar(HotBean.class, jar.toString(), TestContexts.PLUGIN_PACKET);
+
+			AtomicBoolean replacing = new AtomicBoolean(true);
+			AtomicInteger reads = new AtomicInteger();
+			AtomicInteger misses = new AtomicInteger();
+			Thread reader = new Thread(() -> {
+				while (replacing.get()) {
+					if (beanLoader.getLoadedBeansOfType(VersionedService.class).size() != 1) {
+						misses.incrementAndGet();
+					}
+					reads.incrementAndGet();
+				}
+			});
+			reader.start();
+			try {
+				for (int i = 0; i < 6; i++) {
+					String version = i % 2 == 0 ? SECOND_VERSION : FIRST_VERSION;
+					writeJar(jar, version, version);
+					beanLoader.replaceBeansFromJar(HotBean.class, jar.toString(), TestContexts.PLUGIN_PACKET);
+					Assert.assertEquals(getSingleBean(beanLoader, VersionedService.class).getVersion(), version);
+				}
+			} finally {
+				replacing.set(false);
+				reader.join();
+			}
+			// The old version is only removed once the new one is registered.
+			Assert.assertTrue(reads.get() > 0);
+			Assert.assertEquals(misses.get(), 0);
+			assertNoStagingBeans(context);
+		}
+	}
+
+	@Test
+	public void failedBeanRolledBack() throws IOException, InterruptedException, ExecutionException {
+		Path jar = writeJar(createFolder().resolve("plugin.jar"), FIRST_VERSION, FIRST_VERSION);
+		jar.toFile().deleteOnExit();
+		try (AnnotationConfigApplicationContext context = TestContexts.createContext()) {
+			BeanLoader beanLoader = context.getBean(BeanLoader.class);
+			beanLoader.loadBeansFromJar(HotBean.class, jar.toString(), TestContexts.PLUGIN_PACKET);
+
+			writeJar(jar, SECOND_VERSION, BROKEN_VERSION);
+			beanLoader.replaceBeansFromJar(HotBean.class, jar.toString(), TestContexts.PLUGIN_PACKET);
+			JarDeployReport report = beanLoader.getDeployment(jar.toString()).get();
+			Assert.assertEquals(report.getFailures(), Arrays.asList("Bean '" + ServiceClientImpl.class.getCanonicalName() + "' not created."));
+			Assert.assertEquals(report.getBeanNames(), Arrays.asList(ServiceImpl.class.getCanonicalName()));
+
+			// The rest of the jar is replaced.
+			Assert.assertEquals(getSingleBean(beanLoader, VersionedService.class).getVersion(), SECOND_VERSION);
+			Assert.assertTrue(beanLoader.getLoadedBeansOfType(ServiceClient.class).isEmpty());
+			Assert.assertFalse(context.containsBean(ServiceClientImpl.class.getCanonicalName()));
+			assertNoStagingBeans(context);
+		}
+	}
+
+	@Test
+	public void jarOverwrittenInPlace() throws IOException, InterruptedException {
+		Path folder = createFolder();
+		Path jar = writeJar(folder.resolve("plugin.jar"), FIRST_VERSION, FIRST_VERSION);
+		jar.toFile().deleteOnExit();
+		try (AnnotationConfigApplicationContext context = TestContexts.createContext()) {
+			BeanLoader beanLoader = context.getBean(BeanLoader.class);
+			beanLoader.loadSettings(folder.toString(), TestContexts.PLUGIN_PACKET);
+			VersionedService service = getSingleBean(beanLoader, VersionedService.class);
+			ServiceClient oldClient = getSingleBean(beanLoader, ServiceClient.class);
+
+			overwriteJar(jar, FIRST_VERSION, SECOND_VERSION);
+			// Some watch services poll the folder every few seconds.
+			for (int i = 0; i < 300 && getSingleBean(beanLoader, ServiceClient.class) == oldClient; i++) {
+				Thread.sleep(100);
+			}
+			ServiceClient newClient = getSingleBean(beanLoader, ServiceClient.class);
+			Assert.assertEquals(newClient.getVersion(), SECOND_VERSION);
+			// The service has not changed, so it is kept.
+			Assert.assertSame(getSingleBean(beanLoader, VersionedService.class), service);
+			Assert.assertSame(newClient.getService(), service);
+			assertNoStagingBeans(context);
+		}
+	}
+
+	@Test
+	public void jarsReplacedTogether() throws IOException {
+		Path folder = createFolder();
+		// The client is replaced first if the jars are replaced one by one.
+		Path clientJar = writeJar(folder.resolve("a-client.jar"), ServiceClientImpl.class, FIRST_VERSION);
+		Path serviceJar = writeJar(folder.resolve("b-service.jar"), ServiceImpl.class, FIRST_VERSION);
+		try (AnnotationConfigApplicationContext context = TestContexts.createContext()) {
+			BeanLoader beanLoader = context.getBean(BeanLoader.class);
+			beanLoader.loadBeansFromFolder(HotBean.class, folder.toString(), TestContexts.PLUGIN_PACKET);
+			ServiceClient oldClient = getSingleBean(beanLoader, ServiceClient.class);
+
+			writeJar(clientJar, ServiceClientImpl.class, SECOND_VERSION);
+			writeJar(serviceJar, ServiceImpl.class, SECOND_VERSION);
+			beanLoader.replaceBeansFromJars(HotBean.class, Arrays.asList(clientJar.toString(), serviceJar.toString()), TestContexts.PLUGIN_PACKET);
+
+			// Autowired with the new version of the other jar.
+			ServiceClient newClient = getSingleBean(beanLoader, ServiceClient.class);
+			Assert.assertNotSame(newClient, oldClient);
+			Assert.assertEquals(newClient.getVersion(), SECOND_VERSION);
+			Assert.assertEquals(newClient.getService().getVersion(), SECOND_VERSION);
+			Assert.assertSame(newClient.getService(), getSingleBean(beanLoader, VersionedService.class));
+			assertNoStagingBeans(context);
+			Assert.assertEquals(beanLoader.getLiveClassLoaderCount(), 2);
+		}
+	}
+}
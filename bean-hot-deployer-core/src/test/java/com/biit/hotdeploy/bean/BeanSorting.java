@@ -85,4 +85,20 @@ public class BeanSorting {
 		Assert.assertEquals(DBean.class, beansToAdd.get(2));
 		Assert.assertEquals(CBean.class, beansToAdd.get(3));
 	}
+
+	@Test
+	private void sortByPriorityWithOffset() {
+		List<Class<?>> beansToAdd = new ArrayList<>();
+		beansToAdd.add(ABean.class);
+		beansToAdd.add(BBean.class);
+		beansToAdd.add(CBean.class);
+		beansToAdd.add(DBean.class);
+
+		// As if CBean and DBean were in a folder with a higher offset.
+		Collections.sort(beansToAdd, new HotBeanPriorityComparator(bean -> bean == CBean.class || bean == DBean.class ? 10 : 0));
+		Assert.assertEquals(DBean.class, beansToAdd.get(0));
+		Assert.assertEquals(CBean.class, beansToAdd.get(1));
+		Assert.assertEquals(BBean.class, beansToAdd.get(2));
+		Assert.assertEquals(ABean.class, beansToAdd.get(3));
+	}
 }
@@ -0,0 +1,170 @@
+package com.biit.hotdeploy.bean;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.biit.bean.loader.BeanLoader;
+import com.biit.bean.loader.HotBean;
+import com.biit.bean.loader.HotBeanWarmup;
+import com.biit.bean.loader.classloader.PluginClassLoader;
+import com.biit.bean.loader.instantiation.BeanWarmup;
+import com.biit.hotdeploy.bean.plugin.WarmedBean;
+
+@Test(groups = { "beanWarmup" })
+public class BeanWarmupTests {
+	private final static String INITIALIZED_PROPERTY = "beanWarmupTests.initialized";
+
+	public static class StaticInitializer {
+		static {
+			System.setProperty(INITIALIZED_PROPERTY, "true");
+		}
+	}
+
+	public static class WarmBean {
+		protected int defaultCalls = 0;
+		private int limitedCalls = 0;
+
+		@HotBeanWarmup
+		public void defaultWarmup() {
+			defaultCalls++;
+		}
+
+		@HotBeanWarmup(iterations = 5)
+		private void limitedWarmup() {
+			limitedCalls++;
+		}
+	}
+
+	public static class SubclassBean extends WarmBean {
+
+		@Override
+		@HotBeanWarmup
+		public void defaultWarmup() {
+			super.defaultWarmup();
+		}
+	}
+
+	public static class FailingBean {
+		private int calls = 0;
+
+		@HotBeanWarmup
+		public void warmup() {
+			calls++;
+			throw new IllegalStateException("Not ready.");
+		}
+	}
+
+	@Test
+	public void iterationsLimit() {
+		WarmBean bean = new WarmBean();
+		Assert.assertEquals(new BeanWarmup(100, 0).warmup("warmBean", bean), 105);
+		Assert.assertEquals(bean.defaultCalls, 100);
+		Assert.assertEquals(bean.limitedCalls, 5);
+	}
+
+	@Test
+	public void durationLimit() {
+		WarmBean bean = new WarmBean();
+		long start = System.nanoTime();
+		new BeanWarmup(0, 50).warmup("warmBean", bean);
+		Assert.assertTrue(System.nanoTime() - start >= 50_000_000L);
+		Assert.assertTrue(bean.defaultCalls > 0);
+		Assert.assertEquals(bean.limitedCalls, 5);
+	}
+
+	@Test
+	public void overriddenMethodCalledOnce() {
+		SubclassBean bean = new SubclassBean();
+		Assert.assertEquals(new BeanWarmup(10, 0).warmup("subclassBean", bean), 15);
+		Assert.assertEquals(bean.defaultCalls, 10);
+	}
+
+	@Test
+	public void failedMethodNotCalledAgain() {
+		FailingBean bean = new FailingBean();
+		Assert.assertEquals(new BeanWarmup(10, 0).warmup("failingBean", bean), 0);
+		Assert.assertEquals(bean.calls, 1);
+	}
+
+	@Test
+	public void classesInitialized() throws IOException, ClassNotFoundException {
+		Path jar = TestJars.createJar(StaticInitializer.class);
+		System.clearProperty(INITIALIZED_PROPERTY);
+		try (PluginClassLoader classLoader = new PluginClassLoader(jar, ClassLoader.getPlatformClassLoader(), null)) {
+			Assert.assertEquals(new BeanWarmup(1, 0).initializeClasses(classLoader), 1);
+			Assert.assertEquals(System.getProperty(INITIALIZED_PROPERTY), "true");
+		} finally {
+			System.clearProperty(INITIALIZED_PROPERTY);
+		}
+	}
+
+	@Test
+	public void inheritedClassesNotInitialized() throws IOException {
+		Path jar = TestJars.createJar(StaticInitializer.class);
+		System.clearProperty(INITIALIZED_PROPERTY);
+		try (PluginClassLoader previous = new PluginClassLoader(jar, ClassLoader.getPlatformClassLoader(), null);
+				PluginClassLoader classLoader = new PluginClassLoader(jar, ClassLoader.getPlatformClassLoader(), null)) {
+			classLoader.inheritFrom(previous, Collections.singleton(StaticInitializer.class.getName()));
+			// Initialized when the previous version was deployed.
+			Assert.assertEquals(new BeanWarmup(1, 0).initializeClasses(classLoader), 0);
+			Assert.assertNull(System.getProperty(INITIALIZED_PROPERTY));
+		} finally {
+			System.clearProperty(INITIALIZED_PROPERTY);
+		}
+	}
+
+	@Test
+	public void beansRegisteredWhenWarm() throws IOException {
+		Path folder = Files.createTempDirectory("warmup");
+		folder.toFile().deleteOnExit();
+		Path jar = folder.resolve("warmed.jar");
+		jar.toFile().deleteOnExit();
+		Files.move(TestJars.createJar(WarmedBean.class), jar);
+		System.clearProperty(WarmedBean.WARMUP_PROPERTY);
+		try (AnnotationConfigApplicationContext context = TestContexts.createContext()) {
+			BeanLoader beanLoader = context.getBean(BeanLoader.class);
+			beanLoader.loadBeansFromJar(HotBean.class, jar.toString(), TestContexts.PLUGIN_PACKET);
+			Assert.assertEquals(System.getProperty(WarmedBean.WARMUP_PROPERTY), TestJars.PLUGIN_VERSION + " hidden");
+			Object bean = context.getBean(WarmedBean.class.getName());
+
+			byte[] newVersion = TestJars.readClass(WarmedBean.class);
+			TestJars.replaceConstant(newVersion, TestJars.PLUGIN_VERSION, "version-2");
+			Files.move(TestJars.createJar(Collections.singletonMap(TestJars.getEntryName(WarmedBean.class), newVersion)), jar,
+					StandardCopyOption.REPLACE_EXISTING);
+			beanLoader.replaceBeansFromJar(HotBean.class, jar.toString(), TestContexts.PLUGIN_PACKET);
+			// Not even as the staging bean that takes precedence.
+			Assert.assertEquals(System.getProperty(WarmedBean.WARMUP_PROPERTY), "version-2 hidden");
+			Assert.assertNotSame(context.getBean(WarmedBean.class.getName()), bean);
+		} finally {
+			System.clearProperty(WarmedBean.WARMUP_PROPERTY);
+		}
+	}
+}
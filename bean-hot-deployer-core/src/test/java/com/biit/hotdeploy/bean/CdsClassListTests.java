@@ -0,0 +1,90 @@
+package com.biit.hotdeploy.bean;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.biit.bean.loader.classloader.CdsClassList;
+import com.biit.bean.loader.classloader.PluginClassLoader;
+
+@Test(groups = { "cdsClassList" })
+public class CdsClassListTests {
+	private final static ClassLoader PARENT = ClassLoader.getPlatformClassLoader();
+
+	public static class Task implements Runnable {
+
+		@Override
+		public void run() {
+		}
+	}
+
+	public static class ScheduledTask extends Task implements Comparable<ScheduledTask> {
+
+		@Override
+		public int compareTo(ScheduledTask task) {
+			return 0;
+		}
+	}
+
+	@Test
+	public void pluginClassesAfterTheirSupertypes() throws IOException, ClassNotFoundException {
+		Path jar = TestJars.createJar(Task.class, ScheduledTask.class);
+		CdsClassList cdsClassList = new CdsClassList();
+		try (PluginClassLoader classLoader = new PluginClassLoader(jar, PARENT, null)) {
+			classLoader.setClassDefinitionListener(cdsClassList);
+			classLoader.loadClass(ScheduledTask.class.getName());
+		}
+		Assert.assertEquals(cdsClassList.getClassCount(), 2);
+		Assert.assertEquals(cdsClassList.getClassesDiscarded(), 0);
+
+		Path classListFile = Files.createTempFile("plugins", ".classlist");
+		classListFile.toFile().deleteOnExit();
+		cdsClassList.write(classListFile);
+		List<String> lines = Files.readAllLines(classListFile, StandardCharsets.UTF_8);
+		String source = " source: " + jar.toAbsolutePath();
+		String task = Task.class.getName().replace('.', '/');
+		String scheduledTask = ScheduledTask.class.getName().replace('.', '/');
+		Assert.assertEquals(lines.subList(1, lines.size()),
+				List.of("java/lang/Object id: 1", "java/lang/Runnable id: 2", task + " id: 3 super: 1 interfaces: 2" + source,
+						"java/lang/Comparable id: 4", scheduledTask + " id: 5 super: 3 interfaces: 4" + source));
+	}
+
+	@Test
+	public void supertypesNotSharedAreDiscarded() throws IOException, ClassNotFoundException {
+		CdsClassList cdsClassList = new CdsClassList();
+		// The superclass is defined by a plugin classloader without listener.
+		try (PluginClassLoader parent = new PluginClassLoader(TestJars.createJar(Task.class), PARENT, null);
+				PluginClassLoader classLoader = new PluginClassLoader(TestJars.createJar(ScheduledTask.class), parent, null)) {
+			classLoader.setClassDefinitionListener(cdsClassList);
+			Assert.assertSame(classLoader.loadClass(ScheduledTask.class.getName()).getClassLoader(), classLoader);
+		}
+		Assert.assertEquals(cdsClassList.getClassCount(), 0);
+		Assert.assertEquals(cdsClassList.getClassesDiscarded(), 1);
+	}
+}
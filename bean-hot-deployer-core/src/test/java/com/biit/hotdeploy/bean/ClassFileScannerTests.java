@@ -0,0 +1,113 @@
+package com.biit.hotdeploy.bean;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.biit.bean.loader.HotBean;
+import com.biit.bean.loader.scanner.ClassFileScanner;
+import com.biit.bean.loader.scanner.ScannedClass;
+
+@Test(groups = { "classFileScanner" })
+public class ClassFileScannerTests {
+
+	@HotBean(priority = 7)
+	public static class PriorityBean {
+
+	}
+
+	@HotBean
+	public static class DefaultPriorityBean {
+
+	}
+
+	@HotBean
+	public static class NoBasicConstructorBean {
+		public NoBasicConstructorBean(String value) {
+		}
+	}
+
+	@HotBean
+	public interface InterfaceBean {
+
+	}
+
+	@Deprecated
+	public static class NotABean {
+
+	}
+
+	private ScannedClass scan(Class<?> clazz) throws IOException {
+		String resource = "/" + clazz.getName().replace('.', '/') + ".class";
+		try (InputStream classBytes = getClass().getResourceAsStream(resource)) {
+			return new ClassFileScanner(HotBean.class).scan(classBytes.readAllBytes());
+		}
+	}
+
+	@Test
+	public void readAnnotationPriority() throws IOException {
+		ScannedClass scannedClass = scan(PriorityBean.class);
+		Assert.assertEquals(scannedClass.getClassName(), PriorityBean.class.getName());
+		Assert.assertTrue(scannedClass.isAnnotated());
+		Assert.assertEquals(scannedClass.getPriority(), 7);
+		Assert.assertTrue(scannedClass.isBeanCandidate());
+	}
+
+	@Test
+	public void readDefaultPriority() throws IOException {
+		ScannedClass scannedClass = scan(DefaultPriorityBean.class);
+		Assert.assertTrue(scannedClass.isAnnotated());
+		Assert.assertEquals(scannedClass.getPriority(), 0);
+		Assert.assertTrue(scannedClass.isBeanCandidate());
+	}
+
+	@Test
+	public void rejectWithoutBasicConstructor() throws IOException {
+		ScannedClass scannedClass = scan(NoBasicConstructorBean.class);
+		Assert.assertTrue(scannedClass.isAnnotated());
+		Assert.assertFalse(scannedClass.hasPublicNoArgConstructor());
+		Assert.assertFalse(scannedClass.isBeanCandidate());
+	}
+
+	@Test
+	public void rejectInterface() throws IOException {
+		ScannedClass scannedClass = scan(InterfaceBean.class);
+		Assert.assertTrue(scannedClass.isInterface());
+		Assert.assertFalse(scannedClass.isBeanCandidate());
+	}
+
+	@Test
+	public void rejectNotAnnotated() throws IOException {
+		ScannedClass scannedClass = scan(NotABean.class);
+		Assert.assertFalse(scannedClass.isAnnotated());
+		Assert.assertFalse(scannedClass.isBeanCandidate());
+	}
+
+	@Test(expectedExceptions = { IOException.class })
+	public void rejectInvalidClassFile() throws IOException {
+		new ClassFileScanner(HotBean.class).scan(new byte[] { 1, 2, 3, 4, 5 });
+	}
+}
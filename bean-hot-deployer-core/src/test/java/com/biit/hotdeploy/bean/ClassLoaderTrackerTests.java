@@ -0,0 +1,237 @@
+package com.biit.hotdeploy.bean;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.biit.bean.loader.BeanLoader;
+import com.biit.bean.loader.HotBean;
+import com.biit.bean.loader.classloader.ClassLoaderTracker;
+import com.biit.bean.loader.classloader.ClassLoaderTracker.RetentionInspector;
+import com.biit.bean.loader.classloader.PluginClassLoader;
+import com.biit.hotdeploy.bean.plugin.ServiceClientImpl;
+import com.biit.hotdeploy.bean.plugin.ServiceImpl;
+
+@Test(groups = { "classLoaderTracker" })
+public class ClassLoaderTrackerTests {
+	private final static String PATH_TO_JAR = "plugin.jar";
+	private final static String BEAN_NAME = "pluginBean";
+
+	public static class PluginBean {
+	}
+
+	/**
+	 * Runs the garbage collector until the condition is met.
+	 */
+	private boolean collectUntil(BooleanSupplier condition) throws InterruptedException {
+		for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+			System.gc();
+			Thread.sleep(100);
+		}
+		return condition.getAsBoolean();
+	}
+
+	/**
+	 * Retires a classloader that has created a bean.
+	 *
+	 * @return the bean.
+	 */
+	private Object retire(ClassLoaderTracker tracker) throws IOException, ReflectiveOperationException {
+		try (PluginClassLoader classLoader = new PluginClassLoader(TestJars.createJar(PluginBean.class), ClassLoader.getPlatformClassLoader(), null)) {
+			Object bean = classLoader.loadClass(PluginBean.class.getName()).getConstructor().newInstance();
+			Assert.assertNotSame(bean.getClass(), PluginBean.class);
+			tracker.retire(PATH_TO_JAR, classLoader, Collections.singletonList(BEAN_NAME));
+			return bean;
+		}
+	}
+
+	@Test
+	public void retiredClassLoaderCollected() throws Exception {
+		ClassLoaderTracker tracker = new ClassLoaderTracker();
+		retire(tracker);
+		Assert.assertTrue(collectUntil(() -> tracker.getRetiredCount() == 0));
+		Assert.assertTrue(tracker.checkLeaks(0, null).isEmpty());
+	}
+
+	@Test
+	public void retainedBeanReported() throws Exception {
+		ClassLoaderTracker tracker = new ClassLoaderTracker();
+		Map<String, Object> beans = new HashMap<>();
+		beans.put(BEAN_NAME, retire(tracker));
+		RetentionInspector inspector = new RetentionInspector() {
+
+			@Override
+			public Collection<String> getRetainers(ClassLoader classLoader) {
+				List<String> retainers = new ArrayList<>();
+				for (Map.Entry<String, Object> bean : beans.entrySet()) {
+					if (bean.getValue().getClass().getClassLoader() == classLoader) {
+						retainers.add(bean.getKey());
+					}
+				}
+				return retainers;
+			}
+		};
+		System.gc();
+		Assert.assertEquals(tracker.getRetiredCount(), 1);
+		// Not reported before the timeout.
+		Assert.assertTrue(tracker.checkLeaks(60000, inspector).isEmpty());
+		Assert.assertEquals(tracker.checkLeaks(0, inspector), Collections.singletonMap(PATH_TO_JAR, Collections.singletonList(BEAN_NAME)));
+		// Only once.
+		Assert.assertTrue(tracker.checkLeaks(0, inspector).isEmpty());
+
+		beans.clear();
+		Assert.assertTrue(collectUntil(() -> tracker.getRetiredCount() == 0));
+	}
+
+	@Test
+	public void undeployedJarCollected() throws Exception {
+		Path folder = Files.createTempDirectory("tracker");
+		folder.toFile().deleteOnExit();
+		Path jar = folder.resolve("plugin.jar");
+		Files.move(TestJars.createJar(ServiceImpl.class, ServiceClientImpl.class), jar);
+		try (AnnotationConfigApplicationContext context = TestContexts.createContext()) {
+			BeanLoader beanLoader = context.getBean(BeanLoader.class);
+			beanLoader.loadSettings(folder.toString(), TestContexts.PLUGIN_PACKET);
+			Assert.assertEquals(beanLoader.getLiveClassLoaderCount(), 1);
+			Assert.assertEquals(beanLoader.getRetiredClassLoaderCount(), 0);
+			List<VersionedService> retainedBeans = new ArrayList<>(beanLoader.getLoadedBeansOfType(VersionedService.class));
+			Assert.assertEquals(retainedBeans.size(), 1);
+
+			Files.delete(jar);
+			// Some watch services poll the folder every few seconds.
+			for (int i = 0; i < 300 && beanLoader.getLiveClassLoaderCount() > 0; i++) {
+				Thread.sleep(100);
+			}
+			Assert.assertEquals(beanLoader.getLiveClassLoaderCount(), 0);
+			Assert.assertTrue(beanLoader.getLoadedBeansOfType(VersionedService.class).isEmpty());
+			System.gc();
+			// Still used.
+			Assert.assertEquals(beanLoader.getRetiredClassLoaderCount(), 1);
+			Assert.assertEquals(retainedBeans.get(0).getVersion(), "version-1");
+
+			retainedBeans.clear();
+			Assert.assertTrue(collectUntil(() -> beanLoader.getRetiredClassLoaderCount() == 0));
+		}
+	}
+
+	@Test
+	public void undeployedClassLoaderClosed() throws Exception {
+		Path folder = Files.createTempDirectory("tracker");
+		folder.toFile().deleteOnExit();
+		Path jar = folder.resolve("plugin.jar");
+		// Only in the jar, the classes are also found by the parent classloader.
+		String resourceName = "plugin.properties";
+		Map<String, byte[]> entries = new LinkedHashMap<>();
+		entries.put(TestJars.getEntryName(ServiceImpl.class), TestJars.readClass(ServiceImpl.class));
+		entries.put(resourceName, "version=1".getBytes(StandardCharsets.UTF_8));
+		Files.move(TestJars.createJar(entries), jar);
+		try (AnnotationConfigApplicationContext context = TestContexts.createContext()) {
+			BeanLoader beanLoader = context.getBean(BeanLoader.class);
+			beanLoader.loadSettings(folder.toString(), TestContexts.PLUGIN_PACKET);
+			ClassLoader classLoader = beanLoader.getDeploymentState().getJar(jar.toString()).getClassLoader();
+			try (InputStream entry = classLoader.getResourceAsStream(resourceName)) {
+				Assert.assertNotNull(entry);
+			}
+			Assert.assertTrue(beanLoader.getBeansClassLoaded().containsKey(ServiceImpl.class.getName()));
+
+			Files.delete(jar);
+			// Some watch services poll the folder every few seconds.
+			for (int i = 0; i < 300 && beanLoader.getLiveClassLoaderCount() > 0; i++) {
+				Thread.sleep(100);
+			}
+			Assert.assertEquals(beanLoader.getLiveClassLoaderCount(), 0);
+			// The jar is released and its classes forgotten.
+			Assert.assertNull(classLoader.getResourceAsStream(resourceName));
+			Assert.assertFalse(beanLoader.getBeansClassLoaded().containsKey(ServiceImpl.class.getName()));
+		}
+	}
+
+	@Test
+	public void previousVersionsRetired() throws Exception {
+		Path folder = Files.createTempDirectory("tracker");
+		folder.toFile().deleteOnExit();
+		Path jar = folder.resolve("plugin.jar");
+		jar.toFile().deleteOnExit();
+		Files.move(TestJars.createPluginJar(TestJars.PLUGIN_VERSION, TestJars.PLUGIN_VERSION), jar);
+		try (AnnotationConfigApplicationContext context = TestContexts.createContext()) {
+			BeanLoader beanLoader = context.getBean(BeanLoader.class);
+			beanLoader.loadBeansFromJar(HotBean.class, jar.toString(), TestContexts.PLUGIN_PACKET);
+			List<ClassLoader> firstVersion = new ArrayList<>();
+			firstVersion.add(beanLoader.getDeploymentState().getJar(jar.toString()).getClassLoader());
+
+			// The service is inherited from the first version.
+			Files.move(TestJars.createPluginJar(TestJars.PLUGIN_VERSION, "version-2"), jar, StandardCopyOption.REPLACE_EXISTING);
+			beanLoader.replaceBeansFromJar(HotBean.class, jar.toString(), TestContexts.PLUGIN_PACKET);
+			Assert.assertEquals(beanLoader.getLiveClassLoaderCount(), 2);
+			Assert.assertEquals(beanLoader.getRetiredClassLoaderCount(), 0);
+
+			// The client is inherited from the second version. The first one is not used anymore.
+			Files.move(TestJars.createPluginJar("version-3", "version-2"), jar, StandardCopyOption.REPLACE_EXISTING);
+			beanLoader.replaceBeansFromJar(HotBean.class, jar.toString(), TestContexts.PLUGIN_PACKET);
+			Assert.assertEquals(beanLoader.getLiveClassLoaderCount(), 2);
+			Assert.assertEquals(beanLoader.getRetiredClassLoaderCount(), 1);
+
+			firstVersion.clear();
+			Assert.assertTrue(collectUntil(() -> beanLoader.getRetiredClassLoaderCount() == 0));
+		}
+	}
+
+	@Test
+	public void replacedJarCollected() throws Exception {
+		Path folder = Files.createTempDirectory("tracker");
+		folder.toFile().deleteOnExit();
+		Path jar = folder.resolve("plugin.jar");
+		Files.move(TestJars.createPluginJar(TestJars.PLUGIN_VERSION, TestJars.PLUGIN_VERSION), jar);
+		try (AnnotationConfigApplicationContext context = TestContexts.createContext()) {
+			BeanLoader beanLoader = context.getBean(BeanLoader.class);
+			beanLoader.loadSettings(folder.toString(), TestContexts.PLUGIN_PACKET);
+			Files.move(TestJars.createPluginJar("version-2", "version-2"), jar, StandardCopyOption.REPLACE_EXISTING);
+			beanLoader.replaceBeansFromJar(HotBean.class, jar.toString(), TestContexts.PLUGIN_PACKET);
+
+			Files.delete(jar);
+			// Some watch services poll the folder every few seconds.
+			for (int i = 0; i < 300 && beanLoader.getLiveClassLoaderCount() > 0; i++) {
+				Thread.sleep(100);
+			}
+			Assert.assertEquals(beanLoader.getLiveClassLoaderCount(), 0);
+			// Both versions, including the beans registered while replacing it.
+			Assert.assertTrue(collectUntil(() -> beanLoader.getRetiredClassLoaderCount() == 0));
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package com.biit.hotdeploy.bean;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.biit.bean.loader.classloader.ClassVersionDiff;
+import com.biit.bean.loader.classloader.PluginClassLoader;
+
+@Test(groups = { "classVersionDiff" })
+public class ClassVersionDiffTests {
+	private final static ClassLoader PARENT = ClassLoader.getPlatformClassLoader();
+	private final static String FIRST_VERSION = "version-1";
+	private final static String SECOND_VERSION = "version-2";
+
+	public static class UnchangedClass {
+	}
+
+	public static class NotLoadedClass {
+	}
+
+	public static class ChangedClass {
+
+		public String getVersion() {
+			return FIRST_VERSION;
+		}
+	}
+
+	public static class DependentClass {
+
+		public String getVersion() {
+			return new ChangedClass().getVersion();
+		}
+	}
+
+	private Path createJar(String version) throws IOException {
+		Map<String, byte[]> entries = new LinkedHashMap<>();
+		for (Class<?> type : new Class<?>[] { UnchangedClass.class, NotLoadedClass.class, ChangedClass.class, DependentClass.class }) {
+			byte[] classBytes = TestJars.readClass(type);
+			if (type == ChangedClass.class) {
+				TestJars.replaceConstant(classBytes, FIRST_VERSION, version);
+			}
+			entries.put(TestJars.getEntryName(type), classBytes);
+		}
+		return TestJars.createJar(entries);
+	}
+
+	@Test
+	public void changesPropagatedToDependents() throws IOException {
+		try (PluginClassLoader previousVersion = new PluginClassLoader(createJar(FIRST_VERSION), PARENT, null);
+				PluginClassLoader currentVersion = new PluginClassLoader(createJar(SECOND_VERSION), PARENT, null)) {
+			ClassVersionDiff diff = ClassVersionDiff.compare(previousVersion, currentVersion);
+			Assert.assertTrue(diff.isChanged(ChangedClass.class.getName()));
+			Assert.assertTrue(diff.isChanged(DependentClass.class.getName()));
+			Assert.assertTrue(diff.getUnchangedClasses().contains(UnchangedClass.class.getName()));
+			Assert.assertTrue(diff.getUnchangedClasses().contains(NotLoadedClass.class.getName()));
+		}
+	}
+
+	@Test
+	public void sameVersionWithoutChanges() throws IOException {
+		Path jar = createJar(FIRST_VERSION);
+		try (PluginClassLoader previousVersion = new PluginClassLoader(jar, PARENT, null);
+				PluginClassLoader currentVersion = new PluginClassLoader(jar, PARENT, null)) {
+			Assert.assertTrue(ClassVersionDiff.compare(previousVersion, currentVersion).getChangedClasses().isEmpty());
+		}
+	}
+
+	@Test
+	public void unchangedClassesInherited() throws Exception {
+		PluginClassLoader previousVersion = new PluginClassLoader(createJar(FIRST_VERSION), PARENT, null);
+		Class<?> unchangedClass = previousVersion.loadClass(UnchangedClass.class.getName());
+		Class<?> changedClass = previousVersion.loadClass(ChangedClass.class.getName());
+
+		try (PluginClassLoader currentVersion = new PluginClassLoader(createJar(SECOND_VERSION), PARENT, null)) {
+			ClassVersionDiff diff = ClassVersionDiff.compare(previousVersion, currentVersion);
+			currentVersion.inheritFrom(previousVersion, diff.getUnchangedClasses());
+			Assert.assertSame(currentVersion.getPreviousVersion(), previousVersion);
+
+			Assert.assertSame(currentVersion.loadClass(UnchangedClass.class.getName()), unchangedClass);
+			// Defined by the previous classloader, reading the new jar.
+			Assert.assertSame(currentVersion.loadClass(NotLoadedClass.class.getName()).getClassLoader(), previousVersion);
+
+			Class<?> newChangedClass = currentVersion.loadClass(ChangedClass.class.getName());
+			Assert.assertNotSame(newChangedClass, changedClass);
+			Assert.assertEquals(newChangedClass.getMethod("getVersion").invoke(newChangedClass.getDeclaredConstructor().newInstance()), SECOND_VERSION);
+			Class<?> dependentClass = currentVersion.loadClass(DependentClass.class.getName());
+			Assert.assertSame(dependentClass.getClassLoader(), currentVersion);
+			Assert.assertEquals(dependentClass.getMethod("getVersion").invoke(dependentClass.getDeclaredConstructor().newInstance()), SECOND_VERSION);
+
+			// The old classloader cannot define changed classes anymore.
+			try {
+				previousVersion.loadClass(DependentClass.class.getName());
+				Assert.fail("Changed classes must not be defined by the previous version.");
+			} catch (ClassNotFoundException e) {
+				// Expected.
+			}
+		}
+	}
+
+	@Test
+	public void olderVersionsReleased() throws IOException {
+		Path jar = createJar(FIRST_VERSION);
+		try (PluginClassLoader firstVersion = new PluginClassLoader(jar, PARENT, null);
+				PluginClassLoader secondVersion = new PluginClassLoader(jar, PARENT, null);
+				PluginClassLoader thirdVersion = new PluginClassLoader(jar, PARENT, null);
+				PluginClassLoader fourthVersion = new PluginClassLoader(jar, PARENT, null)) {
+			Assert.assertTrue(secondVersion.inheritFrom(firstVersion, Collections.singleton(UnchangedClass.class.getName())).isEmpty());
+			Assert.assertEquals(secondVersion.getPreviousVersions(), Collections.singletonList(firstVersion));
+
+			// The class inherited from the first version has changed.
+			Assert.assertEquals(thirdVersion.inheritFrom(secondVersion, Collections.singleton(ChangedClass.class.getName())),
+					Collections.singletonList(firstVersion));
+			Assert.assertEquals(thirdVersion.getPreviousVersions(), Collections.singletonList(secondVersion));
+
+			// The second version cannot define any class of the fourth one.
+			Assert.assertEquals(fourthVersion.inheritFrom(thirdVersion, Collections.singleton(UnchangedClass.class.getName())),
+					Collections.singletonList(secondVersion));
+			Assert.assertEquals(fourthVersion.getPreviousVersions(), Collections.singletonList(thirdVersion));
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package com.biit.hotdeploy.bean;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Names of the plugin beans in creation order. Shared by the classloaders of
+ * all jars.
+ */
+public final class CreationLog {
+	private final static List<String> CREATED = new ArrayList<>();
+
+	private CreationLog() {
+	}
+
+	public static synchronized void add(String beanName) {
+		CREATED.add(beanName);
+	}
+
+	public static synchronized List<String> getCreated() {
+		return new ArrayList<>(CREATED);
+	}
+
+	public static synchronized void clear() {
+		CREATED.clear();
+	}
+}
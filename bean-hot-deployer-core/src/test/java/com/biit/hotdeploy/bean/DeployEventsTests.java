@@ -0,0 +1,125 @@
+package com.biit.hotdeploy.bean;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.biit.bean.loader.jfr.DeployEvent;
+import com.biit.bean.loader.jfr.JarScanEvent;
+import com.biit.bean.loader.watcher.DeployFolderWatcher;
+import com.biit.bean.loader.watcher.DeployFolderWatcher.JarListener;
+import com.biit.bean.loader.watcher.JarReadinessDetector;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+@Test(groups = { "deployEvents" })
+public class DeployEventsTests {
+
+	private List<RecordedEvent> readEvents(Recording recording) throws IOException {
+		Path file = Files.createTempFile("deploy", ".jfr");
+		file.toFile().deleteOnExit();
+		recording.dump(file);
+		List<RecordedEvent> events = new ArrayList<>();
+		for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+			if (event.getEventType().getName().startsWith(DeployEvent.PREFIX)) {
+				events.add(event);
+			}
+		}
+		return events;
+	}
+
+	@Test
+	public void eventRecorded() throws IOException {
+		try (Recording recording = new Recording()) {
+			recording.enable(JarScanEvent.class);
+			recording.start();
+			JarScanEvent event = new JarScanEvent("/plugins/a.jar");
+			event.begin();
+			if (event.shouldCommit()) {
+				event.setClassesScanned(3);
+				event.setBeanClasses(1);
+				event.commit();
+			}
+			recording.stop();
+			List<RecordedEvent> events = readEvents(recording);
+			Assert.assertEquals(events.size(), 1);
+			Assert.assertEquals(events.get(0).getString("pathToJar"), "/plugins/a.jar");
+			Assert.assertEquals(events.get(0).getInt("classesScanned"), 3);
+			Assert.assertFalse(events.get(0).getBoolean("fromIndex"));
+		}
+	}
+
+	@Test
+	public void readinessWaitRecorded() throws IOException, InterruptedException {
+		Path folder = Files.createTempDirectory("deploy");
+		folder.toFile().deleteOnExit();
+		Path jar = folder.resolve("plugin.jar");
+		jar.toFile().deleteOnExit();
+		CountDownLatch ready = new CountDownLatch(1);
+		try (Recording recording = new Recording()) {
+			recording.enable(DeployEvent.PREFIX + "JarDetected");
+			recording.enable(DeployEvent.PREFIX + "JarReadiness");
+			recording.start();
+			try (DeployFolderWatcher watcher = new DeployFolderWatcher(folder, new JarReadinessDetector(false), 0, 10000, new JarListener() {
+
+				@Override
+				public void jarReady(Path pathToJar, long waitedMillis) {
+					ready.countDown();
+				}
+
+				@Override
+				public void jarDeleted(Path pathToJar) {
+				}
+			})) {
+				watcher.start();
+				try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(jar))) {
+					output.putNextEntry(new JarEntry("com/biit/Bean.class"));
+					output.write(new byte[1024]);
+					output.closeEntry();
+				}
+				// Some watch services poll the folder every few seconds.
+				Assert.assertTrue(ready.await(30, TimeUnit.SECONDS));
+			}
+			recording.stop();
+			List<String> eventNames = new ArrayList<>();
+			for (RecordedEvent event : readEvents(recording)) {
+				Assert.assertEquals(event.getString("pathToJar"), jar.toString());
+				eventNames.add(event.getEventType().getName());
+			}
+			Assert.assertTrue(eventNames.contains(DeployEvent.PREFIX + "JarDetected"));
+			Assert.assertTrue(eventNames.contains(DeployEvent.PREFIX + "JarReadiness"));
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package com.biit.hotdeploy.bean;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.biit.bean.loader.watcher.DeployFolderWatcher;
+import com.biit.bean.loader.watcher.DeployFolderWatcher.JarListener;
+import com.biit.bean.loader.watcher.JarReadinessDetector;
+
+@Test(groups = { "deployFolderWatcher" })
+public class DeployFolderWatcherTests {
+
+	private Path createFolder() throws IOException {
+		Path folder = Files.createTempDirectory("deploy");
+		folder.toFile().deleteOnExit();
+		return folder;
+	}
+
+	private Path createJar(Path folder, String name) throws IOException {
+		Path jar = folder.resolve(name);
+		jar.toFile().deleteOnExit();
+		try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(jar))) {
+			output.putNextEntry(new JarEntry("com/biit/Bean.class"));
+			output.write(new byte[1024]);
+			output.closeEntry();
+		}
+		return jar;
+	}
+
+	@Test
+	public void severalFoldersOneThread() throws IOException, InterruptedException {
+		Path platformFolder = createFolder();
+		Path tenantFolder = createFolder();
+		CountDownLatch ready = new CountDownLatch(2);
+		Set<Path> jarsReady = ConcurrentHashMap.newKeySet();
+		Set<String> threads = ConcurrentHashMap.newKeySet();
+		try (DeployFolderWatcher watcher = new DeployFolderWatcher(new JarReadinessDetector(false), 0, 10000, new JarListener() {
+
+			@Override
+			public void jarReady(Path pathToJar, long waitedMillis) {
+				jarsReady.add(pathToJar);
+				threads.add(Thread.currentThread().getName());
+				ready.countDown();
+			}
+
+			@Override
+			public void jarDeleted(Path pathToJar) {
+			}
+		})) {
+			watcher.addFolder(platformFolder);
+			watcher.addFolder(tenantFolder);
+			// Added twice.
+			watcher.addFolder(tenantFolder);
+			Assert.assertEquals(watcher.getFolders(), Set.of(platformFolder, tenantFolder));
+			watcher.start();
+			Path platformJar = createJar(platformFolder, "platform.jar");
+			Path tenantJar = createJar(tenantFolder, "tenant.jar");
+			// Some watch services poll the folder every few seconds.
+			Assert.assertTrue(ready.await(30, TimeUnit.SECONDS));
+			Assert.assertEquals(jarsReady, Set.of(platformJar, tenantJar));
+			Assert.assertEquals(threads.size(), 1);
+		}
+	}
+
+	@Test
+	public void folderAddedWhileWatching() throws IOException, InterruptedException {
+		CountDownLatch ready = new CountDownLatch(5);
+		Set<Path> jarsReady = ConcurrentHashMap.newKeySet();
+		try (DeployFolderWatcher watcher = new DeployFolderWatcher(new JarReadinessDetector(false), 0, 10000, new JarListener() {
+
+			@Override
+			public void jarReady(Path pathToJar, long waitedMillis) {
+				// A jar can be notified again if it is still being modified.
+				if (jarsReady.add(pathToJar)) {
+					ready.countDown();
+				}
+			}
+
+			@Override
+			public void jarDeleted(Path pathToJar) {
+			}
+		})) {
+			watcher.start();
+			Set<Path> jars = ConcurrentHashMap.newKeySet();
+			// Each jar is written just after its folder is added.
+			for (int i = 0; i < 5; i++) {
+				Path folder = createFolder();
+				watcher.addFolder(folder);
+				jars.add(createJar(folder, "plugin" + i + ".jar"));
+			}
+			Assert.assertTrue(ready.await(30, TimeUnit.SECONDS));
+			Assert.assertEquals(jarsReady, jars);
+			Assert.assertEquals(watcher.getFolders().size(), 5);
+		}
+	}
+
+	@Test
+	public void removedFolderNotWatched() throws IOException, InterruptedException {
+		Path platformFolder = createFolder();
+		Path tenantFolder = createFolder();
+		CountDownLatch ready = new CountDownLatch(1);
+		Set<Path> jarsReady = ConcurrentHashMap.newKeySet();
+		try (DeployFolderWatcher watcher = new DeployFolderWatcher(platformFolder, new JarReadinessDetector(false), 0, 10000, new JarListener() {
+
+			@Override
+			public void jarReady(Path pathToJar, long waitedMillis) {
+				jarsReady.add(pathToJar);
+				ready.countDown();
+			}
+
+			@Override
+			public void jarDeleted(Path pathToJar) {
+			}
+		})) {
+			watcher.addFolder(tenantFolder);
+			watcher.removeFolder(tenantFolder);
+			Assert.assertEquals(watcher.getFolders(), Set.of(platformFolder));
+			watcher.start();
+			createJar(tenantFolder, "tenant.jar");
+			Path platformJar = createJar(platformFolder, "platform.jar");
+			Assert.assertTrue(ready.await(30, TimeUnit.SECONDS));
+			Assert.assertEquals(jarsReady, Set.of(platformJar));
+		}
+	}
+}
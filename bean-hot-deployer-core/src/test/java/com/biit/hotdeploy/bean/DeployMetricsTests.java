@@ -0,0 +1,101 @@
+package com.biit.hotdeploy.bean;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.biit.bean.loader.metrics.DeployMetrics;
+import com.biit.bean.loader.metrics.DeployMetricsMBean;
+import com.biit.bean.loader.metrics.MetricTimer.TimerSnapshot;
+import com.biit.bean.loader.metrics.MetricsSnapshot;
+
+@Test(groups = { "deployMetrics" })
+public class DeployMetricsTests {
+
+	@Test
+	public void timersByTag() {
+		DeployMetrics metrics = new DeployMetrics();
+		metrics.record(DeployMetrics.CLASS_LOADING, "a.jar", TimeUnit.MILLISECONDS.toNanos(1));
+		metrics.record(DeployMetrics.CLASS_LOADING, "a.jar", TimeUnit.MILLISECONDS.toNanos(3));
+		metrics.record(DeployMetrics.CLASS_LOADING, "b.jar", TimeUnit.MILLISECONDS.toNanos(8));
+
+		TimerSnapshot total = metrics.getTimers().get(DeployMetrics.CLASS_LOADING);
+		Assert.assertEquals(total.getCount(), 3);
+		Assert.assertEquals(total.getMaxNanos(), TimeUnit.MILLISECONDS.toNanos(8));
+		Assert.assertEquals(total.getTotalNanos(), TimeUnit.MILLISECONDS.toNanos(12));
+
+		MetricsSnapshot snapshot = metrics.snapshot();
+		Assert.assertEquals(snapshot.getTimers().get(DeployMetrics.CLASS_LOADING + "{a.jar}").getCount(), 2);
+		metrics.removeTags(Collections.singleton("a.jar"));
+		Assert.assertNull(metrics.snapshot().getTimers().get(DeployMetrics.CLASS_LOADING + "{a.jar}"));
+		Assert.assertEquals(metrics.getTimers().get(DeployMetrics.CLASS_LOADING).getCount(), 3);
+	}
+
+	@Test
+	public void percentilesFromHistogram() {
+		DeployMetrics metrics = new DeployMetrics();
+		for (int i = 0; i < 99; i++) {
+			metrics.record(DeployMetrics.BEAN_INSTANTIATION, 1000);
+		}
+		metrics.record(DeployMetrics.BEAN_INSTANTIATION, TimeUnit.SECONDS.toNanos(1));
+		TimerSnapshot timer = metrics.getTimers().get(DeployMetrics.BEAN_INSTANTIATION);
+		// Buckets are powers of two.
+		Assert.assertTrue(timer.getPercentileNanos(50) >= 1000 && timer.getPercentileNanos(50) < 2048);
+		Assert.assertTrue(timer.getPercentileNanos(100) >= TimeUnit.SECONDS.toNanos(1) / 2);
+	}
+
+	@Test
+	public void countersGaugesAndExporters() {
+		DeployMetrics metrics = new DeployMetrics();
+		metrics.increment(DeployMetrics.BEANS_REGISTERED);
+		metrics.add(DeployMetrics.BEANS_REGISTERED, 2);
+		metrics.registerGauge(DeployMetrics.LIVE_CLASSLOADERS, () -> 5);
+		List<MetricsSnapshot> exported = new ArrayList<>();
+		metrics.addExporter(snapshot -> {
+			throw new IllegalStateException("Exporter down.");
+		});
+		metrics.addExporter(exported::add);
+		metrics.export();
+
+		Assert.assertEquals(exported.size(), 1);
+		Assert.assertEquals(exported.get(0).getCounters().get(DeployMetrics.BEANS_REGISTERED), Long.valueOf(3));
+		Assert.assertEquals(exported.get(0).getGauges().get(DeployMetrics.LIVE_CLASSLOADERS), Long.valueOf(5));
+	}
+
+	@Test
+	public void mbeanAttributes() throws Exception {
+		DeployMetrics metrics = new DeployMetrics();
+		metrics.increment(DeployMetrics.FAILURES);
+		metrics.record(DeployMetrics.JAR_DEPLOY, TimeUnit.MILLISECONDS.toNanos(4));
+		DeployMetricsMBean mbean = new DeployMetricsMBean(metrics);
+		Assert.assertEquals(mbean.getAttribute(DeployMetrics.FAILURES), Long.valueOf(1));
+		Assert.assertEquals(mbean.getAttribute(DeployMetrics.JAR_DEPLOY + ".count"), Long.valueOf(1));
+		Assert.assertEquals((Double) mbean.getAttribute(DeployMetrics.JAR_DEPLOY + ".maxMillis"), 4d, 0.001);
+		Assert.assertTrue(mbean.getMBeanInfo().getAttributes().length > 0);
+	}
+}
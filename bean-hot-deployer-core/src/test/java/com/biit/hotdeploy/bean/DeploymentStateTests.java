@@ -0,0 +1,104 @@
+package com.biit.hotdeploy.bean;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.biit.bean.loader.deploy.DeployedJar;
+import com.biit.bean.loader.deploy.DeploymentState;
+
+@Test(groups = { "deploymentState" })
+public class DeploymentStateTests {
+
+	static class FirstBean {
+
+	}
+
+	static class SecondBean {
+
+	}
+
+	@Test
+	public void addAndRemoveJars() {
+		DeploymentState empty = DeploymentState.empty();
+		DeploymentState state = empty.withJar(new DeployedJar("a.jar", null, Collections.<Class<?>> singletonList(FirstBean.class),
+				Collections.singletonList("first")));
+		state = state.withJar(new DeployedJar("b.jar", null, Collections.<Class<?>> singletonList(SecondBean.class),
+				Collections.singletonList("second")));
+		Assert.assertEquals(state.getVersion(), empty.getVersion() + 2);
+		Assert.assertTrue(state.isDeployed("a.jar"));
+		Assert.assertEquals(state.getClassesLoaded().get(FirstBean.class.getName()), FirstBean.class);
+		Assert.assertEquals(state.getJars().keySet(), new HashSet<>(Arrays.asList("a.jar", "b.jar")));
+
+		DeploymentState withoutA = state.withoutJar("a.jar");
+		Assert.assertFalse(withoutA.isDeployed("a.jar"));
+		Assert.assertNull(withoutA.getClassesLoaded().get(FirstBean.class.getName()));
+		Assert.assertEquals(withoutA.getClassesLoaded().get(SecondBean.class.getName()), SecondBean.class);
+		// Previous snapshots are not modified.
+		Assert.assertTrue(state.isDeployed("a.jar"));
+		Assert.assertTrue(empty.getJars().isEmpty());
+		Assert.assertSame(withoutA.withoutJar("a.jar"), withoutA);
+	}
+
+	@Test(expectedExceptions = { UnsupportedOperationException.class })
+	public void stateSnapshotsAreImmutable() {
+		DeploymentState state = DeploymentState.empty().withJar(new DeployedJar("a.jar", null,
+				Collections.<Class<?>> singletonList(FirstBean.class), Collections.singletonList("first")));
+		state.getClassesLoaded().put(SecondBean.class.getName(), SecondBean.class);
+	}
+
+	@Test(expectedExceptions = { UnsupportedOperationException.class })
+	public void deployedJarsAreImmutable() {
+		DeployedJar deployedJar = new DeployedJar("a.jar", null, Collections.<Class<?>> singletonList(FirstBean.class),
+				Collections.singletonList("first"));
+		DeploymentState.empty().withJar(deployedJar).getJar("a.jar").getBeanNames().add("second");
+	}
+
+	@Test
+	public void replaceJar() {
+		DeploymentState state = DeploymentState.empty().withJar(new DeployedJar("a.jar", null,
+				Arrays.<Class<?>> asList(FirstBean.class, SecondBean.class), Arrays.asList("first", "second")));
+		state = state.withJar(new DeployedJar("a.jar", null, Collections.<Class<?>> singletonList(FirstBean.class),
+				Collections.singletonList("first")));
+		Assert.assertEquals(state.getJars().size(), 1);
+		Assert.assertEquals(state.getJar("a.jar").getBeanNames(), Collections.singleton("first"));
+		Assert.assertNull(state.getClassesLoaded().get(SecondBean.class.getName()));
+	}
+
+	@Test
+	public void deployedJarMerged() {
+		DeployedJar deployedJar = new DeployedJar("a.jar", null, Collections.<Class<?>> singletonList(FirstBean.class),
+				Collections.singletonList("first"));
+		DeployedJar merged = deployedJar.with(Collections.<Class<?>> singletonList(SecondBean.class), Collections.singletonList("second"));
+		Assert.assertEquals(merged.getClassesLoaded().keySet(), new HashSet<>(Arrays.asList(FirstBean.class.getName(),
+				SecondBean.class.getName())));
+		Assert.assertEquals(merged.getBeanNames().size(), 2);
+		Assert.assertEquals(deployedJar.getBeanNames().size(), 1);
+		Assert.assertTrue(merged.withoutBeans().getBeanNames().isEmpty());
+		Assert.assertEquals(merged.withoutBeans().getClassesLoaded().size(), 2);
+	}
+}
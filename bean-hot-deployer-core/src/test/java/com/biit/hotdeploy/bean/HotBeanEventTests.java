@@ -0,0 +1,138 @@
+package com.biit.hotdeploy.bean;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.GenericApplicationListenerAdapter;
+import org.springframework.core.ResolvableType;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.biit.bean.loader.event.HotBeanEvent;
+import com.biit.bean.loader.event.HotBeanEventDispatcher;
+import com.biit.bean.loader.event.HotBeanListener;
+
+@Test(groups = { "hotBeanEvents" })
+public class HotBeanEventTests {
+	private final static String JAR = "plugin.jar";
+
+	public interface Plugin {
+	}
+
+	public static class PluginBean implements Plugin {
+	}
+
+	public static class OtherBean {
+	}
+
+	private static class RecordingListener implements HotBeanListener<Plugin> {
+		private final List<String> changes = new ArrayList<>();
+
+		@Override
+		public void beanDeployed(String beanName, Plugin bean) {
+			changes.add("deployed " + beanName);
+		}
+
+		@Override
+		public void beanUndeployed(String beanName, Plugin bean) {
+			changes.add("undeployed " + beanName);
+		}
+
+		@Override
+		public void beanReplaced(String beanName, Plugin previousBean, Plugin bean) {
+			changes.add("replaced " + beanName);
+		}
+	}
+
+	private HotBeanEvent<Object> event(HotBeanEvent.Type type, String beanName, Object bean, Object previousBean) {
+		return new HotBeanEvent<>(this, type, JAR, beanName, bean, previousBean);
+	}
+
+	@Test
+	public void filteredByType() {
+		HotBeanEventDispatcher dispatcher = new HotBeanEventDispatcher();
+		RecordingListener listener = new RecordingListener();
+		dispatcher.addListener(Plugin.class, listener);
+		dispatcher.dispatch(event(HotBeanEvent.Type.DEPLOYED, "plugin", new PluginBean(), null));
+		dispatcher.dispatch(event(HotBeanEvent.Type.DEPLOYED, "other", new OtherBean(), null));
+		dispatcher.dispatch(event(HotBeanEvent.Type.REPLACED, "plugin", new PluginBean(), new PluginBean()));
+		// The new version is not a plugin anymore.
+		dispatcher.dispatch(event(HotBeanEvent.Type.REPLACED, "plugin", new OtherBean(), new PluginBean()));
+		dispatcher.dispatch(event(HotBeanEvent.Type.UNDEPLOYED, "other", new OtherBean(), null));
+		Assert.assertEquals(listener.changes, List.of("deployed plugin", "replaced plugin", "undeployed plugin"));
+
+		dispatcher.removeListener(listener);
+		Assert.assertFalse(dispatcher.hasListeners());
+		dispatcher.dispatch(event(HotBeanEvent.Type.DEPLOYED, "second", new PluginBean(), null));
+		Assert.assertEquals(listener.changes.size(), 3);
+	}
+
+	@Test
+	public void existingBeansNotifiedFirst() {
+		HotBeanEventDispatcher dispatcher = new HotBeanEventDispatcher();
+		dispatcher.dispatch(event(HotBeanEvent.Type.DEPLOYED, "first", new PluginBean(), null));
+		dispatcher.dispatch(event(HotBeanEvent.Type.DEPLOYED, "second", new PluginBean(), null));
+		dispatcher.dispatch(event(HotBeanEvent.Type.UNDEPLOYED, "first", new PluginBean(), null));
+		RecordingListener listener = new RecordingListener();
+		dispatcher.addListener(Plugin.class, listener);
+		Assert.assertEquals(listener.changes, List.of("deployed second"));
+	}
+
+	@Test
+	public void failingListenerDoesNotStopOthers() {
+		HotBeanEventDispatcher dispatcher = new HotBeanEventDispatcher();
+		dispatcher.addListener(Object.class, new HotBeanListener<Object>() {
+
+			@Override
+			public void beanDeployed(String beanName, Object bean) {
+				throw new IllegalStateException("Failing listener.");
+			}
+
+			@Override
+			public void beanUndeployed(String beanName, Object bean) {
+			}
+		});
+		RecordingListener listener = new RecordingListener();
+		dispatcher.addListener(Plugin.class, listener);
+		dispatcher.dispatch(event(HotBeanEvent.Type.DEPLOYED, "plugin", new PluginBean(), null));
+		Assert.assertEquals(listener.changes, List.of("deployed plugin"));
+	}
+
+	@Test
+	public void springListenersFilteredByGenericType() {
+		// Not a lambda, as its generic type would be lost.
+		ApplicationListener<HotBeanEvent<? extends Plugin>> springListener = new ApplicationListener<HotBeanEvent<? extends Plugin>>() {
+
+			@Override
+			public void onApplicationEvent(HotBeanEvent<? extends Plugin> event) {
+			}
+		};
+		GenericApplicationListenerAdapter adapter = new GenericApplicationListenerAdapter(springListener);
+		Assert.assertTrue(adapter.supportsEventType(event(HotBeanEvent.Type.DEPLOYED, "plugin", new PluginBean(), null).getResolvableType()));
+		Assert.assertFalse(adapter.supportsEventType(event(HotBeanEvent.Type.DEPLOYED, "other", new OtherBean(), null).getResolvableType()));
+		Assert.assertTrue(ResolvableType.forClass(HotBeanEvent.class)
+				.isAssignableFrom(event(HotBeanEvent.Type.DEPLOYED, "other", new OtherBean(), null).getResolvableType()));
+	}
+}
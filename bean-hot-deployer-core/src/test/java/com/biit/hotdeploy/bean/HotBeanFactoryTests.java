@@ -0,0 +1,220 @@
+package com.biit.hotdeploy.bean;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.biit.bean.loader.BeanScope;
+import com.biit.bean.loader.instantiation.BeanConstructor;
+import com.biit.bean.loader.instantiation.HotBeanFactory;
+import com.biit.bean.loader.registry.HotBeanRegistry;
+
+@Test(groups = { "hotBeanFactory" })
+public class HotBeanFactoryTests {
+
+	public static class Dependency {
+
+	}
+
+	public static class PrototypeBean {
+		@Autowired
+		private Dependency dependency;
+
+		public Dependency getDependency() {
+			return dependency;
+		}
+	}
+
+	public static class SetterInjectedBean {
+		private Dependency dependency;
+
+		@Autowired
+		public void setDependency(Dependency dependency) {
+			this.dependency = dependency;
+		}
+	}
+
+	static class PrivateConstructorBean {
+
+		private PrivateConstructorBean() {
+		}
+	}
+
+	public static abstract class AbstractBean {
+
+	}
+
+	public static class FailingBean {
+
+		public FailingBean() {
+			throw new IllegalStateException("Failed on purpose.");
+		}
+	}
+
+	public static class ArgumentBean {
+
+		public ArgumentBean(String argument) {
+		}
+	}
+
+	@Test
+	public void constructorCreatesInstances() throws ReflectiveOperationException {
+		BeanConstructor constructor = BeanConstructor.of(PrototypeBean.class);
+		Assert.assertSame(BeanConstructor.of(PrototypeBean.class), constructor);
+		Assert.assertTrue(constructor.isAvailable());
+		Object first = constructor.newInstance();
+		Assert.assertTrue(first instanceof PrototypeBean);
+		Assert.assertNotSame(constructor.newInstance(), first);
+		Assert.assertTrue(BeanConstructor.of(PrivateConstructorBean.class).newInstance() instanceof PrivateConstructorBean);
+	}
+
+	@Test(expectedExceptions = { InstantiationException.class })
+	public void abstractClass() throws ReflectiveOperationException {
+		BeanConstructor.of(AbstractBean.class).newInstance();
+	}
+
+	@Test(expectedExceptions = { NoSuchMethodException.class })
+	public void withoutNoArgConstructor() throws ReflectiveOperationException {
+		Assert.assertFalse(BeanConstructor.of(ArgumentBean.class).isAvailable());
+		BeanConstructor.of(ArgumentBean.class).newInstance();
+	}
+
+	@Test
+	public void constructorFailure() throws ReflectiveOperationException {
+		try {
+			BeanConstructor.of(FailingBean.class).newInstance();
+			Assert.fail();
+		} catch (InvocationTargetException e) {
+			Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+
+	@Test
+	public void dependenciesResolvedOnce() {
+		Dependency dependency = new Dependency();
+		AtomicInteger springCalls = new AtomicInteger();
+		HotBeanFactory<PrototypeBean> factory = new HotBeanFactory<>("prototype", PrototypeBean.class, BeanScope.PROTOTYPE, 0, bean -> {
+			springCalls.incrementAndGet();
+			((PrototypeBean) bean).dependency = dependency;
+		}, () -> 0);
+		for (int i = 0; i < 10; i++) {
+			PrototypeBean bean = factory.getObject();
+			Assert.assertSame(bean.getDependency(), dependency);
+		}
+		Assert.assertTrue(factory.getAutowiringPlan().isResolved());
+		Assert.assertEquals(springCalls.get(), 2);
+		Assert.assertNotSame(factory.getObject(), factory.getObject());
+	}
+
+	@Test
+	public void replacedDependencyNotInjected() {
+		HotBeanRegistry registry = new HotBeanRegistry();
+		Dependency oldDependency = new Dependency();
+		registry.register("dependency", oldDependency);
+		HotBeanFactory<PrototypeBean> factory = new HotBeanFactory<>("pooled", PrototypeBean.class, BeanScope.POOLED, 2, bean -> {
+			((PrototypeBean) bean).dependency = (Dependency) registry.getBeans().get("dependency");
+		}, () -> registry.getVersion());
+		PrototypeBean first = factory.getObject();
+		PrototypeBean second = factory.getObject();
+		Assert.assertTrue(factory.getAutowiringPlan().isResolved());
+		Assert.assertSame(factory.getObject().getDependency(), oldDependency);
+		factory.release(first);
+		factory.release(second);
+		Assert.assertEquals(factory.getIdleInstances(), 2);
+
+		Dependency newDependency = new Dependency();
+		registry.register("dependency", newDependency);
+		// Idle instances and resolved dependencies are discarded.
+		PrototypeBean bean = factory.getObject();
+		Assert.assertSame(bean.getDependency(), newDependency);
+		Assert.assertEquals(factory.getIdleInstances(), 0);
+		Assert.assertFalse(factory.getAutowiringPlan().isResolved());
+		factory.getObject();
+		Assert.assertTrue(factory.getAutowiringPlan().isResolved());
+		Assert.assertSame(factory.getObject().getDependency(), newDependency);
+	}
+
+	@Test
+	public void differentDependenciesNotResolved() {
+		AtomicInteger springCalls = new AtomicInteger();
+		HotBeanFactory<PrototypeBean> factory = new HotBeanFactory<>("prototype", PrototypeBean.class, BeanScope.PROTOTYPE, 0, bean -> {
+			springCalls.incrementAndGet();
+			((PrototypeBean) bean).dependency = new Dependency();
+		}, () -> 0);
+		for (int i = 0; i < 5; i++) {
+			factory.getObject();
+		}
+		Assert.assertFalse(factory.getAutowiringPlan().isResolved());
+		Assert.assertEquals(springCalls.get(), 5);
+	}
+
+	@Test
+	public void methodInjectionNotResolved() {
+		AtomicInteger springCalls = new AtomicInteger();
+		HotBeanFactory<SetterInjectedBean> factory = new HotBeanFactory<>("setter", SetterInjectedBean.class, BeanScope.PROTOTYPE, 0,
+				bean -> springCalls.incrementAndGet(), () -> 0);
+		for (int i = 0; i < 3; i++) {
+			factory.getObject();
+		}
+		Assert.assertFalse(factory.getAutowiringPlan().isResolved());
+		Assert.assertEquals(springCalls.get(), 3);
+	}
+
+	@Test
+	public void pooledInstancesReused() {
+		HotBeanFactory<PrototypeBean> factory = new HotBeanFactory<>("pooled", PrototypeBean.class, BeanScope.POOLED, 2, bean -> {
+		}, () -> 0);
+		PrototypeBean first = factory.getObject();
+		PrototypeBean second = factory.getObject();
+		PrototypeBean third = factory.getObject();
+		Assert.assertTrue(factory.release(first));
+		Assert.assertTrue(factory.release(second));
+		// Pool is full.
+		Assert.assertFalse(factory.release(third));
+		Assert.assertEquals(factory.getIdleInstances(), 2);
+		// Last released first.
+		Assert.assertSame(factory.getObject(), second);
+		Assert.assertSame(factory.getObject(), first);
+		Assert.assertNotSame(factory.getObject(), third);
+	}
+
+	@Test
+	public void prototypeInstancesNotKept() {
+		HotBeanFactory<PrototypeBean> factory = new HotBeanFactory<>("prototype", PrototypeBean.class, BeanScope.PROTOTYPE, 2, bean -> {
+		}, () -> 0);
+		PrototypeBean bean = factory.getObject();
+		Assert.assertFalse(factory.release(bean));
+		Assert.assertNotSame(factory.getObject(), bean);
+	}
+
+	@Test(expectedExceptions = { BeanCreationException.class })
+	public void creationFailure() {
+		new HotBeanFactory<>("failing", FailingBean.class, BeanScope.PROTOTYPE, 0, bean -> {
+		}, () -> 0).getObject();
+	}
+}
@@ -0,0 +1,177 @@
+package com.biit.hotdeploy.bean;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.Set;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.biit.bean.loader.BeanScope;
+import com.biit.bean.loader.HotBean;
+import com.biit.bean.loader.instantiation.HotBeanFactory;
+import com.biit.bean.loader.registry.HotBeanRegistry;
+
+@Test(groups = { "hotBeanRegistry" })
+public class HotBeanRegistryTests {
+
+	interface Plugin {
+
+	}
+
+	interface ExtendedPlugin extends Plugin {
+
+	}
+
+	@HotBean
+	static class BasicPlugin implements Plugin {
+
+	}
+
+	@HotBean
+	static class AdvancedPlugin extends BasicPlugin implements ExtendedPlugin {
+
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.TYPE)
+	@interface Marker {
+
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.TYPE)
+	@Marker
+	@interface ComposedMarker {
+
+	}
+
+	@Marker
+	interface MarkedPlugin {
+
+	}
+
+	@ComposedMarker
+	static class ComposedPlugin {
+
+	}
+
+	static class ImplementedPlugin implements MarkedPlugin {
+
+	}
+
+	@Test
+	public void lookupByType() {
+		HotBeanRegistry registry = new HotBeanRegistry();
+		BasicPlugin basicPlugin = new BasicPlugin();
+		AdvancedPlugin advancedPlugin = new AdvancedPlugin();
+		registry.register("basic", basicPlugin);
+		registry.register("advanced", advancedPlugin);
+
+		Assert.assertEquals(registry.getBeansOfType(Plugin.class).size(), 2);
+		Assert.assertEquals(registry.getBeansOfType(BasicPlugin.class).size(), 2);
+		Assert.assertEquals(registry.getBeansOfType(Object.class).size(), 2);
+		Assert.assertEquals(registry.getBeansOfType(ExtendedPlugin.class).size(), 1);
+		Assert.assertTrue(registry.getBeansOfType(ExtendedPlugin.class).contains(advancedPlugin));
+		Assert.assertTrue(registry.getBeansOfType(String.class).isEmpty());
+		Assert.assertEquals(registry.getBeansWithAnnotation(HotBean.class).size(), 2);
+	}
+
+	@Test
+	public void lookupByAnnotationLikeContext() {
+		HotBeanRegistry registry = new HotBeanRegistry();
+		ComposedPlugin composedPlugin = new ComposedPlugin();
+		ImplementedPlugin implementedPlugin = new ImplementedPlugin();
+		registry.register("composed", composedPlugin);
+		registry.register("implemented", implementedPlugin);
+		registry.register("basic", new BasicPlugin());
+
+		// Meta-annotations and annotations of the interfaces are found, as the application context does.
+		Set<Object> markedBeans = registry.getBeansWithAnnotation(Marker.class);
+		Assert.assertEquals(markedBeans.size(), 2);
+		Assert.assertTrue(markedBeans.contains(composedPlugin));
+		Assert.assertTrue(markedBeans.contains(implementedPlugin));
+		Assert.assertEquals(registry.getBeansWithAnnotation(ComposedMarker.class).size(), 1);
+		Assert.assertEquals(registry.getBeansWithAnnotation(HotBean.class).size(), 1);
+	}
+
+	@Test
+	public void unregister() {
+		HotBeanRegistry registry = new HotBeanRegistry();
+		registry.register("basic", new BasicPlugin());
+		registry.register("advanced", new AdvancedPlugin());
+		Set<Plugin> beforeRemoval = registry.getBeansOfType(Plugin.class);
+
+		registry.unregister("advanced");
+		Assert.assertEquals(registry.getBeansOfType(Plugin.class).size(), 1);
+		Assert.assertTrue(registry.getBeansOfType(ExtendedPlugin.class).isEmpty());
+		// Previous snapshots are not modified.
+		Assert.assertEquals(beforeRemoval.size(), 2);
+
+		registry.unregister("basic");
+		Assert.assertFalse(registry.containsAnnotation(HotBean.class));
+		Assert.assertTrue(registry.getBeans().isEmpty());
+	}
+
+	@Test
+	public void replaceWithSameName() {
+		HotBeanRegistry registry = new HotBeanRegistry();
+		registry.register("plugin", new AdvancedPlugin());
+		BasicPlugin replacement = new BasicPlugin();
+		registry.register("plugin", replacement);
+
+		Assert.assertEquals(registry.getBeansOfType(Plugin.class).size(), 1);
+		Assert.assertTrue(registry.getBeansOfType(Plugin.class).contains(replacement));
+		Assert.assertTrue(registry.getBeansOfType(ExtendedPlugin.class).isEmpty());
+	}
+
+	@Test
+	public void factoriesByType() {
+		HotBeanRegistry registry = new HotBeanRegistry();
+		HotBeanFactory<AdvancedPlugin> factory = new HotBeanFactory<>("advanced", AdvancedPlugin.class, BeanScope.PROTOTYPE, 0, bean -> {
+		}, () -> 0);
+		registry.register("basic", new BasicPlugin());
+		registry.register("advanced", factory);
+
+		Assert.assertTrue(registry.contains("advanced"));
+		Assert.assertEquals(registry.getBeansOfType(Plugin.class).size(), 1);
+		Assert.assertTrue(registry.getBeansOfType(HotBeanFactory.class).isEmpty());
+		Assert.assertEquals(registry.getBeansWithAnnotation(HotBean.class).size(), 1);
+		Assert.assertTrue(registry.getFactoriesOfType(ExtendedPlugin.class).contains(factory));
+		Assert.assertTrue(registry.getFactoriesOfType(Plugin.class).contains(factory));
+
+		registry.register("advanced", new AdvancedPlugin());
+		Assert.assertTrue(registry.getFactoriesOfType(Plugin.class).isEmpty());
+		Assert.assertEquals(registry.getBeansOfType(Plugin.class).size(), 2);
+	}
+
+	@Test(expectedExceptions = { UnsupportedOperationException.class })
+	public void snapshotsAreImmutable() {
+		HotBeanRegistry registry = new HotBeanRegistry();
+		registry.register("basic", new BasicPlugin());
+		registry.getBeansOfType(Plugin.class).clear();
+	}
+}
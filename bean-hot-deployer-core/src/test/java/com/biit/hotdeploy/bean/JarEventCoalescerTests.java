@@ -0,0 +1,89 @@
+package com.biit.hotdeploy.bean;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.biit.bean.loader.deploy.JarEventCoalescer;
+import com.biit.bean.loader.deploy.JarEventCoalescer.DeployBatch;
+import com.biit.bean.loader.deploy.JarEventCoalescer.JarEvent;
+
+@Test(groups = { "jarEventCoalescer" })
+public class JarEventCoalescerTests {
+
+	@Test
+	public void eventsCancelled() {
+		JarEventCoalescer coalescer = new JarEventCoalescer();
+		coalescer.add("new.jar", JarEvent.READY);
+		coalescer.add("new.jar", JarEvent.DELETED);
+		DeployBatch batch = coalescer.drain(pathToJar -> false);
+		Assert.assertTrue(batch.isEmpty());
+		Assert.assertTrue(coalescer.isEmpty());
+	}
+
+	@Test
+	public void addAndRemoveInsideWindow() {
+		JarEventCoalescer coalescer = new JarEventCoalescer();
+		coalescer.add("new.jar", JarEvent.READY);
+		coalescer.add("other.jar", JarEvent.READY);
+		Assert.assertTrue(coalescer.getRemainingDelay(10000) > 0);
+		Assert.assertFalse(coalescer.cancel("new.jar", JarEvent.DELETED));
+		Assert.assertTrue(coalescer.cancel("new.jar", JarEvent.READY));
+		Assert.assertFalse(coalescer.cancel("new.jar", JarEvent.READY));
+		DeployBatch batch = coalescer.drain(pathToJar -> false);
+		Assert.assertEquals(batch.getJarsToLoad(), Collections.singletonList("other.jar"));
+		Assert.assertTrue(batch.getJarsToRemove().isEmpty());
+	}
+
+	@Test
+	public void removeAndAddIsReplace() {
+		Set<String> deployed = new HashSet<>(Arrays.asList("deployed.jar", "removed.jar"));
+		JarEventCoalescer coalescer = new JarEventCoalescer();
+		coalescer.add("deployed.jar", JarEvent.DELETED);
+		coalescer.add("b.jar", JarEvent.READY);
+		coalescer.add("removed.jar", JarEvent.DELETED);
+		coalescer.add("a.jar", JarEvent.READY);
+		coalescer.add("deployed.jar", JarEvent.READY);
+		DeployBatch batch = coalescer.drain(deployed::contains);
+		Assert.assertEquals(batch.getJarsToLoad(), Arrays.asList("b.jar", "a.jar"));
+		Assert.assertEquals(batch.getJarsToReplace(), Collections.singletonList("deployed.jar"));
+		Assert.assertEquals(batch.getJarsToRemove(), Collections.singletonList("removed.jar"));
+	}
+
+	@Test
+	public void windowExtendedByEvents() throws InterruptedException {
+		JarEventCoalescer coalescer = new JarEventCoalescer();
+		coalescer.add("a.jar", JarEvent.READY);
+		Assert.assertTrue(coalescer.getRemainingDelay(10000) > 0);
+		Assert.assertTrue(coalescer.getRemainingDelay(0) <= 0);
+		Thread.sleep(50);
+		coalescer.add("b.jar", JarEvent.READY);
+		// Bounded by ten windows since the first event.
+		Assert.assertTrue(coalescer.getRemainingDelay(5) <= 0);
+	}
+}
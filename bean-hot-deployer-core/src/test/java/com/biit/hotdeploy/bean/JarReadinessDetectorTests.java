@@ -0,0 +1,100 @@
+package com.biit.hotdeploy.bean;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.biit.bean.loader.watcher.JarReadinessDetector;
+
+@Test(groups = { "jarReadiness" })
+public class JarReadinessDetectorTests {
+
+	private Path createJar(String comment) throws IOException {
+		Path jar = Files.createTempFile("plugin", ".jar");
+		jar.toFile().deleteOnExit();
+		try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(jar))) {
+			output.setComment(comment);
+			for (int i = 0; i < 10; i++) {
+				output.putNextEntry(new JarEntry("com/biit/Bean" + i + ".class"));
+				output.write(new byte[1024]);
+				output.closeEntry();
+			}
+		}
+		return jar;
+	}
+
+	@Test
+	public void completedJar() throws IOException {
+		Assert.assertTrue(JarReadinessDetector.isZipComplete(createJar(null)));
+		Assert.assertTrue(JarReadinessDetector.isZipComplete(createJar("A jar with comment")));
+	}
+
+	@Test
+	public void truncatedJar() throws IOException {
+		Path jar = createJar(null);
+		byte[] content = Files.readAllBytes(jar);
+		Path truncated = Files.createTempFile("truncated", ".jar");
+		truncated.toFile().deleteOnExit();
+		for (int size : new int[] { 0, 10, content.length / 2, content.length - 30, content.length - 1 }) {
+			Files.write(truncated, Arrays.copyOf(content, size));
+			Assert.assertFalse(JarReadinessDetector.isZipComplete(truncated), "Size " + size);
+		}
+		// Copy still in progress, but the file already has its final size.
+		byte[] preallocated = Arrays.copyOf(content, content.length);
+		Arrays.fill(preallocated, content.length / 2, content.length, (byte) 0);
+		Files.write(truncated, preallocated);
+		Assert.assertFalse(JarReadinessDetector.isZipComplete(truncated));
+	}
+
+	@Test
+	public void notAJar() throws IOException {
+		Path file = Files.createTempFile("plugin", ".jar");
+		file.toFile().deleteOnExit();
+		try (OutputStream output = Files.newOutputStream(file)) {
+			output.write("This is not a jar file, but it has enough bytes.".getBytes());
+		}
+		Assert.assertFalse(JarReadinessDetector.isZipComplete(file));
+		Assert.assertFalse(JarReadinessDetector.isZipComplete(file.resolveSibling("missing.jar")));
+	}
+
+	@Test
+	public void markerRequired() throws IOException {
+		Path jar = createJar(null);
+		JarReadinessDetector detector = new JarReadinessDetector(true);
+		Assert.assertFalse(detector.isReady(jar));
+		Path marker = JarReadinessDetector.getMarker(jar);
+		Files.createFile(marker);
+		marker.toFile().deleteOnExit();
+		Assert.assertTrue(detector.isReady(jar));
+		Assert.assertEquals(JarReadinessDetector.getJarOfMarker(marker), jar);
+		Assert.assertTrue(new JarReadinessDetector(false).isReady(createJar(null)));
+	}
+}
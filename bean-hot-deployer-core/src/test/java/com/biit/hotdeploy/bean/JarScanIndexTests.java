@@ -0,0 +1,103 @@
+package com.biit.hotdeploy.bean;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.biit.bean.loader.HotBean;
+import com.biit.bean.loader.scanner.JarFingerprint;
+import com.biit.bean.loader.scanner.JarScanIndex;
+import com.biit.bean.loader.scanner.ScannedClass;
+
+@Test(groups = { "jarScanIndex" })
+public class JarScanIndexTests {
+	private final static String PACKET = "com.biit";
+
+	private Path createJar(Path folder, String content) throws IOException {
+		Path jar = Files.createTempFile(folder, "plugin", ".jar");
+		Files.write(jar, content.getBytes());
+		jar.toFile().deleteOnExit();
+		return jar;
+	}
+
+	@Test
+	public void storeAndReload() throws IOException {
+		Path folder = Files.createTempDirectory("scanIndex");
+		folder.toFile().deleteOnExit();
+		Path indexFile = folder.resolve("index");
+		indexFile.toFile().deleteOnExit();
+		Path jar = createJar(folder, "jar content");
+
+		JarScanIndex index = JarScanIndex.load(indexFile);
+		JarFingerprint fingerprint = JarFingerprint.of(jar.toString());
+		Assert.assertNull(index.get(fingerprint, PACKET, HotBean.class.getName()));
+		index.put(fingerprint, PACKET, HotBean.class.getName(),
+				Arrays.asList(new ScannedClass("com.biit.Bean", true, 5, false, true), new ScannedClass("com.biit.Other", true, 0, false, false)));
+		index.save();
+
+		JarScanIndex reloadedIndex = JarScanIndex.load(indexFile);
+		List<ScannedClass> classes = reloadedIndex.get(JarFingerprint.of(jar.toString()), PACKET, HotBean.class.getName());
+		Assert.assertNotNull(classes);
+		Assert.assertEquals(classes.size(), 2);
+		Assert.assertEquals(classes.get(0).getClassName(), "com.biit.Bean");
+		Assert.assertEquals(classes.get(0).getPriority(), 5);
+		Assert.assertTrue(classes.get(0).isBeanCandidate());
+		Assert.assertFalse(classes.get(1).isBeanCandidate());
+	}
+
+	@Test
+	public void invalidateOnChange() throws IOException {
+		Path folder = Files.createTempDirectory("scanIndex");
+		folder.toFile().deleteOnExit();
+		Path jar = createJar(folder, "jar content");
+
+		JarScanIndex index = JarScanIndex.load(folder.resolve("index"));
+		index.put(JarFingerprint.of(jar.toString()), PACKET, HotBean.class.getName(), Arrays.asList(new ScannedClass("com.biit.Bean", true, 0, false, true)));
+
+		// Different packet filter.
+		Assert.assertNull(index.get(JarFingerprint.of(jar.toString()), "com.other", HotBean.class.getName()));
+
+		index.put(JarFingerprint.of(jar.toString()), PACKET, HotBean.class.getName(), Arrays.asList(new ScannedClass("com.biit.Bean", true, 0, false, true)));
+		Files.write(jar, "new jar content".getBytes());
+		Assert.assertNull(index.get(JarFingerprint.of(jar.toString()), PACKET, HotBean.class.getName()));
+	}
+
+	@Test
+	public void discardCorruptedIndex() throws IOException {
+		Path folder = Files.createTempDirectory("scanIndex");
+		folder.toFile().deleteOnExit();
+		Path indexFile = folder.resolve("index");
+		indexFile.toFile().deleteOnExit();
+		Files.write(indexFile, "not an index".getBytes());
+		Path jar = createJar(folder, "jar content");
+
+		JarScanIndex index = JarScanIndex.load(indexFile);
+		Assert.assertNull(index.get(JarFingerprint.of(jar.toString()), PACKET, HotBean.class.getName()));
+	}
+}
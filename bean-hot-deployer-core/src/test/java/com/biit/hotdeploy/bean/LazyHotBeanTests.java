@@ -0,0 +1,124 @@
+package com.biit.hotdeploy.bean;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.biit.bean.loader.HotBean;
+import com.biit.bean.loader.Instantiation;
+import com.biit.bean.loader.instantiation.LazyHotBeanProxy;
+import com.biit.bean.loader.registry.HotBeanRegistry;
+
+@Test(groups = { "lazyHotBean" })
+public class LazyHotBeanTests {
+
+	interface Plugin {
+		String getName();
+	}
+
+	@HotBean(instantiation = Instantiation.LAZY)
+	public static class LazyPlugin implements Plugin {
+
+		@Override
+		public String getName() {
+			return "lazy";
+		}
+	}
+
+	public final static class FinalPlugin implements Plugin {
+
+		@Override
+		public String getName() {
+			return "final";
+		}
+	}
+
+	@Test
+	public void createdOnFirstUse() {
+		AtomicInteger created = new AtomicInteger();
+		Object proxy = LazyHotBeanProxy.create(LazyPlugin.class, () -> {
+			created.incrementAndGet();
+			return new LazyPlugin();
+		});
+		Assert.assertTrue(proxy instanceof LazyPlugin);
+		Assert.assertTrue(LazyHotBeanProxy.isPending(proxy));
+		Assert.assertEquals(created.get(), 0);
+
+		Assert.assertEquals(((Plugin) proxy).getName(), "lazy");
+		Assert.assertEquals(((Plugin) proxy).getName(), "lazy");
+		Assert.assertFalse(LazyHotBeanProxy.isPending(proxy));
+		Assert.assertEquals(created.get(), 1);
+	}
+
+	@Test
+	public void createdOnceByConcurrentCalls() throws Exception {
+		AtomicInteger created = new AtomicInteger();
+		Plugin proxy = (Plugin) LazyHotBeanProxy.create(LazyPlugin.class, () -> {
+			created.incrementAndGet();
+			Thread.sleep(50);
+			return new LazyPlugin();
+		});
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Callable<String>> calls = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				calls.add(proxy::getName);
+			}
+			for (Future<String> result : executor.invokeAll(calls)) {
+				Assert.assertEquals(result.get(), "lazy");
+			}
+		} finally {
+			executor.shutdown();
+		}
+		Assert.assertEquals(created.get(), 1);
+	}
+
+	@Test
+	public void registeredWithoutCreation() {
+		AtomicInteger created = new AtomicInteger();
+		Object proxy = LazyHotBeanProxy.create(LazyPlugin.class, () -> {
+			created.incrementAndGet();
+			return new LazyPlugin();
+		});
+		HotBeanRegistry registry = new HotBeanRegistry();
+		registry.register("lazy", proxy);
+		Assert.assertTrue(registry.getBeansOfType(Plugin.class).contains(proxy));
+		Assert.assertTrue(registry.getBeansWithAnnotation(HotBean.class).contains(proxy));
+		Assert.assertEquals(created.get(), 0);
+	}
+
+	@Test
+	public void finalClassesNotProxied() {
+		Assert.assertTrue(LazyHotBeanProxy.canBeProxied(LazyPlugin.class));
+		Assert.assertFalse(LazyHotBeanProxy.canBeProxied(FinalPlugin.class));
+		Assert.assertFalse(LazyHotBeanProxy.canBeProxied(Plugin.class));
+	}
+}
@@ -0,0 +1,230 @@
+package com.biit.hotdeploy.bean;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.biit.bean.loader.classloader.MappedJar;
+import com.biit.bean.loader.classloader.PluginClassLoader;
+
+@Test(groups = { "mappedJar" })
+public class MappedJarTests {
+	private final static String STORED_ENTRY = "stored.txt";
+	private final static String DEFLATED_ENTRY = "deflated.txt";
+	private final static byte[] CONTENT = "Some content, some content, some content.".getBytes(StandardCharsets.UTF_8);
+
+	private byte[] createLibrary(String resourceName) throws IOException {
+		ByteArrayOutputStream library = new ByteArrayOutputStream();
+		try (JarOutputStream output = new JarOutputStream(library)) {
+			String className = MappedJarTests.class.getName().replace('.', '/') + ".class";
+			output.putNextEntry(new JarEntry(className));
+			try (InputStream input = getClass().getClassLoader().getResourceAsStream(className)) {
+				output.write(input.readAllBytes());
+			}
+			output.closeEntry();
+			output.putNextEntry(new JarEntry(resourceName));
+			output.write(CONTENT);
+			output.closeEntry();
+		}
+		return library.toByteArray();
+	}
+
+	private Path createFatJar() throws IOException {
+		Path jar = Files.createTempFile("fat", ".jar");
+		jar.toFile().deleteOnExit();
+		try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(jar))) {
+			byte[] storedLibrary = createLibrary(STORED_ENTRY);
+			JarEntry storedEntry = new JarEntry("BOOT-INF/lib/stored.jar");
+			storedEntry.setMethod(ZipEntry.STORED);
+			storedEntry.setSize(storedLibrary.length);
+			CRC32 crc = new CRC32();
+			crc.update(storedLibrary);
+			storedEntry.setCrc(crc.getValue());
+			output.putNextEntry(storedEntry);
+			output.write(storedLibrary);
+			output.closeEntry();
+
+			output.putNextEntry(new JarEntry("lib/deflated.jar"));
+			output.write(createLibrary(DEFLATED_ENTRY));
+			output.closeEntry();
+
+			// Not a library folder.
+			output.putNextEntry(new JarEntry("other/ignored.jar"));
+			output.write(createLibrary("ignored.txt"));
+			output.closeEntry();
+		}
+		return jar;
+	}
+
+	private Path createJar() throws IOException {
+		Path jar = Files.createTempFile("mapped", ".jar");
+		jar.toFile().deleteOnExit();
+		try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(jar))) {
+			JarEntry storedEntry = new JarEntry(STORED_ENTRY);
+			storedEntry.setMethod(ZipEntry.STORED);
+			storedEntry.setSize(CONTENT.length);
+			CRC32 crc = new CRC32();
+			crc.update(CONTENT);
+			storedEntry.setCrc(crc.getValue());
+			output.putNextEntry(storedEntry);
+			output.write(CONTENT);
+			output.closeEntry();
+
+			output.putNextEntry(new JarEntry(DEFLATED_ENTRY));
+			output.write(CONTENT);
+			output.closeEntry();
+
+			String className = MappedJarTests.class.getName().replace('.', '/') + ".class";
+			output.putNextEntry(new JarEntry(className));
+			try (InputStream input = getClass().getClassLoader().getResourceAsStream(className)) {
+				output.write(input.readAllBytes());
+			}
+			output.closeEntry();
+		}
+		return jar;
+	}
+
+	@Test
+	public void readEntries() throws IOException {
+		try (MappedJar mappedJar = MappedJar.open(createJar())) {
+			Assert.assertTrue(mappedJar.hasEntry(STORED_ENTRY));
+			Assert.assertFalse(mappedJar.hasEntry("missing.txt"));
+			Assert.assertEquals(mappedJar.getSize(DEFLATED_ENTRY), CONTENT.length);
+			Assert.assertEquals(mappedJar.readBytes(STORED_ENTRY), CONTENT);
+			Assert.assertEquals(mappedJar.readBytes(DEFLATED_ENTRY), CONTENT);
+		}
+	}
+
+	@Test(expectedExceptions = IOException.class)
+	public void readAfterClose() throws IOException {
+		MappedJar mappedJar = MappedJar.open(createJar());
+		mappedJar.close();
+		mappedJar.readBytes(STORED_ENTRY);
+	}
+
+	@Test(expectedExceptions = IOException.class)
+	public void invalidJar() throws IOException {
+		Path file = Files.createTempFile("invalid", ".jar");
+		file.toFile().deleteOnExit();
+		Files.write(file, CONTENT);
+		MappedJar.open(file);
+	}
+
+	@Test(expectedExceptions = IOException.class, expectedExceptionsMessageRegExp = ".*modified while mapped.*")
+	public void readTruncatedJar() throws IOException {
+		Path jar = createJar();
+		try (MappedJar mappedJar = MappedJar.open(jar)) {
+			// Modified in place instead of replaced.
+			try (FileChannel channel = FileChannel.open(jar, StandardOpenOption.WRITE)) {
+				channel.truncate(0);
+			}
+			mappedJar.readBytes(STORED_ENTRY);
+		}
+	}
+
+	@Test(expectedExceptions = IOException.class, expectedExceptionsMessageRegExp = ".*modified while mapped.*")
+	public void readOverwrittenJar() throws IOException {
+		Path jar = createJar();
+		try (MappedJar mappedJar = MappedJar.open(jar)) {
+			// Same offsets, but a different content.
+			byte[] file = Files.readAllBytes(jar);
+			byte[] newContent = new String(CONTENT, StandardCharsets.UTF_8).toUpperCase().getBytes(StandardCharsets.UTF_8);
+			int position = new String(file, StandardCharsets.ISO_8859_1).indexOf(new String(CONTENT, StandardCharsets.ISO_8859_1));
+			try (FileChannel channel = FileChannel.open(jar, StandardOpenOption.WRITE)) {
+				channel.write(ByteBuffer.wrap(newContent), position);
+			}
+			mappedJar.readBytes(STORED_ENTRY);
+		}
+	}
+
+	@Test
+	public void nestedJars() throws IOException {
+		MappedJar mappedJar = MappedJar.open(createFatJar());
+		MappedJar storedLibrary;
+		try {
+			storedLibrary = mappedJar.openNested("BOOT-INF/lib/stored.jar");
+			MappedJar deflatedLibrary = mappedJar.openNested("lib/deflated.jar");
+			Assert.assertTrue(storedLibrary.isNested());
+			Assert.assertEquals(storedLibrary.readBytes(STORED_ENTRY), CONTENT);
+			Assert.assertEquals(deflatedLibrary.readBytes(DEFLATED_ENTRY), CONTENT);
+		} finally {
+			mappedJar.close();
+		}
+		try {
+			storedLibrary.readBytes(STORED_ENTRY);
+			Assert.fail("Nested jar must be closed with its container.");
+		} catch (IOException e) {
+			// Expected.
+		}
+	}
+
+	@Test
+	public void classesAndResourcesFromNestedJars() throws Exception {
+		try (PluginClassLoader classLoader = new PluginClassLoader(createFatJar(), ClassLoader.getPlatformClassLoader(), null)) {
+			Assert.assertEquals(classLoader.getJars().size(), 3);
+			Class<?> loadedClass = classLoader.loadClass(MappedJarTests.class.getName());
+			Assert.assertSame(loadedClass.getClassLoader(), classLoader);
+
+			URL resource = classLoader.getResource(DEFLATED_ENTRY);
+			Assert.assertNotNull(resource);
+			Assert.assertTrue(resource.toString().endsWith("!/lib/deflated.jar!/" + DEFLATED_ENTRY));
+			try (InputStream input = resource.openStream()) {
+				Assert.assertEquals(input.readAllBytes(), CONTENT);
+			}
+			Assert.assertNull(classLoader.getResource("ignored.txt"));
+			Assert.assertEquals(Collections.list(classLoader.getResources(MappedJarTests.class.getName().replace('.', '/') + ".class")).size(), 2);
+		}
+	}
+
+	@Test
+	public void classesAndResourcesFromMapping() throws Exception {
+		try (PluginClassLoader classLoader = new PluginClassLoader(createJar(), ClassLoader.getPlatformClassLoader(), null)) {
+			Class<?> loadedClass = classLoader.loadClass(MappedJarTests.class.getName());
+			Assert.assertSame(loadedClass.getClassLoader(), classLoader);
+			Assert.assertNotSame(loadedClass, MappedJarTests.class);
+
+			URL resource = classLoader.getResource(DEFLATED_ENTRY);
+			Assert.assertNotNull(resource);
+			Assert.assertEquals(resource.getProtocol(), "jar");
+			try (InputStream input = resource.openStream()) {
+				Assert.assertEquals(input.readAllBytes(), CONTENT);
+			}
+		}
+	}
+}
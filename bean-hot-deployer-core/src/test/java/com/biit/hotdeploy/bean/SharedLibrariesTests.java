@@ -0,0 +1,105 @@
+package com.biit.hotdeploy.bean;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.biit.bean.loader.HotBean;
+import com.biit.bean.loader.classloader.DuplicateClassIndex;
+import com.biit.bean.loader.classloader.PluginClassLoader;
+import com.biit.bean.loader.classloader.SharedLibraries;
+import com.biit.bean.loader.scanner.ClassFileScanner;
+
+@Test(groups = { "sharedLibraries" })
+public class SharedLibrariesTests {
+	// Cannot see the test classes.
+	private final static ClassLoader PARENT = ClassLoader.getPlatformClassLoader();
+
+	@Test
+	public void repeatedClassesSelected() throws IOException {
+		List<Path> jars = Arrays.asList(TestJars.createJar(SharedUtility.class, DependentUtility.class, LocalHelper.class, SharedHotBean.class),
+				TestJars.createJar(SharedUtility.class, DependentUtility.class, SharedHotBean.class));
+		DuplicateClassIndex index = DuplicateClassIndex.build(jars, PARENT, new ClassFileScanner(HotBean.class));
+		Assert.assertTrue(index.getClassBytes().containsKey(SharedUtility.class.getName()));
+		// Refers to a class of only one jar.
+		Assert.assertFalse(index.getClassBytes().containsKey(DependentUtility.class.getName()));
+		Assert.assertFalse(index.getClassBytes().containsKey(LocalHelper.class.getName()));
+		// Beans belong to each plugin.
+		Assert.assertFalse(index.getClassBytes().containsKey(SharedHotBean.class.getName()));
+	}
+
+	@Test
+	public void repeatedClassesDefinedOnce() throws Exception {
+		Path firstJar = TestJars.createJar(SharedUtility.class, DependentUtility.class, LocalHelper.class);
+		Path secondJar = TestJars.createJar(SharedUtility.class, DependentUtility.class, LocalHelper.class);
+		try (SharedLibraries sharedLibraries = SharedLibraries.create(null, Arrays.asList(firstJar, secondJar), new ClassFileScanner(HotBean.class),
+				PARENT);
+				PluginClassLoader firstLoader = sharedLibraries.newPluginClassLoader(firstJar);
+				PluginClassLoader secondLoader = sharedLibraries.newPluginClassLoader(secondJar)) {
+			Class<?> firstClass = firstLoader.loadClass(DependentUtility.class.getName());
+			Class<?> secondClass = secondLoader.loadClass(DependentUtility.class.getName());
+			Assert.assertSame(firstClass, secondClass);
+			Assert.assertSame(firstClass.getClassLoader(), sharedLibraries.getPluginParent());
+		}
+	}
+
+	@Test
+	public void withoutLibrariesNorDuplicates() throws Exception {
+		Path jar = TestJars.createJar(SharedUtility.class);
+		try (SharedLibraries sharedLibraries = SharedLibraries.create(null, Collections.singletonList(jar), new ClassFileScanner(HotBean.class),
+				PARENT); PluginClassLoader loader = sharedLibraries.newPluginClassLoader(jar)) {
+			Assert.assertSame(sharedLibraries.getPluginParent(), PARENT);
+			Assert.assertSame(loader.loadClass(SharedUtility.class.getName()).getClassLoader(), loader);
+		}
+	}
+}
+
+class SharedUtility {
+
+	static int twice(int value) {
+		return value * 2;
+	}
+}
+
+class LocalHelper {
+
+}
+
+class DependentUtility {
+	private LocalHelper helper;
+
+	LocalHelper getHelper() {
+		return helper;
+	}
+}
+
+@HotBean
+class SharedHotBean {
+
+}
@@ -0,0 +1,95 @@
+package com.biit.hotdeploy.bean;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.util.concurrent.CompletableFuture;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.biit.bean.loader.deploy.StartupReadiness;
+import com.biit.bean.loader.deploy.StartupReadiness.State;
+import com.biit.bean.loader.deploy.StartupReadiness.Tier;
+
+@Test(groups = { "startupReadiness" })
+public class StartupReadinessTests {
+
+	@Test
+	public void tiersByPriority() {
+		StartupReadiness readiness = new StartupReadiness(10);
+		Assert.assertEquals(readiness.getTier(20), Tier.CRITICAL);
+		Assert.assertEquals(readiness.getTier(10), Tier.CRITICAL);
+		Assert.assertEquals(readiness.getTier(9), Tier.BACKGROUND);
+		Assert.assertEquals(readiness.getTier(0), Tier.BACKGROUND);
+	}
+
+	@Test
+	public void withoutThresholdAllBeansAreCritical() {
+		StartupReadiness readiness = new StartupReadiness(null);
+		Assert.assertEquals(readiness.getTier(Integer.MIN_VALUE), Tier.CRITICAL);
+		Assert.assertEquals(readiness.getTier(0), Tier.CRITICAL);
+	}
+
+	@Test
+	public void criticalTierReadyFirst() {
+		StartupReadiness readiness = new StartupReadiness(10);
+		CompletableFuture<Void> criticalReady = readiness.whenReady(Tier.CRITICAL);
+		CompletableFuture<Void> backgroundReady = readiness.whenReady(Tier.BACKGROUND);
+		Assert.assertEquals(readiness.getState(Tier.CRITICAL), State.PENDING);
+
+		readiness.loading(Tier.CRITICAL);
+		Assert.assertEquals(readiness.getState(Tier.CRITICAL), State.LOADING);
+		Assert.assertFalse(criticalReady.isDone());
+
+		readiness.ready(Tier.CRITICAL);
+		Assert.assertTrue(criticalReady.isDone());
+		Assert.assertTrue(readiness.isReady(15));
+		Assert.assertFalse(readiness.isReady(5));
+		Assert.assertFalse(readiness.isReady());
+		Assert.assertFalse(backgroundReady.isDone());
+
+		readiness.loading(Tier.BACKGROUND);
+		readiness.ready(Tier.BACKGROUND);
+		Assert.assertTrue(backgroundReady.isDone());
+		Assert.assertTrue(readiness.isReady(5));
+		Assert.assertTrue(readiness.isReady());
+	}
+
+	@Test
+	public void failedTier() {
+		StartupReadiness readiness = new StartupReadiness(10);
+		CompletableFuture<Void> backgroundReady = readiness.whenReady(Tier.BACKGROUND);
+		readiness.ready(Tier.CRITICAL);
+		readiness.failed(Tier.BACKGROUND, new IllegalStateException("Jar removed."));
+		Assert.assertEquals(readiness.getState(Tier.BACKGROUND), State.FAILED);
+		Assert.assertTrue(backgroundReady.isCompletedExceptionally());
+		Assert.assertFalse(readiness.isReady());
+	}
+
+	@Test
+	public void callersCannotCompleteTiers() {
+		StartupReadiness readiness = new StartupReadiness(10);
+		readiness.whenReady(Tier.CRITICAL).complete(null);
+		Assert.assertFalse(readiness.whenReady(Tier.CRITICAL).isDone());
+		Assert.assertFalse(readiness.isReady(Tier.CRITICAL));
+	}
+}
@@ -0,0 +1,72 @@
+package com.biit.hotdeploy.bean;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.biit.bean.loader.BeanLoader;
+
+/**
+ * Creates application contexts with a bean loader, to deploy jars with the
+ * classes of the plugin package.
+ */
+public final class TestContexts {
+	public final static String PLUGIN_PACKET = "com.biit.hotdeploy.bean.plugin";
+
+	private TestContexts() {
+	}
+
+	/**
+	 * Hides the plugin classes of the tests, so they are defined by the
+	 * classloader of each jar.
+	 */
+	private static class PluginHidingClassLoader extends ClassLoader {
+
+		PluginHidingClassLoader() {
+			super(TestContexts.class.getClassLoader());
+		}
+
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			if (name.startsWith(PLUGIN_PACKET + ".")) {
+				throw new ClassNotFoundException(name);
+			}
+			return super.loadClass(name, resolve);
+		}
+	}
+
+	/**
+	 * @param componentClasses
+	 *            other beans or configurations of the context.
+	 * @return a refreshed context with a bean loader. Must be closed.
+	 */
+	public static AnnotationConfigApplicationContext createContext(Class<?>... componentClasses) {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setClassLoader(new PluginHidingClassLoader());
+		context.register(BeanLoader.class);
+		if (componentClasses.length > 0) {
+			context.register(componentClasses);
+		}
+		context.refresh();
+		return context;
+	}
+}
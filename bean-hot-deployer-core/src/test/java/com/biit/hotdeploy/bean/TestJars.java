@@ -0,0 +1,127 @@
+package com.biit.hotdeploy.bean;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.testng.Assert;
+
+import com.biit.hotdeploy.bean.plugin.ServiceClientImpl;
+import com.biit.hotdeploy.bean.plugin.ServiceImpl;
+
+/**
+ * Creates plugin jars with classes of the tests.
+ */
+public final class TestJars {
+	// Version of the plugin classes, as compiled.
+	public final static String PLUGIN_VERSION = "version-1";
+
+	private TestJars() {
+	}
+
+	public static String getEntryName(Class<?> type) {
+		return type.getName().replace('.', '/') + ".class";
+	}
+
+	/**
+	 * @return the bytes of a class of the tests.
+	 */
+	public static byte[] readClass(Class<?> type) throws IOException {
+		try (InputStream input = TestJars.class.getClassLoader().getResourceAsStream(getEntryName(type))) {
+			return input.readAllBytes();
+		}
+	}
+
+	/**
+	 * Creates a temporary jar with the classes.
+	 */
+	public static Path createJar(Class<?>... classes) throws IOException {
+		Map<String, byte[]> entries = new LinkedHashMap<>();
+		for (Class<?> type : classes) {
+			entries.put(getEntryName(type), readClass(type));
+		}
+		return createJar(entries);
+	}
+
+	/**
+	 * Creates a temporary jar with the entries, by name.
+	 */
+	public static Path createJar(Map<String, byte[]> entries) throws IOException {
+		Path jar = Files.createTempFile("plugin", ".jar");
+		jar.toFile().deleteOnExit();
+		try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(jar))) {
+			for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+				output.putNextEntry(new JarEntry(entry.getKey()));
+				output.write(entry.getValue());
+				output.closeEntry();
+			}
+		}
+		return jar;
+	}
+
+	/**
+	 * @return the bytes of a class of the plugin package, with another
+	 *         version.
+	 */
+	public static byte[] readClass(Class<?> type, String version) throws IOException {
+		byte[] classBytes = readClass(type);
+		replaceConstant(classBytes, PLUGIN_VERSION, version);
+		return classBytes;
+	}
+
+	/**
+	 * Creates a temporary jar with a version of the service and its client
+	 * of the plugin package.
+	 */
+	public static Path createPluginJar(String serviceVersion, String clientVersion) throws IOException {
+		Map<String, byte[]> entries = new LinkedHashMap<>();
+		entries.put(getEntryName(ServiceImpl.class), readClass(ServiceImpl.class, serviceVersion));
+		entries.put(getEntryName(ServiceClientImpl.class), readClass(ServiceClientImpl.class, clientVersion));
+		return createJar(entries);
+	}
+
+	/**
+	 * Changes a constant of a class, keeping its length.
+	 */
+	public static void replaceConstant(byte[] classBytes, String text, String replacement) {
+		byte[] textBytes = text.getBytes(StandardCharsets.UTF_8);
+		for (int i = 0; i <= classBytes.length - textBytes.length; i++) {
+			boolean found = true;
+			for (int j = 0; j < textBytes.length && found; j++) {
+				found = classBytes[i + j] == textBytes[j];
+			}
+			if (found) {
+				System.arraycopy(replacement.getBytes(StandardCharsets.UTF_8), 0, classBytes, i, textBytes.length);
+				return;
+			}
+		}
+		Assert.fail("Constant '" + text + "' not found.");
+	}
+}
@@ -0,0 +1,54 @@
+package com.biit.hotdeploy.bean.plugin;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.biit.bean.loader.HotBean;
+import com.biit.hotdeploy.bean.ServiceClient;
+import com.biit.hotdeploy.bean.VersionedService;
+
+@HotBean
+public class ServiceClientImpl implements ServiceClient {
+	// Changed by the tests to create new versions.
+	private final static String VERSION = "version-1";
+
+	@Autowired
+	private VersionedService service;
+
+	public ServiceClientImpl() {
+		// A version that cannot be created.
+		if (VERSION.startsWith("failure")) {
+			throw new IllegalStateException("Broken version.");
+		}
+	}
+
+	@Override
+	public String getVersion() {
+		return VERSION;
+	}
+
+	@Override
+	public VersionedService getService() {
+		return service;
+	}
+}
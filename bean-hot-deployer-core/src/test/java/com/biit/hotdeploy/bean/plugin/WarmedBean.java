@@ -0,0 +1,47 @@
+package com.biit.hotdeploy.bean.plugin;
+
+/*-
+ * #%L
+ * Bean Hot Deployer (Core)
+ * %%
+ * Copyright (C) 2022 - 2025 BiiT Sourcing Solutions S.L.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+
+import com.biit.bean.loader.HotBean;
+import com.biit.bean.loader.HotBeanWarmup;
+
+/**
+ * Tells if the context already has the bean while it is warmed up.
+ */
+@HotBean
+public class WarmedBean {
+	public final static String WARMUP_PROPERTY = "warmedBean.warmup";
+	// Changed by the tests to create new versions.
+	private final static String VERSION = "version-1";
+
+	@Autowired
+	private ApplicationContext context;
+
+	@HotBeanWarmup(iterations = 1)
+	public void warmup() {
+		boolean visible = !context.getBeansOfType(getClass()).isEmpty();
+		System.setProperty(WARMUP_PROPERTY, String.join(" ", VERSION, visible ? "visible" : "hidden"));
+	}
+}